@@ -0,0 +1,16 @@
+package com.asseco.android.proj.benchmarks;
+
+/**
+ * Settings shared by the benchmarks, the coordinate systems, projections and points are
+ * those of the tests, see {@code com.asseco.android.proj.TestData}.
+ */
+public final class BenchmarkData {
+    /**
+     * Number of points transformed by the bulk benchmarks.
+     */
+    public static final int POINTS = 1024;
+
+    private BenchmarkData() {
+    }
+
+}
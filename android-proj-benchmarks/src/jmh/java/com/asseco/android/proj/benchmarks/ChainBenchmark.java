@@ -0,0 +1,95 @@
+package com.asseco.android.proj.benchmarks;
+
+import com.asseco.android.proj.CoordinateSystemWktReader;
+import com.asseco.android.proj.ICoordinateSystem;
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.transformations.ConcatenatedTransform;
+import com.asseco.android.proj.transformations.CoordinateTransformationFactory;
+import com.asseco.android.proj.transformations.ICoordinateTransformation;
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full transformation chains created by the factory, WGS 84 to S-JTSK / Krovak as in the README
+ * and WGS 84 to ETRS89 / UTM 33N.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ChainBenchmark {
+    private final CoordinateTransformationFactory _factory = new CoordinateTransformationFactory();
+    private ICoordinateSystem _wgs84;
+    private ICoordinateSystem _krovak;
+    private IMathTransform _toKrovak;
+    private IMathTransform _toKrovakPipeline;
+    private IMathTransform _toUtm;
+    private double[] _points;
+    private double[] _result;
+    private double[] _point;
+
+    @Setup
+    public void setup() throws Exception {
+        _wgs84 = (ICoordinateSystem) CoordinateSystemWktReader.parse(TestData.WGS84);
+        _krovak = (ICoordinateSystem) CoordinateSystemWktReader.parse(TestData.KROVAK);
+        ICoordinateSystem utm = (ICoordinateSystem) CoordinateSystemWktReader.parse(TestData.UTM33);
+        _toKrovak = _factory.createFromCoordinateSystems(_wgs84, _krovak).getMathTransform();
+        _toKrovakPipeline = _toKrovak instanceof ConcatenatedTransform ? ((ConcatenatedTransform) _toKrovak).compile() : _toKrovak;
+        _toUtm = _factory.createFromCoordinateSystems(_wgs84, utm).getMathTransform();
+        _points = TestData.createGeographicPoints(BenchmarkData.POINTS, 2);
+        _result = new double[_points.length];
+        _point = new double[]{14.42, 50.08};
+    }
+
+    @Benchmark
+    public ICoordinateTransformation createCached() throws Exception {
+        return _factory.createFromCoordinateSystems(_wgs84, _krovak);
+    }
+
+    @Benchmark
+    public ICoordinateTransformation createUncached() throws Exception {
+        CoordinateTransformationFactory.clearCache();
+        return _factory.createFromCoordinateSystems(_wgs84, _krovak);
+    }
+
+    @Benchmark
+    public double[] krovakPoint() throws Exception {
+        return _toKrovak.transform(_point);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] krovakPacked() throws Exception {
+        _toKrovak.transform(_points, 0, _result, 0, BenchmarkData.POINTS, 2);
+        return _result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] krovakPipelinePacked() throws Exception {
+        _toKrovakPipeline.transform(_points, 0, _result, 0, BenchmarkData.POINTS, 2);
+        return _result;
+    }
+
+    @Benchmark
+    public double[] utmPoint() throws Exception {
+        return _toUtm.transform(_point);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] utmPacked() throws Exception {
+        _toUtm.transform(_points, 0, _result, 0, BenchmarkData.POINTS, 2);
+        return _result;
+    }
+
+}
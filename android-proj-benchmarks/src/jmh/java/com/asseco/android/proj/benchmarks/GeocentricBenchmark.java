@@ -0,0 +1,105 @@
+package com.asseco.android.proj.benchmarks;
+
+import com.asseco.android.proj.ProjectionParameter;
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.Wgs84ConversionInfo;
+import com.asseco.android.proj.transformations.DatumTransform;
+import com.asseco.android.proj.transformations.GeocentricTransform;
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geographic to geocentric conversion and the Bursa Wolf datum shift of S-JTSK.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeocentricBenchmark {
+    private IMathTransform _geocentric;
+    private IMathTransform _geographic;
+    private IMathTransform _datum;
+    private IMathTransform _datumInverse;
+    private double[] _geographicPoints;
+    private double[] _geocentricPoints;
+    private double[] _result;
+    private double[] _geographicPoint;
+    private double[] _geocentricPoint;
+
+    @Setup
+    public void setup() throws Exception {
+        List<ProjectionParameter> parameters = new ArrayList<ProjectionParameter>();
+        parameters.add(new ProjectionParameter("semi_major", 6377397.155));
+        parameters.add(new ProjectionParameter("semi_minor", 6356078.962818189));
+        _geocentric = new GeocentricTransform(parameters);
+        _geographic = _geocentric.inverse();
+        _datum = new DatumTransform(new Wgs84ConversionInfo(570.8, 85.7, 462.8, 4.998, 1.587, 5.261, 3.56));
+        _datumInverse = _datum.inverse();
+        _geographicPoints = TestData.createGeographicPoints(BenchmarkData.POINTS, 3);
+        _geocentricPoints = new double[_geographicPoints.length];
+        _geocentric.transform(_geographicPoints, 0, _geocentricPoints, 0, BenchmarkData.POINTS, 3);
+        _result = new double[_geographicPoints.length];
+        _geographicPoint = new double[]{_geographicPoints[0], _geographicPoints[1], _geographicPoints[2]};
+        _geocentricPoint = new double[]{_geocentricPoints[0], _geocentricPoints[1], _geocentricPoints[2]};
+    }
+
+    @Benchmark
+    public double[] geocentricPoint() throws Exception {
+        return _geocentric.transform(_geographicPoint);
+    }
+
+    @Benchmark
+    public double[] geographicPoint() throws Exception {
+        return _geographic.transform(_geocentricPoint);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] geocentricPacked() throws Exception {
+        _geocentric.transform(_geographicPoints, 0, _result, 0, BenchmarkData.POINTS, 3);
+        return _result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] geographicPacked() throws Exception {
+        _geographic.transform(_geocentricPoints, 0, _result, 0, BenchmarkData.POINTS, 3);
+        return _result;
+    }
+
+    @Benchmark
+    public double[] datumPoint() throws Exception {
+        return _datum.transform(_geocentricPoint);
+    }
+
+    @Benchmark
+    public double[] datumInversePoint() throws Exception {
+        return _datumInverse.transform(_geocentricPoint);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] datumPacked() throws Exception {
+        _datum.transform(_geocentricPoints, 0, _result, 0, BenchmarkData.POINTS, 3);
+        return _result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] datumInversePacked() throws Exception {
+        _datumInverse.transform(_geocentricPoints, 0, _result, 0, BenchmarkData.POINTS, 3);
+        return _result;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.asseco.android.proj.benchmarks;
+
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forward and inverse of every map projection, for a single point and for a packed buffer,
+ * and the packed derivatives of the forward projection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+    @Param({"Mercator_1SP", "Google_Mercator", "Transverse_Mercator", "Kruger_Transverse_Mercator", "Albers", "Krovak", "Polyconic", "Lambert_Conformal_Conic_2SP", "Cassini_Soldner", "Hotine_Oblique_Mercator", "Oblique_Mercator", "Oblique_Stereographic"})
+    public String projection;
+
+    private IMathTransform _forward;
+    private IMathTransform _inverse;
+    private double[] _geographic;
+    private double[] _projected;
+    private double[] _result;
+    private double[] _matrices;
+    private double[] _geographicPoint;
+    private double[] _projectedPoint;
+
+    @Setup
+    public void setup() throws Exception {
+        _forward = TestData.createProjection(projection);
+        _inverse = _forward.inverse();
+        _geographic = TestData.createGeographicPoints(BenchmarkData.POINTS, 2);
+        _projected = new double[_geographic.length];
+        _forward.transform(_geographic, 0, _projected, 0, BenchmarkData.POINTS, 2);
+        _result = new double[_geographic.length];
+        _matrices = new double[_geographic.length * 2];
+        _geographicPoint = new double[]{_geographic[0], _geographic[1]};
+        _projectedPoint = new double[]{_projected[0], _projected[1]};
+    }
+
+    @Benchmark
+    public double[] forwardPoint() throws Exception {
+        return _forward.transform(_geographicPoint);
+    }
+
+    @Benchmark
+    public double[] inversePoint() throws Exception {
+        return _inverse.transform(_projectedPoint);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] forwardPacked() throws Exception {
+        _forward.transform(_geographic, 0, _result, 0, BenchmarkData.POINTS, 2);
+        return _result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] inversePacked() throws Exception {
+        _inverse.transform(_projected, 0, _result, 0, BenchmarkData.POINTS, 2);
+        return _result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.POINTS)
+    public double[] derivativePacked() throws Exception {
+        _forward.derivative(_geographic, 0, _matrices, 0, BenchmarkData.POINTS, 2);
+        return _matrices;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.asseco.android.proj.benchmarks;
+
+import com.asseco.android.proj.CoordinateSystemWktReader;
+import com.asseco.android.proj.IInfo;
+import com.asseco.android.proj.TestData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of coordinate system WKT. The cache of the reader is disabled, so every call
+ * tokenizes and parses the text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WktBenchmark {
+    private int _cacheSize;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        _cacheSize = CoordinateSystemWktReader.getCacheSize();
+        CoordinateSystemWktReader.setCacheSize(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CoordinateSystemWktReader.setCacheSize(_cacheSize);
+    }
+
+    @Benchmark
+    public IInfo parseGeographic() throws Exception {
+        return CoordinateSystemWktReader.parse(TestData.WGS84);
+    }
+
+    @Benchmark
+    public IInfo parseKrovak() throws Exception {
+        return CoordinateSystemWktReader.parse(TestData.KROVAK);
+    }
+
+    @Benchmark
+    public IInfo parseUtm() throws Exception {
+        return CoordinateSystemWktReader.parse(TestData.UTM33);
+    }
+
+}
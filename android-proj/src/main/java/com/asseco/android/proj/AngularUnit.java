@@ -87,6 +87,7 @@ public class AngularUnit extends Info implements IAngularUnit {
     }
 
     public void setRadiansPerUnit(double value) throws Exception {
+        checkModifiable();
         _RadiansPerUnit = value;
     }
 
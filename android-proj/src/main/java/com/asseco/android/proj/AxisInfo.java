@@ -7,6 +7,7 @@ package com.asseco.android.proj;
 public class AxisInfo {
     private String _Name;
     private AxisOrientationEnum _Orientation = AxisOrientationEnum.Other;
+    private boolean _Frozen;
 
     /**
      * Initializes a new instance of an AxisInfo.
@@ -37,6 +38,7 @@ public class AxisInfo {
      * @throws Exception the exception
      */
     public void setName(String value) throws Exception {
+        checkModifiable();
         _Name = value;
     }
 
@@ -57,9 +59,22 @@ public class AxisInfo {
      * @throws Exception the exception
      */
     public void setOrientation(AxisOrientationEnum value) throws Exception {
+        checkModifiable();
         _Orientation = value;
     }
 
+    /**
+     * Makes the axis unmodifiable, it is frozen with the object it belongs to.
+     */
+    void freeze() {
+        _Frozen = true;
+    }
+
+    private void checkModifiable() {
+        if (_Frozen)
+            throw new UnsupportedOperationException("The object is shared and cannot be modified.");
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
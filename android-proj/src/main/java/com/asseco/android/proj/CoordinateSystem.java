@@ -1,6 +1,7 @@
 package com.asseco.android.proj;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -66,6 +67,7 @@ public abstract class CoordinateSystem extends Info implements ICoordinateSystem
      * @throws Exception the exception
      */
     public void setAxisInfo(List<AxisInfo> value) throws Exception {
+        checkModifiable();
         _AxisInfo = value;
     }
 
@@ -92,6 +94,9 @@ public abstract class CoordinateSystem extends Info implements ICoordinateSystem
      * to (+r,+r,+r) where r is the approximate radius of the Earth.
      */
     public double[] getDefaultEnvelope() throws Exception {
+        if (isFrozen() && _DefaultEnvelope != null)
+            return _DefaultEnvelope.clone();
+
         return _DefaultEnvelope;
     }
 
@@ -102,9 +107,19 @@ public abstract class CoordinateSystem extends Info implements ICoordinateSystem
      * @throws Exception the exception
      */
     public void setDefaultEnvelope(double[] value) throws Exception {
+        checkModifiable();
         _DefaultEnvelope = value;
     }
 
-}
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        if (_AxisInfo != null) {
+            for (AxisInfo axis : _AxisInfo)
+                axis.freeze();
 
+            _AxisInfo = Collections.unmodifiableList(_AxisInfo);
+        }
+    }
 
+}
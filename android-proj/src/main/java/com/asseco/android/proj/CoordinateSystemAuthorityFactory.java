@@ -0,0 +1,424 @@
+package com.asseco.android.proj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Creates spatial reference objects from the codes of a binary catalog, see
+ * {@link CoordinateSystemIndexWriter} for the layout.
+ *
+ * The catalog is kept as a buffer, mapped from a file or read from a stream, and is not decoded
+ * as a whole. A lookup finds the code by a binary search of the sorted codes and parses the text
+ * of its segments. The parsed objects of the recently used codes are cached, they are shared and
+ * must not be modified.
+ *
+ * Unknown codes and codes of objects of another type give null.
+ */
+public class CoordinateSystemAuthorityFactory implements ICoordinateSystemAuthorityFactory {
+    /**
+     * Default number of parsed objects kept by the cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 32;
+    /**
+     * The name of the catalog resource bundled with the library, next to this class.
+     */
+    public static final String RESOURCE_NAME = "epsg.idx";
+
+    private static final int HEADER_SIZE = 4 + 2 + 4 * 4;
+
+    private static volatile CoordinateSystemAuthorityFactory _default;
+
+    private final ByteBuffer _buffer;
+    private final String _authority;
+    private final int _count;
+    private final int _codesOffset;
+    private final int _firstReferenceOffset;
+    private final int _referencesOffset;
+    private final int _segmentOffsetsOffset;
+    private final int _poolOffset;
+    private final LruCache<Long, IInfo> _cache = new LruCache<Long, IInfo>(DEFAULT_CACHE_SIZE);
+
+    /**
+     * Instantiates a new factory over a catalog, the buffer is not copied and must not be changed.
+     *
+     * @param buffer the catalog, from its position to its limit
+     * @throws Exception if the buffer does not hold a catalog
+     */
+    public CoordinateSystemAuthorityFactory(ByteBuffer buffer) throws Exception {
+        _buffer = buffer.slice();
+        if (_buffer.remaining() < HEADER_SIZE || _buffer.getInt(0) != CoordinateSystemIndexWriter.MAGIC)
+            throw new Exception("Not a coordinate system catalog.");
+        if (_buffer.getShort(4) != CoordinateSystemIndexWriter.VERSION)
+            throw new Exception(String.format("Unsupported catalog version %d.", _buffer.getShort(4)));
+
+        int authority = _buffer.getInt(6);
+        _count = _buffer.getInt(10);
+        int referenceCount = _buffer.getInt(14);
+        int segmentCount = _buffer.getInt(18);
+        if (_count < 0 || referenceCount < 0 || segmentCount < 0)
+            throw new Exception("Corrupt coordinate system catalog.");
+
+        _codesOffset = HEADER_SIZE;
+        _firstReferenceOffset = _codesOffset + 8 * _count;
+        _referencesOffset = _firstReferenceOffset + 4 * (_count + 1);
+        _segmentOffsetsOffset = _referencesOffset + 4 * referenceCount;
+        _poolOffset = _segmentOffsetsOffset + 4 * (segmentCount + 1);
+        if (_poolOffset > _buffer.limit() || _poolOffset + _buffer.getInt(_poolOffset - 4) > _buffer.limit())
+            throw new Exception("Corrupt coordinate system catalog.");
+
+        _authority = segment(authority);
+    }
+
+    /**
+     * Opens a catalog file by mapping it to memory.
+     *
+     * @param file the file
+     * @return the factory
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemAuthorityFactory open(File file) throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            //the mapping stays valid after the file is closed
+            return new CoordinateSystemAuthorityFactory(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads a catalog from a stream, for resources which cannot be mapped. The stream is not closed.
+     *
+     * @param stream the stream
+     * @return the factory
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemAuthorityFactory read(InputStream stream) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        byte[] chunk = new byte[1 << 14];
+        int n;
+        while ((n = stream.read(chunk)) > 0)
+            out.write(chunk, 0, n);
+        return new CoordinateSystemAuthorityFactory(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * Gets the factory of the catalog bundled with the library, which is read on the first call.
+     *
+     * @return the factory
+     * @throws Exception if no catalog is bundled
+     */
+    public static CoordinateSystemAuthorityFactory getDefault() throws Exception {
+        CoordinateSystemAuthorityFactory factory = _default;
+        if (factory == null) {
+            synchronized (CoordinateSystemAuthorityFactory.class) {
+                factory = _default;
+                if (factory == null) {
+                    InputStream stream = CoordinateSystemAuthorityFactory.class.getResourceAsStream(RESOURCE_NAME);
+                    if (stream == null)
+                        throw new IOException(String.format("The catalog resource '%s' is not bundled.", RESOURCE_NAME));
+
+                    try {
+                        factory = read(stream);
+                    } finally {
+                        stream.close();
+                    }
+                    _default = factory;
+                }
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * Sets the maximal number of parsed objects kept by the cache.
+     *
+     * @param size the cache size, 0 disables the cache
+     */
+    public void setCacheSize(int size) {
+        _cache.setCapacity(size);
+    }
+
+    /**
+     * Gets the maximal number of parsed objects kept by the cache.
+     *
+     * @return the cache size
+     */
+    public int getCacheSize() {
+        return _cache.getCapacity();
+    }
+
+    /**
+     * Gets the number of codes in the catalog.
+     *
+     * @return the count
+     */
+    public int getCodeCount() {
+        return _count;
+    }
+
+    /**
+     * Gets a code of the catalog.
+     *
+     * @param index the index of the code, codes are sorted ascending
+     * @return the code
+     */
+    public long getCode(int index) {
+        if (index < 0 || index >= _count)
+            throw new IndexOutOfBoundsException("index");
+
+        return _buffer.getLong(_codesOffset + 8 * index);
+    }
+
+    /**
+     * Tests whether the catalog has a code.
+     *
+     * @param code the code
+     * @return whether the code is known
+     */
+    public boolean contains(long code) {
+        return indexOf(code) >= 0;
+    }
+
+    /**
+     * Gets the Well-known text of a code.
+     *
+     * @param code the code
+     * @return the text, or null for an unknown code
+     * @throws Exception the exception
+     */
+    public String getWkt(long code) throws Exception {
+        int index = indexOf(code);
+        if (index < 0)
+            return null;
+
+        int first = _buffer.getInt(_firstReferenceOffset + 4 * index);
+        int end = _buffer.getInt(_firstReferenceOffset + 4 * (index + 1));
+        if (end - first == 1)
+            return segment(_buffer.getInt(_referencesOffset + 4 * first));
+
+        StringBuilder sb = new StringBuilder(1024);
+        for (int i = first; i < end; i++)
+            sb.append(segment(_buffer.getInt(_referencesOffset + 4 * i)));
+        return sb.toString();
+    }
+
+    /**
+     * Gets the parsed object of a code.
+     *
+     * @param code the code
+     * @return the object, or null for an unknown code
+     * @throws Exception the exception
+     */
+    public IInfo createObject(long code) throws Exception {
+        IInfo info = _cache.get(code);
+        if (info == null) {
+            String wkt = getWkt(code);
+            if (wkt == null)
+                return null;
+
+            info = CoordinateSystemWktReader.parse(wkt);
+            _cache.put(code, info);
+        }
+        return info;
+    }
+
+    private int indexOf(long code) {
+        int low = 0;
+        int high = _count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midCode = _buffer.getLong(_codesOffset + 8 * mid);
+            if (midCode < code)
+                low = mid + 1;
+            else if (midCode > code)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    private String segment(int id) {
+        int start = _buffer.getInt(_segmentOffsetsOffset + 4 * id);
+        int end = _buffer.getInt(_segmentOffsetsOffset + 4 * (id + 1));
+        byte[] bytes = new byte[end - start];
+        //a duplicate keeps the position of the shared buffer unchanged
+        ByteBuffer dup = _buffer.duplicate();
+        dup.position(_poolOffset + start);
+        dup.get(bytes);
+        return new String(bytes, CoordinateSystemIndexWriter.UTF8);
+    }
+
+    /**
+     * Returns the authority name for this factory (e.g., "EPSG" or "POSC").
+     */
+    public String getAuthority() throws Exception {
+        return _authority;
+    }
+
+    /**
+     * Returns a projected coordinate system object corresponding to the given code.
+     *
+     * @param code The identification code.
+     * @return The projected coordinate system object with the given code.
+     */
+    public IProjectedCoordinateSystem createProjectedCoordinateSystem(long code) throws Exception {
+        IInfo info = createObject(code);
+        return info instanceof IProjectedCoordinateSystem ? (IProjectedCoordinateSystem) info : (IProjectedCoordinateSystem) null;
+    }
+
+    /**
+     * Returns a geographic coordinate system object corresponding to the given code.
+     *
+     * @param code The identification code.
+     * @return The geographic coordinate system object with the given code.
+     */
+    public IGeographicCoordinateSystem createGeographicCoordinateSystem(long code) throws Exception {
+        IInfo info = createObject(code);
+        return info instanceof IGeographicCoordinateSystem ? (IGeographicCoordinateSystem) info : (IGeographicCoordinateSystem) null;
+    }
+
+    /**
+     * Returns a horizontal datum object corresponding to the given code.
+     *
+     * @param code The identification code.
+     * @return The horizontal datum object with the given code.
+     */
+    public IHorizontalDatum createHorizontalDatum(long code) throws Exception {
+        IInfo info = createObject(code);
+        return info instanceof IHorizontalDatum ? (IHorizontalDatum) info : (IHorizontalDatum) null;
+    }
+
+    /**
+     * Returns an ellipsoid object corresponding to the given code.
+     *
+     * @param code The identification code.
+     * @return The ellipsoid object with the given code.
+     */
+    public IEllipsoid createEllipsoid(long code) throws Exception {
+        IInfo info = createObject(code);
+        return info instanceof IEllipsoid ? (IEllipsoid) info : (IEllipsoid) null;
+    }
+
+    /**
+     * Returns a prime meridian object corresponding to the given code.
+     *
+     * @param code The identification code.
+     * @return The prime meridian object with the given code.
+     */
+    public IPrimeMeridian createPrimeMeridian(long code) throws Exception {
+        IInfo info = createObject(code);
+        return info instanceof IPrimeMeridian ? (IPrimeMeridian) info : (IPrimeMeridian) null;
+    }
+
+    /**
+     * Returns a linear unit object corresponding to the given code.
+     * A unit given as UNIT["name", factor] is read as a linear unit.
+     *
+     * @param code The identification code.
+     * @return The linear unit object with the given code.
+     */
+    public ILinearUnit createLinearUnit(long code) throws Exception {
+        IInfo info = createObject(code);
+        if (info instanceof ILinearUnit)
+            return (ILinearUnit) info;
+        if (info instanceof Unit)
+            return new LinearUnit(((Unit) info).getConversionFactor(), info.getName(), info.getAuthority(), info.getAuthorityCode(), "", "", "");
+        return null;
+    }
+
+    /**
+     * Returns an
+     * {@link IAngularUnit}
+     * object corresponding to the given code.
+     * A unit given as UNIT["name", factor] is read as an angular unit.
+     *
+     * @param code The identification code.
+     * @return The angular unit object for the given code.
+     */
+    public IAngularUnit createAngularUnit(long code) throws Exception {
+        IInfo info = createObject(code);
+        if (info instanceof IAngularUnit)
+            return (IAngularUnit) info;
+        if (info instanceof Unit)
+            return new AngularUnit(((Unit) info).getConversionFactor(), info.getName(), info.getAuthority(), info.getAuthorityCode(), "", "", "");
+        return null;
+    }
+
+    /**
+     * Creates a
+     * {@link IVerticalDatum}
+     * from a code [NOT IMPLEMENTED].
+     *
+     * @param code Authority code
+     * @return Vertical datum for the given code
+     */
+    public IVerticalDatum createVerticalDatum(long code) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Create a
+     * {@link IVerticalCoordinateSystem}
+     * from a code [NOT IMPLEMENTED].
+     *
+     * @param code Authority code
+     * @return vertical coordinate system
+     */
+    public IVerticalCoordinateSystem createVerticalCoordinateSystem(long code) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates a 3D coordinate system from a code [NOT IMPLEMENTED].
+     *
+     * @param code Authority code
+     * @return Compound coordinate system for the given code
+     */
+    public ICompoundCoordinateSystem createCompoundCoordinateSystem(long code) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates a
+     * {@link IHorizontalCoordinateSystem}
+     * from a code.
+     * The horizontal coordinate system could be geographic or projected.
+     *
+     * @param code Authority code
+     * @return Horizontal coordinate system for the given code
+     */
+    public IHorizontalCoordinateSystem createHorizontalCoordinateSystem(long code) throws Exception {
+        IInfo info = createObject(code);
+        return info instanceof IHorizontalCoordinateSystem ? (IHorizontalCoordinateSystem) info : (IHorizontalCoordinateSystem) null;
+    }
+
+    /**
+     * Gets a description of the catalog.
+     */
+    public String getDescriptionText() throws Exception {
+        return String.format("%s catalog of %d codes", _authority, _count);
+    }
+
+    /**
+     * Gets the Geoid code from a WKT name [NOT IMPLEMENTED].
+     */
+    public String geoidFromWktName(String wkt) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Gets the WKT name of a Geoid [NOT IMPLEMENTED].
+     */
+    public String wktGeoidName(String geoid) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+}
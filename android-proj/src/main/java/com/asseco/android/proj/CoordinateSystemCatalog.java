@@ -0,0 +1,520 @@
+package com.asseco.android.proj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registry of the coordinate systems of a catalog file, parsed when first asked for.
+ *
+ * The file has one entry per line, either a Well-known text or a code and a text separated by a
+ * comma, semicolon, tab, equals sign, bar or space, like {@code 4326,GEOGCS[...]} or
+ * {@code EPSG:4326 GEOGCS[...]}. The authority and the code of a line without a code are read
+ * from the last AUTHORITY of the text, a code without an authority has none. Codes are kept
+ * per authority, so EPSG:4326 and ESRI:4326 are distinct. Empty lines and lines starting with
+ * # are skipped, the first line of an authority and a code wins. A code given without an
+ * authority, as to {@link #get(long)}, is the code of a line without an authority or else
+ * of an EPSG line.
+ *
+ * Loading only finds the lines, the file stays mapped to memory and each text is decoded and
+ * parsed by {@link CoordinateSystemWktReader} on the first access to its code, once even when
+ * threads race for it. {@link #warmUp(ForkJoinPool)} parses all entries ahead on a fork/join
+ * pool instead. Parsed objects are shared and must not be modified.
+ */
+public class CoordinateSystemCatalog {
+    /**
+     * Entries parsed by a fork/join task without splitting it.
+     */
+    private static final int WARM_UP_GRAIN = 64;
+    /**
+     * The authority of the codes given without one.
+     */
+    public static final String DEFAULT_AUTHORITY = "EPSG";
+
+    private final ByteBuffer _buffer;
+    private final Entry[] _entries;
+    private final ConcurrentHashMap<String, Entry> _registry;
+    private final AtomicInteger _parsed = new AtomicInteger();
+
+    /**
+     * Instantiates a new catalog over a buffer, the buffer is not copied and must not be changed.
+     *
+     * @param buffer the catalog text, UTF-8, from its position to its limit
+     */
+    public CoordinateSystemCatalog(ByteBuffer buffer) {
+        _buffer = buffer.slice();
+        List<Entry> entries = new ArrayList<Entry>();
+        int end = _buffer.limit();
+        int start = 0;
+        while (start < end) {
+            int eol = start;
+            while (eol < end && _buffer.get(eol) != '\n')
+                eol++;
+            Entry entry = readLine(start, eol);
+            if (entry != null)
+                entries.add(entry);
+            start = eol + 1;
+        }
+        _entries = entries.toArray(new Entry[0]);
+        _registry = new ConcurrentHashMap<String, Entry>(Math.max(16, _entries.length * 4 / 3 + 1));
+        for (Entry entry : _entries) {
+            String key = key(entry.authority, entry.code);
+            if (entry.code >= 0 && !_registry.containsKey(key))
+                _registry.put(key, entry);
+        }
+    }
+
+    /**
+     * Loads a catalog file by mapping it to memory.
+     *
+     * @param file the file
+     * @return the catalog
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemCatalog load(File file) throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            //the mapping stays valid after the file is closed
+            return new CoordinateSystemCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Loads a catalog file and parses all of its entries on a new fork/join pool, which is
+     * shut down afterwards.
+     *
+     * @param file  the file
+     * @param eager true to parse all entries before returning, false to parse them on first access
+     * @return the catalog
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemCatalog load(File file, boolean eager) throws Exception {
+        CoordinateSystemCatalog catalog = load(file);
+        if (eager) {
+            ForkJoinPool pool = new ForkJoinPool();
+            try {
+                catalog.warmUp(pool);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Reads a catalog from a stream, for resources which cannot be mapped. The stream is not closed.
+     *
+     * @param stream the stream
+     * @return the catalog
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemCatalog read(InputStream stream) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        byte[] chunk = new byte[1 << 14];
+        int n;
+        while ((n = stream.read(chunk)) > 0)
+            out.write(chunk, 0, n);
+        return new CoordinateSystemCatalog(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * Parses all entries which are not parsed yet on a fork/join pool and waits for them.
+     * Entries which cannot be parsed are left, their error is thrown on access.
+     *
+     * @param pool the pool
+     */
+    public void warmUp(ForkJoinPool pool) {
+        pool.invoke(new WarmUp(0, _entries.length));
+    }
+
+    /**
+     * Gets the number of entries, including the entries without a code.
+     *
+     * @return the count
+     */
+    public int size() {
+        return _entries.length;
+    }
+
+    /**
+     * Gets the number of entries parsed so far.
+     *
+     * @return the count
+     */
+    public int getParsedCount() {
+        return _parsed.get();
+    }
+
+    /**
+     * Gets the codes without an authority and the EPSG codes of the catalog, ascending.
+     *
+     * @return the codes
+     */
+    public long[] getCodes() {
+        return codes(null);
+    }
+
+    /**
+     * Gets the codes of an authority, ascending.
+     *
+     * @param authority the authority, "" for the codes without one
+     * @return the codes
+     */
+    public long[] getCodes(String authority) {
+        return codes(normalize(authority));
+    }
+
+    /**
+     * Tests whether the catalog has a code.
+     *
+     * @param code the code
+     * @return whether the code is known
+     */
+    public boolean contains(long code) {
+        return entry(code) != null;
+    }
+
+    /**
+     * Tests whether the catalog has a code of an authority.
+     *
+     * @param authority the authority, "" for a code without one
+     * @param code      the code
+     * @return whether the code is known
+     */
+    public boolean contains(String authority, long code) {
+        return _registry.containsKey(key(normalize(authority), code));
+    }
+
+    /**
+     * Gets the Well-known text of a code.
+     *
+     * @param code the code
+     * @return the text, or null for an unknown code
+     */
+    public String getWkt(long code) {
+        Entry entry = entry(code);
+        return entry == null ? null : wkt(entry);
+    }
+
+    /**
+     * Gets the Well-known text of a code of an authority.
+     *
+     * @param authority the authority, "" for a code without one
+     * @param code      the code
+     * @return the text, or null for an unknown code
+     */
+    public String getWkt(String authority, long code) {
+        Entry entry = _registry.get(key(normalize(authority), code));
+        return entry == null ? null : wkt(entry);
+    }
+
+    /**
+     * Gets the parsed object of a code, parsing it on the first call.
+     *
+     * @param code the code
+     * @return the object, or null for an unknown code
+     * @throws Exception if the text cannot be parsed
+     */
+    public IInfo get(long code) throws Exception {
+        Entry entry = entry(code);
+        return entry == null ? null : parse(entry);
+    }
+
+    /**
+     * Gets the parsed object of a code of an authority, parsing it on the first call.
+     *
+     * @param authority the authority, "" for a code without one
+     * @param code      the code
+     * @return the object, or null for an unknown code
+     * @throws Exception if the text cannot be parsed
+     */
+    public IInfo get(String authority, long code) throws Exception {
+        Entry entry = _registry.get(key(normalize(authority), code));
+        return entry == null ? null : parse(entry);
+    }
+
+    /**
+     * Gets the parsed coordinate system of a code, parsing it on the first call.
+     *
+     * @param code the code
+     * @return the coordinate system, or null for an unknown code or another object
+     * @throws Exception if the text cannot be parsed
+     */
+    public ICoordinateSystem getCoordinateSystem(long code) throws Exception {
+        IInfo info = get(code);
+        return info instanceof ICoordinateSystem ? (ICoordinateSystem) info : (ICoordinateSystem) null;
+    }
+
+    /**
+     * Gets the parsed coordinate system of a code of an authority, parsing it on the first call.
+     *
+     * @param authority the authority, "" for a code without one
+     * @param code      the code
+     * @return the coordinate system, or null for an unknown code or another object
+     * @throws Exception if the text cannot be parsed
+     */
+    public ICoordinateSystem getCoordinateSystem(String authority, long code) throws Exception {
+        IInfo info = get(authority, code);
+        return info instanceof ICoordinateSystem ? (ICoordinateSystem) info : (ICoordinateSystem) null;
+    }
+
+    /**
+     * Gets the parsed object of an entry, also of the entries without a code.
+     *
+     * @param index the index of the entry in the file, without skipped lines
+     * @return the object
+     * @throws Exception if the text cannot be parsed
+     */
+    public IInfo getEntry(int index) throws Exception {
+        if (index < 0 || index >= _entries.length)
+            throw new IndexOutOfBoundsException("index");
+
+        return parse(_entries[index]);
+    }
+
+    private IInfo parse(Entry entry) throws Exception {
+        IInfo info = entry.value;
+        if (info == null) {
+            synchronized (entry) {
+                info = entry.value;
+                if (info == null) {
+                    info = CoordinateSystemWktReader.parse(wkt(entry));
+                    entry.value = info;
+                    _parsed.incrementAndGet();
+                }
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Finds the entry of a code without an authority, else of the default authority.
+     */
+    private Entry entry(long code) {
+        Entry entry = _registry.get(key("", code));
+        return entry != null ? entry : _registry.get(key(DEFAULT_AUTHORITY, code));
+    }
+
+    /**
+     * Gets the distinct codes of an authority, or without an authority and of the default
+     * authority for null, ascending.
+     */
+    private long[] codes(String authority) {
+        long[] codes = new long[_registry.size()];
+        int n = 0;
+        for (Entry entry : _registry.values()) {
+            boolean match = authority == null ? entry.authority.isEmpty() || entry.authority.equals(DEFAULT_AUTHORITY) : entry.authority.equals(authority);
+            if (match && n < codes.length)
+                codes[n++] = entry.code;
+        }
+        Arrays.sort(codes, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || codes[distinct - 1] != codes[i])
+                codes[distinct++] = codes[i];
+        }
+        return Arrays.copyOf(codes, distinct);
+    }
+
+    private static String key(String authority, long code) {
+        return authority + ':' + code;
+    }
+
+    private static String normalize(String authority) {
+        return authority == null ? "" : authority.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private String wkt(Entry entry) {
+        return string(entry.offset, entry.offset + entry.length);
+    }
+
+    /**
+     * Finds the code and the text of a line.
+     *
+     * @return the entry, or null for a skipped line
+     */
+    private Entry readLine(int start, int end) {
+        while (start < end && isSpace(_buffer.get(start)))
+            start++;
+        while (end > start && isSpace(_buffer.get(end - 1)))
+            end--;
+        if (start == end || _buffer.get(start) == '#')
+            return null;
+
+        //a code, maybe behind an authority and a colon, and a separator
+        int p = start;
+        while (p < end && !isSeparator(_buffer.get(p)) && _buffer.get(p) != '[' && _buffer.get(p) != '(')
+            p++;
+        long code = p < end && isSeparator(_buffer.get(p)) ? parseCode(start, p) : -1;
+        if (code < 0)
+            return authorityEntry(start, end);
+
+        String authority = "";
+        for (int i = p - 1; i >= start; i--) {
+            if (_buffer.get(i) == ':') {
+                authority = normalize(string(start, i));
+                break;
+            }
+        }
+        p++;
+        while (p < end && (isSpace(_buffer.get(p)) || isSeparator(_buffer.get(p))))
+            p++;
+        return p < end ? new Entry(authority, code, p, end - p) : null;
+    }
+
+    private long parseCode(int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (_buffer.get(i) == ':') {
+                start = i + 1;
+                break;
+            }
+        }
+        if (start == end || end - start > 18)
+            return -1;
+
+        long code = 0;
+        for (int i = start; i < end; i++) {
+            byte b = _buffer.get(i);
+            if (b < '0' || b > '9')
+                return -1;
+
+            code = code * 10 + (b - '0');
+        }
+        return code;
+    }
+
+    /**
+     * Creates the entry of a text, whose authority and code are read from the AUTHORITY closing
+     * the top level object, the code is -1 if there is none.
+     */
+    private Entry authorityEntry(int start, int end) {
+        int depth = 0;
+        int authority = -1;
+        boolean quoted = false;
+        for (int i = start; i < end; i++) {
+            byte b = _buffer.get(i);
+            if (b == '"')
+                quoted = !quoted;
+            else if (quoted)
+                continue;
+            else if (b == '[' || b == '(')
+                depth++;
+            else if (b == ']' || b == ')')
+                depth--;
+            else if (depth == 1 && b == 'A' && startsWith(i, end, "AUTHORITY"))
+                authority = i;
+        }
+        if (authority < 0)
+            return new Entry("", -1, start, end - start);
+
+        //AUTHORITY["EPSG","4326"], the name is the first quoted value, the code the second quoted or plain value
+        int p = authority + "AUTHORITY".length();
+        while (p < end && (isSpace(_buffer.get(p)) || _buffer.get(p) == '[' || _buffer.get(p) == '(' || _buffer.get(p) == '"'))
+            p++;
+        int name = p;
+        while (p < end && _buffer.get(p) != '"' && _buffer.get(p) != ',')
+            p++;
+        String authorityName = normalize(string(name, p));
+        while (p < end && _buffer.get(p) != ',')
+            p++;
+        p++;
+        while (p < end && (isSpace(_buffer.get(p)) || _buffer.get(p) == '"'))
+            p++;
+        int q = p;
+        while (q < end && _buffer.get(q) >= '0' && _buffer.get(q) <= '9')
+            q++;
+        long code = q > p ? parseCode(p, q) : -1;
+        return new Entry(code < 0 ? "" : authorityName, code, start, end - start);
+    }
+
+    private String string(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        //a duplicate keeps the position of the shared buffer unchanged
+        ByteBuffer dup = _buffer.duplicate();
+        dup.position(start);
+        dup.get(bytes);
+        return new String(bytes, CoordinateSystemIndexWriter.UTF8);
+    }
+
+    private boolean startsWith(int start, int end, String value) {
+        if (end - start < value.length())
+            return false;
+
+        for (int i = 0; i < value.length(); i++) {
+            if (_buffer.get(start + i) != value.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == ';' || b == '\t' || b == '=' || b == '|' || b == ' ';
+    }
+
+    /**
+     * A line of the catalog and its parsed object.
+     */
+    private static final class Entry {
+        final String authority;
+        final long code;
+        final int offset;
+        final int length;
+        volatile IInfo value;
+
+        Entry(String authority, long code, int offset, int length) {
+            this.authority = authority;
+            this.code = code;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Parses a range of entries, splitting it in halves down to the grain.
+     */
+    private final class WarmUp extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int _from;
+        private final int _to;
+
+        WarmUp(int from, int to) {
+            _from = from;
+            _to = to;
+        }
+
+        protected void compute() {
+            if (_to - _from > WARM_UP_GRAIN) {
+                int mid = (_from + _to) >>> 1;
+                invokeAll(new WarmUp(_from, mid), new WarmUp(mid, _to));
+                return;
+            }
+            for (int i = _from; i < _to; i++) {
+                try {
+                    parse(_entries[i]);
+                } catch (Exception ex) {
+                    //thrown again on access
+                }
+            }
+        }
+    }
+
+}
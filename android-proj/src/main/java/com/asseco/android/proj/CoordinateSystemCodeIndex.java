@@ -0,0 +1,253 @@
+package com.asseco.android.proj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Finds the authority code of a coordinate system by its quantized fingerprint, see
+ * {@link CoordinateSystemFingerprint#quantized(ICoordinateSystem)}.
+ *
+ * The index is a hash table from the 64 bit hash of the fingerprint to the code, built once
+ * from a catalog by parsing all of its coordinate systems. It is written to and read from a
+ * binary file, so the catalog need not be parsed at run time. A lookup computes the fingerprint
+ * and probes the table, instead of comparing against every coordinate system of the catalog.
+ * When coordinate systems of the catalog share a fingerprint, the smallest code is kept.
+ *
+ * The layout, big endian:
+ * <pre>
+ * int     magic 'WKTH', short version
+ * int     number of codes, number of slots, a power of two
+ * long[]  hash of each slot, 0 for an empty slot
+ * long[]  code of each slot
+ * </pre>
+ */
+public class CoordinateSystemCodeIndex {
+    /**
+     * The first four bytes of an index.
+     */
+    public static final int MAGIC = 0x574B5448;
+    /**
+     * The version of the layout.
+     */
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 4;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ByteBuffer _buffer;
+    private final int _count;
+    private final int _mask;
+    private final CoordinateSystemAuthorityFactory _factory;
+
+    /**
+     * Instantiates a new index over a buffer, the buffer is not copied and must not be changed.
+     *
+     * @param buffer  the index, from its position to its limit
+     * @param factory the factory of the catalog the index was built from, whose coordinate
+     *                systems are compared with the found ones to rule out hash collisions, or null
+     * @throws Exception if the buffer does not hold an index
+     */
+    public CoordinateSystemCodeIndex(ByteBuffer buffer, CoordinateSystemAuthorityFactory factory) throws Exception {
+        _buffer = buffer.slice();
+        if (_buffer.remaining() < HEADER_SIZE || _buffer.getInt(0) != MAGIC)
+            throw new Exception("Not a coordinate system code index.");
+        if (_buffer.getShort(4) != VERSION)
+            throw new Exception(String.format("Unsupported code index version %d.", _buffer.getShort(4)));
+
+        _count = _buffer.getInt(6);
+        int slots = _buffer.getInt(10);
+        if (slots <= 0 || (slots & (slots - 1)) != 0 || HEADER_SIZE + 16L * slots > _buffer.limit())
+            throw new Exception("Corrupt coordinate system code index.");
+
+        _mask = slots - 1;
+        _factory = factory;
+    }
+
+    /**
+     * Builds the index of all coordinate systems of a catalog. Entries which are no coordinate
+     * systems or cannot be parsed are left out.
+     *
+     * @param factory the factory of the catalog
+     * @return the index, which compares found coordinate systems with the catalog
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemCodeIndex build(CoordinateSystemAuthorityFactory factory) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(factory, out);
+        return new CoordinateSystemCodeIndex(ByteBuffer.wrap(out.toByteArray()), factory);
+    }
+
+    /**
+     * Builds the index of all coordinate systems of a catalog and writes it, the stream is not closed.
+     *
+     * @param factory the factory of the catalog
+     * @param stream  the stream
+     * @throws Exception the exception
+     */
+    public static void write(CoordinateSystemAuthorityFactory factory, OutputStream stream) throws Exception {
+        int n = factory.getCodeCount();
+        long[] hashes = new long[n];
+        long[] codes = new long[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            long code = factory.getCode(i);
+            ICoordinateSystem cs;
+            try {
+                String wkt = factory.getWkt(code);
+                IInfo info = wkt == null ? null : CoordinateSystemWktReader.parse(wkt);
+                cs = info instanceof ICoordinateSystem ? (ICoordinateSystem) info : null;
+            } catch (Exception ex) {
+                cs = null;
+            }
+            if (cs == null)
+                continue;
+
+            hashes[count] = hash(CoordinateSystemFingerprint.quantized(cs));
+            codes[count++] = code;
+        }
+
+        //at most half of the slots are used
+        int slots = Integer.highestOneBit(Math.max(count, 1)) * 4;
+        long[] slotHashes = new long[slots];
+        long[] slotCodes = new long[slots];
+        int stored = 0;
+        for (int i = 0; i < count; i++) {
+            //codes are ascending, a fingerprint keeps its first code
+            int slot = (int) hashes[i] & (slots - 1);
+            while (slotHashes[slot] != 0 && slotHashes[slot] != hashes[i])
+                slot = (slot + 1) & (slots - 1);
+            if (slotHashes[slot] == 0) {
+                slotHashes[slot] = hashes[i];
+                slotCodes[slot] = codes[i];
+                stored++;
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(stored);
+        out.writeInt(slots);
+        for (long h : slotHashes)
+            out.writeLong(h);
+        for (long c : slotCodes)
+            out.writeLong(c);
+        out.flush();
+    }
+
+    /**
+     * Opens an index file by mapping it to memory.
+     *
+     * @param file    the file
+     * @param factory the factory of the catalog the index was built from, or null
+     * @return the index
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemCodeIndex open(File file, CoordinateSystemAuthorityFactory factory) throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            //the mapping stays valid after the file is closed
+            return new CoordinateSystemCodeIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), factory);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads an index from a stream, for resources which cannot be mapped. The stream is not closed.
+     *
+     * @param stream  the stream
+     * @param factory the factory of the catalog the index was built from, or null
+     * @return the index
+     * @throws Exception the exception
+     */
+    public static CoordinateSystemCodeIndex read(InputStream stream, CoordinateSystemAuthorityFactory factory) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        byte[] chunk = new byte[1 << 14];
+        int n;
+        while ((n = stream.read(chunk)) > 0)
+            out.write(chunk, 0, n);
+        return new CoordinateSystemCodeIndex(ByteBuffer.wrap(out.toByteArray()), factory);
+    }
+
+    /**
+     * Gets the number of distinct fingerprints in the index.
+     *
+     * @return the count
+     */
+    public int size() {
+        return _count;
+    }
+
+    /**
+     * Finds the code of a coordinate system.
+     *
+     * @param cs the coordinate system
+     * @return the code, or -1 if no coordinate system of the catalog matches
+     * @throws Exception the exception
+     */
+    public long findCode(ICoordinateSystem cs) throws Exception {
+        String fingerprint = CoordinateSystemFingerprint.quantized(cs);
+        long code = findCode(hash(fingerprint));
+        if (code < 0 || _factory == null)
+            return code;
+
+        IInfo match = _factory.createObject(code);
+        return match instanceof ICoordinateSystem && fingerprint.equals(CoordinateSystemFingerprint.quantized((ICoordinateSystem) match)) ? code : -1;
+    }
+
+    /**
+     * Finds the code of a coordinate system given as Well-known text.
+     *
+     * @param wkt the Well-known text
+     * @return the code, or -1 if no coordinate system of the catalog matches
+     * @throws Exception if the text is no coordinate system
+     */
+    public long findCode(String wkt) throws Exception {
+        IInfo info = CoordinateSystemWktReader.parse(wkt);
+        if (!(info instanceof ICoordinateSystem))
+            throw new IllegalArgumentException("The WKT is not a coordinate system.");
+
+        return findCode((ICoordinateSystem) info);
+    }
+
+    private long findCode(long hash) {
+        int slotsOffset = HEADER_SIZE;
+        int codesOffset = HEADER_SIZE + 8 * (_mask + 1);
+        int slot = (int) hash & _mask;
+        //a full or corrupt table has no empty slot, so the probe visits each slot once
+        for (int i = 0; i <= _mask; i++) {
+            long h = _buffer.getLong(slotsOffset + 8 * slot);
+            if (h == hash)
+                return _buffer.getLong(codesOffset + 8 * slot);
+            if (h == 0)
+                return -1;
+
+            slot = (slot + 1) & _mask;
+        }
+        return -1;
+    }
+
+    /**
+     * The 64 bit FNV-1a hash of a fingerprint, never 0, which marks empty slots.
+     */
+    static long hash(String fingerprint) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < fingerprint.length(); i++) {
+            h ^= fingerprint.charAt(i);
+            h *= FNV_PRIME;
+        }
+        //spread the high bits to the slot bits
+        h ^= h >>> 32;
+        return h == 0 ? 1 : h;
+    }
+
+}
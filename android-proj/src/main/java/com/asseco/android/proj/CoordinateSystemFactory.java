@@ -64,6 +64,7 @@ public class CoordinateSystemFactory implements ICoordinateSystemFactory {
      * a
      * IProjectedCoordinateSystem
      * .
+     * The objects are cached by {@link CoordinateSystemWktReader}, they are shared and must not be modified.
      *
      * @param WKT The Well-known text representation for the spatial reference
      * @return The resulting spatial reference object
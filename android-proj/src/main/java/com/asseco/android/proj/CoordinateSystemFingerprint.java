@@ -0,0 +1,223 @@
+package com.asseco.android.proj;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds canonical fingerprints of coordinate systems.
+ *
+ * The fingerprint covers the parameters compared by the equalParams methods, names,
+ * aliases and authority codes are ignored. Two coordinate systems with the same
+ * fingerprint define the same transformations, so it can be used as a cache key
+ * instead of the object identity.
+ *
+ * The quantized fingerprint is meant to identify coordinate systems written by different
+ * software. Numbers are rounded to {@link #SIGNIFICANT_DIGITS} significant digits, numbers
+ * below {@link #ZERO_TOLERANCE} are zero, the inverse flattening derived from the axes is left
+ * out, and the spellings of projection and parameter names which the projections read as the
+ * same are unified. Numbers next to a rounding boundary may still round apart.
+ */
+public final class CoordinateSystemFingerprint {
+    /**
+     * The significant digits numbers are rounded to in quantized fingerprints.
+     */
+    public static final int SIGNIFICANT_DIGITS = 10;
+    /**
+     * Magnitude below which numbers are zero in quantized fingerprints.
+     */
+    public static final double ZERO_TOLERANCE = 1e-10;
+
+    private static final Map<String, String> _aliases = new HashMap<String, String>();
+
+    static {
+        //projection names of the same projection
+        _aliases.put("popular_visualisation_pseudo_mercator", "pseudo_mercator");
+        _aliases.put("google_mercator", "pseudo_mercator");
+        _aliases.put("albers_conic_equal_area", "albers");
+        _aliases.put("lambert_conformal_conic", "lambert_conformal_conic_2sp");
+        _aliases.put("lambert_conic_conformal_(2sp)", "lambert_conformal_conic_2sp");
+        //parameters which the projections read one for the other
+        _aliases.put("longitude_of_center", "central_meridian");
+        _aliases.put("latitude_of_center", "latitude_of_origin");
+    }
+
+    private final StringBuilder _sb = new StringBuilder(256);
+    private final boolean _quantized;
+
+    private CoordinateSystemFingerprint(boolean quantized) {
+        _quantized = quantized;
+    }
+
+    /**
+     * Gets the fingerprint of a coordinate system.
+     *
+     * @param cs the coordinate system
+     * @return the fingerprint
+     * @throws Exception the exception
+     */
+    public static String of(ICoordinateSystem cs) throws Exception {
+        CoordinateSystemFingerprint fp = new CoordinateSystemFingerprint(false);
+        fp.appendCoordinateSystem(cs);
+        return fp._sb.toString();
+    }
+
+    /**
+     * Gets the quantized fingerprint of a coordinate system, which is equal for coordinate
+     * systems whose parameters only differ by rounding.
+     *
+     * @param cs the coordinate system
+     * @return the quantized fingerprint
+     * @throws Exception the exception
+     */
+    public static String quantized(ICoordinateSystem cs) throws Exception {
+        CoordinateSystemFingerprint fp = new CoordinateSystemFingerprint(true);
+        fp.appendCoordinateSystem(cs);
+        return fp._sb.toString();
+    }
+
+    private void appendCoordinateSystem(ICoordinateSystem cs) throws Exception {
+        if (cs instanceof IProjectedCoordinateSystem) {
+            IProjectedCoordinateSystem pcs = (IProjectedCoordinateSystem) cs;
+            _sb.append("PROJCS[");
+            appendAxes(pcs);
+            appendCoordinateSystem(pcs.getGeographicCoordinateSystem());
+            appendProjection(pcs.getProjection());
+            appendUnit(pcs.getLinearUnit());
+        } else if (cs instanceof IGeographicCoordinateSystem) {
+            IGeographicCoordinateSystem gcs = (IGeographicCoordinateSystem) cs;
+            _sb.append("GEOGCS[");
+            appendAxes(gcs);
+            appendDatum(gcs.getHorizontalDatum());
+            appendPrimeMeridian(gcs.getPrimeMeridian());
+            appendUnit(gcs.getangularUnit());
+            for (int i = 0; i < gcs.getNumConversionToWGS84(); i++)
+                appendConversion(gcs.getWgs84ConversionInfo(i));
+        } else if (cs instanceof IGeocentricCoordinateSystem) {
+            IGeocentricCoordinateSystem gcs = (IGeocentricCoordinateSystem) cs;
+            _sb.append("GEOCCS[");
+            appendAxes(gcs);
+            appendDatum(gcs.getHorizontalDatum());
+            appendPrimeMeridian(gcs.getPrimeMeridian());
+            appendUnit(gcs.getLinearUnit());
+        } else if (cs instanceof IFittedCoordinateSystem) {
+            IFittedCoordinateSystem fcs = (IFittedCoordinateSystem) cs;
+            _sb.append("FITTED_CS[");
+            appendAxes(fcs);
+            _sb.append(fcs.toBase()).append(',');
+            appendCoordinateSystem(fcs.getBaseCoordinateSystem());
+        } else {
+            //no parameters known, fall back to the full definition
+            _sb.append(cs.getClass().getName()).append('[').append(cs.getWKT());
+        }
+        _sb.append(']');
+    }
+
+    private void appendAxes(ICoordinateSystem cs) throws Exception {
+        _sb.append(cs.getDimension()).append(',');
+        for (int i = 0; i < cs.getDimension(); i++)
+            _sb.append(cs.getAxis(i).getOrientation()).append(',');
+    }
+
+    private void appendDatum(IHorizontalDatum datum) throws Exception {
+        _sb.append("DATUM[").append(datum.getDatumType()).append(',');
+        IEllipsoid ellipsoid = datum.getEllipsoid();
+        _sb.append("SPHEROID[");
+        appendNumber(ellipsoid.getSemiMajorAxis());
+        appendNumber(ellipsoid.getSemiMinorAxis());
+        if (!_quantized) {
+            appendNumber(ellipsoid.getInverseFlattening());
+            _sb.append(ellipsoid.getIsIvfDefinitive()).append(',');
+        }
+        appendUnit(ellipsoid.getAxisUnit());
+        _sb.append("],");
+        if (datum.getWgs84Parameters() != null)
+            appendConversion(datum.getWgs84Parameters());
+        _sb.append("],");
+    }
+
+    private void appendPrimeMeridian(IPrimeMeridian primeMeridian) throws Exception {
+        _sb.append("PRIMEM[");
+        appendNumber(primeMeridian.getLongitude());
+        appendUnit(primeMeridian.getangularUnit());
+        _sb.append("],");
+    }
+
+    private void appendConversion(Wgs84ConversionInfo info) throws Exception {
+        _sb.append("TOWGS84[");
+        appendNumber(info.Dx);
+        appendNumber(info.Dy);
+        appendNumber(info.Dz);
+        appendNumber(info.Ex);
+        appendNumber(info.Ey);
+        appendNumber(info.Ez);
+        appendNumber(info.Ppm);
+        _sb.append("],");
+    }
+
+    private void appendProjection(IProjection projection) throws Exception {
+        _sb.append("PROJECTION[").append(name(projection.getClassName())).append(',');
+        //parameters are looked up by name, so their order does not matter
+        String[] params = new String[projection.getNumParameters()];
+        for (int i = 0; i < params.length; i++) {
+            ProjectionParameter param = projection.getParameter(i);
+            params[i] = name(param.getName()) + '=' + (_quantized ? quantize(param.getValue()) : Double.toString(param.getValue()));
+        }
+        Arrays.sort(params);
+        for (String param : params)
+            _sb.append(param).append(',');
+        _sb.append("],");
+    }
+
+    private void appendUnit(IUnit unit) throws Exception {
+        if (unit instanceof ILinearUnit)
+            appendNumber(((ILinearUnit) unit).getMetersPerUnit());
+        else if (unit instanceof IAngularUnit)
+            appendNumber(((IAngularUnit) unit).getRadiansPerUnit());
+        else
+            _sb.append(unit == null ? "null" : unit.getWKT()).append(',');
+    }
+
+    private String name(String name) {
+        String res = name.toLowerCase(Locale.US);
+        if (!_quantized)
+            return res;
+
+        res = res.replace(' ', '_').replace('-', '_');
+        String alias = _aliases.get(res);
+        return alias == null ? res : alias;
+    }
+
+    private void appendNumber(double value) {
+        if (_quantized)
+            _sb.append(quantize(value)).append(',');
+        else
+            _sb.append(value).append(',');
+    }
+
+    /**
+     * Rounds a number to the significant digits, as the digits and the decimal exponent.
+     */
+    private static String quantize(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return Double.toString(value);
+        if (Math.abs(value) < ZERO_TOLERANCE)
+            return "0";
+
+        int exponent = (int) Math.floor(Math.log10(Math.abs(value))) - SIGNIFICANT_DIGITS + 1;
+        long digits = Math.round(value / Math.pow(10, exponent));
+        //rounding up may add a digit, 9999999999.5 becomes 10000000000
+        if (Math.abs(digits) >= (long) Math.pow(10, SIGNIFICANT_DIGITS)) {
+            exponent++;
+            digits = Math.round(value / Math.pow(10, exponent));
+        }
+        //strip trailing zeros, so the exponent is unique
+        while (digits % 10 == 0) {
+            digits /= 10;
+            exponent++;
+        }
+        return digits + "e" + exponent;
+    }
+
+}
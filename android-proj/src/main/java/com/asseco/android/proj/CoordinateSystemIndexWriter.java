@@ -0,0 +1,202 @@
+package com.asseco.android.proj;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes the binary catalog read by {@link CoordinateSystemAuthorityFactory}.
+ *
+ * The catalog maps authority codes to Well-known text. Each text is split into segments, the
+ * geographic coordinate system nested in a projected one or else the datum nested in a geographic
+ * one is a segment of its own. Equal segments are written once to the string pool, so all zones of
+ * a projection family share the text of their geographic coordinate system.
+ *
+ * The layout, big endian:
+ * <pre>
+ * int     magic 'WKTI', short version
+ * int     authority segment, number of codes, number of segment references, number of segments
+ * long[]  codes, ascending
+ * int[]   first segment reference of each code, one more for the end
+ * int[]   segment references
+ * int[]   byte offset of each segment in the pool, one more for the end
+ * byte[]  string pool, UTF-8
+ * </pre>
+ */
+public class CoordinateSystemIndexWriter {
+    /**
+     * The first four bytes of a catalog.
+     */
+    public static final int MAGIC = 0x574B5449;
+    /**
+     * The version of the layout.
+     */
+    public static final short VERSION = 1;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String _authority;
+    private final TreeMap<Long, String> _entries = new TreeMap<Long, String>();
+
+    /**
+     * Instantiates a new writer.
+     *
+     * @param authority the authority of the codes, for example EPSG
+     */
+    public CoordinateSystemIndexWriter(String authority) {
+        if (authority == null || authority.length() == 0)
+            throw new IllegalArgumentException("Invalid authority");
+
+        _authority = authority;
+    }
+
+    /**
+     * Adds the Well-known text of a code, replacing the text added before.
+     *
+     * @param code the authority code
+     * @param wkt  the Well-known text
+     */
+    public void add(long code, String wkt) {
+        if (wkt == null || wkt.length() == 0)
+            throw new IllegalArgumentException("empty wkt");
+
+        _entries.put(code, wkt);
+    }
+
+    /**
+     * Adds the Well-known texts of codes.
+     *
+     * @param entries the texts by code
+     */
+    public void addAll(Map<Long, String> entries) {
+        for (Map.Entry<Long, String> entry : entries.entrySet())
+            add(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Gets the number of codes added.
+     *
+     * @return the count
+     */
+    public int size() {
+        return _entries.size();
+    }
+
+    /**
+     * Writes the catalog, the stream is not closed.
+     *
+     * @param stream the stream
+     * @throws IOException the exception
+     */
+    public void write(OutputStream stream) throws IOException {
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<byte[]> segments = new ArrayList<byte[]>();
+        List<Integer> references = new ArrayList<Integer>();
+        int[] firstReference = new int[_entries.size() + 1];
+        int authority = segmentId(_authority, ids, segments);
+        int n = 0;
+        for (String wkt : _entries.values()) {
+            firstReference[n++] = references.size();
+            for (String segment : split(wkt))
+                references.add(segmentId(segment, ids, segments));
+        }
+        firstReference[n] = references.size();
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(authority);
+        out.writeInt(_entries.size());
+        out.writeInt(references.size());
+        out.writeInt(segments.size());
+        for (long code : _entries.keySet())
+            out.writeLong(code);
+        for (int first : firstReference)
+            out.writeInt(first);
+        for (int reference : references)
+            out.writeInt(reference);
+        int offset = 0;
+        for (byte[] segment : segments) {
+            out.writeInt(offset);
+            offset += segment.length;
+        }
+        out.writeInt(offset);
+        for (byte[] segment : segments)
+            out.write(segment);
+        out.flush();
+    }
+
+    private static int segmentId(String segment, Map<String, Integer> ids, List<byte[]> segments) {
+        Integer id = ids.get(segment);
+        if (id == null) {
+            id = segments.size();
+            ids.put(segment, id);
+            segments.add(segment.getBytes(UTF8));
+        }
+        return id;
+    }
+
+    /**
+     * Splits a text into the text before, the text of and the text after the nested geographic
+     * coordinate system, or else the nested datum.
+     */
+    static List<String> split(String wkt) {
+        List<String> res = new ArrayList<String>(3);
+        int start = findNested(wkt, "GEOGCS");
+        if (start < 0)
+            start = findNested(wkt, "DATUM");
+        int end = start < 0 ? -1 : closingBracket(wkt, start);
+        if (end < 0) {
+            res.add(wkt);
+            return res;
+        }
+
+        if (start > 0)
+            res.add(wkt.substring(0, start));
+        res.add(wkt.substring(start, end + 1));
+        if (end + 1 < wkt.length())
+            res.add(wkt.substring(end + 1));
+        return res;
+    }
+
+    /**
+     * Finds a keyword outside of quotes and after the start of the text.
+     */
+    private static int findNested(String wkt, String keyword) {
+        boolean quoted = false;
+        for (int i = 1; i < wkt.length(); i++) {
+            char c = wkt.charAt(i);
+            if (c == '"')
+                quoted = !quoted;
+            else if (!quoted && wkt.startsWith(keyword, i) && !Character.isLetterOrDigit(wkt.charAt(i - 1)) && wkt.charAt(i - 1) != '_')
+                return i;
+        }
+        return -1;
+    }
+
+    private static int closingBracket(String wkt, int start) {
+        boolean quoted = false;
+        int depth = 0;
+        for (int i = start; i < wkt.length(); i++) {
+            char c = wkt.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '[' || c == '(')) {
+                depth++;
+            } else if (!quoted && (c == ']' || c == ')')) {
+                if (--depth == 0)
+                    return i;
+                if (depth < 0)
+                    return -1;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -2,16 +2,66 @@ package com.asseco.android.proj;
 
 import com.asseco.android.proj.transformations.IMathTransform;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Creates an object based on the supplied Well Known Text (WKT).
+ *
+ * Parsed objects are cached by the text, so the same WKT is parsed once. Ellipsoids, datums,
+ * prime meridians, units and geographic coordinate systems are interned by their canonical
+ * text, which is the text without the white space outside of quotes, so coordinate systems
+ * parsed from different texts share equal parts. Cached and interned objects are shared, so
+ * they are frozen and their setters throw {@link UnsupportedOperationException}; a cache size
+ * of 0 disables both and the objects can be modified.
  */
 public class CoordinateSystemWktReader {
     /**
-     * Reads and parses a WKT-formatted projection string.
+     * Default number of parsed texts kept by the cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+    /**
+     * Number of interned parts kept per parsed text the cache keeps.
+     */
+    private static final int INTERNED_PER_ENTRY = 4;
+
+    private static final LruCache<String, IInfo> _cache = new LruCache<String, IInfo>(DEFAULT_CACHE_SIZE);
+    private static final LruCache<String, IInfo> _interned = new LruCache<String, IInfo>(DEFAULT_CACHE_SIZE * INTERNED_PER_ENTRY);
+
+    /**
+     * Sets the maximal number of parsed texts kept by the cache, the pool of interned parts
+     * grows with it.
+     *
+     * @param size the cache size, 0 disables the cache and interning
+     */
+    public static void setCacheSize(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Negative cache capacity.");
+
+        _cache.setCapacity(size);
+        _interned.setCapacity(size * INTERNED_PER_ENTRY);
+    }
+
+    /**
+     * Gets the maximal number of parsed texts kept by the cache.
+     *
+     * @return the cache size
+     */
+    public static int getCacheSize() {
+        return _cache.getCapacity();
+    }
+
+    /**
+     * Removes all parsed texts and interned parts from the cache.
+     */
+    public static void clearCache() {
+        _cache.clear();
+        _interned.clear();
+    }
+
+    /**
+     * Reads and parses a WKT-formatted projection string. The object is shared with other
+     * calls for the same text and frozen, unless the cache is disabled.
      *
      * @param wkt String containing WKT.
      * @return Object representation of the WKT.
@@ -21,13 +71,24 @@ public class CoordinateSystemWktReader {
         if (wkt == null || wkt == "")
             throw new Exception("empty wkt");
 
+        IInfo info = _cache.get(wkt);
+        if (info == null) {
+            info = parseWkt(wkt);
+            if (_cache.getCapacity() == 0)
+                return info;
+
+            Info.freeze(info);
+            _cache.put(wkt, info);
+        }
+        return info;
+    }
 
+    private static IInfo parseWkt(String wkt) throws Exception {
         try {
 
-            StringReader reader = new StringReader(wkt);
             try {
 
-                WktStreamTokenizer tokenizer = new WktStreamTokenizer(reader);
+                WktTokenizer tokenizer = new WktTokenizer(wkt);
                 tokenizer.nextToken();
                 String objectName = tokenizer.getStringValue();
                 if (objectName.equals("UNIT")) {
@@ -57,13 +118,65 @@ public class CoordinateSystemWktReader {
         }
     }
 
+    /**
+     * Returns the interned instance of an object read from the text, the object itself, which
+     * is frozen, if there is none yet.
+     *
+     * @param info      the object which was read
+     * @param tokenizer the tokenizer, its current token ends the text of the object
+     * @param start     the index of the keyword starting the text of the object
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends IInfo> T intern(T info, WktTokenizer tokenizer, int start) {
+        if (_interned.getCapacity() == 0)
+            return info;
+
+        //units share the keyword, so the type is a part of the key
+        String key = info.getClass().getSimpleName() + ':' + canonicalWkt(tokenizer.getText(), start, tokenizer.getTokenStart() + tokenizer.getTokenLength());
+        IInfo shared = _interned.get(key);
+        if (shared == null) {
+            Info.freeze(info);
+            _interned.put(key, info);
+            return info;
+        }
+        return (T) shared;
+    }
+
+    /**
+     * Removes the white space outside of quotes, unless it separates two tokens which would
+     * join without it.
+     */
+    private static String canonicalWkt(CharSequence text, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean quoted = false;
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!quoted && Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && sb.length() > 0 && !isDelimiter(sb.charAt(sb.length() - 1)) && !isDelimiter(c))
+                sb.append(' ');
+            space = false;
+            if (c == '"')
+                quoted = !quoted;
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '[' || c == ']' || c == ',' || c == '"';
+    }
+
     /**
      * Returns a IUnit given a piece of WKT.
      *
-     * @param tokenizer WktStreamTokenizer that has the WKT.
+     * @param tokenizer WktTokenizer that has the WKT.
      * @return An object that implements the IUnit interface.
      */
-    private static IUnit readUnit(WktStreamTokenizer tokenizer) throws Exception {
+    private static IUnit readUnit(WktTokenizer tokenizer) throws Exception {
         tokenizer.readToken("[");
         String unitName = tokenizer.readDoubleQuotedWord();
         tokenizer.readToken(",");
@@ -72,9 +185,9 @@ public class CoordinateSystemWktReader {
         String authority = "";
         long authorityCode = -1;
         tokenizer.nextToken();
-        if (tokenizer.getStringValue().equals(",")) {
+        if (tokenizer.tokenEquals(",")) {
 
-            WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+            WktTokenizer.Authority auth = tokenizer.readAuthority();
             authority = auth.authority;
             authorityCode = auth.authorityCode;
             tokenizer.readToken("]");
@@ -88,10 +201,11 @@ public class CoordinateSystemWktReader {
      * {LinearUnit}
      * given a piece of WKT.
      *
-     * @param tokenizer WktStreamTokenizer that has the WKT.
+     * @param tokenizer WktTokenizer that has the WKT.
      * @return An object that implements the IUnit interface.
      */
-    private static ILinearUnit readLinearUnit(WktStreamTokenizer tokenizer) throws Exception {
+    private static ILinearUnit readLinearUnit(WktTokenizer tokenizer) throws Exception {
+        int start = tokenizer.getTokenStart();
         tokenizer.readToken("[");
         String unitName = tokenizer.readDoubleQuotedWord();
         tokenizer.readToken(",");
@@ -100,14 +214,14 @@ public class CoordinateSystemWktReader {
         String authority = "";
         long authorityCode = -1;
         tokenizer.nextToken();
-        if (tokenizer.getStringValue().equals(",")) {
-            WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+        if (tokenizer.tokenEquals(",")) {
+            WktTokenizer.Authority auth = tokenizer.readAuthority();
             authority = auth.authority;
             authorityCode = auth.authorityCode;
             tokenizer.readToken("]");
         }
 
-        return new LinearUnit(unitsPerUnit, unitName, authority, authorityCode, "", "", "");
+        return intern(new LinearUnit(unitsPerUnit, unitName, authority, authorityCode, "", "", ""), tokenizer, start);
     }
 
     /**
@@ -115,10 +229,11 @@ public class CoordinateSystemWktReader {
      * {AngularUnit}
      * given a piece of WKT.
      *
-     * @param tokenizer WktStreamTokenizer that has the WKT.
+     * @param tokenizer WktTokenizer that has the WKT.
      * @return An object that implements the IUnit interface.
      */
-    private static IAngularUnit readAngularUnit(WktStreamTokenizer tokenizer) throws Exception {
+    private static IAngularUnit readAngularUnit(WktTokenizer tokenizer) throws Exception {
+        int start = tokenizer.getTokenStart();
         tokenizer.readToken("[");
         String unitName = tokenizer.readDoubleQuotedWord();
         tokenizer.readToken(",");
@@ -127,14 +242,14 @@ public class CoordinateSystemWktReader {
         String authority = "";
         long authorityCode = -1;
         tokenizer.nextToken();
-        if (tokenizer.getStringValue().equals(",")) {
-            WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+        if (tokenizer.tokenEquals(",")) {
+            WktTokenizer.Authority auth = tokenizer.readAuthority();
             authority = auth.authority;
             authorityCode = auth.authorityCode;
             tokenizer.readToken("]");
         }
 
-        return new AngularUnit(unitsPerUnit, unitName, authority, authorityCode, "", "", "");
+        return intern(new AngularUnit(unitsPerUnit, unitName, authority, authorityCode, "", "", ""), tokenizer, start);
     }
 
     /**
@@ -142,11 +257,11 @@ public class CoordinateSystemWktReader {
      * {Axisinfo}
      * given a piece of WKT.
      *
-     * @param tokenizer WktStreamTokenizer that has the WKT.
+     * @param tokenizer WktTokenizer that has the WKT.
      * @return An Axisinfo object.
      */
-    private static AxisInfo readAxis(WktStreamTokenizer tokenizer) throws Exception {
-        if (!tokenizer.getStringValue().equals("AXIS"))
+    private static AxisInfo readAxis(WktTokenizer tokenizer) throws Exception {
+        if (!tokenizer.tokenEquals("AXIS"))
             tokenizer.readToken("AXIS");
 
         tokenizer.readToken("[");
@@ -174,7 +289,7 @@ public class CoordinateSystemWktReader {
         }
     }
 
-    private static ICoordinateSystem readCoordinateSystem(String coordinateSystem, WktStreamTokenizer tokenizer) throws Exception {
+    private static ICoordinateSystem readCoordinateSystem(String coordinateSystem, WktTokenizer tokenizer) throws Exception {
         String cstype = tokenizer.getStringValue();
         if (cstype.equals("GEOGCS")) {
             return readGeographicCoordinateSystem(tokenizer);
@@ -190,7 +305,7 @@ public class CoordinateSystemWktReader {
     }
 
     // Reads either 3, 6 or 7 parameter Bursa-Wolf values from TOWGS84 token
-    private static Wgs84ConversionInfo readWGS84ConversionInfo(WktStreamTokenizer tokenizer) throws Exception {
+    private static Wgs84ConversionInfo readWGS84ConversionInfo(WktTokenizer tokenizer) throws Exception {
         //TOWGS84[0,0,0,0,0,0,0]
         tokenizer.readToken("[");
         Wgs84ConversionInfo info = new Wgs84ConversionInfo();
@@ -203,7 +318,7 @@ public class CoordinateSystemWktReader {
         tokenizer.nextToken();
         info.Dz = tokenizer.getNumericValue();
         tokenizer.nextToken();
-        if (tokenizer.getStringValue().equals(",")) {
+        if (tokenizer.tokenEquals(",")) {
             tokenizer.nextToken();
             info.Ex = tokenizer.getNumericValue();
             tokenizer.readToken(",");
@@ -213,21 +328,22 @@ public class CoordinateSystemWktReader {
             tokenizer.nextToken();
             info.Ez = tokenizer.getNumericValue();
             tokenizer.nextToken();
-            if (tokenizer.getStringValue().equals(",")) {
+            if (tokenizer.tokenEquals(",")) {
                 tokenizer.nextToken();
                 info.Ppm = tokenizer.getNumericValue();
             }
 
         }
 
-        if (!tokenizer.getStringValue().equals("]"))
+        if (!tokenizer.tokenEquals("]"))
             tokenizer.readToken("]");
 
         return info;
     }
 
-    private static IEllipsoid readEllipsoid(WktStreamTokenizer tokenizer) throws Exception {
+    private static IEllipsoid readEllipsoid(WktTokenizer tokenizer) throws Exception {
         //SPHEROID["Airy 1830",6377563.396,299.3249646,AUTHORITY["EPSG","7001"]]
+        int start = tokenizer.getTokenStart();
         tokenizer.readToken("[");
         String name = tokenizer.readDoubleQuotedWord();
         tokenizer.readToken(",");
@@ -239,20 +355,20 @@ public class CoordinateSystemWktReader {
         tokenizer.nextToken();
         String authority = "";
         long authorityCode = -1;
-        if (tokenizer.getStringValue().equals(",")) {
+        if (tokenizer.tokenEquals(",")) {
             //Read authority
-            WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+            WktTokenizer.Authority auth = tokenizer.readAuthority();
             authority = auth.authority;
             authorityCode = auth.authorityCode;
             tokenizer.readToken("]");
         }
 
         IEllipsoid ellipsoid = new Ellipsoid(majorAxis, 0.0, e, true, LinearUnit.getMetre(), name, authority, authorityCode, "", "", "");
-        return ellipsoid;
+        return intern(ellipsoid, tokenizer, start);
     }
 
-    private static IProjection readProjection(WktStreamTokenizer tokenizer) throws Exception {
-        if (!tokenizer.getStringValue().equals("PROJECTION"))
+    private static IProjection readProjection(WktTokenizer tokenizer) throws Exception {
+        if (!tokenizer.tokenEquals("PROJECTION"))
             tokenizer.readToken("PROJECTION");
 
         tokenizer.readToken("[");
@@ -261,8 +377,8 @@ public class CoordinateSystemWktReader {
         String authority = "";
         long authorityCode = -1L;
         tokenizer.nextToken(true);
-        if (tokenizer.getStringValue().equals(",")) {
-            WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+        if (tokenizer.tokenEquals(",")) {
+            WktTokenizer.Authority auth = tokenizer.readAuthority();
             authority = auth.authority;
             authorityCode = auth.authorityCode;
             tokenizer.readToken("]");
@@ -272,7 +388,7 @@ public class CoordinateSystemWktReader {
         //,
         tokenizer.readToken("PARAMETER");
         List<ProjectionParameter> paramList = new ArrayList<ProjectionParameter>();
-        while (tokenizer.getStringValue().equals("PARAMETER")) {
+        while (tokenizer.tokenEquals("PARAMETER")) {
             tokenizer.readToken("[");
             String paramName = tokenizer.readDoubleQuotedWord();
             tokenizer.readToken(",");
@@ -287,7 +403,7 @@ public class CoordinateSystemWktReader {
         return projection;
     }
 
-    private static IProjectedCoordinateSystem readProjectedCoordinateSystem(WktStreamTokenizer tokenizer) throws Exception {
+    private static IProjectedCoordinateSystem readProjectedCoordinateSystem(WktTokenizer tokenizer) throws Exception {
         /*PROJCS[
                         "OSGB 1936 / British National Grid",
                         GEOGCS[
@@ -322,20 +438,19 @@ public class CoordinateSystemWktReader {
         long authorityCode = -1;
         TokenType ct = tokenizer.nextToken();
         while (ct != TokenType.Eol && ct != TokenType.Eof) {
-            String token = tokenizer.getStringValue();
-            if (token.equals(",") || token.equals("]")) {
-            } else if (token.equals("PROJECTION")) {
+            if (tokenizer.tokenEquals(",") || tokenizer.tokenEquals("]")) {
+            } else if (tokenizer.tokenEquals("PROJECTION")) {
                 projection = readProjection(tokenizer);
                 ct = tokenizer.getTokenType();
                 continue;
             } else //break;
-                if (token.equals("UNIT")) {
+                if (tokenizer.tokenEquals("UNIT")) {
                     unit = readLinearUnit(tokenizer);
-                } else if (token.equals("AXIS")) {
+                } else if (tokenizer.tokenEquals("AXIS")) {
                     axes.add(readAxis(tokenizer));
                     tokenizer.nextToken();
-                } else if (token.equals("AUTHORITY")) {
-                    WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+                } else if (tokenizer.tokenEquals("AUTHORITY")) {
+                    WktTokenizer.Authority auth = tokenizer.readAuthority();
                     authority = auth.authority;
                     authorityCode = auth.authorityCode;
                 }
@@ -353,7 +468,7 @@ public class CoordinateSystemWktReader {
         return projectedCS;
     }
 
-    private static IGeographicCoordinateSystem readGeographicCoordinateSystem(WktStreamTokenizer tokenizer) throws Exception {
+    private static IGeographicCoordinateSystem readGeographicCoordinateSystem(WktTokenizer tokenizer) throws Exception {
         /*
                     GEOGCS["OSGB 1936",
                     DATUM["OSGB 1936",SPHEROID["Airy 1830",6377563.396,299.3249646,AUTHORITY["EPSG","7001"]],TOWGS84[0,0,0,0,0,0,0],AUTHORITY["EPSG","6277"]]
@@ -363,6 +478,7 @@ public class CoordinateSystemWktReader {
                     AUTHORITY["EPSG","4277"]
                     ]
                     */
+        int start = tokenizer.getTokenStart();
         tokenizer.readToken("[");
         String name = tokenizer.readDoubleQuotedWord();
         tokenizer.readToken(",");
@@ -378,20 +494,20 @@ public class CoordinateSystemWktReader {
         long authorityCode = -1;
         tokenizer.nextToken();
         List<AxisInfo> info = new ArrayList<AxisInfo>(2);
-        if (tokenizer.getStringValue().equals(",")) {
+        if (tokenizer.tokenEquals(",")) {
             tokenizer.nextToken();
-            while (tokenizer.getStringValue().equals("AXIS")) {
+            while (tokenizer.tokenEquals("AXIS")) {
                 info.add(readAxis(tokenizer));
                 tokenizer.nextToken();
-                if (tokenizer.getStringValue().equals(","))
+                if (tokenizer.tokenEquals(","))
                     tokenizer.nextToken();
 
             }
-            if (tokenizer.getStringValue().equals(","))
+            if (tokenizer.tokenEquals(","))
                 tokenizer.nextToken();
 
-            if (tokenizer.getStringValue().equals("AUTHORITY")) {
-                WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+            if (tokenizer.tokenEquals("AUTHORITY")) {
+                WktTokenizer.Authority auth = tokenizer.readAuthority();
                 authority = auth.authority;
                 authorityCode = auth.authorityCode;
                 tokenizer.readToken("]");
@@ -406,27 +522,28 @@ public class CoordinateSystemWktReader {
         }
 
         IGeographicCoordinateSystem geographicCS = new GeographicCoordinateSystem(angularUnit, horizontalDatum, primeMeridian, info, name, authority, authorityCode, "", "", "");
-        return geographicCS;
+        return intern(geographicCS, tokenizer, start);
     }
 
-    private static IHorizontalDatum readHorizontalDatum(WktStreamTokenizer tokenizer) throws Exception {
+    private static IHorizontalDatum readHorizontalDatum(WktTokenizer tokenizer) throws Exception {
         //DATUM["OSGB 1936",SPHEROID["Airy 1830",6377563.396,299.3249646,AUTHORITY["EPSG","7001"]],TOWGS84[0,0,0,0,0,0,0],AUTHORITY["EPSG","6277"]]
         Wgs84ConversionInfo wgsinfo = null;
         String authority = "";
         long authorityCode = -1;
+        int start = tokenizer.getTokenStart();
         tokenizer.readToken("[");
         String name = tokenizer.readDoubleQuotedWord();
         tokenizer.readToken(",");
         tokenizer.readToken("SPHEROID");
         IEllipsoid ellipsoid = readEllipsoid(tokenizer);
         tokenizer.nextToken();
-        while (tokenizer.getStringValue().equals(",")) {
+        while (tokenizer.tokenEquals(",")) {
             tokenizer.nextToken();
-            if (tokenizer.getStringValue().equals("TOWGS84")) {
+            if (tokenizer.tokenEquals("TOWGS84")) {
                 wgsinfo = readWGS84ConversionInfo(tokenizer);
                 tokenizer.nextToken();
-            } else if (tokenizer.getStringValue().equals("AUTHORITY")) {
-                WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+            } else if (tokenizer.tokenEquals("AUTHORITY")) {
+                WktTokenizer.Authority auth = tokenizer.readAuthority();
                 authority = auth.authority;
                 authorityCode = auth.authorityCode;
                 tokenizer.readToken("]");
@@ -435,11 +552,12 @@ public class CoordinateSystemWktReader {
         }
         // make an assumption about the datum type.
         IHorizontalDatum horizontalDatum = new HorizontalDatum(ellipsoid, wgsinfo, DatumType.HD_Geocentric, name, authority, authorityCode, "", "", "");
-        return horizontalDatum;
+        return intern(horizontalDatum, tokenizer, start);
     }
 
-    private static IPrimeMeridian readPrimeMeridian(WktStreamTokenizer tokenizer) throws Exception {
+    private static IPrimeMeridian readPrimeMeridian(WktTokenizer tokenizer) throws Exception {
         //PRIMEM["Greenwich",0,AUTHORITY["EPSG","8901"]]
+        int start = tokenizer.getTokenStart();
         tokenizer.readToken("[");
         String name = tokenizer.readDoubleQuotedWord();
         tokenizer.readToken(",");
@@ -448,8 +566,8 @@ public class CoordinateSystemWktReader {
         tokenizer.nextToken();
         String authority = "";
         long authorityCode = -1;
-        if (tokenizer.getStringValue().equals(",")) {
-            WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+        if (tokenizer.tokenEquals(",")) {
+            WktTokenizer.Authority auth = tokenizer.readAuthority();
             authority = auth.authority;
             authorityCode = auth.authorityCode;
             tokenizer.readToken("]");
@@ -457,10 +575,10 @@ public class CoordinateSystemWktReader {
 
         // make an assumption about the Angular units - degrees.
         IPrimeMeridian primeMeridian = new PrimeMeridian(longitude, AngularUnit.getDegrees(), name, authority, authorityCode, "", "", "");
-        return primeMeridian;
+        return intern(primeMeridian, tokenizer, start);
     }
 
-    private static IFittedCoordinateSystem readFittedCoordinateSystem(WktStreamTokenizer tokenizer) throws Exception {
+    private static IFittedCoordinateSystem readFittedCoordinateSystem(WktTokenizer tokenizer) throws Exception {
         /*
                      FITTED_CS[
                          "Local coordinate system MNAU (based on Gauss-Krueger)",
@@ -492,10 +610,9 @@ public class CoordinateSystemWktReader {
         long authorityCode = -1;
         TokenType ct = tokenizer.nextToken();
         while (ct != TokenType.Eol && ct != TokenType.Eof) {
-            String token = tokenizer.getStringValue();
-            if (token.equals(",") || token.equals("]")) {
-            } else if (token.equals("AUTHORITY")) {
-                WktStreamTokenizer.Authority auth = tokenizer.readAuthority();
+            if (tokenizer.tokenEquals(",") || tokenizer.tokenEquals("]")) {
+            } else if (tokenizer.tokenEquals("AUTHORITY")) {
+                WktTokenizer.Authority auth = tokenizer.readAuthority();
                 authority = auth.authority;
                 authorityCode = auth.authorityCode;
             }
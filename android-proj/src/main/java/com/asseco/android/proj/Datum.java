@@ -40,6 +40,7 @@ public abstract class Datum extends Info implements IDatum {
     }
 
     public void setDatumType(DatumType value) throws Exception {
+        checkModifiable();
         _DatumType = value;
     }
 
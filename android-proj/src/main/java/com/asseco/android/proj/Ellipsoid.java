@@ -155,6 +155,7 @@ public class Ellipsoid extends Info implements IEllipsoid {
     }
 
     public void setSemiMajorAxis(double value) {
+        checkModifiable();
         __SemiMajorAxis = value;
     }
 
@@ -163,6 +164,7 @@ public class Ellipsoid extends Info implements IEllipsoid {
     }
 
     public void setSemiMinorAxis(double value) {
+        checkModifiable();
         __SemiMinorAxis = value;
     }
 
@@ -171,6 +173,7 @@ public class Ellipsoid extends Info implements IEllipsoid {
     }
 
     public void setInverseFlattening(double value) {
+        checkModifiable();
         __InverseFlattening = value;
     }
 
@@ -179,6 +182,7 @@ public class Ellipsoid extends Info implements IEllipsoid {
     }
 
     public void setAxisUnit(ILinearUnit value) {
+        checkModifiable();
         __AxisUnit = value;
     }
 
@@ -187,9 +191,16 @@ public class Ellipsoid extends Info implements IEllipsoid {
     }
 
     public void setIsIvfDefinitive(boolean value) {
+        checkModifiable();
         __IsIvfDefinitive = value;
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(__AxisUnit);
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
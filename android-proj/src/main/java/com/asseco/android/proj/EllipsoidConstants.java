@@ -0,0 +1,246 @@
+package com.asseco.android.proj;
+
+/**
+ * Constants derived from the axes of an ellipsoid.
+ *
+ * The eccentricities, the meridian arc coefficients and the series of the auxiliary latitudes
+ * only depend on the semi major and semi minor axis. Instances are interned by the axes, so all
+ * projections and geocentric transforms on the same ellipsoid share one instance. Instances are
+ * immutable, the series are returned as copies, which a projection keeps for its kernels.
+ */
+public final class EllipsoidConstants {
+    /**
+     * Default number of interned ellipsoids.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 32;
+
+    private static final double C00 = 1.0, C02 = 0.25, C04 = 0.046875, C06 = 0.01953125, C08 = 0.01068115234375, C22 = 0.75, C44 = 0.46875, C46 = 0.01302083333333333333, C48 = 0.00712076822916666666, C66 = 0.36458333333333333333, C68 = 0.00569661458333333333, C88 = 0.3076171875;
+
+    private static final LruCache<Key, EllipsoidConstants> _cache = new LruCache<Key, EllipsoidConstants>(DEFAULT_CACHE_SIZE);
+
+    /**
+     * The semi major axis.
+     */
+    public final double semiMajor;
+    /**
+     * The semi minor axis.
+     */
+    public final double semiMinor;
+    /**
+     * The flattening, (a - b) / a.
+     */
+    public final double flattening;
+    /**
+     * The eccentricity squared, (a^2 - b^2) / a^2.
+     */
+    public final double es;
+    /**
+     * The eccentricity.
+     */
+    public final double e;
+    /**
+     * The second eccentricity squared, (a^2 - b^2) / b^2.
+     */
+    public final double esp;
+    /**
+     * The third flattening, (a - b) / (a + b).
+     */
+    public final double n;
+    /**
+     * The coefficients of the meridian distance.
+     */
+    public final double en0, en1, en2, en3, en4;
+    /**
+     * The authalic q at the pole.
+     */
+    public final double qp;
+    /**
+     * The radius of the rectifying sphere in units of the semi major axis.
+     */
+    public final double rectifyingRadius;
+    private final double[] _conformalSeries;
+    private final double[] _geodeticToConformalSeries;
+    private final double[] _authalicSeries;
+    private final double[] _rectifyingSeries;
+    private final double[] _ellipsoidToSphereSeries;
+    private final double[] _sphereToEllipsoidSeries;
+
+    private EllipsoidConstants(double semiMajor, double semiMinor) {
+        this.semiMajor = semiMajor;
+        this.semiMinor = semiMinor;
+        flattening = (semiMajor - semiMinor) / semiMajor;
+        es = 2 * flattening - flattening * flattening;
+        e = Math.sqrt(es);
+        esp = es / (1.0 - es);
+        //  Compute constants for the mlfn
+        double t;
+        en0 = C00 - es * (C02 + es * (C04 + es * (C06 + es * C08)));
+        en1 = es * (C22 - es * (C04 + es * (C06 + es * C08)));
+        en2 = (t = es * es) * (C44 - es * (C46 + es * C48));
+        en3 = (t *= es) * (C66 - es * C68);
+        en4 = t * es * C88;
+        if (e > 1.0e-7)
+            qp = 1.0 - (1.0 - es) * (.5 / e) * Math.log((1.0 - e) / (1.0 + e));
+        else
+            qp = 2.0;
+        //  Compute the series of the auxiliary latitudes in the third flattening
+        n = (semiMajor - semiMinor) / (semiMajor + semiMinor);
+        double n2 = n * n;
+        double n3 = n2 * n;
+        double n4 = n3 * n;
+        double n5 = n4 * n;
+        double n6 = n5 * n;
+        rectifyingRadius = (1 + n2 * (1 / 4.0 + n2 * (1 / 64.0 + n2 / 256.0))) / (1 + n);
+        _conformalSeries = new double[]{
+                n * (2 + n * (-2 / 3.0 + n * (-2 + n * (116 / 45.0 + n * (26 / 45.0 + n * (-2854 / 675.0)))))),
+                n2 * (7 / 3.0 + n * (-8 / 5.0 + n * (-227 / 45.0 + n * (2704 / 315.0 + n * (2323 / 945.0))))),
+                n3 * (56 / 15.0 + n * (-136 / 35.0 + n * (-1262 / 105.0 + n * (73814 / 2835.0)))),
+                n4 * (4279 / 630.0 + n * (-332 / 35.0 + n * (-399572 / 14175.0))),
+                n5 * (4174 / 315.0 + n * (-144838 / 6237.0)),
+                n6 * (601676 / 22275.0)};
+        _geodeticToConformalSeries = new double[]{
+                n * (-2 + n * (2 / 3.0 + n * (4 / 3.0 + n * (-82 / 45.0 + n * (32 / 45.0 + n * (4642 / 4725.0)))))),
+                n2 * (5 / 3.0 + n * (-16 / 15.0 + n * (-13 / 9.0 + n * (904 / 315.0 + n * (-1522 / 945.0))))),
+                n3 * (-26 / 15.0 + n * (34 / 21.0 + n * (8 / 5.0 + n * (-12686 / 2835.0)))),
+                n4 * (1237 / 630.0 + n * (-12 / 5.0 + n * (-24832 / 14175.0))),
+                n5 * (-734 / 315.0 + n * (109598 / 31185.0)),
+                n6 * (444337 / 155925.0)};
+        _authalicSeries = new double[]{
+                n * (4 / 3.0 + n * (4 / 45.0 + n * (-16 / 35.0 + n * (-2582 / 14175.0 + n * (60136 / 467775.0 + n * (28112932 / 212837625.0)))))),
+                n2 * (46 / 45.0 + n * (152 / 945.0 + n * (-11966 / 14175.0 + n * (-21016 / 51975.0 + n * (251310128 / 638512875.0))))),
+                n3 * (3044 / 2835.0 + n * (3802 / 14175.0 + n * (-94388 / 66825.0 + n * (-8797648 / 10945935.0)))),
+                n4 * (6059 / 4725.0 + n * (41072 / 93555.0 + n * (-1472637812 / 638512875.0))),
+                n5 * (768272 / 467775.0 + n * (548384 / 868725.0)),
+                n6 * (1640216 / 728175.0)};
+        _rectifyingSeries = new double[]{
+                n * (3 / 2.0 + n2 * (-27 / 32.0 + n2 * (269 / 512.0))),
+                n2 * (21 / 16.0 + n2 * (-55 / 32.0)),
+                n3 * (151 / 96.0 + n2 * (-417 / 128.0)),
+                n4 * (1097 / 512.0),
+                n5 * (8011 / 2560.0)};
+        _ellipsoidToSphereSeries = new double[]{
+                n * (-0.5 + n * (2 / 3.0 + n * (-37 / 96.0 + n * (1 / 360.0 + n * (81 / 512.0 + n * (-96199 / 604800.0)))))),
+                n2 * (-1 / 48.0 + n * (-1 / 15.0 + n * (437 / 1440.0 + n * (-46 / 105.0 + n * (1118711 / 3870720.0))))),
+                n3 * (-17 / 480.0 + n * (37 / 840.0 + n * (209 / 4480.0 + n * (-5569 / 90720.0)))),
+                n4 * (-4397 / 161280.0 + n * (11 / 504.0 + n * (830251 / 7257600.0))),
+                n5 * (-4583 / 161280.0 + n * (108847 / 3991680.0)),
+                n6 * (-20648693 / 638668800.0)};
+        _sphereToEllipsoidSeries = new double[]{
+                n * (0.5 + n * (-2 / 3.0 + n * (5 / 16.0 + n * (41 / 180.0 + n * (-127 / 288.0 + n * (7891 / 37800.0)))))),
+                n2 * (13 / 48.0 + n * (-3 / 5.0 + n * (557 / 1440.0 + n * (281 / 630.0 + n * (-1983433 / 1935360.0))))),
+                n3 * (61 / 240.0 + n * (-103 / 140.0 + n * (15061 / 26880.0 + n * (167603 / 181440.0)))),
+                n4 * (49561 / 161280.0 + n * (-179 / 168.0 + n * (6601661 / 7257600.0))),
+                n5 * (34729 / 80640.0 + n * (-3418889 / 1995840.0)),
+                n6 * (212378941 / 319334400.0)};
+    }
+
+    /**
+     * Gets the coefficients of the series converting the conformal latitude to the geodetic latitude.
+     *
+     * @return a copy of the coefficients
+     */
+    public double[] getConformalSeries() {
+        return _conformalSeries.clone();
+    }
+
+    /**
+     * Gets the coefficients of the series converting the geodetic latitude to the conformal latitude.
+     *
+     * @return a copy of the coefficients
+     */
+    public double[] getGeodeticToConformalSeries() {
+        return _geodeticToConformalSeries.clone();
+    }
+
+    /**
+     * Gets the coefficients of the series converting the authalic latitude to the geodetic latitude.
+     *
+     * @return a copy of the coefficients
+     */
+    public double[] getAuthalicSeries() {
+        return _authalicSeries.clone();
+    }
+
+    /**
+     * Gets the coefficients of the series converting the rectifying latitude to the geodetic latitude.
+     *
+     * @return a copy of the coefficients
+     */
+    public double[] getRectifyingSeries() {
+        return _rectifyingSeries.clone();
+    }
+
+    /**
+     * Gets the coefficients of the Krüger series mapping the ellipsoidal transverse Mercator coordinates to the sphere.
+     *
+     * @return a copy of the coefficients
+     */
+    public double[] getEllipsoidToSphereSeries() {
+        return _ellipsoidToSphereSeries.clone();
+    }
+
+    /**
+     * Gets the coefficients of the Krüger series mapping the spherical transverse Mercator coordinates to the ellipsoid.
+     *
+     * @return a copy of the coefficients
+     */
+    public double[] getSphereToEllipsoidSeries() {
+        return _sphereToEllipsoidSeries.clone();
+    }
+
+    /**
+     * Gets the constants of an ellipsoid, the instance is shared with all callers passing the same axes.
+     *
+     * @param semiMajor the semi major axis
+     * @param semiMinor the semi minor axis
+     * @return the constants
+     */
+    public static EllipsoidConstants of(double semiMajor, double semiMinor) {
+        Key key = new Key(semiMajor, semiMinor);
+        EllipsoidConstants constants = _cache.get(key);
+        if (constants == null) {
+            constants = new EllipsoidConstants(semiMajor, semiMinor);
+            _cache.put(key, constants);
+        }
+
+        return constants;
+    }
+
+    /**
+     * Gets the constants of an ellipsoid.
+     *
+     * @param ellipsoid the ellipsoid
+     * @return the constants
+     * @throws Exception the exception
+     */
+    public static EllipsoidConstants of(IEllipsoid ellipsoid) throws Exception {
+        return of(ellipsoid.getSemiMajorAxis(), ellipsoid.getSemiMinorAxis());
+    }
+
+    /**
+     * The axes an instance is interned by.
+     */
+    private static final class Key {
+        private final double _semiMajor;
+        private final double _semiMinor;
+
+        Key(double semiMajor, double semiMinor) {
+            _semiMajor = semiMajor;
+            _semiMinor = semiMinor;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+
+            Key key = (Key) obj;
+            return Double.compare(_semiMajor, key._semiMajor) == 0 && Double.compare(_semiMinor, key._semiMinor) == 0;
+        }
+
+        public int hashCode() {
+            long bits = Double.doubleToLongBits(_semiMajor) * 31 + Double.doubleToLongBits(_semiMinor);
+            return (int) (bits ^ (bits >>> 32));
+        }
+    }
+
+}
@@ -67,6 +67,12 @@ public class FittedCoordinateSystem extends CoordinateSystem implements IFittedC
         return _ToBaseTransform.getWKT();
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(_BaseCoordinateSystem);
+    }
+
     /**
      * Returns the Well-known text for this object as defined in the simple features specification.
      */
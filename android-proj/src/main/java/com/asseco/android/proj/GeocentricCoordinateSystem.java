@@ -56,6 +56,7 @@ public class GeocentricCoordinateSystem extends CoordinateSystem implements IGeo
     }
 
     public void setHorizontalDatum(IHorizontalDatum value) throws Exception {
+        checkModifiable();
         _HorizontalDatum = value;
     }
 
@@ -67,6 +68,7 @@ public class GeocentricCoordinateSystem extends CoordinateSystem implements IGeo
     }
 
     public void setLinearUnit(ILinearUnit value) throws Exception {
+        checkModifiable();
         _LinearUnit = value;
     }
 
@@ -89,9 +91,18 @@ public class GeocentricCoordinateSystem extends CoordinateSystem implements IGeo
     }
 
     public void setPrimeMeridian(IPrimeMeridian value) throws Exception {
+        checkModifiable();
         _Primemeridan = value;
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(_HorizontalDatum);
+        freeze(_LinearUnit);
+        freeze(_Primemeridan);
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
@@ -1,6 +1,7 @@
 package com.asseco.android.proj;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -58,6 +59,7 @@ public class GeographicCoordinateSystem extends HorizontalCoordinateSystem imple
     }
 
     public void setangularUnit(IAngularUnit value) throws Exception {
+        checkModifiable();
         _AngularUnit = value;
     }
 
@@ -80,6 +82,7 @@ public class GeographicCoordinateSystem extends HorizontalCoordinateSystem imple
     }
 
     public void setPrimeMeridian(IPrimeMeridian value) throws Exception {
+        checkModifiable();
         _PrimeMeridian = value;
     }
 
@@ -107,6 +110,7 @@ public class GeographicCoordinateSystem extends HorizontalCoordinateSystem imple
      * @throws Exception the exception
      */
     public void setWGS84ConversionInfo(List<Wgs84ConversionInfo> value) throws Exception {
+        checkModifiable();
         _WGS84ConversionInfo = value;
     }
 
@@ -117,6 +121,15 @@ public class GeographicCoordinateSystem extends HorizontalCoordinateSystem imple
         return _WGS84ConversionInfo.get(index);
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(_AngularUnit);
+        freeze(_PrimeMeridian);
+        if (_WGS84ConversionInfo != null)
+            _WGS84ConversionInfo = Collections.unmodifiableList(_WGS84ConversionInfo);
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
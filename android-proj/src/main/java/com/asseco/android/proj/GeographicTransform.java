@@ -37,6 +37,7 @@ public class GeographicTransform extends Info implements IGeographicTransform {
     }
 
     public void setSourceGCS(IGeographicCoordinateSystem value) throws Exception {
+        checkModifiable();
         _SourceGCS = value;
     }
 
@@ -48,6 +49,7 @@ public class GeographicTransform extends Info implements IGeographicTransform {
     }
 
     public void setTargetGCS(IGeographicCoordinateSystem value) throws Exception {
+        checkModifiable();
         _TargetGCS = value;
     }
 
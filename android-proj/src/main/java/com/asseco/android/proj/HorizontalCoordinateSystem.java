@@ -38,9 +38,14 @@ public abstract class HorizontalCoordinateSystem extends CoordinateSystem implem
     }
 
     public void setHorizontalDatum(IHorizontalDatum value) throws Exception {
+        checkModifiable();
         _HorizontalDatum = value;
     }
 
-}
-
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(_HorizontalDatum);
+    }
 
+}
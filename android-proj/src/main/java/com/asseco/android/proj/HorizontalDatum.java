@@ -107,20 +107,33 @@ public class HorizontalDatum extends Datum implements IHorizontalDatum {
     }
 
     public void setEllipsoid(IEllipsoid value) throws Exception {
+        checkModifiable();
         _Ellipsoid = value;
     }
 
     /**
-     * Gets preferred parameters for a Bursa Wolf transformation into WGS84
+     * Gets preferred parameters for a Bursa Wolf transformation into WGS84, a copy of them
+     * if the datum is frozen, as their fields are public.
      */
     public Wgs84ConversionInfo getWgs84Parameters() throws Exception {
+        if (isFrozen() && _Wgs84ConversionInfo != null) {
+            Wgs84ConversionInfo p = _Wgs84ConversionInfo;
+            return new Wgs84ConversionInfo(p.Dx, p.Dy, p.Dz, p.Ex, p.Ey, p.Ez, p.Ppm, p.AreaOfUse);
+        }
         return _Wgs84ConversionInfo;
     }
 
     public void setWgs84Parameters(Wgs84ConversionInfo value) throws Exception {
+        checkModifiable();
         _Wgs84ConversionInfo = value;
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(_Ellipsoid);
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
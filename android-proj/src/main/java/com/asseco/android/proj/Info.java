@@ -11,6 +11,7 @@ public abstract class Info implements IInfo {
     private String _Alias = new String();
     private String _Abbreviation = new String();
     private String _Remarks = new String();
+    private boolean _Frozen;
 
     /**
      * A base interface for metadata applicable to coordinate system objects.
@@ -43,6 +44,51 @@ public abstract class Info implements IInfo {
         _Remarks = remarks;
     }
 
+    /**
+     * Makes the object and its parts unmodifiable, setting any of their properties throws
+     * afterwards. Objects are frozen when they are shared, e.g. by the cache of the
+     * {@link CoordinateSystemWktReader}.
+     */
+    void freeze() {
+        if (!_Frozen) {
+            _Frozen = true;
+            freezeParts();
+        }
+    }
+
+    /**
+     * Freezes the parts of the object, called once when the object is frozen.
+     */
+    void freezeParts() {
+    }
+
+    /**
+     * Freezes a part of an object, parts which are no {@link Info} are left as they are.
+     *
+     * @param part the part, may be null
+     */
+    static void freeze(Object part) {
+        if (part instanceof Info)
+            ((Info) part).freeze();
+    }
+
+    /**
+     * Gets whether the object is shared and cannot be modified.
+     *
+     * @return true if the setters of the object throw
+     */
+    public boolean isFrozen() {
+        return _Frozen;
+    }
+
+    /**
+     * Throws if the object is shared and cannot be modified, called by all setters.
+     */
+    protected void checkModifiable() {
+        if (_Frozen)
+            throw new UnsupportedOperationException("The object is shared and cannot be modified.");
+    }
+
     /**
      * Gets or sets the name of the object.
      */
@@ -57,6 +103,7 @@ public abstract class Info implements IInfo {
      * @throws Exception the exception
      */
     public void setName(String value) throws Exception {
+        checkModifiable();
         _Name = value;
     }
 
@@ -76,6 +123,7 @@ public abstract class Info implements IInfo {
      * @throws Exception the exception
      */
     public void setAuthority(String value) throws Exception {
+        checkModifiable();
         _Authority = value;
     }
 
@@ -93,6 +141,7 @@ public abstract class Info implements IInfo {
      * @throws Exception the exception
      */
     public void setAuthorityCode(long value) throws Exception {
+        checkModifiable();
         _Code = value;
     }
 
@@ -110,6 +159,7 @@ public abstract class Info implements IInfo {
      * @throws Exception the exception
      */
     public void setAlias(String value) throws Exception {
+        checkModifiable();
         _Alias = value;
     }
 
@@ -127,6 +177,7 @@ public abstract class Info implements IInfo {
      * @throws Exception the exception
      */
     public void setAbbreviation(String value) throws Exception {
+        checkModifiable();
         _Abbreviation = value;
     }
 
@@ -144,6 +195,7 @@ public abstract class Info implements IInfo {
      * @throws Exception the exception
      */
     public void setRemarks(String value) throws Exception {
+        checkModifiable();
         _Remarks = value;
     }
 
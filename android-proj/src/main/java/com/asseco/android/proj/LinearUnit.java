@@ -87,6 +87,7 @@ public class LinearUnit extends Info implements ILinearUnit {
     }
 
     public void setMetersPerUnit(double value) throws Exception {
+        checkModifiable();
         _MetersPerUnit = value;
     }
 
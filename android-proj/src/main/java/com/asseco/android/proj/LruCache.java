@@ -0,0 +1,96 @@
+package com.asseco.android.proj;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded map which evicts the least recently used entry once it is full.
+ *
+ * All methods are synchronized on the cache, so an instance can be shared between threads.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, V> _map;
+    private int _capacity;
+
+    /**
+     * Instantiates a new cache.
+     *
+     * @param capacity the maximal number of entries, 0 disables the cache
+     */
+    public LruCache(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative cache capacity.");
+
+        _capacity = capacity;
+        _map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > _capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the value stored for a key and marks it as recently used.
+     *
+     * @param key the key
+     * @return the value, or null if there is none
+     */
+    public synchronized V get(K key) {
+        return _map.get(key);
+    }
+
+    /**
+     * Stores a value, evicting the least recently used entry when the cache is full.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public synchronized void put(K key, V value) {
+        if (_capacity > 0)
+            _map.put(key, value);
+    }
+
+    /**
+     * Gets the number of entries in the cache.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return _map.size();
+    }
+
+    /**
+     * Gets the maximal number of entries.
+     *
+     * @return the capacity
+     */
+    public synchronized int getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * Sets the maximal number of entries, the least recently used entries are evicted
+     * when the cache holds more.
+     *
+     * @param capacity the capacity, 0 disables the cache
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative cache capacity.");
+
+        _capacity = capacity;
+        while (_map.size() > _capacity)
+            _map.remove(_map.keySet().iterator().next());
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        _map.clear();
+    }
+
+}
@@ -3,7 +3,6 @@ package com.asseco.android.proj;
 import com.asseco.android.proj.transformations.AffineTransform;
 import com.asseco.android.proj.transformations.IMathTransform;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -29,10 +28,9 @@ public class MathTransformWktReader {
         // Stream stream = new MemoryStream(arr);
         try {
             {
-                StringReader reader = new StringReader(wkt);//, encoding);
                 try {
                     {
-                        WktStreamTokenizer tokenizer = new WktStreamTokenizer(reader);
+                        WktTokenizer tokenizer = new WktTokenizer(wkt);
                         tokenizer.nextToken();
                         String objectName = tokenizer.getStringValue();
                         String __dummyScrutVar0 = objectName;
@@ -62,8 +60,8 @@ public class MathTransformWktReader {
      * @return math transform
      * @throws Exception the exception
      */
-    public static IMathTransform readMathTransform(WktStreamTokenizer tokenizer) throws Exception {
-        if (!tokenizer.getStringValue().equals("PARAM_MT"))
+    public static IMathTransform readMathTransform(WktTokenizer tokenizer) throws Exception {
+        if (!tokenizer.tokenEquals("PARAM_MT"))
             tokenizer.readToken("PARAM_MT");
 
         tokenizer.readToken("[");
@@ -77,9 +75,38 @@ public class MathTransformWktReader {
         }
     }
 
-    private static IParameterInfo readParameters(WktStreamTokenizer tokenizer) throws Exception {
+    /**
+     * Reads math transform from using current token from the specified stream tokenizer.
+     * The text of the transform is collected up to its closing bracket, where the stream
+     * tokenizer stands afterwards, and read with a {@link WktTokenizer}.
+     *
+     * @param tokenizer the tokenizer
+     * @return math transform
+     * @throws Exception the exception
+     */
+    public static IMathTransform readMathTransform(WktStreamTokenizer tokenizer) throws Exception {
+        StringBuilder wkt = new StringBuilder(tokenizer.getStringValue());
+        int depth = 0;
+        boolean quoted = false;
+        //the tokens of a stream tokenizer cover all characters, whitespace included
+        while (tokenizer.nextToken(false) != TokenType.Eof) {
+            String token = tokenizer.getStringValue();
+            wkt.append(token);
+            if (token.equals("\""))
+                quoted = !quoted;
+            else if (!quoted && (token.equals("[") || token.equals("(")))
+                depth++;
+            else if (!quoted && (token.equals("]") || token.equals(")")) && --depth == 0)
+                break;
+        }
+        WktTokenizer wktTokenizer = new WktTokenizer(wkt);
+        wktTokenizer.nextToken();
+        return readMathTransform(wktTokenizer);
+    }
+
+    private static IParameterInfo readParameters(WktTokenizer tokenizer) throws Exception {
         List<Parameter> paramList = new ArrayList<Parameter>();
-        while (tokenizer.getStringValue().equals("PARAMETER")) {
+        while (tokenizer.tokenEquals("PARAMETER")) {
             tokenizer.readToken("[");
             String paramName = tokenizer.readDoubleQuotedWord();
             tokenizer.readToken(",");
@@ -88,7 +115,7 @@ public class MathTransformWktReader {
             tokenizer.readToken("]");
             //test, whether next parameter is delimited by comma
             tokenizer.nextToken();
-            if (!tokenizer.getStringValue().equals("]"))
+            if (!tokenizer.tokenEquals("]"))
                 tokenizer.nextToken();
 
             paramList.add(new Parameter(paramName, paramValue));
@@ -98,7 +125,7 @@ public class MathTransformWktReader {
         return info;
     }
 
-    private static IMathTransform readAffineTransform(WktStreamTokenizer tokenizer) throws Exception {
+    private static IMathTransform readAffineTransform(WktTokenizer tokenizer) throws Exception {
         /*
                          PARAM_MT[
                             "Affine",
@@ -114,7 +141,7 @@ public class MathTransformWktReader {
                          ]
                     */
         //tokenizer stands on the first PARAMETER
-        if (!tokenizer.getStringValue().equals("PARAMETER"))
+        if (!tokenizer.tokenEquals("PARAMETER"))
             tokenizer.readToken("PARAMETER");
 
         IParameterInfo paramInfo = readParameters(tokenizer);
@@ -186,7 +213,7 @@ public class MathTransformWktReader {
         }
         //unknown parameter
         //read rest of WKT
-        if (!tokenizer.getStringValue().equals("]"))
+        if (!tokenizer.tokenEquals("]"))
             tokenizer.readToken("]");
 
         //use "matrix" constructor to create transformation matrix
@@ -170,6 +170,7 @@ public class PrimeMeridian extends Info implements IPrimeMeridian {
     }
 
     public void setLongitude(double value) throws Exception {
+        checkModifiable();
         _Longitude = value;
     }
 
@@ -181,9 +182,16 @@ public class PrimeMeridian extends Info implements IPrimeMeridian {
     }
 
     public void setangularUnit(IAngularUnit value) throws Exception {
+        checkModifiable();
         _AngularUnit = value;
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(_AngularUnit);
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
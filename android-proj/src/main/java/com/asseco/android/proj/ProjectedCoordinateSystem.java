@@ -90,6 +90,7 @@ public class ProjectedCoordinateSystem extends HorizontalCoordinateSystem implem
     }
 
     public void setGeographicCoordinateSystem(IGeographicCoordinateSystem value) throws Exception {
+        checkModifiable();
         _GeographicCoordinateSystem = value;
     }
 
@@ -105,6 +106,7 @@ public class ProjectedCoordinateSystem extends HorizontalCoordinateSystem implem
     }
 
     public void setLinearUnit(ILinearUnit value) throws Exception {
+        checkModifiable();
         _LinearUnit = value;
     }
 
@@ -127,9 +129,18 @@ public class ProjectedCoordinateSystem extends HorizontalCoordinateSystem implem
     }
 
     public void setProjection(IProjection value) throws Exception {
+        checkModifiable();
         _Projection = value;
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        freeze(_GeographicCoordinateSystem);
+        freeze(_LinearUnit);
+        freeze(_Projection);
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
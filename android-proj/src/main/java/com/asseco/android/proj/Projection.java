@@ -1,6 +1,7 @@
 package com.asseco.android.proj;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -59,6 +60,7 @@ public class Projection extends Info implements IProjection {
      * @throws Exception the exception
      */
     public void setParameters(List<ProjectionParameter> value) throws Exception {
+        checkModifiable();
         _parameters = value;
     }
 
@@ -96,6 +98,17 @@ public class Projection extends Info implements IProjection {
         return _ClassName;
     }
 
+    @Override
+    void freezeParts() {
+        super.freezeParts();
+        if (_parameters != null) {
+            for (ProjectionParameter parameter : _parameters)
+                parameter.freeze();
+
+            _parameters = Collections.unmodifiableList(_parameters);
+        }
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
@@ -15,6 +15,7 @@ package com.asseco.android.proj;
 public class ProjectionParameter {
     private String _Name = new String();
     private double _Value;
+    private boolean _Frozen;
 
     /**
      * Initializes an instance of a ProjectionParameter
@@ -44,6 +45,7 @@ public class ProjectionParameter {
      * @throws Exception the exception
      */
     public void setName(String value) throws Exception {
+        checkModifiable();
         _Name = value;
     }
 
@@ -67,9 +69,22 @@ public class ProjectionParameter {
      * @throws Exception the exception
      */
     public void setValue(double value) throws Exception {
+        checkModifiable();
         _Value = value;
     }
 
+    /**
+     * Makes the parameter unmodifiable, it is frozen with the object it belongs to.
+     */
+    void freeze() {
+        _Frozen = true;
+    }
+
+    private void checkModifiable() {
+        if (_Frozen)
+            throw new UnsupportedOperationException("The object is shared and cannot be modified.");
+    }
+
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification.
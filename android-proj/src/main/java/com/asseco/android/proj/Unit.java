@@ -52,6 +52,7 @@ public class Unit extends Info implements IUnit {
      * @throws Exception the exception
      */
     public void setConversionFactor(double value) throws Exception {
+        checkModifiable();
         _ConversionFactor = value;
     }
 
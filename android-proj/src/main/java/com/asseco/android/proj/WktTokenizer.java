@@ -0,0 +1,437 @@
+package com.asseco.android.proj;
+
+import java.nio.CharBuffer;
+
+/**
+ * Splits Well Known Text (wkt) into tokens in a single pass over the characters.
+ *
+ * The text is scanned in place with a cursor, a token is only the offset and the length of
+ * its characters. Strings are created when asked for with {@link #getStringValue()}, and
+ * numbers are parsed straight from the text. It recognizes the tokens of
+ * {@link WktStreamTokenizer}, which reads the text character by character from a reader.
+ */
+public class WktTokenizer {
+    /**
+     * Exact powers of ten, a double holds them without rounding.
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /**
+     * Largest integer which a double holds exactly.
+     */
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+    private final CharSequence _text;
+    private final int _end;
+    private int _position;
+    private int _tokenStart;
+    private int _tokenEnd;
+    private TokenType _tokenType = TokenType.Word;
+    private String _tokenString;
+
+    /**
+     * Initializes a new instance of the WktTokenizer class.
+     *
+     * @param text the text to split
+     */
+    public WktTokenizer(CharSequence text) {
+        if (text == null)
+            throw new IllegalArgumentException("text is null");
+
+        _text = text;
+        _position = 0;
+        _end = text.length();
+        _tokenStart = 0;
+        _tokenEnd = 0;
+    }
+
+    /**
+     * Initializes a new instance of the WktTokenizer class over a part of a character array,
+     * the characters are not copied.
+     *
+     * @param chars  the characters
+     * @param offset the index of the first character of the text
+     * @param length the number of characters of the text
+     */
+    public WktTokenizer(char[] chars, int offset, int length) {
+        this(CharBuffer.wrap(chars, offset, length).slice());
+    }
+
+    private static boolean isLetter(char c) {
+        if (c < 128)
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+
+        return Character.isLetter(c);
+    }
+
+    private static boolean isDigit(char c) {
+        if (c < 128)
+            return c >= '0' && c <= '9';
+
+        return Character.isDigit(c);
+    }
+
+    private static boolean isWhitespace(char c) {
+        if (c == ' ' || c == '\t' || c == '\r')
+            return true;
+        if (c < 128 && c > ' ')
+            return false;
+
+        return c != '\n' && (Character.isWhitespace(c) || Character.isISOControl(c));
+    }
+
+    /**
+     * Gets the type of the current token.
+     *
+     * @return the token type
+     */
+    public TokenType getTokenType() {
+        return _tokenType;
+    }
+
+    /**
+     * Gets the index of the first character of the current token in the text.
+     *
+     * @return the token start
+     */
+    public int getTokenStart() {
+        return _tokenStart;
+    }
+
+    /**
+     * Gets the number of characters of the current token.
+     *
+     * @return the token length
+     */
+    public int getTokenLength() {
+        return _tokenEnd - _tokenStart;
+    }
+
+    /**
+     * Gets the text which is split.
+     *
+     * @return the text
+     */
+    public CharSequence getText() {
+        return _text;
+    }
+
+    /**
+     * Gets the characters of the current token, the string is created once per token.
+     *
+     * @return the string value
+     */
+    public String getStringValue() {
+        if (_tokenString == null)
+            _tokenString = _text.subSequence(_tokenStart, _tokenEnd).toString();
+        return _tokenString;
+    }
+
+    /**
+     * Tests whether the current token consists of the given characters, without creating a string.
+     *
+     * @param value the expected characters
+     * @return whether the token equals the value
+     */
+    public boolean tokenEquals(String value) {
+        int length = _tokenEnd - _tokenStart;
+        if (value.length() != length)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            if (_text.charAt(_tokenStart + i) != value.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tests whether the current token is a single character.
+     *
+     * @param value the expected character
+     * @return whether the token is the character
+     */
+    public boolean tokenEquals(char value) {
+        return _tokenEnd - _tokenStart == 1 && _text.charAt(_tokenStart) == value;
+    }
+
+    /**
+     * The line number of the current token.
+     *
+     * @return the line number
+     */
+    public int getLineNumber() {
+        int line = 1;
+        for (int i = 0; i < _tokenStart; i++) {
+            if (_text.charAt(i) == '\n')
+                line++;
+        }
+        return line;
+    }
+
+    /**
+     * The column number following the current token.
+     *
+     * @return the column
+     */
+    public int getColumn() {
+        int column = 1;
+        for (int i = _tokenEnd - 1; i >= 0 && _text.charAt(i) != '\n'; i--)
+            column++;
+        return column;
+    }
+
+    /**
+     * Returns the next token that is not whitespace.
+     *
+     * @return the type of the next token
+     */
+    public TokenType nextToken() {
+        return nextToken(true);
+    }
+
+    /**
+     * Returns the next token.
+     *
+     * @param ignoreWhitespace true if whitespace and line ends are skipped
+     * @return the type of the next token
+     */
+    public TokenType nextToken(boolean ignoreWhitespace) {
+        _tokenString = null;
+        int p = _position;
+        if (ignoreWhitespace) {
+            while (p < _end) {
+                char c = _text.charAt(p);
+                if (c != '\n' && !isWhitespace(c))
+                    break;
+                p++;
+            }
+        }
+        _tokenStart = p;
+        if (p >= _end) {
+            _tokenEnd = p;
+            _position = p;
+            return _tokenType = TokenType.Eof;
+        }
+
+        char c = _text.charAt(p++);
+        if (isLetter(c)) {
+            //words go on with letters, digits and underscores
+            while (p < _end) {
+                char n = _text.charAt(p);
+                if (!isLetter(n) && !isDigit(n) && n != '_')
+                    break;
+                p++;
+            }
+            _tokenType = TokenType.Word;
+        } else if (isDigit(c) || (c == '-' && p < _end && isDigit(_text.charAt(p)))) {
+            p = scanNumber(p);
+            _tokenType = TokenType.Number;
+        } else if (c == '\n') {
+            _tokenType = TokenType.Eol;
+        } else if (isWhitespace(c)) {
+            while (p < _end && isWhitespace(_text.charAt(p)))
+                p++;
+            _tokenType = TokenType.Whitespace;
+        } else {
+            _tokenType = TokenType.Symbol;
+        }
+        _tokenEnd = p;
+        _position = p;
+        return _tokenType;
+    }
+
+    /**
+     * Scans the rest of a number, digits with a decimal point and an exponent.
+     */
+    private int scanNumber(int p) {
+        while (p < _end && isDigit(_text.charAt(p)))
+            p++;
+        if (p + 1 < _end && _text.charAt(p) == '.' && isDigit(_text.charAt(p + 1))) {
+            p++;
+            while (p < _end && isDigit(_text.charAt(p)))
+                p++;
+        }
+        if (p < _end && (_text.charAt(p) == 'E' || _text.charAt(p) == 'e')) {
+            int e = p + 1;
+            if (e < _end && (_text.charAt(e) == '+' || _text.charAt(e) == '-'))
+                e++;
+            if (e < _end && isDigit(_text.charAt(e))) {
+                p = e;
+                while (p < _end && isDigit(_text.charAt(p)))
+                    p++;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Gets the value of the current token, which must be a number. Numbers with up to 15
+     * or 16 significant digits and small exponents are converted exactly with a single
+     * division, other numbers are parsed by {@link Double#parseDouble(String)}.
+     *
+     * @return the numeric value
+     */
+    public double getNumericValue() {
+        if (_tokenType != TokenType.Number) {
+            String s = String.format("The token '%s' is not a number at line %d column %d.", getStringValue(), getLineNumber(), getColumn());
+            throw new IllegalArgumentException(s);
+        }
+
+        int p = _tokenStart;
+        boolean negative = _text.charAt(p) == '-';
+        if (negative)
+            p++;
+        long mantissa = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; p < _tokenEnd; p++) {
+            char c = _text.charAt(p);
+            if (c == '.') {
+                fraction = true;
+                continue;
+            }
+            if (c < '0' || c > '9')
+                break;
+
+            if (mantissa >= MAX_EXACT_INTEGER / 10)
+                return Double.parseDouble(getStringValue());
+
+            mantissa = mantissa * 10 + (c - '0');
+            if (fraction)
+                scale--;
+        }
+        if (p < _tokenEnd) {
+            //the exponent
+            p++;
+            boolean negativeExponent = false;
+            if (_text.charAt(p) == '+' || _text.charAt(p) == '-')
+                negativeExponent = _text.charAt(p++) == '-';
+            int exponent = 0;
+            for (; p < _tokenEnd; p++) {
+                exponent = exponent * 10 + (_text.charAt(p) - '0');
+                if (exponent > 1000)
+                    return Double.parseDouble(getStringValue());
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (mantissa > MAX_EXACT_INTEGER || scale < -22 || scale > 22)
+            return Double.parseDouble(getStringValue());
+
+        //both operands are exact, so the result is rounded once
+        double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a token and checks it is what is expected.
+     *
+     * @param expectedToken the expected token
+     */
+    public void readToken(String expectedToken) {
+        nextToken();
+        if (!tokenEquals(expectedToken)) {
+            String s = String.format("Expecting ('%s') but got a '%s' at line %d column %d.", expectedToken, getStringValue(), getLineNumber(), getColumn());
+            throw new IllegalArgumentException(s);
+        }
+    }
+
+    /**
+     * Reads a string inside double quotes, white space inside quotes is preserved. The
+     * closing quote is the current token afterwards.
+     *
+     * @return the string inside the double quotes
+     */
+    public String readDoubleQuotedWord() {
+        int start = skipToQuotedWord();
+        return _text.subSequence(start, _tokenStart).toString();
+    }
+
+    /**
+     * Moves past the opening and to the closing quote of a quoted string.
+     *
+     * @return the index of the first character inside the quotes
+     */
+    private int skipToQuotedWord() {
+        if (!tokenEquals('"'))
+            readToken("\"");
+
+        int start = _tokenEnd;
+        int p = start;
+        while (p < _end && _text.charAt(p) != '"')
+            p++;
+        if (p >= _end) {
+            _tokenStart = p;
+            _tokenEnd = p;
+            _position = p;
+            _tokenType = TokenType.Eof;
+            _tokenString = null;
+            throw new IllegalArgumentException(String.format("Missing closing quote at line %d column %d.", getLineNumber(), getColumn()));
+        }
+        _tokenStart = p;
+        _tokenEnd = p + 1;
+        _position = p + 1;
+        _tokenType = TokenType.Symbol;
+        _tokenString = null;
+        return start;
+    }
+
+    /**
+     * Reads the authority and authority code.
+     *
+     * @return the authority
+     */
+    public Authority readAuthority() {
+        //AUTHORITY["EPGS","9102"]]
+        if (!tokenEquals("AUTHORITY"))
+            readToken("AUTHORITY");
+
+        Authority aut = new Authority();
+        readToken("[");
+        aut.authority = readDoubleQuotedWord();
+        readToken(",");
+        nextToken();
+        if (getTokenType() == TokenType.Number) {
+            aut.authorityCode = (long) getNumericValue();
+        } else {
+            int start = skipToQuotedWord();
+            aut.authorityCode = parseLong(start, _tokenStart);
+        }
+        readToken("]");
+        return aut;
+    }
+
+    /**
+     * Parses an integer between two indices of the text.
+     */
+    private long parseLong(int start, int end) {
+        boolean negative = start < end && _text.charAt(start) == '-';
+        int p = negative || (start < end && _text.charAt(start) == '+') ? start + 1 : start;
+        if (p >= end || end - p > 18)
+            return Long.parseLong(_text.subSequence(start, end).toString());
+
+        long value = 0;
+        for (; p < end; p++) {
+            char c = _text.charAt(p);
+            if (c < '0' || c > '9')
+                return Long.parseLong(_text.subSequence(start, end).toString());
+
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * The authority and the authority code of an object.
+     */
+    public static class Authority {
+        /**
+         * The Authority.
+         */
+        public String authority;
+        /**
+         * The Authority code.
+         */
+        public long authorityCode;
+    }
+
+}
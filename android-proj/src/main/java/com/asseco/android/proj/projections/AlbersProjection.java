@@ -80,59 +80,95 @@ public class AlbersProjection extends MapProjection {
     /**
      * Converts coordinates in decimal degrees to projected meters.
      *
-     * @param lonlat The point in decimal degrees.
-     * @return Point in projected meters
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving the projected meters.
+     * @param dstOff The offset of x in the destination array.
      */
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double dLongitude = lonlat[0];
-        double dLatitude = lonlat[1];
-        double a = alpha(dLatitude);
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double a = alpha(lat);
         double ro = ro(a);
-        double theta = _n * (dLongitude - central_meridian);
+        double theta = _n * (lon - central_meridian);
         /*_falseEasting +*/
-        dLongitude = ro * Math.sin(theta);
+        dst[dstOff] = ro * Math.sin(theta);
         /*_falseNorthing +*/
-        dLatitude = _ro0 - (ro * Math.cos(theta));
-
+        dst[dstOff + 1] = _ro0 - (ro * Math.cos(theta));
+    }
 
-        return lonlat.length == 2
-                ? new double[]{dLongitude, dLatitude}
-                : new double[]{dLongitude, dLatitude, lonlat[2]};
+    /**
+     * Differentiates the forward projection in polar coordinates around the apex of the cone.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double sin = Math.sin(lat);
+        double w = 1 - _es * sin * sin;
+        double root = Math.sqrt(_c - _n * alpha(lat));
+        double ro = _semiMajor * root / _n;
+        //derivative of alpha by the latitude and of ro by alpha
+        double dro = -_semiMajor * (1 - _es) * Math.cos(lat) / (w * w * root);
+        double theta = _n * (lon - central_meridian);
+        double sinTheta = Math.sin(theta);
+        double cosTheta = Math.cos(theta);
+        dst[dstOff] = ro * _n * cosTheta;
+        dst[dstOff + 1] = dro * sinTheta;
+        dst[dstOff + 2] = ro * _n * sinTheta;
+        dst[dstOff + 3] = -dro * cosTheta;
     }
 
     /**
      * Converts coordinates in projected meters to decimal degrees.
      *
-     * @param p Point in meters
-     * @return Transformed point in decimal degrees
+     * @param x      The x ordinate in meters.
+     * @param y      The y ordinate in meters.
+     * @param dst    The array receiving the longitude and latitude in radians.
+     * @param dstOff The offset of the longitude in the destination array.
      */
-    protected double[] metersToRadians(double[] p) throws Exception {
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
         /* _metersPerUnit - _falseEasting*/
-        double theta = Math.atan((p[0]) / (_ro0 - (p[1])));
+        double theta = Math.atan((x) / (_ro0 - (y)));
         /* _metersPerUnit - _falseNorthing*/
         /* _metersPerUnit - _falseEasting*/
-        double ro = Math.sqrt(Math.pow(p[0], 2) + Math.pow(_ro0 - (p[1]), 2));
+        double ro = Math.sqrt(Math.pow(x, 2) + Math.pow(_ro0 - (y), 2));
         /* * _metersPerUnit - _falseNorthing*/
         double q = (_c - Math.pow(ro, 2) * Math.pow(_n, 2) / Math.pow(this._semiMajor, 2)) / _n;
-        double b = Math.sin(q / (1 - ((1 - _es) / (2 * _e)) * Math.log((1 - _e) / (1 + _e))));
+        if (getFastMath()) {
+            dst[dstOff] = central_meridian + (theta / _n);
+            dst[dstOff + 1] = phi1z(q);
+            return;
+        }
+
         double lat = Math.asin(q * 0.5);
         double preLat = Double.MAX_VALUE;
         int iterationCounter = 0;
+        IterationStatistics statistics = iterationStatistics();
         while (Math.abs(lat - preLat) > 0.000001) {
             preLat = lat;
-            double sin = Math.sin(lat);
-            double e2sin2 = _es * Math.pow(sin, 2);
-            lat += (Math.pow(1 - e2sin2, 2) / (2 * Math.cos(lat))) * ((q / (1 - _es)) - sin / (1 - e2sin2) + 1 / (2 * _e) * Math.log((1 - _e * sin) / (1 + _e * sin)));
+            lat += phi1Step(q, lat);
             iterationCounter++;
-            if (iterationCounter > 25)
-                throw new IllegalArgumentException("Transformation failed to converge in Albers backwards transformation");
+            if (iterationCounter > 25) {
+                if (statistics != null)
+                    statistics.record(iterationCounter, false, Math.abs(phi1Step(q, lat)) * _semiMajor);
+                throw new NoConvergenceException("Transformation failed to converge in Albers backwards transformation", iterationCounter);
+            }
 
         }
-        double lon = central_meridian + (theta / _n);
-        if (p.length == 2)
-            return new double[]{lon, lat};
+        if (statistics != null)
+            statistics.record(iterationCounter, true, Math.abs(phi1Step(q, lat)) * _semiMajor);
+        dst[dstOff] = central_meridian + (theta / _n);
+        dst[dstOff + 1] = lat;
+    }
 
-        return new double[]{lon, lat, p[2]};
+    /**
+     * The correction of the latitude by an iteration of the inverse.
+     */
+    private double phi1Step(double q, double lat) {
+        double sin = Math.sin(lat);
+        double e2sin2 = _es * Math.pow(sin, 2);
+        return (Math.pow(1 - e2sin2, 2) / (2 * Math.cos(lat))) * ((q / (1 - _es)) - sin / (1 - e2sin2) + 1 / (2 * _e) * Math.log((1 - _e * sin) / (1 + _e * sin)));
     }
 
     /*Radians2Degrees(lon), Radians2Degrees(lat)*/
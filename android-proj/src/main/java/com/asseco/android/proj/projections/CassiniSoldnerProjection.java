@@ -26,9 +26,6 @@ public class CassiniSoldnerProjection extends MapProjection {
     private final double _m0;
     private final double _reciprocalSemiMajor;
 
-    private final int maxIter = 10;
-    private final double eps = 1e-11;
-
     /**
      * Instantiates a new Cassini soldner projection.
      *
@@ -63,9 +60,9 @@ public class CassiniSoldnerProjection extends MapProjection {
         return _inverse;
     }
 
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double lambda = lonlat[0] - central_meridian;
-        double phi = lonlat[1];
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double lambda = lon - central_meridian;
+        double phi = lat;
         double sinPhi, cosPhi;
         // sin and cos value
         sinPhi = Math.sin(phi);
@@ -80,15 +77,51 @@ public class CassiniSoldnerProjection extends MapProjection {
         double x = n * a1 * (1.0d - a2 * t * (One6th - (8.0d - t + 8.0d * c) * a2 * One120th));
         y -= _m0 - n * tn * a2 * (0.5d + (5.0d - t + 6.0d * c) * a2 * One24th);
 
-        return lonlat.length == 2
-                ? new double[]{_semiMajor * x, _semiMajor * y}
-                : new double[]{_semiMajor * x, _semiMajor * y, lonlat[2]};
+        dst[dstOff] = _semiMajor * x;
+        dst[dstOff + 1] = _semiMajor * y;
+    }
+
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double lambda = lon - central_meridian;
+        double sinPhi = Math.sin(lat);
+        double cosPhi = Math.cos(lat);
+        double n = 1.0d / Math.sqrt(1 - _es * sinPhi * sinPhi);
+        double tn = Math.tan(lat);
+        double t = tn * tn;
+        double a1 = lambda * cosPhi;
+        double a2 = a1 * a1;
+        double c = _cFactor * cosPhi * cosPhi;
+        // derivatives of the terms by the latitude, a1 and a2 also depend on the longitude
+        double dn = _es * sinPhi * cosPhi * n * n * n;
+        double dtn = 1.0d / (cosPhi * cosPhi);
+        double dt = 2.0d * tn * dtn;
+        double dc = -2.0d * _cFactor * sinPhi * cosPhi;
+        double da1Phi = -lambda * sinPhi;
+        double da2Phi = 2.0d * a1 * da1Phi;
+        double da2Lambda = 2.0d * a1 * cosPhi;
+        // x = n * a1 * px and y = mlfn - m0 + n * tn * a2 * py
+        double px = 1.0d - a2 * t * (One6th - (8.0d - t + 8.0d * c) * a2 * One120th);
+        double pxA2 = -t * One6th + 2.0d * t * a2 * (8.0d - t + 8.0d * c) * One120th;
+        double pxT = -a2 * One6th + a2 * a2 * (8.0d - 2.0d * t + 8.0d * c) * One120th;
+        double pxC = 8.0d * t * a2 * a2 * One120th;
+        double py = 0.5d + (5.0d - t + 6.0d * c) * a2 * One24th;
+        double pyA2 = (5.0d - t + 6.0d * c) * One24th;
+        double pyT = -a2 * One24th;
+        double pyC = 6.0d * a2 * One24th;
+        double dxLambda = n * (cosPhi * px + a1 * pxA2 * da2Lambda);
+        double dxPhi = dn * a1 * px + n * da1Phi * px + n * a1 * (pxA2 * da2Phi + pxT * dt + pxC * dc);
+        double dyLambda = n * tn * (da2Lambda * py + a2 * pyA2 * da2Lambda);
+        double dyPhi = meridianRadius(sinPhi) + (dn * tn + n * dtn) * a2 * py + n * tn * (da2Phi * py + a2 * (pyA2 * da2Phi + pyT * dt + pyC * dc));
+        dst[dstOff] = _semiMajor * dxLambda;
+        dst[dstOff + 1] = _semiMajor * dxPhi;
+        dst[dstOff + 2] = _semiMajor * dyLambda;
+        dst[dstOff + 3] = _semiMajor * dyPhi;
     }
 
-    protected double[] metersToRadians(double[] p) throws Exception {
-        double x = p[0] * _reciprocalSemiMajor;
-        double y = p[1] * _reciprocalSemiMajor;
-        double phi1 = phi1(_m0 + y);
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
+        x = x * _reciprocalSemiMajor;
+        y = y * _reciprocalSemiMajor;
+        double phi1 = inv_mlfn(_m0 + y);
         double tn = Math.tan(phi1);
         double t = tn * tn;
         double n = Math.sin(phi1);
@@ -99,28 +132,8 @@ public class CassiniSoldnerProjection extends MapProjection {
         double d2 = dd * dd;
         double phi = phi1 - (n * tn / r) * d2 * (.5 - (1.0 + 3.0 * t) * d2 * One24th);
         double lambda = dd * (1.0 + t * d2 * (-One3rd + (1.0 + 3.0 * t) * d2 * One15th)) / Math.cos(phi1);
-        lambda = adjust_lon(lambda + central_meridian);
-
-        return p.length == 2
-                ? new double[]{lambda, phi}
-                : new double[]{lambda, phi, p[2]};
-    }
-
-    private double phi1(Double arg) throws Exception {
-
-        double k = 1.0d / (1.0d - _es);
-        double phi = arg;
-        for (int i = maxIter; i > 0; --i) {
-            // rarely goes over 2 iterations
-            double sinPhi = Math.sin(phi);
-            double t = 1.0d - _es * sinPhi * sinPhi;
-            t = (mlfn(phi, sinPhi, Math.cos(phi)) - arg) * (t * Math.sqrt(t)) * k;
-            phi -= t;
-            if (Math.abs(t) < eps)
-                return phi;
-
-        }
-        throw new IllegalArgumentException("Convergence error.");
+        dst[dstOff] = adjust_lon(lambda + central_meridian);
+        dst[dstOff + 1] = phi;
     }
 
 }
@@ -112,9 +112,7 @@ public class HotineObliqueMercatorProjection extends MapProjection {
         return _inverse;
     }
 
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double lon = lonlat[0];
-        double lat = lonlat[1];
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
         double us, ul;
         // Forward equations
         // -----------------
@@ -151,19 +149,60 @@ public class HotineObliqueMercatorProjection extends MapProjection {
         if (!getNaturalOriginOffsets())
             us = us - _u;
 
-        double x = vs * _cosgrid + us * _singrid;
-        double y = us * _cosgrid - vs * _singrid;
+        dst[dstOff] = vs * _cosgrid + us * _singrid;
+        dst[dstOff + 1] = us * _cosgrid - vs * _singrid;
+    }
+
+    /**
+     * Differentiates the forward projection. The derivatives are taken from the closed form
+     * of the u coordinate also where the forward equations switch to its limit.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double dusLon, dusLat, dvsLon, dvsLat;
+        double sin_phi = Math.sin(lat);
+        double dlon = adjust_lon(lon - getlon_origin());
+        double vl = Math.sin(_bl * dlon);
+        double con = Math.cos(_bl * dlon);
+        if (Math.abs(Math.abs(lat) - HALF_PI) > EPSLN) {
+            double q = _el / (Math.pow(tsfnz(_e, lat, sin_phi), _bl));
+            double s = .5 * (q - 1.0 / q);
+            double t = .5 * (q + 1.0 / q);
+            //s and t are the hyperbolic sine and cosine of log(q), which grows with the isometric latitude
+            double dq = _bl * isometricLatitudeDerivative(sin_phi, Math.cos(lat));
+            double ul = (s * _singam - vl * _cosgam) / t;
+            if (Math.abs(Math.abs(ul) - 1.0) <= EPSLN)
+                throw new Exception("Point projects into infinity");
+
+            double dulLat = dq * (_singam - ul * s / t);
+            double dulLon = -_bl * con * _cosgam / t;
+            double num = s * _cosgam + vl * _singam;
+            double den = con * con + num * num;
+            dusLat = _al / _bl * t * dq * _cosgam * con / den;
+            dusLon = _al * (con * con * _singam + num * vl) / den;
+            double dvs = -_al / (_bl * (1.0 - ul * ul));
+            dvsLat = dvs * dulLat;
+            dvsLon = dvs * dulLon;
+        } else {
+            dusLat = _al / _bl;
+            dusLon = 0;
+            dvsLat = 0;
+            dvsLon = 0;
+        }
 
-        return lonlat.length == 2
-                ? new double[]{x, y} :
-                new double[]{x, y, lonlat[2]};
+        dst[dstOff] = dvsLon * _cosgrid + dusLon * _singrid;
+        dst[dstOff + 1] = dvsLat * _cosgrid + dusLat * _singrid;
+        dst[dstOff + 2] = dusLon * _cosgrid - dvsLon * _singrid;
+        dst[dstOff + 3] = dusLat * _cosgrid - dvsLat * _singrid;
     }
 
-    protected double[] metersToRadians(double[] p) throws Exception {
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
         // Inverse equations
         // -----------------
-        double x = p[0];
-        double y = p[1];
         double vs = x * _cosgrid - y * _singrid;
         double us = y * _cosgrid + x * _singrid;
         if (!getNaturalOriginOffsets())
@@ -181,13 +220,13 @@ public class HotineObliqueMercatorProjection extends MapProjection {
         } else {
             double con = 1.0 / _bl;
             double ts1 = Math.pow((_el / Math.sqrt((1.0 + ul) / (1.0 - ul))), con);
-            lat = phi2z(_e, ts1);
+            lat = phi2z(ts1);
             con = Math.cos(_bl * us / _al);
             double theta = getlon_origin() - Math.atan2((s * _cosgam - vl * _singam), con) / _bl;
             lon = adjust_lon(theta);
         }
-        return p.length == 2
-                ? new double[]{lon, lat} : new double[]{lon, lat, p[2]};
+        dst[dstOff] = lon;
+        dst[dstOff + 1] = lat;
     }
 
 }
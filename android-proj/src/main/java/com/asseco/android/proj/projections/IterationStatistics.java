@@ -0,0 +1,161 @@
+package com.asseco.android.proj.projections;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Convergence statistics of an iterative inverse projection.
+ *
+ * A histogram counts the points by the number of iterations they needed, the last bucket counts
+ * the points which did not converge. A gauge keeps the largest residual in meters after the last
+ * step: for a Newton inverse the distance between the target point and the forward projection of
+ * the last iterate, for a latitude solver the correction the next step would make, scaled by the
+ * semi major axis. The counters are atomic, so a projection shared between threads may record
+ * into one instance.
+ */
+public final class IterationStatistics {
+    private final AtomicLongArray _histogram;
+    /**
+     * Bits of the largest residual, the order of the bits of non negative doubles is the order of their values.
+     */
+    private final AtomicLong _maxResidual = new AtomicLong();
+
+    /**
+     * Instantiates new iteration statistics.
+     *
+     * @param maxIterations the largest number of iterations of the solver
+     */
+    public IterationStatistics(int maxIterations) {
+        if (maxIterations < 0)
+            throw new IllegalArgumentException("Negative number of iterations.");
+
+        _histogram = new AtomicLongArray(maxIterations + 2);
+    }
+
+    /**
+     * Records a solved point.
+     *
+     * @param iterations the number of iterations
+     * @param converged  whether the iteration converged
+     * @param residual   the residual after the last step in meters
+     */
+    public void record(int iterations, boolean converged, double residual) {
+        int failures = _histogram.length() - 1;
+        _histogram.incrementAndGet(converged ? Math.min(iterations, failures - 1) : failures);
+        if (Double.isNaN(residual))
+            return;
+
+        long bits = Double.doubleToLongBits(Math.abs(residual));
+        for (long max = _maxResidual.get(); bits > max; max = _maxResidual.get()) {
+            if (_maxResidual.compareAndSet(max, bits))
+                break;
+        }
+    }
+
+    /**
+     * Gets the largest number of iterations of the solver.
+     *
+     * @return the largest number of iterations
+     */
+    public int getMaxIterations() {
+        return _histogram.length() - 2;
+    }
+
+    /**
+     * Gets the number of recorded points.
+     *
+     * @return the number of points
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < _histogram.length(); i++)
+            count += _histogram.get(i);
+        return count;
+    }
+
+    /**
+     * Gets the number of points which converged after a number of iterations.
+     *
+     * @param iterations the number of iterations
+     * @return the number of points
+     */
+    public long getCount(int iterations) {
+        if (iterations < 0 || iterations > getMaxIterations())
+            return 0;
+
+        return _histogram.get(iterations);
+    }
+
+    /**
+     * Gets the number of points which did not converge.
+     *
+     * @return the number of points
+     */
+    public long getFailures() {
+        return _histogram.get(_histogram.length() - 1);
+    }
+
+    /**
+     * Gets a copy of the histogram. The element at index i is the number of points which converged
+     * after i iterations, the last element is the number of points which did not converge.
+     *
+     * @return the histogram
+     */
+    public long[] getHistogram() {
+        long[] histogram = new long[_histogram.length()];
+        for (int i = 0; i < histogram.length; i++)
+            histogram[i] = _histogram.get(i);
+        return histogram;
+    }
+
+    /**
+     * Gets the mean number of iterations of the converged points.
+     *
+     * @return the mean number of iterations, NaN when no point converged
+     */
+    public double getMeanIterations() {
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i < _histogram.length() - 1; i++) {
+            long n = _histogram.get(i);
+            count += n;
+            sum += n * i;
+        }
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    /**
+     * Gets the largest recorded residual.
+     *
+     * @return the residual in meters
+     */
+    public double getMaxResidual() {
+        return Double.longBitsToDouble(_maxResidual.get());
+    }
+
+    /**
+     * Clears all counters and the residual gauge.
+     */
+    public void reset() {
+        for (int i = 0; i < _histogram.length(); i++)
+            _histogram.set(i, 0);
+        _maxResidual.set(0);
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("count=").append(getCount());
+        sb.append(", failures=").append(getFailures());
+        sb.append(", meanIterations=").append(getMeanIterations());
+        sb.append(", maxResidual=").append(getMaxResidual());
+        sb.append(", histogram=[");
+        for (int i = 0; i < _histogram.length() - 1; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(_histogram.get(i));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+}
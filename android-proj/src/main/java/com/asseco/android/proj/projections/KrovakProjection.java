@@ -15,14 +15,6 @@ import java.util.List;
  * and Slovakia under the name "Krovak" projection.
  */
 public class KrovakProjection extends MapProjection {
-    /**
-     * Maximum number of iterations for iterative computations.
-     */
-    private static final int MaximumIterations = 15;
-    /**
-     * When to stop the iteration.
-     */
-    private static final double IterationTolerance = 1E-11;
     /**
      * Useful constant - 45° in radians.
      */
@@ -108,12 +100,14 @@ public class KrovakProjection extends MapProjection {
     /**
      * Converts coordinates in decimal degrees to projected meters.
      *
-     * @param lonlat The point in decimal degrees.
-     * @return Point in projected meters
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving the projected meters.
+     * @param dstOff The offset of x in the destination array.
      */
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double lambda = lonlat[0] - central_meridian;
-        double phi = lonlat[1];
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double lambda = lon - central_meridian;
+        double phi = lat;
         double esp = _e * Math.sin(phi);
         double gfi = Math.pow(((1.0 - esp) / (1.0 + esp)), _hae);
         double u = 2 * (Math.atan(Math.pow(Math.tan(phi / 2 + S45), _alfa) / _k1 * gfi) - S45);
@@ -124,20 +118,70 @@ public class KrovakProjection extends MapProjection {
         double eps = _n * d;
         double ro = _rop / Math.pow(Math.tan(s / 2 + S45), _n);
         /* x and y are reverted  */
-        double y = -(ro * Math.cos(eps)) * _semiMajor;
-        double x = -(ro * Math.sin(eps)) * _semiMajor;
-        return new double[]{x, y};
+        dst[dstOff] = -(ro * Math.sin(eps)) * _semiMajor;
+        dst[dstOff + 1] = -(ro * Math.cos(eps)) * _semiMajor;
+    }
+
+    /**
+     * Differentiates the forward projection through the Gaussian sphere, the oblique
+     * cone and its development.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double lambda = lon - central_meridian;
+        double phi = lat;
+        double esp = _e * Math.sin(phi);
+        double gfi = Math.pow(((1.0 - esp) / (1.0 + esp)), _hae);
+        double u = 2 * (Math.atan(Math.pow(Math.tan(phi / 2 + S45), _alfa) / _k1 * gfi) - S45);
+        double deltav = -lambda * _alfa;
+        double sinU = Math.sin(u);
+        double cosU = Math.cos(u);
+        double sinDv = Math.sin(deltav);
+        double cosDv = Math.cos(deltav);
+        double s = Math.asin((_cosAzim * sinU) + (_sinAzim * cosU * cosDv));
+        double cosS = Math.cos(s);
+        double sinD = cosU * sinDv / cosS;
+        double d = Math.asin(sinD);
+        double eps = _n * d;
+        double ro = _rop / Math.pow(Math.tan(s / 2 + S45), _n);
+        //the isometric latitude on the Gaussian sphere is alfa times the one on the ellipsoid
+        double duLat = _alfa * cosU * isometricLatitudeDerivative(Math.sin(phi), Math.cos(phi));
+        double dvLon = -_alfa;
+        //derivatives of s and d by u and by deltav
+        double dsU = (_cosAzim * cosU - _sinAzim * sinU * cosDv) / cosS;
+        double dsV = -_sinAzim * cosU * sinDv / cosS;
+        double cosD = Math.cos(d);
+        double ddU = (-sinU * sinDv / cosS + sinD * Math.tan(s) * dsU) / cosD;
+        double ddV = (cosU * cosDv / cosS + sinD * Math.tan(s) * dsV) / cosD;
+        //derivative of ro by s, and the derivatives of x and y by s and d
+        double droS = -_n * ro / cosS;
+        double sinEps = Math.sin(eps);
+        double cosEps = Math.cos(eps);
+        double dxS = -_semiMajor * droS * sinEps;
+        double dxD = -_semiMajor * ro * cosEps * _n;
+        double dyS = -_semiMajor * droS * cosEps;
+        double dyD = _semiMajor * ro * sinEps * _n;
+        dst[dstOff] = (dxS * dsV + dxD * ddV) * dvLon;
+        dst[dstOff + 1] = (dxS * dsU + dxD * ddU) * duLat;
+        dst[dstOff + 2] = (dyS * dsV + dyD * ddV) * dvLon;
+        dst[dstOff + 3] = (dyS * dsU + dyD * ddU) * duLat;
     }
 
     /**
      * Converts coordinates in projected meters to decimal degrees.
      *
-     * @param p Point in meters
-     * @return Transformed point in decimal degrees
+     * @param x      The x ordinate in meters.
+     * @param y      The y ordinate in meters.
+     * @param dst    The array receiving the longitude and latitude in radians.
+     * @param dstOff The offset of the longitude in the destination array.
      */
-    protected double[] metersToRadians(double[] p) throws Exception {
-        double x = p[0] / _semiMajor;
-        double y = p[1] / _semiMajor;
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
+        x = x / _semiMajor;
+        y = y / _semiMajor;
         // x -> southing, y -> westing
         double ro = Math.sqrt(x * x + y * y);
         double eps = Math.atan2(-x, -y);
@@ -148,23 +192,13 @@ public class KrovakProjection extends MapProjection {
         double kau = _ka * Math.pow(Math.tan((u / 2.0) + S45), 1 / _alfa);
         double deltav = Math.asin((cs * Math.sin(d)) / Math.cos(u));
         double lambda = -deltav / _alfa;
-        double phi = 0d;
-        for (int i = MaximumIterations; i > 0; i--) {
-            // iteration calculation
-            double fi1 = phi;
-            double esf = _e * Math.sin(fi1);
-            phi = 2.0 * (Math.atan(kau * Math.pow((1.0 + esf) / (1.0 - esf), _e / 2.0)) - S45);
-            if (Math.abs(fi1 - phi) <= IterationTolerance) {
-                break;
-            }
-
-
-        }
-        return new double[]{lambda + central_meridian, phi};
+        // conformal latitude, the geodetic latitude follows from a series without iterating
+        double chi = 2 * (Math.atan(kau) - S45);
+        double phi = conformalToGeodetic(chi);
+        dst[dstOff] = lambda + central_meridian;
+        dst[dstOff + 1] = phi;
     }
 
-    //throw new ProjectionException(Errors.format(ErrorKeys.NO_CONVERGENCE));
-
     /**
      * Returns the inverse of this projection.
      *
@@ -0,0 +1,280 @@
+package com.asseco.android.proj.projections;
+
+import com.asseco.android.proj.ProjectionParameter;
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import java.util.List;
+
+/**
+ * Implements the Transverse Mercator projection with the Krüger n-series.
+ * The geodetic latitude is converted to the conformal (Gaussian) latitude, the point is projected
+ * on the sphere and mapped to the ellipsoid with a complex series in the third flattening n.
+ * Both directions are non-iterative and the sixth order series stay accurate to a few millimetres
+ * up to 4000 km from the central meridian, while the Snyder series of {@link TransverseMercator}
+ * degrade quickly outside of a single UTM zone.Reference: K. Engsager, K. Poder (The highly accurate
+ * Gauss-Krüger projection, XXIII FIG Congress, 2006), C. F. F. Karney (Transverse Mercator with an
+ * accuracy of a few nanometers, J. Geodesy 85, 2011)
+ */
+public class KrugerTransverseMercator extends MapProjection {
+    /**
+     * Largest easting on the rectifying sphere, in radians, which can be mapped back to the ellipsoid.
+     */
+    private static final double MAXIMUM_EASTING = 2.623395162778;
+    /**
+     * Radius of the rectifying sphere, scaled by the scale factor and in units of the semi major axis.
+     */
+    private final double _qn;
+    /**
+     * Northing of the latitude of origin.
+     */
+    private final double _zb;
+    /**
+     * Coefficients of the series converting the geodetic latitude to the conformal latitude.
+     */
+    private final double[] _geodeticToConformalSeries;
+    /**
+     * Coefficients of the Krüger series mapping the ellipsoidal coordinates to the sphere.
+     */
+    private final double[] _ellipsoidToSphereSeries;
+    /**
+     * Coefficients of the Krüger series mapping the spherical coordinates to the ellipsoid.
+     */
+    private final double[] _sphereToEllipsoidSeries;
+
+    /**
+     * Creates an instance of a Krüger Transverse Mercator projection object.
+     *
+     * @param parameters List of parameters to initialize the projection.
+     * @throws Exception the exception
+     */
+    public KrugerTransverseMercator(List<ProjectionParameter> parameters) throws Exception {
+        this(parameters, null);
+    }
+
+    /**
+     * Creates an instance of a Krüger Transverse Mercator projection object.
+     *
+     * @param parameters List of parameters to initialize the projection.
+     * @param inverse    The projection this one is the inverse of, or null for a forward projection.ItemsDescriptionssemi_majorSemi major radiussemi_minorSemi minor radiusscale_factorcentral meridianlatitude_originfalse_eastingfalse_northing
+     * @throws Exception the exception
+     */
+    protected KrugerTransverseMercator(List<ProjectionParameter> parameters, KrugerTransverseMercator inverse) throws Exception {
+        super(parameters, inverse);
+        setName("Transverse_Mercator");
+        setAuthority("EPSG");
+        setAuthorityCode(9807);
+        _qn = scale_factor * _ellipsoid.rectifyingRadius;
+        _geodeticToConformalSeries = _ellipsoid.getGeodeticToConformalSeries();
+        _ellipsoidToSphereSeries = _ellipsoid.getEllipsoidToSphereSeries();
+        _sphereToEllipsoidSeries = _ellipsoid.getSphereToEllipsoidSeries();
+        double z = gatg(_geodeticToConformalSeries, lat_origin);
+        _zb = -_qn * (z + clens(_sphereToEllipsoidSeries, 2 * z));
+    }
+
+    /**
+     * Evaluates a real sine series with the Clenshaw summation.
+     *
+     * @param a   the series coefficients
+     * @param arg the argument of the first term
+     * @return the sum of the series
+     */
+    private static double clens(double[] a, double arg) {
+        double r = 2 * Math.cos(arg);
+        double hr = a[a.length - 1], hr1 = 0, hr2;
+        for (int i = a.length - 2; i >= 0; i--) {
+            hr2 = hr1;
+            hr1 = hr;
+            hr = -hr2 + r * hr1 + a[i];
+        }
+        return Math.sin(arg) * hr;
+    }
+
+    /**
+     * Evaluates a complex sine series with the Clenshaw summation.
+     *
+     * @param a      the series coefficients
+     * @param sinR   the sine of the real part of the argument of the first term
+     * @param cosR   the cosine of the real part of the argument of the first term
+     * @param sinhI  the hyperbolic sine of the imaginary part of the argument of the first term
+     * @param coshI  the hyperbolic cosine of the imaginary part of the argument of the first term
+     * @param dst    the array receiving the real and imaginary part of the sum
+     * @param dstOff the offset of the real part in the destination array
+     */
+    private static void clenS(double[] a, double sinR, double cosR, double sinhI, double coshI, double[] dst, int dstOff) {
+        double r = 2 * cosR * coshI;
+        double i = -2 * sinR * sinhI;
+        double hr = a[a.length - 1], hr1 = 0, hr2;
+        double hi = 0, hi1 = 0, hi2;
+        for (int k = a.length - 2; k >= 0; k--) {
+            hr2 = hr1;
+            hi2 = hi1;
+            hr1 = hr;
+            hi1 = hi;
+            hr = -hr2 + r * hr1 - i * hi1 + a[k];
+            hi = -hi2 + i * hr1 + r * hi1;
+        }
+        r = sinR * coshI;
+        i = cosR * sinhI;
+        dst[dstOff] = r * hr - i * hi;
+        dst[dstOff + 1] = r * hi + i * hr;
+    }
+
+    /**
+     * Evaluates the derivative of a complex sine series with the Clenshaw summation,
+     * 1 plus the series of the cosines with the coefficients multiplied by their frequency.
+     *
+     * @param a      the series coefficients
+     * @param sinR   the sine of the real part of the argument of the first term
+     * @param cosR   the cosine of the real part of the argument of the first term
+     * @param sinhI  the hyperbolic sine of the imaginary part of the argument of the first term
+     * @param coshI  the hyperbolic cosine of the imaginary part of the argument of the first term
+     * @param dst    the array receiving the real and imaginary part of the derivative
+     * @param dstOff the offset of the real part in the destination array
+     */
+    private static void clenSDerivative(double[] a, double sinR, double cosR, double sinhI, double coshI, double[] dst, int dstOff) {
+        double r = 2 * cosR * coshI;
+        double i = -2 * sinR * sinhI;
+        double hr = 2 * a.length * a[a.length - 1], hr1 = 0, hr2;
+        double hi = 0, hi1 = 0, hi2;
+        for (int k = a.length - 2; k >= 0; k--) {
+            hr2 = hr1;
+            hi2 = hi1;
+            hr1 = hr;
+            hi1 = hi;
+            hr = -hr2 + r * hr1 - i * hi1 + 2 * (k + 1) * a[k];
+            hi = -hi2 + i * hr1 + r * hi1;
+        }
+        r = cosR * coshI;
+        i = -sinR * sinhI;
+        dst[dstOff] = 1 + r * hr - i * hi - hr1;
+        dst[dstOff + 1] = r * hi + i * hr - hi1;
+    }
+
+    /**
+     * Converts coordinates in decimal degrees to projected meters.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving the projected meters.
+     * @param dstOff The offset of x in the destination array.
+     */
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double lam = adjust_lon(lon - central_meridian);
+        //conformal latitude
+        double sinPhi = Math.sin(lat);
+        double cosPhi = Math.cos(lat);
+        double cn = gatg(_geodeticToConformalSeries, lat, 2 * sinPhi * cosPhi, cosPhi * cosPhi - sinPhi * sinPhi);
+        //transverse spherical coordinates, the double angles are derived without further trigonometric calls
+        double sinCn = Math.sin(cn);
+        double cosCn = Math.cos(cn);
+        double sinCe = Math.sin(lam);
+        double cosCe = Math.cos(lam);
+        double cosCeCn = cosCe * cosCn;
+        double h2 = sinCn * sinCn + cosCeCn * cosCeCn;
+        cn = Math.atan2(sinCn, cosCeCn);
+        double t = sinCe * cosCn / Math.sqrt(h2);
+        double at = Math.abs(t);
+        double st = Math.sqrt(1 + t * t);
+        //isometric easting, asinh(t) without cancellation near the central meridian
+        double ce = Math.copySign(Math.log1p(at + at * at / (1 + st)), t);
+        //spherical to ellipsoidal northing and easting
+        clenS(_sphereToEllipsoidSeries, 2 * sinCn * cosCeCn / h2, (cosCeCn * cosCeCn - sinCn * sinCn) / h2, 2 * t * st, 1 + 2 * t * t, dst, dstOff);
+        cn += dst[dstOff];
+        ce += dst[dstOff + 1];
+        dst[dstOff] = _semiMajor * _qn * ce;
+        dst[dstOff + 1] = _semiMajor * (_qn * cn + _zb);
+    }
+
+    /**
+     * Differentiates the forward projection. The spherical transverse coordinates are differentiated
+     * by the longitude and the conformal latitude, the series maps their derivatives with its
+     * complex derivative, as it is conformal.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double lam = adjust_lon(lon - central_meridian);
+        double sinPhi = Math.sin(lat);
+        double cosPhi = Math.cos(lat);
+        double cn = gatg(_geodeticToConformalSeries, lat, 2 * sinPhi * cosPhi, cosPhi * cosPhi - sinPhi * sinPhi);
+        double sinCn = Math.sin(cn);
+        double cosCn = Math.cos(cn);
+        double sinCe = Math.sin(lam);
+        double cosCe = Math.cos(lam);
+        double cosCeCn = cosCe * cosCn;
+        double h2 = sinCn * sinCn + cosCeCn * cosCeCn;
+        double t = sinCe * cosCn / Math.sqrt(h2);
+        double st = Math.sqrt(1 + t * t);
+        //derivative of the conformal latitude by the geodetic latitude
+        double dChi = cosCn * isometricLatitudeDerivative(sinPhi, cosPhi);
+        //derivatives of the spherical northing and easting by the longitude and the conformal latitude
+        double dnLam = sinCe * sinCn * cosCn / h2;
+        double dnChi = cosCe / h2;
+        double deLam = cosCeCn / h2;
+        double deChi = -sinCe * sinCn / h2;
+        clenSDerivative(_sphereToEllipsoidSeries, 2 * sinCn * cosCeCn / h2, (cosCeCn * cosCeCn - sinCn * sinCn) / h2, 2 * t * st, 1 + 2 * t * t, dst, dstOff);
+        double pr = dst[dstOff];
+        double pi = dst[dstOff + 1];
+        double scale = _semiMajor * _qn;
+        dst[dstOff] = scale * (pi * dnLam + pr * deLam);
+        dst[dstOff + 1] = scale * (pi * dnChi + pr * deChi) * dChi;
+        dst[dstOff + 2] = scale * (pr * dnLam - pi * deLam);
+        dst[dstOff + 3] = scale * (pr * dnChi - pi * deChi) * dChi;
+    }
+
+    /**
+     * Converts coordinates in projected meters to decimal degrees.
+     *
+     * @param x      The x ordinate in meters.
+     * @param y      The y ordinate in meters.
+     * @param dst    The array receiving the longitude and latitude in radians.
+     * @param dstOff The offset of the longitude in the destination array.
+     */
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
+        double cn = (y / _semiMajor - _zb) / _qn;
+        double ce = x / _semiMajor / _qn;
+        if (Math.abs(ce) > MAXIMUM_EASTING) {
+            //too far from the central meridian, there is no point on the ellipsoid
+            dst[dstOff] = Double.NaN;
+            dst[dstOff + 1] = Double.NaN;
+            return;
+        }
+
+        //ellipsoidal to spherical northing and easting
+        double exp2 = Math.exp(2 * ce);
+        clenS(_ellipsoidToSphereSeries, Math.sin(2 * cn), Math.cos(2 * cn), (exp2 - 1 / exp2) / 2, (exp2 + 1 / exp2) / 2, dst, dstOff);
+        cn += dst[dstOff];
+        ce += dst[dstOff + 1];
+        //the spherical longitude is atan(sinh(ce)), its sine is tanh(ce) and its cosine 1 / cosh(ce)
+        double exp = Math.exp(ce);
+        double cosh = (exp + 1 / exp) / 2;
+        double sinCe = (exp - 1 / exp) / 2 / cosh;
+        double cosCe = 1 / cosh;
+        double sinCn = Math.sin(cn);
+        double cosCn = Math.cos(cn);
+        double cosCeCn = cosCe * cosCn;
+        double lam = Math.atan2(sinCe, cosCeCn);
+        //conformal latitude, its sine and cosine are unit length already
+        double sinChi = sinCn * cosCe;
+        double cosChi = Math.sqrt(sinCe * sinCe + cosCeCn * cosCeCn);
+        double chi = Math.atan2(sinChi, cosChi);
+        dst[dstOff] = adjust_lon(lam + central_meridian);
+        dst[dstOff + 1] = gatg(_conformalSeries, chi, 2 * sinChi * cosChi, cosChi * cosChi - sinChi * sinChi);
+    }
+
+    /**
+     * Returns the inverse of this projection.
+     *
+     * @return IMathTransform that is the reverse of the current projection.
+     */
+    public IMathTransform inverse() throws Exception {
+        if (_inverse == null)
+            _inverse = new KrugerTransverseMercator(_Parameters.toProjectionParameter(), this);
+
+        return _inverse;
+    }
+
+}
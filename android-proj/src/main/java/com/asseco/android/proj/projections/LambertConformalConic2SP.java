@@ -100,12 +100,12 @@ public class LambertConformalConic2SP extends MapProjection {
     /**
      * Converts coordinates in decimal degrees to projected meters.
      *
-     * @param lonlat The point in decimal degrees.
-     * @return Point in projected meters
+     * @param dLongitude The longitude in radians.
+     * @param dLatitude  The latitude in radians.
+     * @param dst        The array receiving the projected meters.
+     * @param dstOff     The offset of x in the destination array.
      */
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double dLongitude = lonlat[0];
-        double dLatitude = lonlat[1];
+    protected void radiansToMeters(double dLongitude, double dLatitude, double[] dst, int dstOff) throws Exception {
         double con;
         /* temporary angle variable             */
         double rh1;
@@ -129,22 +129,41 @@ public class LambertConformalConic2SP extends MapProjection {
             rh1 = 0;
         }
         theta = ns * adjust_lon(dLongitude - central_meridian);
-        dLongitude = rh1 * Math.sin(theta);
-        dLatitude = rh - rh1 * Math.cos(theta);
+        dst[dstOff] = rh1 * Math.sin(theta);
+        dst[dstOff + 1] = rh - rh1 * Math.cos(theta);
+    }
 
-        return lonlat.length == 2
-                ? new double[]{dLongitude, dLatitude}
-                : new double[]{dLongitude, dLatitude, lonlat[2]};
+    /**
+     * Differentiates the forward projection, the radius of the parallel falls exponentially
+     * with the isometric latitude.
+     *
+     * @param dLongitude The longitude in radians.
+     * @param dLatitude  The latitude in radians.
+     * @param dst        The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff     The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double dLongitude, double dLatitude, double[] dst, int dstOff) throws Exception {
+        double sinphi = Math.sin(dLatitude);
+        double rh1 = _semiMajor * f0 * Math.pow(tsfnz(_e, dLatitude, sinphi), ns);
+        double drh1 = -ns * rh1 * isometricLatitudeDerivative(sinphi, Math.cos(dLatitude));
+        double theta = ns * adjust_lon(dLongitude - central_meridian);
+        double sinTheta = Math.sin(theta);
+        double cosTheta = Math.cos(theta);
+        dst[dstOff] = rh1 * ns * cosTheta;
+        dst[dstOff + 1] = drh1 * sinTheta;
+        dst[dstOff + 2] = rh1 * ns * sinTheta;
+        dst[dstOff + 3] = -drh1 * cosTheta;
     }
 
     /**
      * Converts coordinates in projected meters to decimal degrees.
      *
-     * @param p Point in meters
-     * @return Transformed point in decimal degrees
+     * @param dX     The x ordinate in meters.
+     * @param y      The y ordinate in meters.
+     * @param dst    The array receiving the longitude and latitude in radians.
+     * @param dstOff The offset of the longitude in the destination array.
      */
-    protected double[] metersToRadians(double[] p) throws Exception {
-        double dLongitude = Double.NaN;
+    protected void metersToRadians(double dX, double y, double[] dst, int dstOff) throws Exception {
         double dLatitude = Double.NaN;
         double rh1;
         /* height above ellipsoid	*/
@@ -154,8 +173,7 @@ public class LambertConformalConic2SP extends MapProjection {
         /* small t			*/
         double theta;
         /* angle			*/
-        double dX = p[0];
-        double dY = rh - p[1];
+        double dY = rh - y;
         if (ns > 0) {
             rh1 = Math.sqrt(dX * dX + dY * dY);
             con = 1.0;
@@ -170,14 +188,11 @@ public class LambertConformalConic2SP extends MapProjection {
         if ((rh1 != 0) || (ns > 0.0)) {
             con = 1.0 / ns;
             ts = Math.pow((rh1 / (_semiMajor * f0)), con);
-            dLatitude = phi2z(_e, ts);
+            dLatitude = phi2z(ts);
         } else
             dLatitude = -HALF_PI;
-        dLongitude = adjust_lon(theta / ns + central_meridian);
-
-        return p.length == 2
-                ? new double[]{dLongitude, dLatitude}
-                : new double[]{dLongitude, dLatitude, p[2]};
+        dst[dstOff] = adjust_lon(theta / ns + central_meridian);
+        dst[dstOff + 1] = dLatitude;
     }
 
     /**
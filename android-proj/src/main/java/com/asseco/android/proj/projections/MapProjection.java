@@ -2,6 +2,7 @@ package com.asseco.android.proj.projections;
 
 
 
+import com.asseco.android.proj.EllipsoidConstants;
 import com.asseco.android.proj.IProjection;
 import com.asseco.android.proj.ProjectionParameter;
 import com.asseco.android.proj.transformations.MathTransform;
@@ -46,34 +47,56 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * DBLLONG
      */
     protected static final double DBLLONG = 4.61168601e18;
-    private static final double C00 = 1.0, C02 = 0.25, C04 = 0.046875, C06 = 0.01953125, C08 = 0.01068115234375, C22 = 0.75, C44 = 0.46875, C46 = 0.01302083333333333333, C48 = 0.00712076822916666666, C66 = 0.36458333333333333333, C68 = 0.00569661458333333333, C88 = 0.3076171875;
     private final double MLFN_TOL = 1E-11;
     private final int MAXIMUM_ITERATIONS = 20;
+    private static volatile boolean _defaultFastMath;
+    /**
+     * Largest number of iterations of {@link #newtonMetersToRadians}.
+     */
+    protected static final int NEWTON_MAX_ITERATIONS = 10;
+    /**
+     * Newton steps in radians below which {@link #newtonMetersToRadians} has converged.
+     */
+    protected static final double NEWTON_TOLERANCE = 1E-11;
+    /**
+     * Largest number of iterations of the solvers recording into the iteration statistics.
+     */
+    protected static final int STATISTICS_MAX_ITERATIONS = 25;
+    private static volatile boolean _collectIterationStatistics;
+    /**
+     * Per thread scratch of the Newton iteration, the projected point and the derivative.
+     */
+    private static final ThreadLocal<double[]> _newtonScratch = new ThreadLocal<double[]>() {
+        protected double[] initialValue() {
+            return new double[6];
+        }
+    };
+    private final IterationStatistics _iterationStatistics = new IterationStatistics(STATISTICS_MAX_ITERATIONS);
     /**
      * The E.
      */
 // ReSharper disable InconsistentNaming
-    protected double _e;
+    protected final double _e;
     /**
      * The Es.
      */
-    protected double _es;
+    protected final double _es;
     /**
      * The Semi major.
      */
-    protected double _semiMajor;
+    protected final double _semiMajor;
     /**
      * The Semi minor.
      */
-    protected double _semiMinor;
+    protected final double _semiMinor;
     /**
      * The Meters per unit.
      */
-    protected double _metersPerUnit;
+    protected final double _metersPerUnit;
     /**
      * The Scale factor.
      */
-    protected double scale_factor;
+    protected final double scale_factor;
     /**
      * The Central meridian.
      */
@@ -83,22 +106,22 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * The Lat origin.
      */
 // ReSharper restore InconsistentNaming
-    protected double lat_origin;
+    protected final double lat_origin;
     /**
      * The False northing.
      */
 /* center latitude			*/
-    protected double false_northing;
+    protected final double false_northing;
     /**
      * The False easting.
      */
 /* y offset in meters			*/
-    protected double false_easting;
+    protected final double false_easting;
     /**
      * The En 0.
      */
 /* x offset in meters			*/
-    protected double en0, /**
+    protected final double en0, /**
      * The En 1.
      */
     en1, /**
@@ -114,12 +137,29 @@ public abstract class MapProjection extends MathTransform implements IProjection
     /**
      * The Parameters.
      */
-    protected ProjectionParameterSet _Parameters;
+    protected final ProjectionParameterSet _Parameters;
     /**
      * The Inverse.
      */
-    protected MathTransform _inverse;
-    private boolean _isinverse;
+    protected volatile MathTransform _inverse;
+    private final boolean _isinverse;
+    private final boolean _fastMath;
+    /**
+     * Coefficients of the series converting the conformal latitude to the geodetic latitude.
+     */
+    protected final double[] _conformalSeries;
+    /**
+     * Coefficients of the series converting the authalic latitude to the geodetic latitude.
+     */
+    protected final double[] _authalicSeries;
+    /**
+     * Coefficients of the series converting the rectifying latitude to the geodetic latitude.
+     */
+    protected final double[] _rectifyingSeries;
+    /**
+     * The constants of the ellipsoid, shared by all projections on the same ellipsoid.
+     */
+    protected final EllipsoidConstants _ellipsoid;
     /**
      * Gets or sets the abbreviation of the object.
      */
@@ -151,32 +191,30 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * Creates an instance of this class
      *
      * @param parameters An enumeration of projection parameters
-     * @param inverse    Indicator if this projection is inverse
      * @throws Exception the exception
      */
-    protected MapProjection(List<ProjectionParameter> parameters, MapProjection inverse) throws Exception {
-        this(parameters);
-        _inverse = inverse;
-        if (_inverse != null) {
-            inverse._inverse = this;
-            _isinverse = !inverse._isinverse;
-        }
-
+    protected MapProjection(List<ProjectionParameter> parameters) throws Exception {
+        this(parameters, null);
     }
 
     /**
      * Creates an instance of this class
      *
      * @param parameters An enumeration of projection parameters
+     * @param inverse    The projection this one is the inverse of, or null for a forward projection
      * @throws Exception the exception
      */
-    protected MapProjection(List<ProjectionParameter> parameters) throws Exception {
+    protected MapProjection(List<ProjectionParameter> parameters, MapProjection inverse) throws Exception {
+        //the caller links the passed projection back to this one
+        _inverse = inverse;
+        _isinverse = inverse != null && !inverse._isinverse;
+        _fastMath = inverse != null ? inverse._fastMath : _defaultFastMath;
         _Parameters = new ProjectionParameterSet(parameters);
         _semiMajor = _Parameters.getParameterValue("semi_major");
         _semiMinor = _Parameters.getParameterValue("semi_minor");
-        //_es = 1.0 - (_semiMinor * _semiMinor) / (_semiMajor * _semiMajor);
-        _es = eccentricySquared(_semiMajor, _semiMinor);
-        _e = Math.sqrt(_es);
+        _ellipsoid = EllipsoidConstants.of(_semiMajor, _semiMinor);
+        _es = _ellipsoid.es;
+        _e = _ellipsoid.e;
         scale_factor = _Parameters.getOptionalParameterValue("scale_factor", 1);
         central_meridian = degrees2Radians(_Parameters.getParameterValue("central_meridian", "longitude_of_center"));
         lat_origin = degrees2Radians(_Parameters.getParameterValue("latitude_of_origin", "latitude_of_center"));
@@ -184,13 +222,84 @@ public abstract class MapProjection extends MathTransform implements IProjection
         false_easting = _Parameters.getOptionalParameterValue("false_easting", 0) * _metersPerUnit;
         false_northing = _Parameters.getOptionalParameterValue("false_northing", 0) * _metersPerUnit;
         // TODO: Should really convert to the correct linear units??
-        //  Compute constants for the mlfn
-        double t;
-        en0 = C00 - _es * (C02 + _es * (C04 + _es * (C06 + _es * C08)));
-        en1 = _es * (C22 - _es * (C04 + _es * (C06 + _es * C08)));
-        en2 = (t = _es * _es) * (C44 - _es * (C46 + _es * C48));
-        en3 = (t *= _es) * (C66 - _es * C68);
-        en4 = t * _es * C88;
+        en0 = _ellipsoid.en0;
+        en1 = _ellipsoid.en1;
+        en2 = _ellipsoid.en2;
+        en3 = _ellipsoid.en3;
+        en4 = _ellipsoid.en4;
+        _conformalSeries = _ellipsoid.getConformalSeries();
+        _authalicSeries = _ellipsoid.getAuthalicSeries();
+        _rectifyingSeries = _ellipsoid.getRectifyingSeries();
+    }
+
+    /**
+     * Gets whether projections created from now on compute their inverse with non-iterative series.
+     *
+     * @return the default fast math mode
+     */
+    public static boolean getDefaultFastMath() {
+        return _defaultFastMath;
+    }
+
+    /**
+     * Sets whether projections created from now on compute their inverse with non-iterative series
+     * of the auxiliary latitudes instead of iterating {@link #phi1z}, {@link #phi2z} and
+     * {@link #inv_mlfn}. The series are accurate to about 1e-12 radians and never fail to converge.
+     *
+     * @param value the default fast math mode
+     */
+    public static void setDefaultFastMath(boolean value) {
+        _defaultFastMath = value;
+    }
+
+    /**
+     * Gets whether this projection computes its inverse with non-iterative series.
+     *
+     * @return the fast math mode
+     */
+    public boolean getFastMath() {
+        return _fastMath;
+    }
+
+    /**
+     * Gets whether the projections record the convergence of their iterative inverse.
+     *
+     * @return whether the statistics are collected
+     */
+    public static boolean getCollectIterationStatistics() {
+        return _collectIterationStatistics;
+    }
+
+    /**
+     * Sets whether the projections record the convergence of their iterative inverse, i.e.
+     * {@link #newtonMetersToRadians}, {@link #phi1z}, {@link #phi2z}, {@link #inv_mlfn} and the
+     * own iterations of Albers and Polyconic, into their {@link #getIterationStatistics()}. It is
+     * off by default, as the atomic counters are contended when a projection is shared by many
+     * threads. The series of fast math mode do not iterate and record nothing.
+     *
+     * @param value whether the statistics are collected
+     */
+    public static void setCollectIterationStatistics(boolean value) {
+        _collectIterationStatistics = value;
+    }
+
+    /**
+     * Gets the convergence statistics of the iterative inverse of this projection. Only inverse
+     * projections which iterate record into it.
+     *
+     * @return the iteration statistics
+     */
+    public IterationStatistics getIterationStatistics() {
+        return _iterationStatistics;
+    }
+
+    /**
+     * Gets the statistics the iterations of this projection record into.
+     *
+     * @return the statistics, or null when they are not collected
+     */
+    protected IterationStatistics iterationStatistics() {
+        return _collectIterationStatistics ? _iterationStatistics : null;
     }
 
     /**
@@ -348,32 +457,51 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * @throws Exception the exception
      */
     protected static double phi1z(double eccent, double qs) throws Exception {
+        return phi1z(eccent, qs, null, 0);
+    }
+
+    /**
+     * Phi 1 z double, recording the convergence.
+     *
+     * @param eccent     the eccent
+     * @param qs         the qs
+     * @param statistics the statistics receiving the iterations, or null
+     * @param radius     the radius converting the residual from radians to meters
+     * @return double
+     * @throws Exception the exception
+     */
+    protected static double phi1z(double eccent, double qs, IterationStatistics statistics, double radius) throws Exception {
         double eccnts;
         double dphi;
-        double con;
-        double com;
-        double sinpi;
-        double cospi;
         double phi;
         //double asinz();
-        long i;
+        int i;
         phi = asinz(.5 * qs);
         if (eccent < EPSLN)
             return (phi);
 
         eccnts = eccent * eccent;
         for (i = 1; i <= 25; i++) {
-            sinpi = Math.sin(phi);
-            cospi = Math.cos(phi);
-            con = eccent * sinpi;
-            com = 1.0 - con * con;
-            dphi = .5 * com * com / cospi * (qs / (1.0 - eccnts) - sinpi / com + .5 / eccent * Math.log((1.0 - con) / (1.0 + con)));
+            dphi = phi1zStep(eccent, eccnts, qs, phi);
             phi = phi + dphi;
-            if (Math.abs(dphi) <= 1e-7)
+            if (Math.abs(dphi) <= 1e-7) {
+                if (statistics != null)
+                    statistics.record(i, true, Math.abs(phi1zStep(eccent, eccnts, qs, phi)) * radius);
                 return (phi);
+            }
 
         }
-        throw new IllegalArgumentException("Convergence error.");
+        if (statistics != null)
+            statistics.record(25, false, Math.abs(phi1zStep(eccent, eccnts, qs, phi)) * radius);
+        throw new NoConvergenceException("Convergence error.", 25);
+    }
+
+    private static double phi1zStep(double eccent, double eccnts, double qs, double phi) {
+        double sinpi = Math.sin(phi);
+        double cospi = Math.cos(phi);
+        double con = eccent * sinpi;
+        double com = 1.0 - con * con;
+        return .5 * com * com / cospi * (qs / (1.0 - eccnts) - sinpi / com + .5 / eccent * Math.log((1.0 - con) / (1.0 + con)));
     }
 
     /**
@@ -404,23 +532,162 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * @throws Exception the exception
      */
     protected static double phi2z(double eccent, double ts) throws Exception {
-        double con;
+        return phi2z(eccent, ts, null, 0);
+    }
+
+    /**
+     * Function to compute the latitude angle, phi2, for the inverse of the
+     * Lambert Conformal Conic and Polar Stereographic projections, recording the convergence.
+     *
+     * @param eccent     Spheroid eccentricity
+     * @param ts         Constant value t
+     * @param statistics the statistics receiving the iterations, or null
+     * @param radius     the radius converting the residual from radians to meters
+     * @return the double
+     * @throws Exception the exception
+     */
+    protected static double phi2z(double eccent, double ts, IterationStatistics statistics, double radius) throws Exception {
         double dphi;
-        double sinpi;
-        long i;
+        int i;
 
         double eccnth = .5 * eccent;
         double chi = HALF_PI - 2 * Math.atan(ts);
         for (i = 0; i <= 15; i++) {
-            sinpi = Math.sin(chi);
-            con = eccent * sinpi;
-            dphi = HALF_PI - 2 * Math.atan(ts * (Math.pow(((1.0 - con) / (1.0 + con)), eccnth))) - chi;
+            dphi = phi2zStep(eccent, eccnth, ts, chi);
             chi += dphi;
-            if (Math.abs(dphi) <= .0000000001)
+            if (Math.abs(dphi) <= .0000000001) {
+                if (statistics != null)
+                    statistics.record(i + 1, true, Math.abs(phi2zStep(eccent, eccnth, ts, chi)) * radius);
                 return (chi);
+            }
 
         }
-        throw new IllegalArgumentException("Convergence error - phi2z-conv");
+        if (statistics != null)
+            statistics.record(16, false, Math.abs(phi2zStep(eccent, eccnth, ts, chi)) * radius);
+        throw new NoConvergenceException("Convergence error - phi2z-conv", 16);
+    }
+
+    private static double phi2zStep(double eccent, double eccnth, double ts, double chi) {
+        double con = eccent * Math.sin(chi);
+        return HALF_PI - 2 * Math.atan(ts * (Math.pow(((1.0 - con) / (1.0 + con)), eccnth))) - chi;
+    }
+
+    /**
+     * Function to compute the latitude angle, phi2, for the inverse of the
+     * Lambert Conformal Conic and Polar Stereographic projections, from the
+     * conformal latitude series in fast math mode.
+     *
+     * @param ts Constant value t
+     * @return the double
+     * @throws Exception the exception
+     */
+    protected double phi2z(double ts) throws Exception {
+        if (_fastMath)
+            return conformalToGeodetic(HALF_PI - 2 * Math.atan(ts));
+
+        return phi2z(_e, ts, iterationStatistics(), _semiMajor);
+    }
+
+    /**
+     * Function to compute the latitude angle, phi1, for the inverse of the
+     * Albers Conical Equal-Area projection, from the authalic latitude series
+     * in fast math mode.
+     *
+     * @param qs the qs
+     * @return double
+     * @throws Exception the exception
+     */
+    protected double phi1z(double qs) throws Exception {
+        if (_fastMath)
+            return authalicToGeodetic(asinz(qs / _ellipsoid.qp));
+
+        return phi1z(_e, qs, iterationStatistics(), _semiMajor);
+    }
+
+    /**
+     * Converts the conformal latitude to the geodetic latitude.
+     *
+     * @param chi the conformal latitude in radians
+     * @return the geodetic latitude
+     */
+    protected double conformalToGeodetic(double chi) {
+        return gatg(_conformalSeries, chi);
+    }
+
+    /**
+     * Converts the authalic latitude to the geodetic latitude.
+     *
+     * @param xi the authalic latitude in radians
+     * @return the geodetic latitude
+     */
+    protected double authalicToGeodetic(double xi) {
+        return gatg(_authalicSeries, xi);
+    }
+
+    /**
+     * Converts the rectifying latitude to the geodetic latitude.
+     *
+     * @param mu the rectifying latitude in radians
+     * @return the geodetic latitude
+     */
+    protected double rectifyingToGeodetic(double mu) {
+        return gatg(_rectifyingSeries, mu);
+    }
+
+    /**
+     * Gets the radius of curvature of the meridian in units of the semi major axis,
+     * the derivative of the meridian distance by the latitude.
+     *
+     * @param sinphi the sine of the latitude
+     * @return the meridional radius of curvature
+     */
+    protected double meridianRadius(double sinphi) {
+        double w = 1.0 - _es * sinphi * sinphi;
+        return (1.0 - _es) / (w * Math.sqrt(w));
+    }
+
+    /**
+     * Gets the derivative of the isometric latitude by the geodetic latitude, the inverse of
+     * the radius of curvature of the parallel scaled by the meridional radius of curvature.
+     * The logarithm of {@link #tsfnz(double, double, double)} falls with this rate.
+     *
+     * @param sinphi the sine of the latitude
+     * @param cosphi the cosine of the latitude
+     * @return the derivative of the isometric latitude
+     */
+    protected double isometricLatitudeDerivative(double sinphi, double cosphi) {
+        return (1.0 - _es) / ((1.0 - _es * sinphi * sinphi) * cosphi);
+    }
+
+    /**
+     * Evaluates a latitude conversion series with the Clenshaw summation.
+     *
+     * @param p     the coefficients of the sines of the even multiples of the latitude
+     * @param b     the latitude to convert, in radians
+     * @param sin2B the sine of twice the latitude
+     * @param cos2B the cosine of twice the latitude
+     * @return the converted latitude
+     */
+    protected static double gatg(double[] p, double b, double sin2B, double cos2B) {
+        double twoCos2B = 2 * cos2B;
+        double h = 0, h1 = p[p.length - 1], h2 = 0;
+        for (int i = p.length - 2; i >= 0; i--) {
+            h = -h2 + twoCos2B * h1 + p[i];
+            h2 = h1;
+            h1 = h;
+        }
+        return b + h * sin2B;
+    }
+
+    /**
+     * Evaluates a latitude conversion series with the Clenshaw summation.
+     *
+     * @param p the coefficients of the sines of the even multiples of the latitude
+     * @param b the latitude to convert, in radians
+     * @return the converted latitude
+     */
+    protected static double gatg(double[] p, double b) {
+        return gatg(p, b, Math.sin(2 * b), Math.cos(2 * b));
     }
 
     /**
@@ -502,36 +769,6 @@ public abstract class MapProjection extends MathTransform implements IProjection
         return (e0 * phi - e1 * Math.sin(2.0 * phi) + e2 * Math.sin(4.0 * phi) - e3 * Math.sin(6.0 * phi));
     }
 
-    /**
-     * Calculates the flattening factor, (
-     * {@code equatorialRadius}
-     * -
-     * {@code polarRadius}
-     * ) /
-     * {@code equatorialRadius}
-     * .
-     *
-     * @param equatorialRadius The radius of the equator
-     * @param polarRadius      The radius of a circle touching the poles
-     * @return The flattening factor
-     */
-    private static double flatteningFactor(double equatorialRadius, double polarRadius) throws Exception {
-        return (equatorialRadius - polarRadius) / equatorialRadius;
-    }
-
-    /**
-     * Calculates the square of eccentricity according to es = (2f - f^2) where f is the FlatteningFactor
-     * .
-     *
-     * @param equatorialRadius The radius of the equator
-     * @param polarRadius      The radius of a circle touching the poles
-     * @return The square of eccentricity
-     */
-    private static double eccentricySquared(double equatorialRadius, double polarRadius) throws Exception {
-        double f = flatteningFactor(equatorialRadius, polarRadius);
-        return 2 * f - f * f;
-    }
-
     /**
      * Function to calculate UTM zone number
      *
@@ -791,19 +1028,12 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * @throws Exception the exception
      */
     public double[] metersToDegrees(double[] p) throws Exception {
-        double[] tmp = p.length == 2
-                ? new double[]{p[0] * _metersPerUnit - false_easting, p[1] * _metersPerUnit - false_northing}
-                : new double[]
-                {
-                        p[0] * _metersPerUnit - false_easting, p[1] * _metersPerUnit - false_northing,
-                        p[2] * _metersPerUnit
-                };
-
-        double[] res = metersToRadians(tmp);
-        res[0] = radians2Degrees(res[0]);
-        res[1] = radians2Degrees(res[1]);
-        if (getDimTarget() == 3)
-            res[2] = radians2Degrees(res[2]);
+        double[] res = new double[p.length == 2 ? 2 : 3];
+        metersToRadians(p[0] * _metersPerUnit - false_easting, p[1] * _metersPerUnit - false_northing, res, 0);
+        res[0] = R2D * res[0];
+        res[1] = R2D * res[1];
+        if (res.length == 3)
+            res[2] = p[2] * _metersPerUnit;
 
         return res;
     }
@@ -816,17 +1046,14 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * @throws Exception the exception
      */
     public double[] degreesToMeters(double[] lonlat) throws Exception {
-        // Convert to radians
-        double[] tmp = lonlat.length == 2
-                ? new double[]{degrees2Radians(lonlat[0]), degrees2Radians(lonlat[1])}
-                : new double[]{degrees2Radians(lonlat[0]), degrees2Radians(lonlat[1]), degrees2Radians(lonlat[2])};
-        // Convert to meters
-        double[] res = radiansToMeters(tmp);
+        double[] res = new double[lonlat.length == 2 ? 2 : 3];
+        // Convert to radians and to meters
+        radiansToMeters(D2R * lonlat[0], D2R * lonlat[1], res, 0);
         // Add false easting and northing, convert to unit
         res[0] = (res[0] + false_easting) / _metersPerUnit;
         res[1] = (res[1] + false_northing) / _metersPerUnit;
         if (res.length == 3)
-            res[2] = res[2] / _metersPerUnit;
+            res[2] = lonlat[2] / _metersPerUnit;
 
         return res;
     }
@@ -838,7 +1065,14 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * @return the double [ ]
      * @throws Exception the exception
      */
-    protected abstract double[] radiansToMeters(double[] lonlat) throws Exception;
+    protected double[] radiansToMeters(double[] lonlat) throws Exception {
+        double[] res = new double[lonlat.length == 2 ? 2 : 3];
+        radiansToMeters(lonlat[0], lonlat[1], res, 0);
+        if (res.length == 3)
+            res[2] = lonlat[2];
+
+        return res;
+    }
 
     /**
      * Meters to radians double [ ].
@@ -847,29 +1081,119 @@ public abstract class MapProjection extends MathTransform implements IProjection
      * @return the double [ ]
      * @throws Exception the exception
      */
-    protected abstract double[] metersToRadians(double[] p) throws Exception;
+    protected double[] metersToRadians(double[] p) throws Exception {
+        double[] res = new double[p.length == 2 ? 2 : 3];
+        metersToRadians(p[0], p[1], res, 0);
+        if (res.length == 3)
+            res[2] = p[2];
+
+        return res;
+    }
 
     /**
-     * Reverses the transformation
+     * Projects a single point, the kernel of the forward projection.
+     * The projected coordinates are relative to the false origin, in meters.
+     * Implementations must not allocate and must read both ordinates before
+     * writing, so that the destination may be the array the arguments come from.
+     *
+     * @param lon    the longitude in radians
+     * @param lat    the latitude in radians
+     * @param dst    the array receiving x and y
+     * @param dstOff the offset of x in the destination array
+     * @throws Exception the exception
      */
-    public void invert() throws Exception {
-        _isinverse = !_isinverse;
-        if (_inverse != null)
-            ((MapProjection) _inverse).invert(false);
+    protected abstract void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception;
 
-    }
+    /**
+     * Unprojects a single point, the kernel of the inverse projection.
+     * Implementations must not allocate.
+     *
+     * @param x      the x ordinate relative to the false origin, in meters
+     * @param y      the y ordinate relative to the false origin, in meters
+     * @param dst    the array receiving longitude and latitude in radians
+     * @param dstOff the offset of the longitude in the destination array
+     * @throws Exception the exception
+     */
+    protected abstract void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception;
 
     /**
-     * Invert.
+     * Differentiates the kernel of the forward projection at a single point.
+     * The derivatives are written in the order dx/dlon, dx/dlat, dy/dlon, dy/dlat,
+     * in meters per radian. Implementations must not allocate. The derivatives of the
+     * inverse projection follow from inverting this matrix.
      *
-     * @param invertInverse the invert inverse
+     * @param lon    the longitude in radians
+     * @param lat    the latitude in radians
+     * @param dst    the array receiving the four derivatives
+     * @param dstOff the offset of dx/dlon in the destination array
      * @throws Exception the exception
      */
-    protected void invert(boolean invertInverse) throws Exception {
-        _isinverse = !_isinverse;
-        if (invertInverse && _inverse != null)
-            ((MapProjection) _inverse).invert(false);
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        throw new UnsupportedOperationException("The derivative of " + getName() + " is not implemented.");
+    }
+
+    /**
+     * Unprojects a single point by solving the forward kernel with the Newton-Raphson method.
+     * Each iteration projects the current longitude and latitude, and corrects them by the
+     * residual mapped through the inverse of {@link #radiansToMetersDerivative}. The iteration
+     * converges quadratically, so projections can use it from an initial guess which is close,
+     * e.g. from a series or a spherical approximation, instead of a fixed point iteration.
+     * The result is the exact inverse of the forward kernel.
+     *
+     * @param x      the x ordinate relative to the false origin, in meters
+     * @param y      the y ordinate relative to the false origin, in meters
+     * @param lon    the initial longitude in radians
+     * @param lat    the initial latitude in radians
+     * @param dst    the array receiving longitude and latitude in radians
+     * @param dstOff the offset of the longitude in the destination array
+     * @throws NoConvergenceException when the iteration does not converge
+     * @throws Exception                the exception
+     */
+    protected void newtonMetersToRadians(double x, double y, double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double[] s = _newtonScratch.get();
+        boolean converged = false;
+        int i = 0;
+        while (i < NEWTON_MAX_ITERATIONS) {
+            radiansToMeters(lon, lat, s, 0);
+            double rx = s[0] - x;
+            double ry = s[1] - y;
+            radiansToMetersDerivative(lon, lat, s, 2);
+            double det = s[2] * s[5] - s[3] * s[4];
+            double dlon = (s[5] * rx - s[3] * ry) / det;
+            double dlat = (s[2] * ry - s[4] * rx) / det;
+            i++;
+            if (Double.isNaN(dlon) || Double.isNaN(dlat) || Double.isInfinite(dlon) || Double.isInfinite(dlat))
+                break;
+
+            lon -= dlon;
+            lat -= dlat;
+            //keep the latitude on the ellipsoid, the next step moves away from the pole again
+            if (Math.abs(lat) > HALF_PI)
+                lat = lat < 0 ? -HALF_PI : HALF_PI;
+            if (Math.abs(dlon) <= NEWTON_TOLERANCE && Math.abs(dlat) <= NEWTON_TOLERANCE) {
+                converged = true;
+                break;
+            }
+        }
+        if (_collectIterationStatistics) {
+            //the residual of the last iterate, after its step
+            radiansToMeters(lon, lat, s, 0);
+            _iterationStatistics.record(i, converged, Math.hypot(s[0] - x, s[1] - y));
+        }
+        if (!converged)
+            throw new NoConvergenceException("No convergence", i);
 
+        dst[dstOff] = lon;
+        dst[dstOff + 1] = lat;
+    }
+
+    /**
+     * Tests whether this transform does not move any points. Map projections always do.
+     *
+     * @return isidentity
+     */
+    public boolean identity() throws Exception {
+        return false;
     }
 
     /**
@@ -894,6 +1218,144 @@ public abstract class MapProjection extends MathTransform implements IProjection
         return !_isinverse ? degreesToMeters(cp) : metersToDegrees(cp);
     }
 
+    /**
+     * Transforms a list of packed coordinate point ordinal values.
+     * The projection kernel writes straight into the destination array, so nothing
+     * is allocated. A third ordinate is treated as a height and converted between
+     * meters and the projection unit, further ordinates are copied unchanged.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        if (!_isinverse) {
+            for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+                double lon = D2R * srcPts[srcOff];
+                double lat = D2R * srcPts[srcOff + 1];
+                copyOrdinates(srcPts, srcOff, dstPts, dstOff, 3, dimension);
+                if (dimension > 2)
+                    dstPts[dstOff + 2] = srcPts[srcOff + 2] / _metersPerUnit;
+                radiansToMeters(lon, lat, dstPts, dstOff);
+                dstPts[dstOff] = (dstPts[dstOff] + false_easting) / _metersPerUnit;
+                dstPts[dstOff + 1] = (dstPts[dstOff + 1] + false_northing) / _metersPerUnit;
+            }
+        } else {
+            for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+                double x = srcPts[srcOff] * _metersPerUnit - false_easting;
+                double y = srcPts[srcOff + 1] * _metersPerUnit - false_northing;
+                copyOrdinates(srcPts, srcOff, dstPts, dstOff, 3, dimension);
+                if (dimension > 2)
+                    dstPts[dstOff + 2] = srcPts[srcOff + 2] * _metersPerUnit;
+                metersToRadians(x, y, dstPts, dstOff);
+                dstPts[dstOff] = R2D * dstPts[dstOff];
+                dstPts[dstOff + 1] = R2D * dstPts[dstOff + 1];
+            }
+        }
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     * The heights are optional and are converted between meters and the projection unit.
+     * A single scratch point is shared by all points of the call.
+     *
+     * @param xs    the longitudes or x ordinals of the points
+     * @param ys    the latitudes or y ordinals of the points
+     * @param zs    the heights of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        double[] tmp = new double[2];
+        if (!_isinverse) {
+            for (int i = off; i < off + count; i++) {
+                radiansToMeters(D2R * xs[i], D2R * ys[i], tmp, 0);
+                xs[i] = (tmp[0] + false_easting) / _metersPerUnit;
+                ys[i] = (tmp[1] + false_northing) / _metersPerUnit;
+            }
+            if (zs != null) {
+                for (int i = off; i < off + count; i++)
+                    zs[i] = zs[i] / _metersPerUnit;
+            }
+        } else {
+            for (int i = off; i < off + count; i++) {
+                metersToRadians(xs[i] * _metersPerUnit - false_easting, ys[i] * _metersPerUnit - false_northing, tmp, 0);
+                xs[i] = R2D * tmp[0];
+                ys[i] = R2D * tmp[1];
+            }
+            if (zs != null) {
+                for (int i = off; i < off + count; i++)
+                    zs[i] = zs[i] * _metersPerUnit;
+            }
+        }
+    }
+
+    /**
+     * Gets the derivative of this projection at a point, a 2x2 matrix or a 3x3 matrix
+     * when the point has a height.
+     *
+     * @param point the point
+     * @return the derivative, rows are the transformed ordinals and columns the ordinals of the point
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        int dimension = point.length == 2 ? 2 : 3;
+        double[] m = new double[dimension * dimension];
+        derivative(point, 0, m, 0, 1, dimension);
+        return unpackMatrix(m, 0, dimension);
+    }
+
+    /**
+     * Gets the derivatives of this projection at a list of packed points without allocating per point.
+     * The forward projection differentiates its kernel, the inverse projection unprojects the
+     * point and inverts the derivative of the forward kernel there. In the forward matrix the
+     * column of the latitude points along the meridian, its angle from the y axis is the meridian
+     * convergence and its length divided by the length of a degree of latitude on the ellipsoid
+     * is the scale factor along the meridian.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        double[] j = new double[4];
+        int size = dimension * dimension;
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += size) {
+            setIdentity(dstMatrices, dstOff, dimension);
+            double scale;
+            if (!_isinverse) {
+                radiansToMetersDerivative(D2R * srcPts[srcOff], D2R * srcPts[srcOff + 1], j, 0);
+                scale = D2R / _metersPerUnit;
+                if (dimension > 2)
+                    dstMatrices[dstOff + 2 * dimension + 2] = 1 / _metersPerUnit;
+            } else {
+                metersToRadians(srcPts[srcOff] * _metersPerUnit - false_easting, srcPts[srcOff + 1] * _metersPerUnit - false_northing, j, 0);
+                radiansToMetersDerivative(j[0], j[1], j, 0);
+                double det = j[0] * j[3] - j[1] * j[2];
+                double t = j[0];
+                j[0] = j[3];
+                j[1] = -j[1];
+                j[2] = -j[2];
+                j[3] = t;
+                scale = R2D * _metersPerUnit / det;
+                if (dimension > 2)
+                    dstMatrices[dstOff + 2 * dimension + 2] = _metersPerUnit;
+            }
+            dstMatrices[dstOff] = j[0] * scale;
+            dstMatrices[dstOff + 1] = j[1] * scale;
+            dstMatrices[dstOff + dimension] = j[2] * scale;
+            dstMatrices[dstOff + dimension + 1] = j[3] * scale;
+        }
+    }
+
     /**
      * Checks whether the values of this instance is equal to the values of another instance.
      * Only parameters used for coordinate system are used for comparison.
@@ -937,35 +1399,45 @@ public abstract class MapProjection extends MathTransform implements IProjection
 
     /**
      * Calculates the latitude (phi) from a meridian distance.
-     * Determines phi to TOL (1e-11) radians, about 1e-6 seconds.
+     * Determines phi to TOL (1e-11) radians, about 1e-6 seconds, or from the
+     * rectifying latitude series in fast math mode.
      *
      * @param arg The meridonial distance
      * @return The latitude of the meridian distance.
      * @throws Exception the exception
      */
     protected double inv_mlfn(double arg) throws Exception {
-        ;
-        ;
-        double s, t, phi, k = 1.0 / (1.0 - _es);
+        if (_fastMath)
+            return rectifyingToGeodetic(arg / en0);
+
+        double t, phi, k = 1.0 / (1.0 - _es);
         int i;
         phi = arg;
         for (i = MAXIMUM_ITERATIONS; true; ) {
             // rarely goes over 5 iterations
             if (--i < 0) {
-                throw new IllegalArgumentException("No convergence");
+                if (_collectIterationStatistics)
+                    _iterationStatistics.record(MAXIMUM_ITERATIONS, false, Math.abs(inv_mlfnStep(arg, k, phi)) * _semiMajor);
+                throw new NoConvergenceException("No convergence", MAXIMUM_ITERATIONS);
             }
 
-            s = Math.sin(phi);
-            t = 1.0 - _es * s * s;
-            t = (mlfn(phi, s, Math.cos(phi)) - arg) * (t * Math.sqrt(t)) * k;
+            t = inv_mlfnStep(arg, k, phi);
             phi -= t;
             if (Math.abs(t) < MLFN_TOL) {
+                if (_collectIterationStatistics)
+                    _iterationStatistics.record(MAXIMUM_ITERATIONS - i, true, Math.abs(inv_mlfnStep(arg, k, phi)) * _semiMajor);
                 return phi;
             }
 
         }
     }
 
+    private double inv_mlfnStep(double arg, double k, double phi) throws Exception {
+        double s = Math.sin(phi);
+        double t = 1.0 - _es * s * s;
+        return (mlfn(phi, s, Math.cos(phi)) - arg) * (t * Math.sqrt(t)) * k;
+    }
+
 }
 
 
@@ -60,55 +60,61 @@ public class Mercator extends MapProjection {
      * Converts coordinates in decimal degrees to projected meters.
      * The parameters this projection expects are listed below.ItemsDescriptionslongitude_of_natural_originThe longitude of the point from which the values of both the geographical coordinates on the ellipsoid and the grid coordinates on the projection are deemed to increment or decrement for computational purposes. Alternatively it may be considered as the longitude of the point which in the absence of application of false coordinates has grid coordinates of (0,0).  Sometimes known as ""central meridian""."latitude_of_natural_originThe latitude of the point from which the values of both the geographical coordinates on the ellipsoid and the grid coordinates on the projection are deemed to increment or decrement for computational purposes. Alternatively it may be considered as the latitude of the point which in the absence of application of false coordinates has grid coordinates of (0,0).scale_factor_at_natural_originThe factor by which the map grid is reduced or enlarged during the projection process, defined by its value at the natural origin.false_eastingsince the natural origin may be at or near the centre of the projection and under normal coordinate circumstances would thus give rise to negative coordinates over parts of the mapped area, this origin is usually given false coordinates which are large enough to avoid this inconvenience. The False Easting, FE, is the easting value assigned to the abscissa (east).false_northingsince the natural origin may be at or near the centre of the projection and under normal coordinate circumstances would thus give rise to negative coordinates over parts of the mapped area, this origin is usually given false coordinates which are large enough to avoid this inconvenience. The False Northing, FN, is the northing value assigned to the ordinate .
      *
-     * @param lonlat The point in decimal degrees.
-     * @return Point in projected meters
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving the projected meters.
+     * @param dstOff The offset of x in the destination array.
      */
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        if (Double.isNaN(lonlat[0]) || Double.isNaN(lonlat[1]))
-            return new double[]{Double.NaN, Double.NaN};
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        if (Double.isNaN(lon) || Double.isNaN(lat)) {
+            dst[dstOff] = Double.NaN;
+            dst[dstOff + 1] = Double.NaN;
+            return;
+        }
 
-        double dLongitude = lonlat[0];
-        double dLatitude = lonlat[1];
         /* Forward equations */
-        if (Math.abs(Math.abs(dLatitude) - HALF_PI) <= EPSLN)
+        if (Math.abs(Math.abs(lat) - HALF_PI) <= EPSLN)
             throw new IllegalArgumentException("Transformation cannot be computed at the poles.");
 
-        double esinphi = _e * Math.sin(dLatitude);
-        double x = _semiMajor * _k0 * (dLongitude - central_meridian);
-        double y = _semiMajor * _k0 * Math.log(Math.tan(PI * 0.25 + dLatitude * 0.5) * Math.pow((1 - esinphi) / (1 + esinphi), _e * 0.5));
+        double esinphi = _e * Math.sin(lat);
+        dst[dstOff] = _semiMajor * _k0 * (lon - central_meridian);
+        dst[dstOff + 1] = _semiMajor * _k0 * Math.log(Math.tan(PI * 0.25 + lat * 0.5) * Math.pow((1 - esinphi) / (1 + esinphi), _e * 0.5));
+    }
+
+    /**
+     * Differentiates the forward projection, the northing grows with the isometric latitude.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        if (Math.abs(Math.abs(lat) - HALF_PI) <= EPSLN)
+            throw new IllegalArgumentException("Transformation cannot be computed at the poles.");
 
-        return lonlat.length < 3
-                ? new double[]{x, y}
-                : new double[]{x, y, lonlat[2]};
+        dst[dstOff] = _semiMajor * _k0;
+        dst[dstOff + 1] = 0;
+        dst[dstOff + 2] = 0;
+        dst[dstOff + 3] = _semiMajor * _k0 * isometricLatitudeDerivative(Math.sin(lat), Math.cos(lat));
     }
 
     /**
      * Converts coordinates in projected meters to decimal degrees.
      *
-     * @param p Point in meters
-     * @return Transformed point in decimal degrees
+     * @param x      The x ordinate in meters.
+     * @param y      The y ordinate in meters.
+     * @param dst    The array receiving the longitude and latitude in radians.
+     * @param dstOff The offset of the longitude in the destination array.
      */
-    protected double[] metersToRadians(double[] p) throws Exception {
-        double dLongitude = Double.NaN;
-        double dLatitude = Double.NaN;
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
         /* Inverse equations
                       -----------------*/
-        double dX = p[0];
-        //* _metersPerUnit - this._falseEasting;
-        double dY = p[1];
-        // * _metersPerUnit - this._falseNorthing;
-        double ts = Math.exp(-dY / (this._semiMajor * _k0));
+        double ts = Math.exp(-y / (this._semiMajor * _k0));
         //t
         double chi = HALF_PI - 2 * Math.atan(ts);
-        double e4 = Math.pow(_e, 4);
-        double e6 = Math.pow(_e, 6);
-        double e8 = Math.pow(_e, 8);
-        dLatitude = chi + (_es * 0.5 + 5 * e4 / 24 + e6 / 12 + 13 * e8 / 360) * Math.sin(2 * chi) + (7 * e4 / 48 + 29 * e6 / 240 + 811 * e8 / 11520) * Math.sin(4 * chi) + +(7 * e6 / 120 + 81 * e8 / 1120) * Math.sin(6 * chi) + +(4279 * e8 / 161280) * Math.sin(8 * chi);
-        dLongitude = dX / (_semiMajor * _k0) + central_meridian;
-
-        return p.length < 3
-                ? new double[]{dLongitude, dLatitude}
-                : new double[]{dLongitude, dLatitude, p[2]};
+        dst[dstOff] = x / (_semiMajor * _k0) + central_meridian;
+        dst[dstOff + 1] = conformalToGeodetic(chi);
     }
 
     /**
@@ -0,0 +1,34 @@
+package com.asseco.android.proj.projections;
+
+/**
+ * Thrown when an iterative inverse projection does not converge for a point.
+ *
+ * It extends IllegalArgumentException, which the latitude solvers threw before, as the point
+ * is outside of the domain the iteration can solve.
+ */
+public class NoConvergenceException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int _iterations;
+
+    /**
+     * Instantiates a new exception.
+     *
+     * @param message    the message
+     * @param iterations the number of iterations run before giving up
+     */
+    public NoConvergenceException(String message, int iterations) {
+        super(message);
+        _iterations = iterations;
+    }
+
+    /**
+     * Gets the number of iterations run before giving up.
+     *
+     * @return the number of iterations
+     */
+    public int getIterations() {
+        return _iterations;
+    }
+
+}
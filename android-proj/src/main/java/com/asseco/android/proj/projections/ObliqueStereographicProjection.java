@@ -10,8 +10,6 @@ import java.util.List;
  * Implemetns the Oblique Stereographic Projection.
  */
 public class ObliqueStereographicProjection extends MapProjection {
-    private static double ITERATION_TOLERANCE = 1E-14;
-    private static int MAXIMUM_ITERATIONS = 15;
     private static double EPSILON = 1E-6;
     private double globalScale;
     private double C, K, ratexp;
@@ -52,12 +50,16 @@ public class ObliqueStereographicProjection extends MapProjection {
     /**
      * Converts coordinates in projected meters to decimal degrees.
      *
-     * @param p Point in meters
-     * @return Transformed point in decimal degrees
+     * @param x      The x ordinate in meters.
+     * @param y      The y ordinate in meters.
+     * @param dst    The array receiving the longitude and latitude in radians.
+     * @param dstOff The offset of the longitude in the destination array.
      */
-    protected double[] metersToRadians(double[] p) throws Exception {
-        double x = p[0] / this.globalScale;
-        double y = p[1] / this.globalScale;
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
+        double x0 = x;
+        double y0 = y;
+        x = x / this.globalScale;
+        y = y / this.globalScale;
         double rho = Math.sqrt((x * x) + (y * y));
         if (Math.abs(rho) < EPSILON) {
             x = 0.0;
@@ -75,35 +77,30 @@ public class ObliqueStereographicProjection extends MapProjection {
             }
         }
         x /= C;
+        //the conformal latitude of the ellipsoid, converted with the series instead of iterating
         double num = Math.pow(Math.tan(0.5 * y + Math.PI / 4.0) / K, 1.0 / C);
-        for (int i = MAXIMUM_ITERATIONS; ; ) {
-            double phi = 2.0 * Math.atan(num * srat(_e * Math.sin(y), -0.5 * _e)) - Math.PI / 2.0;
-            if (Math.abs(phi - y) < ITERATION_TOLERANCE) {
-                break;
-            }
-
-            y = phi;
-            if (--i < 0) {
-                throw new Exception("Oblique Stereographics doesn't converge");
-            }
-
+        y = conformalToGeodetic(2.0 * Math.atan(num) - Math.PI / 2.0);
+        if (getFastMath() || Math.abs(y) >= HALF_PI) {
+            dst[dstOff] = x + central_meridian;
+            dst[dstOff + 1] = y;
+            return;
         }
-        x += central_meridian;
-        if (p.length == 2)
-            return new double[]{x, y};
-        else
-            return new double[]{x, y, p[2]};
+
+        //polish the guess against the forward projection
+        newtonMetersToRadians(x0, y0, x + central_meridian, y, dst, dstOff);
     }
 
     /**
      * Converts coordinates in decimal degrees to projected meters.
      *
-     * @param lonlat The point in decimal degrees.
-     * @return Point in projected meters
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving the projected meters.
+     * @param dstOff The offset of x in the destination array.
      */
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double x = lonlat[0] - this.central_meridian;
-        double y = lonlat[1];
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double x = lon - this.central_meridian;
+        double y = lat;
         y = 2.0 * Math.atan(K * Math.pow(Math.tan(0.5 * y + Math.PI / 4), C) * srat(_e * Math.sin(y), ratexp)) - Math.PI / 2;
         x *= C;
         double sinc = Math.sin(y);
@@ -112,10 +109,36 @@ public class ObliqueStereographicProjection extends MapProjection {
         double k = R2 / (1.0 + sinc0 * sinc + cosc0 * cosc * cosl);
         x = k * cosc * Math.sin(x);
         y = k * (cosc0 * sinc - sinc0 * cosc * cosl);
-        if (lonlat.length == 2)
-            return new double[]{x * this.globalScale, y * this.globalScale};
-        else
-            return new double[]{x * this.globalScale, y * this.globalScale, lonlat[2]};
+        dst[dstOff] = x * this.globalScale;
+        dst[dstOff + 1] = y * this.globalScale;
+    }
+
+    /**
+     * Differentiates the forward projection through the conformal sphere.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double x = C * (lon - this.central_meridian);
+        double y = 2.0 * Math.atan(K * Math.pow(Math.tan(0.5 * lat + Math.PI / 4), C) * srat(_e * Math.sin(lat), ratexp)) - Math.PI / 2;
+        double sinc = Math.sin(y);
+        double cosc = Math.cos(y);
+        double sinl = Math.sin(x);
+        double cosl = Math.cos(x);
+        //the isometric latitude on the sphere is C times the one on the ellipsoid
+        double dy = C * cosc * isometricLatitudeDerivative(Math.sin(lat), Math.cos(lat));
+        double den = 1.0 + sinc0 * sinc + cosc0 * cosc * cosl;
+        double k = R2 / den;
+        double yn = cosc0 * sinc - sinc0 * cosc * cosl;
+        double dkx = k * cosc0 * cosc * sinl / den;
+        double dky = -k * (sinc0 * cosc - cosc0 * sinc * cosl) / den;
+        dst[dstOff] = this.globalScale * C * (dkx * cosc * sinl + k * cosc * cosl);
+        dst[dstOff + 1] = this.globalScale * dy * (dky * cosc * sinl - k * sinc * sinl);
+        dst[dstOff + 2] = this.globalScale * C * (dkx * yn + k * sinc0 * cosc * sinl);
+        dst[dstOff + 3] = this.globalScale * dy * (dky * yn + k * (cosc0 * cosc + sinc0 * sinc * cosl));
     }
 
     /**
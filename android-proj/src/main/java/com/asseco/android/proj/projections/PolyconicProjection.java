@@ -54,9 +54,7 @@ public class PolyconicProjection extends MapProjection {
         _ml0 = mlfn(lat_origin, Math.sin(lat_origin), Math.cos(lat_origin));
     }
 
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double lam = lonlat[0];
-        double phi = lonlat[1];
+    protected void radiansToMeters(double lam, double phi, double[] dst, int dstOff) throws Exception {
         double delta_lam = adjust_lon(lam - central_meridian);
         double x, y;
         if (Math.abs(phi) <= Epsilon) {
@@ -74,16 +72,53 @@ public class PolyconicProjection extends MapProjection {
             /*lam*/
             y = (mlfn(phi, sp, cp) - _ml0) + ms * (1.0 - Math.cos(delta_lam));
         }
-        x = scale_factor * _semiMajor * x;
+        dst[dstOff] = scale_factor * _semiMajor * x;
         // + false_easting;
-        y = scale_factor * _semiMajor * y;
-        return new double[]{x, y};
+        dst[dstOff + 1] = scale_factor * _semiMajor * y;
+    }
+
+    /**
+     * Differentiates the forward projection, on the equator the limits of the derivatives are used.
+     *
+     * @param lam    The longitude in radians.
+     * @param phi    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lam, double phi, double[] dst, int dstOff) throws Exception {
+        double delta_lam = adjust_lon(lam - central_meridian);
+        double dxLam, dxPhi, dyLam, dyPhi;
+        if (Math.abs(phi) <= Epsilon) {
+            dxLam = 1.0;
+            dxPhi = 0.0;
+            dyLam = 0.0;
+            dyPhi = (1.0 - _es) + 0.5 * delta_lam * delta_lam;
+        } else {
+            double sp = Math.sin(phi);
+            double cp = Math.cos(phi);
+            double w = 1.0 - _es * sp * sp;
+            double ms = msfn(sp, cp) / sp;
+            //derivative of ms by the latitude
+            double dms = -1.0 / (sp * sp * Math.sqrt(w)) + _es * cp * cp / (w * Math.sqrt(w));
+            double e = delta_lam * sp;
+            double sinE = Math.sin(e);
+            double cosE = Math.cos(e);
+            dxLam = ms * cosE * sp;
+            dxPhi = dms * sinE + ms * cosE * delta_lam * cp;
+            dyLam = ms * sinE * sp;
+            dyPhi = meridianRadius(sp) + dms * (1.0 - cosE) + ms * sinE * delta_lam * cp;
+        }
+        double scale = scale_factor * _semiMajor;
+        dst[dstOff] = scale * dxLam;
+        dst[dstOff + 1] = scale * dxPhi;
+        dst[dstOff + 2] = scale * dyLam;
+        dst[dstOff + 3] = scale * dyPhi;
     }
 
     // +false_northing;
-    protected double[] metersToRadians(double[] p) throws Exception {
-        double x = (p[0]) / (_semiMajor * scale_factor);
-        double y = (p[1]) / (_semiMajor * scale_factor);
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
+        x = (x) / (_semiMajor * scale_factor);
+        y = (y) / (_semiMajor * scale_factor);
         double lam, phi;
         y += _ml0;
         if (Math.abs(y) <= Epsilon) {
@@ -92,11 +127,15 @@ public class PolyconicProjection extends MapProjection {
         } else {
             double r = y * y + x * x;
             phi = y;
+            IterationStatistics statistics = iterationStatistics();
             for (int i = 0; i <= MaximumIterations; i++) {
                 double sp = Math.sin(phi);
                 double cp = Math.cos(phi);
-                if (Math.abs(cp) < IterationTolerance)
-                    throw new Exception("No Convergence");
+                if (Math.abs(cp) < IterationTolerance) {
+                    if (statistics != null)
+                        statistics.record(i, false, Double.NaN);
+                    throw new NoConvergenceException("No Convergence", i);
+                }
 
                 double s2ph = sp * cp;
                 double mlp = Math.sqrt(1.0 - _es * sp * sp);
@@ -105,19 +144,27 @@ public class PolyconicProjection extends MapProjection {
                 double mlb = ml * ml + r;
                 mlp = (1.0 - _es) / (mlp * mlp * mlp);
                 double dPhi = (ml + ml + c * mlb - 2.0 * y * (c * ml + 1.0)) / (_es * s2ph * (mlb - 2.0 * y * ml) / c + 2.0 * (y - ml) * (c * mlp - 1.0 / s2ph) - mlp - mlp);
-                if (Math.abs(dPhi) <= IterationTolerance)
+                //the step at the last iterate is its residual
+                if (Math.abs(dPhi) <= IterationTolerance) {
+                    if (statistics != null)
+                        statistics.record(i, true, Math.abs(dPhi) * _semiMajor);
                     break;
+                }
 
                 phi += dPhi;
-                if (i == MaximumIterations)
-                    throw new Exception("No Convergence");
+                if (i == MaximumIterations) {
+                    if (statistics != null)
+                        statistics.record(i + 1, false, Math.abs(dPhi) * _semiMajor);
+                    throw new NoConvergenceException("No Convergence", i + 1);
+                }
             }
 
 
             double c2 = Math.sin(phi);
             lam = Math.asin(x * Math.tan(phi) * Math.sqrt(1.0 - _es * c2 * c2)) / Math.sin(phi);
         }
-        return new double[]{adjust_lon(lam + central_meridian), phi};
+        dst[dstOff] = adjust_lon(lam + central_meridian);
+        dst[dstOff + 1] = phi;
     }
 
     /**
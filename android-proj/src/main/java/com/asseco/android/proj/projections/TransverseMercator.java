@@ -88,7 +88,7 @@ public class TransverseMercator extends MapProjection {
         setName("Transverse_Mercator");
         setAuthority("EPSG");
         setAuthorityCode(9807);
-        _esp = _es / (1.0 - _es);
+        _esp = _ellipsoid.esp;
         _ml0 = mlfn(lat_origin, Math.sin(lat_origin), Math.cos(lat_origin));
     }
 
@@ -101,13 +101,14 @@ public class TransverseMercator extends MapProjection {
     /**
      * Converts coordinates in decimal degrees to projected meters.
      *
-     * @param lonlat The point in decimal degrees.
-     * @return Point in projected meters
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving the projected meters.
+     * @param dstOff The offset of x in the destination array.
      */
-    protected double[] radiansToMeters(double[] lonlat) throws Exception {
-        double x = lonlat[0];
-        x = adjust_lon(x - central_meridian);
-        double y = lonlat[1];
+    protected void radiansToMeters(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double x = adjust_lon(lon - central_meridian);
+        double y = lat;
         double sinphi = Math.sin(y);
         double cosphi = Math.cos(y);
         double t = (Math.abs(cosphi) > EPSILON) ? sinphi / cosphi : 0;
@@ -119,12 +120,60 @@ public class TransverseMercator extends MapProjection {
         /* NOTE: meridinal distance at latitudeOfOrigin is always 0 */
         y = (mlfn(y, sinphi, cosphi) - _ml0 + sinphi * al * x * FC2 * (1.0 + FC4 * als * (5.0 - t + n * (9.0 + 4.0 * n) + FC6 * als * (61.0 + t * (t - 58.0) + n * (270.0 - 330.0 * t) + FC8 * als * (1385.0 + t * (t * (543.0 - t) - 3111.0))))));
         x = al * (FC1 + FC3 * als * (1.0 - t + n + FC5 * als * (5.0 + t * (t - 18.0) + n * (14.0 - 58.0 * t) + FC7 * als * (61.0 + t * (t * (179.0 - t) - 479.0)))));
-        x = scale_factor * _semiMajor * x;
-        y = scale_factor * _semiMajor * y;
+        dst[dstOff] = scale_factor * _semiMajor * x;
+        dst[dstOff + 1] = scale_factor * _semiMajor * y;
+    }
 
-        return lonlat.length == 2
-                ? new double[]{x, y}
-                : new double[]{x, y, lonlat[2]};
+    /**
+     * Differentiates the series of the forward projection term by term.
+     *
+     * @param lon    The longitude in radians.
+     * @param lat    The latitude in radians.
+     * @param dst    The array receiving dx/dlon, dx/dlat, dy/dlon and dy/dlat.
+     * @param dstOff The offset of dx/dlon in the destination array.
+     */
+    protected void radiansToMetersDerivative(double lon, double lat, double[] dst, int dstOff) throws Exception {
+        double x = adjust_lon(lon - central_meridian);
+        double sinphi = Math.sin(lat);
+        double cosphi = Math.cos(lat);
+        double t = 0, dt = 0;
+        if (Math.abs(cosphi) > EPSILON) {
+            double tn = sinphi / cosphi;
+            t = tn * tn;
+            dt = 2.0 * tn / (cosphi * cosphi);
+        }
+        double w = 1.0 / Math.sqrt(1.0 - _es * sinphi * sinphi);
+        double al = cosphi * x;
+        double als = al * al;
+        //derivatives by the latitude and by the longitude of the terms of the series
+        double dalsPhi = -2.0 * sinphi * cosphi * x * x;
+        double dalsLam = 2.0 * cosphi * cosphi * x;
+        double dalPhi = (-sinphi + cosphi * _es * sinphi * cosphi * w * w) * x * w;
+        double dalLam = cosphi * w;
+        al *= w;
+        double n = _esp * cosphi * cosphi;
+        double dn = -2.0 * _esp * sinphi * cosphi;
+        //x = al * p
+        double a = 1.0 - t + n;
+        double b = 5.0 + t * (t - 18.0) + n * (14.0 - 58.0 * t);
+        double d = 61.0 + t * (t * (179.0 - t) - 479.0);
+        double p = FC1 + FC3 * als * (a + FC5 * als * (b + FC7 * als * d));
+        double pAls = FC3 * (a + FC5 * als * (2.0 * b + 3.0 * FC7 * als * d));
+        double pT = FC3 * als * (-1.0 + FC5 * als * (2.0 * t - 18.0 - 58.0 * n + FC7 * als * (t * (358.0 - 3.0 * t) - 479.0)));
+        double pN = FC3 * als * (1.0 + FC5 * als * (14.0 - 58.0 * t));
+        //y = mlfn - ml0 + sinphi * al * x * FC2 * q
+        double e = 5.0 - t + n * (9.0 + 4.0 * n);
+        double f = 61.0 + t * (t - 58.0) + n * (270.0 - 330.0 * t);
+        double g = 1385.0 + t * (t * (543.0 - t) - 3111.0);
+        double q = 1.0 + FC4 * als * (e + FC6 * als * (f + FC8 * als * g));
+        double qAls = FC4 * (e + FC6 * als * (2.0 * f + 3.0 * FC8 * als * g));
+        double qT = FC4 * als * (-1.0 + FC6 * als * (2.0 * t - 58.0 - 330.0 * n + FC8 * als * (t * (1086.0 - 3.0 * t) - 3111.0)));
+        double qN = FC4 * als * (9.0 + 8.0 * n + FC6 * als * (270.0 - 330.0 * t));
+        double scale = scale_factor * _semiMajor;
+        dst[dstOff] = scale * (dalLam * p + al * pAls * dalsLam);
+        dst[dstOff + 1] = scale * (dalPhi * p + al * (pAls * dalsPhi + pT * dt + pN * dn));
+        dst[dstOff + 2] = scale * FC2 * sinphi * ((dalLam * x + al) * q + al * x * qAls * dalsLam);
+        dst[dstOff + 3] = scale * (meridianRadius(sinphi) + FC2 * x * ((cosphi * al + sinphi * dalPhi) * q + sinphi * al * (qAls * dalsPhi + qT * dt + qN * dn)));
     }
 
     //double lon = Degrees2Radians(lonlat[0]);
@@ -164,14 +213,16 @@ public class TransverseMercator extends MapProjection {
     /**
      * Converts coordinates in projected meters to decimal degrees.
      *
-     * @param p Point in meters
-     * @return Transformed point in decimal degrees
+     * @param x      The x ordinate in meters.
+     * @param y      The y ordinate in meters.
+     * @param dst    The array receiving the longitude and latitude in radians.
+     * @param dstOff The offset of the longitude in the destination array.
      */
-    protected double[] metersToRadians(double[] p) throws Exception {
+    protected void metersToRadians(double x, double y, double[] dst, int dstOff) throws Exception {
         /*scale_factor* */
-        double x = p[0] / (_semiMajor);
+        x = x / (_semiMajor);
         /*scale_factor* */
-        double y = p[1] / (_semiMajor);
+        y = y / (_semiMajor);
         double phi = inv_mlfn(_ml0 + y / scale_factor);
         if (Math.abs(phi) >= PI / 2) {
             y = y < 0.0 ? -(PI / 2) : (PI / 2);
@@ -190,9 +241,8 @@ public class TransverseMercator extends MapProjection {
             x = adjust_lon(central_meridian + d * (FC1 - ds * FC3 * (1.0 + 2.0 * t + n - ds * FC5 * (5.0 + t * (28.0 + 24 * t + 8.0 * n) + 6.0 * n - ds * FC7 * (61.0 + t * (662.0 + t * (1320.0 + 720.0 * t)))))) / cosphi);
         }
 
-        return p.length == 2
-                ? new double[]{x, y}
-                : new double[]{x, y, p[2]};
+        dst[dstOff] = x;
+        dst[dstOff + 1] = y;
     }
 
     //double con,phi;		/* temporary angles				*/
@@ -1,9 +1,5 @@
 package com.asseco.android.proj.transformations;
 
-
-import android.util.Pair;
-
-
 import com.asseco.android.proj.ProjectionParameter;
 
 import java.util.ArrayList;
@@ -22,21 +18,21 @@ public class AffineTransform extends MathTransform {
     /**
      * Saved inverse transform
      */
-    private IMathTransform _inverse;
+    private volatile AffineTransform _inverse;
     /**
      * Dimension of source points - it's related to number of transformation matrix rows
      */
-    private int dimSource;
+    private final int dimSource;
     /**
      * Dimension of output points - it's related to number of columns
      */
-    private int dimTarget;
+    private final int dimTarget;
     /**
      * Represents transform matrix of this affine transformation from input points to output ones using dimensionality defined within the affine transform
      * Number of rows = dimTarget + 1
      * Number of columns = dimSource + 1
      */
-    private double[][] transformMatrix;
+    private final double[][] transformMatrix;
 
     /**
      * Creates instance of 2D affine transform (source dimensionality 2, target dimensionality 2) using the specified values
@@ -84,8 +80,15 @@ public class AffineTransform extends MathTransform {
         //fill dimensionlity - dimension is M, and output dimension is N, then the matrix will have size [N+1][M+1].
         dimSource = matrix[1].length - 1;
         dimTarget = matrix[0].length - 1;
-        //use specified matrix
-        transformMatrix = matrix;
+        //use a copy of the specified matrix, so the transform cannot be changed from outside
+        transformMatrix = copyMatrix(matrix);
+    }
+
+    private static double[][] copyMatrix(double[][] matrix) {
+        double[][] copy = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++)
+            copy[i] = matrix[i].clone();
+        return copy;
     }
 
     /**
@@ -143,7 +146,7 @@ public class AffineTransform extends MathTransform {
 
     /**
      * Perform LUP decomposition on a matrix A.
-     * Return L and U as a single matrix(double[][]) and P as an array of ints.
+     * L and U are stored as a single matrix in A, P is returned as an array of ints.
      * We implement the code to compute LU "in place" in the matrix A.
      * In order to make some of the calculations more straight forward and to
      * match Cormen's et al. pseudocode the matrix A should have its first row and first columns
@@ -153,7 +156,7 @@ public class AffineTransform extends MathTransform {
      * @return
      * @see
      */
-    private static Pair<double[][], int[]> lUPDecomposition(double[][] A) throws Exception {
+    private static int[] lUPDecomposition(double[][] A) throws Exception {
         int n = A[0].length - 1;
         /*
                     * pi represents the permutation matrix.  We implement it as an array
@@ -219,7 +222,7 @@ public class AffineTransform extends MathTransform {
                 }
             }
         }
-        return new Pair<>(A, pi);
+        return pi;
     }
 
     /**
@@ -240,9 +243,9 @@ public class AffineTransform extends MathTransform {
                     * */
         double[] solve;
         //Get the LU matrix and P matrix (as an array)
-        Pair<double[][], int[]> results = lUPDecomposition(A);
-        double[][] LU = results.first;//.getKey();
-        int[] P = results.second;//.getValue();
+        //the decomposition is stored in A
+        int[] P = lUPDecomposition(A);
+        double[][] LU = A;
         for (int i = 0; i < n; i++) {
             /*
                         * Solve AX = e for each column ei of the identity matrix using LUP decomposition
@@ -327,10 +330,12 @@ public class AffineTransform extends MathTransform {
      */
     public IMathTransform inverse() throws Exception {
         if (_inverse == null) {
-            //find the inverse transformation matrix - use cloned matrix array
+            //find the inverse transformation matrix - the decomposition works in-place, so use a copy of the matrix
             //remarks about dimensionality: if input dimension is M, and output dimension is N, then the matrix will have size [N+1][M+1].
-            double[][] invMatrix = invertMatrix((double[][]) transformMatrix.clone());
-            _inverse = new AffineTransform(invMatrix);
+            double[][] invMatrix = invertMatrix(copyMatrix(transformMatrix));
+            AffineTransform inverse = new AffineTransform(invMatrix);
+            inverse._inverse = this;
+            _inverse = inverse;
         }
 
         return _inverse;
@@ -362,13 +367,164 @@ public class AffineTransform extends MathTransform {
         throw new Exception("Dimensionality of point is not supported!");
     }
 
+    /**
+     * Transforms a list of packed coordinate point ordinal values without allocating per point.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        double[][] m = transformMatrix;
+        if (dimSource == 2 && dimTarget == 2) {
+            double m00 = m[0][0], m01 = m[0][1], m02 = m[0][2];
+            double m10 = m[1][0], m11 = m[1][1], m12 = m[1][2];
+            for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+                double x = srcPts[srcOff];
+                double y = srcPts[srcOff + 1];
+                dstPts[dstOff] = m00 * x + m01 * y + m02;
+                dstPts[dstOff + 1] = m10 * x + m11 * y + m12;
+                copyOrdinates(srcPts, srcOff, dstPts, dstOff, 2, dimension);
+            }
+        } else if (dimSource == 3 && dimTarget == 3) {
+            double m00 = m[0][0], m01 = m[0][1], m02 = m[0][2], m03 = m[0][3];
+            double m10 = m[1][0], m11 = m[1][1], m12 = m[1][2], m13 = m[1][3];
+            double m20 = m[2][0], m21 = m[2][1], m22 = m[2][2], m23 = m[2][3];
+            for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+                double x = srcPts[srcOff];
+                double y = srcPts[srcOff + 1];
+                double z = srcPts[srcOff + 2];
+                dstPts[dstOff] = m00 * x + m01 * y + m02 * z + m03;
+                dstPts[dstOff + 1] = m10 * x + m11 * y + m12 * z + m13;
+                dstPts[dstOff + 2] = m20 * x + m21 * y + m22 * z + m23;
+                copyOrdinates(srcPts, srcOff, dstPts, dstOff, 3, dimension);
+            }
+        } else {
+            //general case - one scratch row per call, the point may be transformed in-place
+            double[] transformed = new double[dimTarget];
+            for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+                for (int row = 0; row < dimTarget; row++) {
+                    double dimVal = m[row][dimSource];
+                    for (int col = 0; col < dimSource; col++) {
+                        dimVal += m[row][col] * srcPts[srcOff + col];
+                    }
+                    transformed[row] = dimVal;
+                }
+                copyOrdinates(srcPts, srcOff, dstPts, dstOff, dimTarget, dimension);
+                System.arraycopy(transformed, 0, dstPts, dstOff, dimTarget);
+            }
+        }
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     * Only transforms of up to three dimensions are supported, the heights are required
+     * whenever the source or target dimension is three.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null for two dimensional transforms
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        if (dimSource > 3 || dimTarget > 3)
+            throw new IllegalArgumentException("Dimensionality of point is not supported!");
+        checkArrayArguments(xs, ys, zs, off, count, dimSource > 2 || dimTarget > 2);
+        double[][] m = transformMatrix;
+        if (dimSource == 2 && dimTarget == 2) {
+            double m00 = m[0][0], m01 = m[0][1], m02 = m[0][2];
+            double m10 = m[1][0], m11 = m[1][1], m12 = m[1][2];
+            for (int i = off; i < off + count; i++) {
+                double x = xs[i];
+                double y = ys[i];
+                xs[i] = m00 * x + m01 * y + m02;
+                ys[i] = m10 * x + m11 * y + m12;
+            }
+        } else {
+            //missing matrix entries act as zero, so 2D/3D mixes share the 3D loop
+            double m00 = m[0][0], m01 = m[0][1], m02 = dimSource > 2 ? m[0][2] : 0, m03 = m[0][dimSource];
+            double m10 = m[1][0], m11 = m[1][1], m12 = dimSource > 2 ? m[1][2] : 0, m13 = m[1][dimSource];
+            double m20 = 0, m21 = 0, m22 = 0, m23 = 0;
+            if (dimTarget > 2) {
+                m20 = m[2][0];
+                m21 = m[2][1];
+                m22 = dimSource > 2 ? m[2][2] : 0;
+                m23 = m[2][dimSource];
+            }
+            for (int i = off; i < off + count; i++) {
+                double x = xs[i];
+                double y = ys[i];
+                double z = dimSource > 2 ? zs[i] : 0;
+                xs[i] = m00 * x + m01 * y + m02 * z + m03;
+                ys[i] = m10 * x + m11 * y + m12 * z + m13;
+                if (dimTarget > 2)
+                    zs[i] = m20 * x + m21 * y + m22 * z + m23;
+            }
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform, the linear part of the matrix. It is the same at all points.
+     *
+     * @param point point
+     * @return the dimTarget x dimSource derivative
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        double[][] d = new double[dimTarget][dimSource];
+        for (int row = 0; row < dimTarget; row++)
+            System.arraycopy(transformMatrix[row], 0, d[row], 0, dimSource);
+        return d;
+    }
+
+    /**
+     * Gets the derivatives of this transform at a list of packed points, every matrix
+     * holds the linear part of the transform matrix.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        if (numPts == 0)
+            return;
+
+        int size = dimension * dimension;
+        setIdentity(dstMatrices, dstOff, dimension);
+        for (int row = 0; row < dimTarget; row++) {
+            for (int col = 0; col < dimension; col++)
+                dstMatrices[dstOff + row * dimension + col] = col < dimSource ? transformMatrix[row][col] : 0;
+        }
+        for (int i = 1; i < numPts; i++)
+            System.arraycopy(dstMatrices, dstOff, dstMatrices, dstOff + i * size, size);
+    }
+
     //nepodporovane
 
     /**
-     * Reverses the transformation
+     * Tests whether this transform does not move any points, i.e. the matrix is the identity matrix.
+     *
+     * @return isidentity
      */
-    public void invert() throws Exception {
-        throw new UnsupportedOperationException("The method or operation is not implemented.");
+    public boolean identity() throws Exception {
+        if (dimSource != dimTarget)
+            return false;
+
+        for (int row = 0; row < transformMatrix.length; row++) {
+            for (int col = 0; col < transformMatrix[row].length; col++) {
+                if (transformMatrix[row][col] != (row == col ? 1 : 0))
+                    return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -378,7 +534,7 @@ public class AffineTransform extends MathTransform {
      * @throws Exception the exception
      */
     public double[][] getMatrix() throws Exception {
-        return (double[][]) this.transformMatrix.clone();
+        return copyMatrix(this.transformMatrix);
     }
 
 }
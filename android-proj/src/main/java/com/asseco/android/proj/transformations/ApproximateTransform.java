@@ -0,0 +1,327 @@
+package com.asseco.android.proj.transformations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Approximates a transform by linear interpolation along runs of points.
+ *
+ * The packed points of a call are taken as a run, e.g. a scanline of a raster or the
+ * vertices of a densified line. The end points and the middle point of the run are
+ * transformed exactly. When the middle point is within the maximum error of the line
+ * between the transformed end points, the remaining points are interpolated linearly,
+ * otherwise both halves are approximated the same way. Short runs and runs whose source
+ * points do not lie on a straight line are split until they are short enough to be
+ * transformed exactly, so any sequence of points gives correct results, only straight
+ * runs are faster.
+ *
+ * The error is checked in the first two ordinals of the target coordinate system, in its
+ * units. Only the middle point of a run is checked, so the error bound holds for transforms
+ * which are smooth over the length of the run, as projections are within their domain.
+ */
+public class ApproximateTransform extends MathTransform {
+    /**
+     * Number of points below which a run is transformed exactly.
+     */
+    protected static final int MIN_RUN = 5;
+    /**
+     * Distance of source points from the line of their run, relative to the length of the
+     * run, above which the run is not interpolated.
+     */
+    private static final double COLLINEAR_TOLERANCE = 1E-9;
+
+    private final IMathTransform _transform;
+    private final double _maxError;
+
+    /**
+     * Instantiates a new approximate transform.
+     *
+     * @param transform the transform to approximate
+     * @param maxError  the largest error of interpolated points, in the units of the target coordinate system
+     * @throws Exception the exception
+     */
+    public ApproximateTransform(IMathTransform transform, double maxError) throws Exception {
+        if (transform == null)
+            throw new IllegalArgumentException("transform is null");
+        if (!(maxError >= 0))
+            throw new IllegalArgumentException("Invalid maximum error.");
+
+        _transform = transform;
+        _maxError = maxError;
+    }
+
+    /**
+     * Gets the transform which is approximated.
+     *
+     * @return the transform
+     */
+    public IMathTransform getTransform() {
+        return _transform;
+    }
+
+    /**
+     * Gets the largest error of interpolated points.
+     *
+     * @return the maximum error in the units of the target coordinate system
+     */
+    public double getMaxError() {
+        return _maxError;
+    }
+
+    public int getDimSource() throws Exception {
+        return _transform.getDimSource();
+    }
+
+    public int getDimTarget() throws Exception {
+        return _transform.getDimTarget();
+    }
+
+    public boolean identity() throws Exception {
+        return _transform.identity();
+    }
+
+    /**
+     * Returns the exact inverse of the approximated transform. The maximum error is given in
+     * target units, which are not the units of the inverse, so the caller wraps the inverse
+     * with a tolerance in its own units when it should be approximated as well.
+     *
+     * @return IMathTransform that is the reverse of the current conversion.
+     */
+    public IMathTransform inverse() throws Exception {
+        return _transform.inverse();
+    }
+
+    public double[] transform(double[] point) throws Exception {
+        return _transform.transform(point);
+    }
+
+    /**
+     * Transforms a list point, the points are packed into a single array and
+     * approximated as one run when they share their dimension.
+     *
+     * @param points points
+     * @return transformed points
+     */
+    public List<double[]> transformList(List<double[]> points) throws Exception {
+        int dimension = points.isEmpty() ? 0 : points.get(0).length;
+        boolean packable = dimension >= getDimSource() && dimension >= getDimTarget();
+        for (int i = 0; packable && i < points.size(); i++)
+            packable = points.get(i).length == dimension;
+        if (!packable)
+            return _transform.transformList(points);
+
+        double[] packed = new double[points.size() * dimension];
+        for (int i = 0; i < points.size(); i++)
+            System.arraycopy(points.get(i), 0, packed, i * dimension, dimension);
+        transform(packed, 0, packed, 0, points.size(), dimension);
+        List<double[]> result = new ArrayList<double[]>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            double[] p = new double[dimension];
+            System.arraycopy(packed, i * dimension, p, 0, dimension);
+            result.add(p);
+        }
+        return result;
+    }
+
+    /**
+     * Transforms a run of packed coordinate point ordinal values, interpolating the points
+     * which are within the maximum error.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        if (numPts < MIN_RUN || dimension < 2) {
+            _transform.transform(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+            return;
+        }
+
+        if (srcPts == dstPts && Math.abs(srcOff - dstOff) < numPts * dimension) {
+            //the source points are needed after their destination is written
+            double[] copy = new double[numPts * dimension];
+            System.arraycopy(srcPts, srcOff, copy, 0, copy.length);
+            srcPts = copy;
+            srcOff = 0;
+        }
+        int last = numPts - 1;
+        _transform.transform(srcPts, srcOff, dstPts, dstOff, 1, dimension);
+        _transform.transform(srcPts, srcOff + last * dimension, dstPts, dstOff + last * dimension, 1, dimension);
+        approximate(srcPts, srcOff, dstPts, dstOff, 0, last, dimension, false);
+    }
+
+    /**
+     * Transforms the points between two points which are transformed already. The source points
+     * of the halves of a straight run are on a line as well, so they are checked only once.
+     */
+    private void approximate(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int first, int last, int dimension, boolean straight) throws Exception {
+        int count = last - first - 1;
+        if (count <= 0)
+            return;
+        if (count + 2 < MIN_RUN) {
+            _transform.transform(srcPts, srcOff + (first + 1) * dimension, dstPts, dstOff + (first + 1) * dimension, count, dimension);
+            return;
+        }
+
+        int mid = (first + last) >>> 1;
+        _transform.transform(srcPts, srcOff + mid * dimension, dstPts, dstOff + mid * dimension, 1, dimension);
+        int a = srcOff + first * dimension;
+        int b = srcOff + last * dimension;
+        double length2 = 0;
+        for (int j = 0; j < dimension; j++) {
+            double d = srcPts[b + j] - srcPts[a + j];
+            length2 += d * d;
+        }
+        if (length2 > 0) {
+            straight = straight || isStraight(srcPts, srcOff, first, last, dimension, length2);
+            if (straight && isWithinError(srcPts, srcOff, dstPts, dstOff, first, mid, last, dimension, length2)) {
+                for (int i = first + 1; i < last; i++) {
+                    if (i != mid)
+                        interpolate(srcPts, srcOff, dstPts, dstOff, first, i, last, dimension, length2);
+                }
+                return;
+            }
+        } else {
+            straight = false;
+        }
+
+        approximate(srcPts, srcOff, dstPts, dstOff, first, mid, dimension, straight);
+        approximate(srcPts, srcOff, dstPts, dstOff, mid, last, dimension, straight);
+    }
+
+    /**
+     * Tests whether the source points of a run are on the line between its end points, in order.
+     */
+    private static boolean isStraight(double[] srcPts, int srcOff, int first, int last, int dimension, double length2) {
+        int a = srcOff + first * dimension;
+        int b = srcOff + last * dimension;
+        double tolerance2 = COLLINEAR_TOLERANCE * COLLINEAR_TOLERANCE * length2;
+        double previous = 0;
+        for (int i = first + 1; i < last; i++) {
+            int p = srcOff + i * dimension;
+            double t = parameter(srcPts, a, b, p, dimension, length2);
+            if (!(t >= previous && t <= 1))
+                return false;
+
+            double distance2 = 0;
+            for (int j = 0; j < dimension; j++) {
+                double d = srcPts[p + j] - srcPts[a + j] - t * (srcPts[b + j] - srcPts[a + j]);
+                distance2 += d * d;
+            }
+            if (distance2 > tolerance2)
+                return false;
+
+            previous = t;
+        }
+        return true;
+    }
+
+    /**
+     * Tests whether the transformed middle point of a run is within the maximum error
+     * of its interpolation.
+     */
+    private boolean isWithinError(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int first, int mid, int last, int dimension, double length2) {
+        int da = dstOff + first * dimension;
+        int db = dstOff + last * dimension;
+        int dm = dstOff + mid * dimension;
+        double t = parameter(srcPts, srcOff + first * dimension, srcOff + last * dimension, srcOff + mid * dimension, dimension, length2);
+        double ex = dstPts[da] + t * (dstPts[db] - dstPts[da]) - dstPts[dm];
+        double ey = dstPts[da + 1] + t * (dstPts[db + 1] - dstPts[da + 1]) - dstPts[dm + 1];
+        //fails for non finite ordinals as well
+        return ex * ex + ey * ey <= _maxError * _maxError;
+    }
+
+    /**
+     * Interpolates a point of a run between the transformed end points.
+     */
+    private static void interpolate(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int first, int i, int last, int dimension, double length2) {
+        int da = dstOff + first * dimension;
+        int db = dstOff + last * dimension;
+        int d = dstOff + i * dimension;
+        double t = parameter(srcPts, srcOff + first * dimension, srcOff + last * dimension, srcOff + i * dimension, dimension, length2);
+        for (int j = 0; j < dimension; j++)
+            dstPts[d + j] = dstPts[da + j] + t * (dstPts[db + j] - dstPts[da + j]);
+    }
+
+    /**
+     * Gets the position of a source point projected onto the line of its run, from 0 at the
+     * first point to 1 at the last point.
+     */
+    private static double parameter(double[] srcPts, int a, int b, int p, int dimension, double length2) {
+        double dot = 0;
+        for (int j = 0; j < dimension; j++)
+            dot += (srcPts[p + j] - srcPts[a + j]) * (srcPts[b + j] - srcPts[a + j]);
+        return dot / length2;
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place. The
+     * points are approximated in runs of a block, copied into a packed scratch array.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        int dimension = zs != null ? 3 : Math.max(2, Math.max(getDimSource(), getDimTarget()));
+        double[] block = new double[Math.min(count, BLOCK_SIZE) * dimension];
+        for (int done = 0; done < count; done += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, count - done);
+            for (int i = 0, p = 0; i < n; i++, p += dimension) {
+                block[p] = xs[off + done + i];
+                block[p + 1] = ys[off + done + i];
+                for (int j = 2; j < dimension; j++)
+                    block[p + j] = 0;
+                if (zs != null)
+                    block[p + 2] = zs[off + done + i];
+            }
+            transform(block, 0, block, 0, n, dimension);
+            for (int i = 0, p = 0; i < n; i++, p += dimension) {
+                xs[off + done + i] = block[p];
+                ys[off + done + i] = block[p + 1];
+                if (zs != null)
+                    zs[off + done + i] = block[p + 2];
+            }
+        }
+    }
+
+    public double[][] derivative(double[] point) throws Exception {
+        return _transform.derivative(point);
+    }
+
+    /**
+     * Gets the exact derivatives of the approximated transform at a list of packed points.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        _transform.derivative(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+    }
+
+    /**
+     * Gets a Well-Known text representation of the approximated transform.
+     */
+    public String getWKT() throws Exception {
+        return _transform.getWKT();
+    }
+
+    /**
+     * Gets an XML representation of the approximated transform.
+     */
+    public String getXML() throws Exception {
+        return _transform.getXML();
+    }
+
+}
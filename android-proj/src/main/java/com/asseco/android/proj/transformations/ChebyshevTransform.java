@@ -0,0 +1,514 @@
+package com.asseco.android.proj.transformations;
+
+import java.util.Arrays;
+
+/**
+ * Approximates a transform over a rectangular extent by Chebyshev polynomials.
+ *
+ * The first two target ordinals are fitted as tensor products of Chebyshev polynomials
+ * of the first two source ordinals, from samples at the Chebyshev nodes of the extent.
+ * The degree is raised until the largest error, measured against the exact transform on
+ * a grid denser than the nodes, is within the requested accuracy. Coefficients too small
+ * to matter within the accuracy are dropped, so evaluating a point is a few hundred
+ * multiply-adds, independent of how much trigonometry the exact transform needs.
+ *
+ * Ordinals beyond the first two, like heights, are passed through unchanged by the
+ * approximation, so it suits transforms which keep heights, e.g. projections. Points
+ * outside the extent are transformed by the exact transform.
+ */
+public class ChebyshevTransform extends MathTransform {
+    /**
+     * The degrees tried in turn until the fit is accurate enough.
+     */
+    protected static final int[] DEGREES = {4, 6, 8, 12, 16, 20, 24, 32, 40, 48};
+    /**
+     * Part of the accuracy which the dropped coefficients may use up.
+     */
+    private static final double TRUNCATION_SHARE = 0.25;
+
+    private final IMathTransform _transform;
+    private final double _minX, _minY, _maxX, _maxY;
+    private final double _scaleX, _scaleY;
+    private final double _maxError;
+    private final int _degree;
+    /**
+     * The evaluated coefficients, row by row of the polynomials of x, the coefficients of both
+     * ordinals interleaved.
+     */
+    private final double[] _coefficients;
+    /**
+     * The number of leading coefficients of each row which are evaluated.
+     */
+    private final int[] _rowLengths;
+    private final int _rows;
+    /**
+     * The length of the longest row.
+     */
+    private final int _columns;
+    private final double _error;
+
+    /**
+     * Fits a new Chebyshev approximation of a transform.
+     *
+     * @param transform the transform to approximate
+     * @param minX      the smallest first source ordinal of the extent
+     * @param minY      the smallest second source ordinal of the extent
+     * @param maxX      the largest first source ordinal of the extent
+     * @param maxY      the largest second source ordinal of the extent
+     * @param maxError  the largest error of approximated points, in the units of the target coordinate system
+     * @throws Exception when the transform fails within the extent, or can not be approximated to the accuracy
+     */
+    public ChebyshevTransform(IMathTransform transform, double minX, double minY, double maxX, double maxY, double maxError) throws Exception {
+        if (transform == null)
+            throw new IllegalArgumentException("transform is null");
+        if (!(minX < maxX) || !(minY < maxY))
+            throw new IllegalArgumentException("Invalid extent.");
+        if (!(maxError > 0))
+            throw new IllegalArgumentException("Invalid maximum error.");
+        if (transform.getDimSource() < 2 || transform.getDimTarget() < 2)
+            throw new IllegalArgumentException("The transform must have two dimensions at least.");
+
+        _transform = transform;
+        _minX = minX;
+        _minY = minY;
+        _maxX = maxX;
+        _maxY = maxY;
+        _scaleX = 2 / (maxX - minX);
+        _scaleY = 2 / (maxY - minY);
+        _maxError = maxError;
+        for (int degree : DEGREES) {
+            int size = degree + 1;
+            double[] coefficients = fit(size);
+            int[] rowLengths = new int[size];
+            int rows = truncate(coefficients, size, rowLengths);
+            int columns = 1;
+            for (int i = 0; i < rows; i++)
+                columns = Math.max(columns, rowLengths[i]);
+            coefficients = pack(coefficients, size, rowLengths, rows);
+            double error = verify(coefficients, size, rowLengths, rows, columns, sampleGrid(2 * size + 1));
+            if (error <= maxError) {
+                _degree = degree;
+                _coefficients = coefficients;
+                _rowLengths = rowLengths;
+                _rows = rows;
+                _columns = columns;
+                _error = error;
+                return;
+            }
+        }
+        throw new Exception("The transform can not be approximated to " + maxError + " within the extent.");
+    }
+
+    /**
+     * Gets the transform which is approximated.
+     *
+     * @return the transform
+     */
+    public IMathTransform getTransform() {
+        return _transform;
+    }
+
+    /**
+     * Gets the extent of the approximation.
+     *
+     * @return the smallest and largest source ordinals, minX, minY, maxX, maxY
+     */
+    public double[] getExtent() {
+        return new double[]{_minX, _minY, _maxX, _maxY};
+    }
+
+    /**
+     * Gets the requested accuracy.
+     *
+     * @return the maximum error in the units of the target coordinate system
+     */
+    public double getMaxError() {
+        return _maxError;
+    }
+
+    /**
+     * Gets the largest error found when the fit was verified.
+     *
+     * @return the error in the units of the target coordinate system
+     */
+    public double getError() {
+        return _error;
+    }
+
+    /**
+     * Gets the degree of the polynomials in each source ordinal.
+     *
+     * @return the degree
+     */
+    public int getDegree() {
+        return _degree;
+    }
+
+    /**
+     * Gets the number of coefficients evaluated per point.
+     *
+     * @return the number of coefficients
+     */
+    public int getCoefficientCount() {
+        int count = 0;
+        for (int i = 0; i < _rows; i++)
+            count += _rowLengths[i];
+        return 2 * count;
+    }
+
+    /**
+     * Tests whether a point is within the extent of the approximation.
+     *
+     * @param x the first source ordinal
+     * @param y the second source ordinal
+     * @return whether the point is approximated
+     */
+    public boolean contains(double x, double y) {
+        return x >= _minX && x <= _maxX && y >= _minY && y <= _maxY;
+    }
+
+    public int getDimSource() throws Exception {
+        return _transform.getDimSource();
+    }
+
+    public int getDimTarget() throws Exception {
+        return _transform.getDimTarget();
+    }
+
+    public boolean identity() throws Exception {
+        return _transform.identity();
+    }
+
+    /**
+     * Returns the exact inverse of the approximated transform. The extent is given in
+     * source units, the caller fits the inverse over an extent of its own when it should
+     * be approximated as well.
+     *
+     * @return IMathTransform that is the reverse of the current conversion.
+     */
+    public IMathTransform inverse() throws Exception {
+        return _transform.inverse();
+    }
+
+    /**
+     * Transforms a point, the result has as many ordinals as the point or the target
+     * coordinate system, whichever are more.
+     *
+     * @param point the point
+     * @return the transformed point
+     */
+    public double[] transform(double[] point) throws Exception {
+        int dimension = Math.max(point.length, getDimTarget());
+        if (point.length < 2 || !contains(point[0], point[1])) {
+            double[] res = _transform.transform(point);
+            //the exact transform may add a height to a point without one
+            return res.length == dimension ? res : Arrays.copyOf(res, dimension);
+        }
+
+        int size = _degree + 1;
+        double[] res = new double[dimension];
+        System.arraycopy(point, 2, res, 2, point.length - 2);
+        evaluate(point[0], point[1], new double[size], new double[size], res, 0);
+        return res;
+    }
+
+    /**
+     * Transforms a list of packed coordinate point ordinal values, points within the
+     * extent are approximated and their further ordinals are passed through.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        if (dimension < 2) {
+            _transform.transform(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+            return;
+        }
+
+        int size = _degree + 1;
+        double[] tx = new double[size];
+        double[] ty = new double[size];
+        //backwards when an in-place destination is ahead of the source
+        boolean backwards = srcPts == dstPts && dstOff > srcOff;
+        for (int k = 0; k < numPts; k++) {
+            int i = backwards ? numPts - 1 - k : k;
+            int src = srcOff + i * dimension;
+            int dst = dstOff + i * dimension;
+            double x = srcPts[src];
+            double y = srcPts[src + 1];
+            if (contains(x, y)) {
+                if (dimension > 2)
+                    System.arraycopy(srcPts, src + 2, dstPts, dst + 2, dimension - 2);
+                evaluate(x, y, tx, ty, dstPts, dst);
+            } else {
+                _transform.transform(srcPts, src, dstPts, dst, 1, dimension);
+            }
+        }
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place. The heights
+     * of points within the extent are passed through.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        int size = _degree + 1;
+        double[] tx = new double[size];
+        double[] ty = new double[size];
+        int dimension = zs == null ? 2 : 3;
+        double[] point = new double[dimension];
+        for (int i = off; i < off + count; i++) {
+            point[0] = xs[i];
+            point[1] = ys[i];
+            if (contains(point[0], point[1])) {
+                evaluate(point[0], point[1], tx, ty, point, 0);
+            } else {
+                if (zs != null)
+                    point[2] = zs[i];
+                _transform.transform(point, 0, point, 0, 1, dimension);
+                if (zs != null)
+                    zs[i] = point[2];
+            }
+            xs[i] = point[0];
+            ys[i] = point[1];
+        }
+    }
+
+    /**
+     * Evaluates the polynomials at a point within the extent.
+     */
+    private void evaluate(double x, double y, double[] tx, double[] ty, double[] dst, int dstOff) {
+        chebyshev((x - _minX) * _scaleX - 1, tx, _rows);
+        chebyshev((y - _minY) * _scaleY - 1, ty, _columns);
+        evaluate(_coefficients, _rowLengths, _rows, tx, ty, dst, dstOff);
+    }
+
+    private static void evaluate(double[] coefficients, int[] rowLengths, int rows, double[] tx, double[] ty, double[] dst, int dstOff) {
+        double u = 0;
+        double v = 0;
+        for (int i = 0, p = 0; i < rows; i++) {
+            double su = 0;
+            double sv = 0;
+            for (int j = 0, n = rowLengths[i]; j < n; j++, p += 2) {
+                su += coefficients[p] * ty[j];
+                sv += coefficients[p + 1] * ty[j];
+            }
+            u += su * tx[i];
+            v += sv * tx[i];
+        }
+        dst[dstOff] = u;
+        dst[dstOff + 1] = v;
+    }
+
+    /**
+     * Computes the Chebyshev polynomials of the first kind at a point of [-1, 1].
+     */
+    private static void chebyshev(double t, double[] res, int count) {
+        res[0] = 1;
+        if (count > 1)
+            res[1] = t;
+        double t2 = 2 * t;
+        for (int i = 2; i < count; i++)
+            res[i] = t2 * res[i - 1] - res[i - 2];
+    }
+
+    /**
+     * Computes the coefficients interpolating the transform at the Chebyshev nodes, both
+     * ordinals are stored one after the other, row i holds the coefficients of T_i(x).
+     */
+    private double[] fit(int size) throws Exception {
+        double[] nodes = new double[size];
+        for (int k = 0; k < size; k++)
+            nodes[k] = Math.cos(Math.PI * (k + 0.5) / size);
+        double[] samples = new double[size * size * 2];
+        for (int k = 0, p = 0; k < size; k++) {
+            for (int l = 0; l < size; l++, p += 2) {
+                samples[p] = _minX + (nodes[k] + 1) / _scaleX;
+                samples[p + 1] = _minY + (nodes[l] + 1) / _scaleY;
+            }
+        }
+        _transform.transform(samples, 0, samples, 0, size * size, 2);
+        for (int p = 0; p < samples.length; p++) {
+            if (Double.isNaN(samples[p]) || Double.isInfinite(samples[p]))
+                throw new Exception("The transform fails within the extent.");
+        }
+
+        //cos(i * pi * (k + 0.5) / size) for all degrees and nodes
+        double[] basis = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int k = 0; k < size; k++)
+                basis[i * size + k] = Math.cos(Math.PI * i * (k + 0.5) / size);
+        }
+        int plane = size * size;
+        double[] coefficients = new double[2 * plane];
+        double[] partial = new double[size * 2];
+        for (int j = 0; j < size; j++) {
+            //transform along y first, then along x
+            for (int k = 0; k < size; k++) {
+                double su = 0;
+                double sv = 0;
+                for (int l = 0; l < size; l++) {
+                    int p = (k * size + l) * 2;
+                    su += samples[p] * basis[j * size + l];
+                    sv += samples[p + 1] * basis[j * size + l];
+                }
+                partial[k * 2] = su;
+                partial[k * 2 + 1] = sv;
+            }
+            for (int i = 0; i < size; i++) {
+                double su = 0;
+                double sv = 0;
+                for (int k = 0; k < size; k++) {
+                    su += partial[k * 2] * basis[i * size + k];
+                    sv += partial[k * 2 + 1] * basis[i * size + k];
+                }
+                double w = (i == 0 ? 1.0 : 2.0) * (j == 0 ? 1.0 : 2.0) / plane;
+                coefficients[i * size + j] = su * w;
+                coefficients[plane + i * size + j] = sv * w;
+            }
+        }
+        return coefficients;
+    }
+
+    /**
+     * Drops the smallest coefficients as long as their sum stays within a share of the
+     * accuracy, the polynomials are bounded by one within the extent.
+     *
+     * @return the number of rows which are evaluated
+     */
+    private int truncate(double[] coefficients, int size, int[] rowLengths) {
+        int plane = size * size;
+        double[] magnitudes = new double[plane];
+        for (int p = 0; p < plane; p++)
+            magnitudes[p] = Math.max(Math.abs(coefficients[p]), Math.abs(coefficients[plane + p]));
+        double[] sorted = magnitudes.clone();
+        Arrays.sort(sorted);
+        double budget = _maxError * TRUNCATION_SHARE;
+        double dropped = 0;
+        double threshold = 0;
+        for (double m : sorted) {
+            //both ordinals are dropped, their errors add up to the distance at most
+            if (dropped + m * Math.sqrt(2) > budget)
+                break;
+
+            dropped += m * Math.sqrt(2);
+            threshold = m;
+        }
+
+        int rows = 1;
+        for (int i = 0; i < size; i++) {
+            int length = 0;
+            for (int j = 0; j < size; j++) {
+                if (magnitudes[i * size + j] > threshold)
+                    length = j + 1;
+            }
+            rowLengths[i] = length;
+            if (length > 0)
+                rows = i + 1;
+        }
+        return rows;
+    }
+
+    /**
+     * Packs the evaluated coefficients of both ordinals in the order they are evaluated.
+     */
+    private static double[] pack(double[] coefficients, int size, int[] rowLengths, int rows) {
+        int count = 0;
+        for (int i = 0; i < rows; i++)
+            count += rowLengths[i];
+        int plane = size * size;
+        double[] packed = new double[count * 2];
+        for (int i = 0, p = 0; i < rows; i++) {
+            for (int j = 0; j < rowLengths[i]; j++, p += 2) {
+                packed[p] = coefficients[i * size + j];
+                packed[p + 1] = coefficients[plane + i * size + j];
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Gets a regular grid of source points covering the extent, edges included, with the
+     * exact transform of each point following it.
+     */
+    private double[] sampleGrid(int count) throws Exception {
+        double[] grid = new double[count * count * 2];
+        for (int k = 0, p = 0; k < count; k++) {
+            for (int l = 0; l < count; l++, p += 2) {
+                grid[p] = k == count - 1 ? _maxX : _minX + k * (_maxX - _minX) / (count - 1);
+                grid[p + 1] = l == count - 1 ? _maxY : _minY + l * (_maxY - _minY) / (count - 1);
+            }
+        }
+        double[] res = new double[grid.length * 2];
+        System.arraycopy(grid, 0, res, 0, grid.length);
+        _transform.transform(grid, 0, res, grid.length, count * count, 2);
+        return res;
+    }
+
+    /**
+     * Gets the largest distance between the approximated and the exact points of a grid.
+     */
+    private double verify(double[] coefficients, int size, int[] rowLengths, int rows, int columns, double[] grid) {
+        int count = grid.length / 4;
+        double[] tx = new double[size];
+        double[] ty = new double[size];
+        double[] res = new double[2];
+        double error = 0;
+        for (int p = 0; p < count; p++) {
+            chebyshev((grid[p * 2] - _minX) * _scaleX - 1, tx, rows);
+            chebyshev((grid[p * 2 + 1] - _minY) * _scaleY - 1, ty, columns);
+            evaluate(coefficients, rowLengths, rows, tx, ty, res, 0);
+            double dx = res[0] - grid[count * 2 + p * 2];
+            double dy = res[1] - grid[count * 2 + p * 2 + 1];
+            double d = Math.sqrt(dx * dx + dy * dy);
+            //not finite exact points fail the verification as well
+            if (!(d <= error))
+                error = Double.isNaN(d) ? Double.POSITIVE_INFINITY : d;
+        }
+        return error;
+    }
+
+    public double[][] derivative(double[] point) throws Exception {
+        return _transform.derivative(point);
+    }
+
+    /**
+     * Gets the exact derivatives of the approximated transform at a list of packed points.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        _transform.derivative(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+    }
+
+    /**
+     * Gets a Well-Known text representation of the approximated transform.
+     */
+    public String getWKT() throws Exception {
+        return _transform.getWKT();
+    }
+
+    /**
+     * Gets an XML representation of the approximated transform.
+     */
+    public String getXML() throws Exception {
+        return _transform.getXML();
+    }
+
+}
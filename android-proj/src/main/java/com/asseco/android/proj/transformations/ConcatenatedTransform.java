@@ -1,59 +1,42 @@
 package com.asseco.android.proj.transformations;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * The type Concatenated transform.
+ *
+ * The chain is fixed when the transform is created, so an instance can be shared between threads.
  */
-public class ConcatenatedTransform extends MathTransform implements Cloneable {
+public class ConcatenatedTransform extends MathTransform {
     /**
      * The Inverse.
      */
-    protected IMathTransform _inverse;
-    private List<ICoordinateTransformation> _coordinateTransformationList = new ArrayList<ICoordinateTransformation>();
+    protected volatile IMathTransform _inverse;
+    private final List<ICoordinateTransformation> _coordinateTransformationList;
 
     /**
      * Instantiates a new Concatenated transform.
      *
-     * @throws Exception the exception
-     */
-    public ConcatenatedTransform() throws Exception {
-        this(new ArrayList<ICoordinateTransformation>());
-    }
-
-    /**
-     * Instantiates a new Concatenated transform.
-     *
-     * @param transformlist the transformlist
+     * @param transformlist the transformlist, it is copied
      * @throws Exception the exception
      */
     public ConcatenatedTransform(List<ICoordinateTransformation> transformlist) throws Exception {
-        _coordinateTransformationList = transformlist;
+        _coordinateTransformationList = Collections.unmodifiableList(new ArrayList<ICoordinateTransformation>(transformlist));
     }
 
     /**
      * Gets coordinate transformation list.
      *
-     * @return the coordinate transformation list
+     * @return the unmodifiable coordinate transformation list
      * @throws Exception the exception
      */
     public List<ICoordinateTransformation> getCoordinateTransformationList() throws Exception {
         return _coordinateTransformationList;
     }
 
-    /**
-     * Sets coordinate transformation list.
-     *
-     * @param value the value
-     * @throws Exception the exception
-     */
-    public void setCoordinateTransformationList(List<ICoordinateTransformation> value) throws Exception {
-        _coordinateTransformationList = value;
-        _inverse = null;
-    }
-
     public int getDimSource() throws Exception {
         return _coordinateTransformationList.get(0).getSourceCS().getDimension();
     }
@@ -83,11 +66,206 @@ public class ConcatenatedTransform extends MathTransform implements Cloneable {
      * @return transformed points
      */
     public List<double[]> transformList(List<double[]> points) throws Exception {
-        List<double[]> pnts = new ArrayList<double[]>(points);
+        int dimension = points.isEmpty() ? 0 : points.get(0).length;
+        boolean packable = dimension >= getDimSource() && dimension >= getDimTarget();
+        for (double[] p : points)
+            packable &= p.length == dimension;
+        if (!packable) {
+            //mixed or too small dimensions, transform stage by stage
+            List<double[]> pnts = new ArrayList<double[]>(points);
+            for (ICoordinateTransformation ct : _coordinateTransformationList) {
+                pnts = ct.getMathTransform().transformList(pnts);
+            }
+            return pnts;
+        }
+
+        //pack the points once, run all stages on the packed buffer and unpack the result
+        double[] packed = new double[points.size() * dimension];
+        for (int i = 0; i < points.size(); i++)
+            System.arraycopy(points.get(i), 0, packed, i * dimension, dimension);
+        transform(packed, 0, packed, 0, points.size(), dimension);
+        List<double[]> result = new ArrayList<double[]>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            double[] p = new double[dimension];
+            System.arraycopy(packed, i * dimension, p, 0, dimension);
+            result.add(p);
+        }
+        return result;
+    }
+
+    /**
+     * Transforms a list of packed coordinate point ordinal values.
+     *
+     * All stages work on a single intermediate buffer wide enough for the largest
+     * dimension of the chain, so nothing is allocated per point or per stage.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        int work = dimension;
         for (ICoordinateTransformation ct : _coordinateTransformationList) {
-            pnts = ct.getMathTransform().transformList(pnts);
+            IMathTransform mt = ct.getMathTransform();
+            work = Math.max(work, Math.max(mt.getDimSource(), mt.getDimTarget()));
+        }
+
+        if (work == dimension) {
+            if (srcPts != dstPts || srcOff != dstOff)
+                System.arraycopy(srcPts, srcOff, dstPts, dstOff, numPts * dimension);
+            for (ICoordinateTransformation ct : _coordinateTransformationList)
+                ct.getMathTransform().transform(dstPts, dstOff, dstPts, dstOff, numPts, dimension);
+            return;
+        }
+
+        //widen the points, missing ordinates start as 0
+        double[] buffer = new double[numPts * work];
+        for (int i = 0; i < numPts; i++)
+            System.arraycopy(srcPts, srcOff + i * dimension, buffer, i * work, dimension);
+        for (ICoordinateTransformation ct : _coordinateTransformationList)
+            ct.getMathTransform().transform(buffer, 0, buffer, 0, numPts, work);
+        for (int i = 0; i < numPts; i++)
+            System.arraycopy(buffer, i * work, dstPts, dstOff + i * dimension, dimension);
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     *
+     * Every stage runs over the arrays in turn. When no heights are supplied but a stage
+     * needs them, the points are copied block by block to scratch arrays with zero heights.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        if (zs == null) {
+            for (ICoordinateTransformation ct : _coordinateTransformationList) {
+                IMathTransform mt = ct.getMathTransform();
+                if (mt.getDimSource() > 2 || mt.getDimTarget() > 2) {
+                    transformWithHeights(xs, ys, off, count);
+                    return;
+                }
+            }
+        }
+        for (ICoordinateTransformation ct : _coordinateTransformationList)
+            ct.getMathTransform().transform(xs, ys, zs, off, count);
+    }
+
+    private void transformWithHeights(double[] xs, double[] ys, int off, int count) throws Exception {
+        int block = Math.min(count, BLOCK_SIZE);
+        double[] x = new double[block];
+        double[] y = new double[block];
+        double[] z = new double[block];
+        for (int done = 0; done < count; done += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, count - done);
+            System.arraycopy(xs, off + done, x, 0, n);
+            System.arraycopy(ys, off + done, y, 0, n);
+            Arrays.fill(z, 0, n, 0.0);
+            for (ICoordinateTransformation step : _coordinateTransformationList)
+                step.getMathTransform().transform(x, y, z, 0, n);
+            System.arraycopy(x, 0, xs, off + done, n);
+            System.arraycopy(y, 0, ys, off + done, n);
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform at a point, the product of the derivatives
+     * of all steps at the intermediate points.
+     *
+     * @param point point
+     * @return the derivative, a square matrix as wide as the point, but at least as wide as the chain
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        int dimension = Math.max(point.length, Math.max(getDimSource(), getDimTarget()));
+        double[] p = new double[dimension];
+        System.arraycopy(point, 0, p, 0, point.length);
+        double[] m = new double[dimension * dimension];
+        derivative(p, 0, m, 0, 1, dimension);
+        return unpackMatrix(m, 0, dimension);
+    }
+
+    /**
+     * Gets the derivatives of this transform at a list of packed points with the chain rule.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        IMathTransform[] steps = new IMathTransform[_coordinateTransformationList.size()];
+        int work = dimension;
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = _coordinateTransformationList.get(i).getMathTransform();
+            work = Math.max(work, Math.max(steps[i].getDimSource(), steps[i].getDimTarget()));
+        }
+        chainDerivative(steps, work, srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+    }
+
+    /**
+     * Multiplies the derivatives of a chain of steps. The points are carried through the steps
+     * block by block, each step is differentiated at its intermediate points before it transforms
+     * them, and its derivatives are multiplied onto the product of the steps before.
+     *
+     * @param steps       the math transforms in the order they are applied
+     * @param width       the number of ordinals needed to carry a point through all steps
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point, not larger than the width
+     * @throws Exception the exception
+     */
+    static void chainDerivative(IMathTransform[] steps, int width, double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        int size = width * width;
+        int block = Math.min(numPts, BLOCK_SIZE);
+        double[] points = new double[block * width];
+        double[] product = new double[block * size];
+        double[] factor = new double[block * size];
+        double[] column = new double[width];
+        for (int done = 0; done < numPts; done += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, numPts - done);
+            //widen the points, missing ordinates start as 0
+            Arrays.fill(points, 0);
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(srcPts, srcOff + (done + i) * dimension, points, i * width, dimension);
+                setIdentity(product, i * size, width);
+            }
+            for (IMathTransform step : steps) {
+                step.derivative(points, 0, factor, 0, n, width);
+                step.transform(points, 0, points, 0, n, width);
+                for (int i = 0; i < n; i++) {
+                    int off = i * size;
+                    for (int col = 0; col < width; col++) {
+                        for (int k = 0; k < width; k++)
+                            column[k] = product[off + k * width + col];
+                        for (int row = 0; row < width; row++) {
+                            double sum = 0;
+                            for (int k = 0; k < width; k++)
+                                sum += factor[off + row * width + k] * column[k];
+                            product[off + row * width + col] = sum;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                int dst = dstOff + (done + i) * dimension * dimension;
+                for (int row = 0; row < dimension; row++)
+                    System.arraycopy(product, i * size + row * width, dstMatrices, dst + row * dimension, dimension);
+            }
         }
-        return pnts;
     }
 
     /*public IList<Coordinate> transformList(IList<Coordinate> points) throws Exception {
@@ -109,45 +287,52 @@ public class ConcatenatedTransform extends MathTransform implements Cloneable {
     }*/
 
     /**
-     * Returns the inverse of this conversion.
+     * Tests whether this transform does not move any points, i.e. all of its steps do not.
      *
-     * @return IMathTransform that is the reverse of the current conversion.
+     * @return isidentity
      */
-    public IMathTransform inverse() throws Exception {
-        if (_inverse == null) {
-            _inverse = clone();
-            _inverse.invert();
+    public boolean identity() throws Exception {
+        for (ICoordinateTransformation ct : _coordinateTransformationList) {
+            if (!ct.getMathTransform().identity())
+                return false;
         }
-
-        return _inverse;
+        return true;
     }
 
     /**
-     * Reverses the transformation
+     * Compiles this chain into a flat pipeline. The pipeline captures the current
+     * math transforms of the chain and streams blocks of points through all of them
+     * using a scratch buffer per thread. Compiling is opt-in, it pays off for callers
+     * transforming large buffers repeatedly.
+     *
+     * @return the compiled pipeline
+     * @throws Exception the exception
      */
-    public void invert() throws Exception {
-
-        Collections.reverse(_coordinateTransformationList);
-
-        for (ICoordinateTransformation ic : _coordinateTransformationList) {
-            ic.getMathTransform().invert();
-        }
+    public PipelineTransform compile() throws Exception {
+        List<IMathTransform> steps = new ArrayList<IMathTransform>(_coordinateTransformationList.size());
+        for (ICoordinateTransformation ct : _coordinateTransformationList)
+            steps.add(ct.getMathTransform());
+        return new PipelineTransform(steps, getDimSource(), getDimTarget());
     }
 
-    public ConcatenatedTransform clone() {
-        try {
-            List<ICoordinateTransformation> clonedList = new ArrayList<ICoordinateTransformation>(_coordinateTransformationList.size());
-            for (Object __dummyForeachVar5 : _coordinateTransformationList) {
-                ICoordinateTransformation ct = (ICoordinateTransformation) __dummyForeachVar5;
-                clonedList.add(ct);
+    /**
+     * Returns the inverse of this conversion.
+     *
+     * @return IMathTransform that is the reverse of the current conversion.
+     */
+    public IMathTransform inverse() throws Exception {
+        if (_inverse == null) {
+            List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>(_coordinateTransformationList.size());
+            for (int i = _coordinateTransformationList.size() - 1; i >= 0; i--) {
+                ICoordinateTransformation ct = _coordinateTransformationList.get(i);
+                steps.add(new CoordinateTransformation(ct.getTargetCS(), ct.getSourceCS(), ct.getTransformType(), ct.getMathTransform().inverse(), ct.getName(), ct.getAuthority(), ct.getAuthorityCode(), ct.getAreaOfUse(), ct.getRemarks()));
             }
-            return new ConcatenatedTransform(clonedList);
-        } catch (RuntimeException __dummyCatchVar0) {
-            throw __dummyCatchVar0;
-        } catch (Exception __dummyCatchVar0) {
-            throw new RuntimeException(__dummyCatchVar0);
+            ConcatenatedTransform inverse = new ConcatenatedTransform(steps);
+            inverse._inverse = this;
+            _inverse = inverse;
         }
 
+        return _inverse;
     }
 
     /**
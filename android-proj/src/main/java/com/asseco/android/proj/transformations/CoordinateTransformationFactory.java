@@ -1,6 +1,7 @@
 package com.asseco.android.proj.transformations;
 
 import com.asseco.android.proj.CoordinateSystemFactory;
+import com.asseco.android.proj.CoordinateSystemFingerprint;
 import com.asseco.android.proj.FittedCoordinateSystem;
 import com.asseco.android.proj.GeocentricCoordinateSystem;
 import com.asseco.android.proj.ICoordinateSystem;
@@ -12,12 +13,15 @@ import com.asseco.android.proj.ILinearUnit;
 import com.asseco.android.proj.IProjectedCoordinateSystem;
 import com.asseco.android.proj.IProjection;
 import com.asseco.android.proj.LinearUnit;
+import com.asseco.android.proj.LruCache;
 import com.asseco.android.proj.ProjectionParameter;
 import com.asseco.android.proj.projections.AlbersProjection;
 import com.asseco.android.proj.projections.CassiniSoldnerProjection;
 import com.asseco.android.proj.projections.HotineObliqueMercatorProjection;
 import com.asseco.android.proj.projections.KrovakProjection;
+import com.asseco.android.proj.projections.KrugerTransverseMercator;
 import com.asseco.android.proj.projections.LambertConformalConic2SP;
+import com.asseco.android.proj.projections.MapProjection;
 import com.asseco.android.proj.projections.Mercator;
 import com.asseco.android.proj.projections.ObliqueMercatorProjection;
 import com.asseco.android.proj.projections.ObliqueStereographicProjection;
@@ -32,65 +36,213 @@ import java.util.List;
  * Creates coordinate transformations.
  */
 public class CoordinateTransformationFactory implements ICoordinateTransformationFactory {
+    /**
+     * Default number of transformations kept by the cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private static final LruCache<String, ICoordinateTransformation> _cache = new LruCache<String, ICoordinateTransformation>(DEFAULT_CACHE_SIZE);
+
+    private static volatile boolean _krugerTransverseMercator;
+
+    /**
+     * Sets the maximal number of transformations kept by the cache, shared by all factories.
+     *
+     * @param size the cache size, 0 disables the cache
+     */
+    public static void setCacheSize(int size) {
+        _cache.setCapacity(size);
+    }
+
+    /**
+     * Gets the maximal number of transformations kept by the cache.
+     *
+     * @return the cache size
+     */
+    public static int getCacheSize() {
+        return _cache.getCapacity();
+    }
+
+    /**
+     * Removes all transformations from the cache.
+     */
+    public static void clearCache() {
+        _cache.clear();
+    }
+
+    /**
+     * Gets whether Transverse Mercator projections use the Krüger n-series.
+     *
+     * @return true for {@link KrugerTransverseMercator}, false for {@link TransverseMercator}
+     */
+    public static boolean getUseKrugerTransverseMercator() {
+        return _krugerTransverseMercator;
+    }
+
+    /**
+     * Sets whether Transverse Mercator projections use the Krüger n-series, which stays accurate
+     * far from the central meridian. The engine is part of the cache key, transformations
+     * created with the other engine stay cached but are not returned.
+     *
+     * @param value true for {@link KrugerTransverseMercator}, false for {@link TransverseMercator}
+     */
+    public static void setUseKrugerTransverseMercator(boolean value) {
+        _krugerTransverseMercator = value;
+    }
+
     private static ICoordinateTransformation geog2Geoc(IGeographicCoordinateSystem source, IGeocentricCoordinateSystem target) throws Exception {
         IMathTransform geocMathTransform = createCoordinateOperation(target);
         if (source.getPrimeMeridian().equalParams(target.getPrimeMeridian())) {
             return new CoordinateTransformation(source, target, TransformType.Conversion, geocMathTransform, "", "", -1, "", "");
         } else {
-            ConcatenatedTransform ct = new ConcatenatedTransform();
-            ct.getCoordinateTransformationList().add(new CoordinateTransformation(source, target, TransformType.Transformation, new PrimeMeridianTransform(source.getPrimeMeridian(), target.getPrimeMeridian()), "", "", -1, "", ""));
-            ct.getCoordinateTransformationList().add(new CoordinateTransformation(source, target, TransformType.Conversion, geocMathTransform, "", "", -1, "", ""));
-            return new CoordinateTransformation(source, target, TransformType.Conversion, ct, "", "", -1, "", "");
+            List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
+            steps.add(new CoordinateTransformation(source, target, TransformType.Transformation, new PrimeMeridianTransform(source.getPrimeMeridian(), target.getPrimeMeridian()), "", "", -1, "", ""));
+            steps.add(new CoordinateTransformation(source, target, TransformType.Conversion, geocMathTransform, "", "", -1, "", ""));
+            return new CoordinateTransformation(source, target, TransformType.Conversion, new ConcatenatedTransform(steps), "", "", -1, "", "");
         }
     }
 
-    //if (trans.MathTransform is ConcatenatedTransform) {
-    //    List<ICoordinateTransformation> MTs = new List<ICoordinateTransformation>();
-    //    SimplifyTrans(trans.MathTransform as ConcatenatedTransform, ref MTs);
-    //    return new CoordinateTransformation(sourceCS,
-    //        targetCS, TransformType.Transformation, new ConcatenatedTransform(MTs),
-    //        "", "", -1, "", "");
-    //}
-  /*  private static void simplifyTrans(ConcatenatedTransform mtrans, RefSupport<List<ICoordinateTransformation>> MTs) throws Exception {
-        for (Object __dummyForeachVar0 : mtrans.getCoordinateTransformationList())
-        {
-            ICoordinateTransformation t = (ICoordinateTransformation)__dummyForeachVar0;
-            if (t instanceof ConcatenatedTransform)
-            {
-                RefSupport<List<ICoordinateTransformation>> refVar___0 = new RefSupport<List<ICoordinateTransformation>>(MTs.getValue());
-                SimplifyTrans(t instanceof ConcatenatedTransform ? (ConcatenatedTransform)t : (ConcatenatedTransform)null, refVar___0);
-                MTs.setValue(refVar___0.getValue());
+    /**
+     * Simplifies a concatenated transformation. Nested concatenations are flattened, steps
+     * which do not move any points are dropped, adjacent steps undoing each other are removed
+     * and adjacent affine and datum transforms are multiplied into a single affine transform.
+     *
+     * @param trans the transformation to simplify, may be null
+     * @return the simplified transformation
+     */
+    private static ICoordinateTransformation simplify(ICoordinateTransformation trans) throws Exception {
+        if (trans == null || !(trans.getMathTransform() instanceof ConcatenatedTransform))
+            return trans;
+
+        List<ICoordinateTransformation> MTs = new ArrayList<ICoordinateTransformation>();
+        simplifyTrans((ConcatenatedTransform) trans.getMathTransform(), MTs);
+        List<ICoordinateTransformation> res = new ArrayList<ICoordinateTransformation>(MTs.size());
+        for (ICoordinateTransformation t : MTs) {
+            if (isIdentity(t.getMathTransform()))
+                continue;
+
+            //the new step may cancel or merge with the last kept one, and the result again with the one before
+            while (t != null && !res.isEmpty()) {
+                ICoordinateTransformation last = res.get(res.size() - 1);
+                if (isInversePair(last.getMathTransform(), t.getMathTransform())) {
+                    res.remove(res.size() - 1);
+                    t = null;
+                    break;
+                }
+
+                IMathTransform merged = mergeLinear(last.getMathTransform(), t.getMathTransform());
+                if (merged == null)
+                    break;
+
+                res.remove(res.size() - 1);
+                t = isIdentity(merged) ? null : createTransform(last.getSourceCS(), t.getTargetCS(), TransformType.Transformation, merged);
             }
+            if (t != null)
+                res.add(t);
+        }
+
+        if (res.isEmpty()) {
+            int dim = trans.getSourceCS().getDimension();
+            double[][] matrix = new double[dim + 1][dim + 1];
+            for (int i = 0; i <= dim; i++)
+                matrix[i][i] = 1;
+            return new CoordinateTransformation(trans.getSourceCS(), trans.getTargetCS(), trans.getTransformType(), new AffineTransform(matrix), "", "", -1, "", "");
+        }
+
+        if (res.size() == 1)
+            return new CoordinateTransformation(trans.getSourceCS(), trans.getTargetCS(), trans.getTransformType(), res.get(0).getMathTransform(), "", "", -1, "", "");
+
+        return new CoordinateTransformation(trans.getSourceCS(), trans.getTargetCS(), trans.getTransformType(), new ConcatenatedTransform(res), "", "", -1, "", "");
+    }
+
+    private static void simplifyTrans(ConcatenatedTransform mtrans, List<ICoordinateTransformation> MTs) throws Exception {
+        for (ICoordinateTransformation t : mtrans.getCoordinateTransformationList()) {
+            if (t.getMathTransform() instanceof ConcatenatedTransform)
+                simplifyTrans((ConcatenatedTransform) t.getMathTransform(), MTs);
             else
-                MTs.getValue().Add(t); 
+                MTs.add(t);
+        }
+    }
+
+    private static boolean isIdentity(IMathTransform mt) throws Exception {
+        try {
+            return mt.identity();
+        } catch (UnsupportedOperationException ex) {
+            return false;
         }
-    }*/
+    }
+
+    private static boolean isInversePair(IMathTransform first, IMathTransform second) throws Exception {
+        if (first instanceof GeocentricTransform)
+            return ((GeocentricTransform) first).isInverseOf(second);
+        if (first instanceof DatumTransform)
+            return ((DatumTransform) first).isInverseOf(second);
+        if (first instanceof PrimeMeridianTransform)
+            return ((PrimeMeridianTransform) first).isInverseOf(second);
+        if (first instanceof MapProjection && second instanceof MapProjection && first.getClass() == second.getClass())
+            return ((MapProjection) first.inverse()).equalParams(second);
+        return false;
+    }
+
+    /**
+     * Multiplies two adjacent linear steps into a single affine transform.
+     *
+     * @param first  the step applied first
+     * @param second the step applied second
+     * @return the product or null, if the steps cannot be merged
+     */
+    private static IMathTransform mergeLinear(IMathTransform first, IMathTransform second) throws Exception {
+        double[][] a = linearMatrix(first);
+        double[][] b = linearMatrix(second);
+        if (a == null || b == null || a.length != b.length)
+            return null;
+
+        int n = a.length;
+        double[][] product = new double[n][n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                double sum = 0;
+                for (int k = 0; k < n; k++)
+                    sum += b[row][k] * a[k][col];
+                product[row][col] = sum;
+            }
+        }
+        return new AffineTransform(product);
+    }
+
+    private static double[][] linearMatrix(IMathTransform mt) throws Exception {
+        if (mt instanceof DatumTransform)
+            return ((DatumTransform) mt).getMatrix();
+        if (mt instanceof AffineTransform && mt.getDimSource() == mt.getDimTarget())
+            return ((AffineTransform) mt).getMatrix();
+        return null;
+    }
 
     private static ICoordinateTransformation geoc2Geog(IGeocentricCoordinateSystem source, IGeographicCoordinateSystem target) throws Exception {
         IMathTransform geocMathTransform = createCoordinateOperation(source).inverse();
         if (source.getPrimeMeridian().equalParams(target.getPrimeMeridian())) {
             return new CoordinateTransformation(source, target, TransformType.Conversion, geocMathTransform, "", "", -1, "", "");
         } else {
-            ConcatenatedTransform ct = new ConcatenatedTransform();
-            ct.getCoordinateTransformationList().add(new CoordinateTransformation(source, target, TransformType.Conversion, geocMathTransform, "", "", -1, "", ""));
-            ct.getCoordinateTransformationList().add(new CoordinateTransformation(source, target, TransformType.Transformation, new PrimeMeridianTransform(source.getPrimeMeridian(), target.getPrimeMeridian()), "", "", -1, "", ""));
-            return new CoordinateTransformation(source, target, TransformType.Conversion, ct, "", "", -1, "", "");
+            List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
+            steps.add(new CoordinateTransformation(source, target, TransformType.Conversion, geocMathTransform, "", "", -1, "", ""));
+            steps.add(new CoordinateTransformation(source, target, TransformType.Transformation, new PrimeMeridianTransform(source.getPrimeMeridian(), target.getPrimeMeridian()), "", "", -1, "", ""));
+            return new CoordinateTransformation(source, target, TransformType.Conversion, new ConcatenatedTransform(steps), "", "", -1, "", "");
         }
     }
 
     private static ICoordinateTransformation proj2Proj(IProjectedCoordinateSystem source, IProjectedCoordinateSystem target) throws Exception {
-        ConcatenatedTransform ct = new ConcatenatedTransform();
+        List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
         CoordinateTransformationFactory ctFac = new CoordinateTransformationFactory();
         //First transform from projection to geographic
-        ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(source, source.getGeographicCoordinateSystem()));
+        steps.add(ctFac.createFromCoordinateSystems(source, source.getGeographicCoordinateSystem()));
         //Transform geographic to geographic:
         ICoordinateTransformation geogToGeog = ctFac.createFromCoordinateSystems(source.getGeographicCoordinateSystem(), target.getGeographicCoordinateSystem());
         if (geogToGeog != null)
-            ct.getCoordinateTransformationList().add(geogToGeog);
+            steps.add(geogToGeog);
 
         //Transform to new projection
-        ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(target.getGeographicCoordinateSystem(), target));
-        return new CoordinateTransformation(source, target, TransformType.Transformation, ct, "", "", -1, "", "");
+        steps.add(ctFac.createFromCoordinateSystems(target.getGeographicCoordinateSystem(), target));
+        return new CoordinateTransformation(source, target, TransformType.Transformation, new ConcatenatedTransform(steps), "", "", -1, "", "");
     }
 
     private static ICoordinateTransformation geog2Proj(IGeographicCoordinateSystem source, IProjectedCoordinateSystem target) throws Exception {
@@ -99,11 +251,11 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
             return new CoordinateTransformation(source, target, TransformType.Transformation, mathTransform, "", "", -1, "", "");
         } else {
             // Geographic coordinatesystems differ - Create concatenated transform
-            ConcatenatedTransform ct = new ConcatenatedTransform();
+            List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
             CoordinateTransformationFactory ctFac = new CoordinateTransformationFactory();
-            ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(source, target.getGeographicCoordinateSystem()));
-            ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(target.getGeographicCoordinateSystem(), target));
-            return new CoordinateTransformation(source, target, TransformType.Transformation, ct, "", "", -1, "", "");
+            steps.add(ctFac.createFromCoordinateSystems(source, target.getGeographicCoordinateSystem()));
+            steps.add(ctFac.createFromCoordinateSystems(target.getGeographicCoordinateSystem(), target));
+            return new CoordinateTransformation(source, target, TransformType.Transformation, new ConcatenatedTransform(steps), "", "", -1, "", "");
         }
     }
 
@@ -113,11 +265,11 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
             return new CoordinateTransformation(source, target, TransformType.Transformation, mathTransform, "", "", -1, "", "");
         } else {
             // Geographic coordinatesystems differ - Create concatenated transform
-            ConcatenatedTransform ct = new ConcatenatedTransform();
+            List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
             CoordinateTransformationFactory ctFac = new CoordinateTransformationFactory();
-            ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(source, source.getGeographicCoordinateSystem()));
-            ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(source.getGeographicCoordinateSystem(), target));
-            return new CoordinateTransformation(source, target, TransformType.Transformation, ct, "", "", -1, "", "");
+            steps.add(ctFac.createFromCoordinateSystems(source, source.getGeographicCoordinateSystem()));
+            steps.add(ctFac.createFromCoordinateSystems(source.getGeographicCoordinateSystem(), target));
+            return new CoordinateTransformation(source, target, TransformType.Transformation, new ConcatenatedTransform(steps), "", "", -1, "", "");
         }
     }
 
@@ -140,17 +292,17 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
             CoordinateSystemFactory cFac = new CoordinateSystemFactory();
             IGeocentricCoordinateSystem sourceCentric = cFac.createGeocentricCoordinateSystem(source.getHorizontalDatum().getName() + " Geocentric", source.getHorizontalDatum(), LinearUnit.getMetre(), source.getPrimeMeridian());
             IGeocentricCoordinateSystem targetCentric = cFac.createGeocentricCoordinateSystem(target.getHorizontalDatum().getName() + " Geocentric", target.getHorizontalDatum(), LinearUnit.getMetre(), source.getPrimeMeridian());
-            ConcatenatedTransform ct = new ConcatenatedTransform();
-            addIfNotNull(ct, ctFac.createFromCoordinateSystems(source, sourceCentric));
-            addIfNotNull(ct, ctFac.createFromCoordinateSystems(sourceCentric, targetCentric));
-            addIfNotNull(ct, ctFac.createFromCoordinateSystems(targetCentric, target));
-            return new CoordinateTransformation(source, target, TransformType.Transformation, ct, "", "", -1, "", "");
+            List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
+            addIfNotNull(steps, ctFac.createFromCoordinateSystems(source, sourceCentric));
+            addIfNotNull(steps, ctFac.createFromCoordinateSystems(sourceCentric, targetCentric));
+            addIfNotNull(steps, ctFac.createFromCoordinateSystems(targetCentric, target));
+            return new CoordinateTransformation(source, target, TransformType.Transformation, new ConcatenatedTransform(steps), "", "", -1, "", "");
         }
     }
 
-    private static void addIfNotNull(ConcatenatedTransform concatTrans, ICoordinateTransformation trans) throws Exception {
+    private static void addIfNotNull(List<ICoordinateTransformation> steps, ICoordinateTransformation trans) throws Exception {
         if (trans != null)
-            concatTrans.getCoordinateTransformationList().add(trans);
+            steps.add(trans);
 
     }
 
@@ -162,24 +314,24 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
      * @return
      */
     private static ICoordinateTransformation createGeoc2Geoc(IGeocentricCoordinateSystem source, IGeocentricCoordinateSystem target) throws Exception {
-        ConcatenatedTransform ct = new ConcatenatedTransform();
+        List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
         //Does source has a datum different from WGS84 and is there a shift specified?
         if (source.getHorizontalDatum().getWgs84Parameters() != null && !source.getHorizontalDatum().getWgs84Parameters().getHasZeroValuesOnly())
-            ct.getCoordinateTransformationList().add(new CoordinateTransformation(((target.getHorizontalDatum().getWgs84Parameters() == null || target.getHorizontalDatum().getWgs84Parameters().getHasZeroValuesOnly()) ? target : GeocentricCoordinateSystem.getWGS84()), source, TransformType.Transformation, new DatumTransform(source.getHorizontalDatum().getWgs84Parameters()), "", "", -1, "", ""));
+            steps.add(new CoordinateTransformation(((target.getHorizontalDatum().getWgs84Parameters() == null || target.getHorizontalDatum().getWgs84Parameters().getHasZeroValuesOnly()) ? target : GeocentricCoordinateSystem.getWGS84()), source, TransformType.Transformation, new DatumTransform(source.getHorizontalDatum().getWgs84Parameters()), "", "", -1, "", ""));
 
         //Does target has a datum different from WGS84 and is there a shift specified?
         if (target.getHorizontalDatum().getWgs84Parameters() != null && !target.getHorizontalDatum().getWgs84Parameters().getHasZeroValuesOnly())
-            ct.getCoordinateTransformationList().add(new CoordinateTransformation(((source.getHorizontalDatum().getWgs84Parameters() == null || source.getHorizontalDatum().getWgs84Parameters().getHasZeroValuesOnly()) ? source : GeocentricCoordinateSystem.getWGS84()), target, TransformType.Transformation, (new DatumTransform(target.getHorizontalDatum().getWgs84Parameters())).inverse(), "", "", -1, "", ""));
+            steps.add(new CoordinateTransformation(((source.getHorizontalDatum().getWgs84Parameters() == null || source.getHorizontalDatum().getWgs84Parameters().getHasZeroValuesOnly()) ? source : GeocentricCoordinateSystem.getWGS84()), target, TransformType.Transformation, (new DatumTransform(target.getHorizontalDatum().getWgs84Parameters())).inverse(), "", "", -1, "", ""));
 
         //If we don't have a transformation in this list, return null
-        if (ct.getCoordinateTransformationList().size() == 0)
+        if (steps.size() == 0)
             return null;
 
         //If we only have one shift, lets just return the datumshift from/to wgs84
-        if (ct.getCoordinateTransformationList().size() == 1)
-            return new CoordinateTransformation(source, target, TransformType.ConversionAndTransformation, ct.getCoordinateTransformationList().get(0).getMathTransform(), "", "", -1, "", "");
+        if (steps.size() == 1)
+            return new CoordinateTransformation(source, target, TransformType.ConversionAndTransformation, steps.get(0).getMathTransform(), "", "", -1, "", "");
 
-        return new CoordinateTransformation(source, target, TransformType.ConversionAndTransformation, ct, "", "", -1, "", "");
+        return new CoordinateTransformation(source, target, TransformType.ConversionAndTransformation, new ConcatenatedTransform(steps), "", "", -1, "", "");
     }
 
     /**
@@ -199,12 +351,12 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
 
         //Transform form base system of fitted to target coordinate system
         //Transform form base system of fitted to target coordinate system
-        ConcatenatedTransform ct = new ConcatenatedTransform();
-        ct.getCoordinateTransformationList().add(createTransform(source, source.getBaseCoordinateSystem(), TransformType.Transformation, mt));
+        List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
+        steps.add(createTransform(source, source.getBaseCoordinateSystem(), TransformType.Transformation, mt));
         //Transform form base system of fitted to target coordinate system
         CoordinateTransformationFactory ctFac = new CoordinateTransformationFactory();
-        ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(source.getBaseCoordinateSystem(), target));
-        return createTransform(source, target, TransformType.Transformation, ct);
+        steps.add(ctFac.createFromCoordinateSystems(source.getBaseCoordinateSystem(), target));
+        return createTransform(source, target, TransformType.Transformation, new ConcatenatedTransform(steps));
     }
 
     /**
@@ -223,13 +375,13 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
         }
 
         //Transform form base system of fitted to target coordinate system
-        ConcatenatedTransform ct = new ConcatenatedTransform();
+        List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
         //First transform from source to base system of fitted
         CoordinateTransformationFactory ctFac = new CoordinateTransformationFactory();
-        ct.getCoordinateTransformationList().add(ctFac.createFromCoordinateSystems(source, target.getBaseCoordinateSystem()));
+        steps.add(ctFac.createFromCoordinateSystems(source, target.getBaseCoordinateSystem()));
         //Transform form base system of fitted to target coordinate system - use invered math transform
-        ct.getCoordinateTransformationList().add(createTransform(target.getBaseCoordinateSystem(), target, TransformType.Transformation, invMt));
-        return createTransform(source, target, TransformType.Transformation, ct);
+        steps.add(createTransform(target.getBaseCoordinateSystem(), target, TransformType.Transformation, invMt));
+        return createTransform(source, target, TransformType.Transformation, new ConcatenatedTransform(steps));
     }
 
     private static IMathTransform createFittedTransform(IFittedCoordinateSystem fittedSystem) throws Exception {
@@ -355,7 +507,10 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
                 transform = new PseudoMercator(parameterList);
                 break;
             case "transverse_mercator":
-                transform = new TransverseMercator(parameterList);
+                if (_krugerTransverseMercator)
+                    transform = new KrugerTransverseMercator(parameterList);
+                else
+                    transform = new TransverseMercator(parameterList);
                 break;
             case "albers":
             case "albers_conic_equal_area":
@@ -399,11 +554,44 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
      * the coordinate systems is found, using the normal failing behavior of
      * the DCP (e.g. throwing an exception).
      *
+     * Transformations are cached by the fingerprints of both coordinate systems, the
+     * Transverse Mercator engine and the default fast math mode of projections, so equal coordinate systems share their math transform,
+     * which must not be changed.
+     *
+     * Chains of several steps are returned as {@link ConcatenatedTransform}, they are not
+     * compiled. Callers transforming large buffers compile them with
+     * {@link ConcatenatedTransform#compile()}.
+     *
      * @param sourceCS Source coordinate system
      * @param targetCS Target coordinate system
      * @return
      */
     public ICoordinateTransformation createFromCoordinateSystems(ICoordinateSystem sourceCS, ICoordinateSystem targetCS) throws Exception {
+        String key = cacheKey(sourceCS, targetCS);
+        ICoordinateTransformation trans = _cache.get(key);
+        if (trans == null) {
+            trans = create(sourceCS, targetCS);
+            if (trans == null)
+                return null;
+
+            _cache.put(key, trans);
+        } else if (trans.getSourceCS() == sourceCS && trans.getTargetCS() == targetCS) {
+            return trans;
+        }
+
+        //keep the passed coordinate systems, the math transform is shared
+        return new CoordinateTransformation(sourceCS, targetCS, trans.getTransformType(), trans.getMathTransform(), trans.getName(), trans.getAuthority(), trans.getAuthorityCode(), trans.getAreaOfUse(), trans.getRemarks());
+    }
+
+    /**
+     * The cache key of a transformation, the fingerprints of both coordinate systems and the
+     * settings the projections are created with.
+     */
+    private static String cacheKey(ICoordinateSystem sourceCS, ICoordinateSystem targetCS) throws Exception {
+        return (_krugerTransverseMercator ? "K" : "T") + (MapProjection.getDefaultFastMath() ? "F|" : "I|") + CoordinateSystemFingerprint.of(sourceCS) + "|" + CoordinateSystemFingerprint.of(targetCS);
+    }
+
+    private static ICoordinateTransformation create(ICoordinateSystem sourceCS, ICoordinateSystem targetCS) throws Exception {
         ICoordinateTransformation trans;
         if (sourceCS instanceof IProjectedCoordinateSystem && targetCS instanceof IGeographicCoordinateSystem)
             //Projected -> Geographic
@@ -434,7 +622,7 @@ public class CoordinateTransformationFactory implements ICoordinateTransformatio
             trans = any2Fitt(sourceCS, (IFittedCoordinateSystem) targetCS);
         else
             throw new Exception("No support for transforming between the two specified coordinate systems");
-        return trans;
+        return simplify(trans);
     }
 
 }
@@ -12,13 +12,13 @@ public class DatumTransform extends MathTransform {
     /**
      * The Inverse.
      */
-    protected IMathTransform _inverse;
+    protected volatile IMathTransform _inverse;
     /**
      * The V.
      */
-    double[] v;
-    private Wgs84ConversionInfo _toWgs94;
-    private boolean _isinverse;
+    final double[] v;
+    private final Wgs84ConversionInfo _toWgs94;
+    private final boolean _isinverse;
 
     /**
      * Initializes a new instance of the
@@ -66,8 +66,11 @@ public class DatumTransform extends MathTransform {
      * @return This method may fail if the transform is not one to one. However, all cartographic projections should succeed.
      */
     public IMathTransform inverse() throws Exception {
-        if (_inverse == null)
-            _inverse = new DatumTransform(_toWgs94, !_isinverse);
+        if (_inverse == null) {
+            DatumTransform inverse = new DatumTransform(_toWgs94, !_isinverse);
+            inverse._inverse = this;
+            _inverse = inverse;
+        }
 
         return _inverse;
     }
@@ -107,6 +110,107 @@ public class DatumTransform extends MathTransform {
             return applyInverted(point);
     }
 
+    /**
+     * Transforms a list of packed coordinate point ordinal values without allocating per point.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        // the inverse negates all rotations and translations and mirrors the scale
+        double s = !_isinverse ? v[0] : 1 - (v[0] - 1);
+        double sign = !_isinverse ? 1 : -1;
+        double rx = sign * v[1], ry = sign * v[2], rz = sign * v[3];
+        double dx = sign * v[4], dy = sign * v[5], dz = sign * v[6];
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+            double x = srcPts[srcOff];
+            double y = srcPts[srcOff + 1];
+            double z = srcPts[srcOff + 2];
+            dstPts[dstOff] = s * (x - rz * y + ry * z) + dx;
+            dstPts[dstOff + 1] = s * (rz * x + y - rx * z) + dy;
+            dstPts[dstOff + 2] = s * (-ry * x + rx * y + z) + dz;
+            copyOrdinates(srcPts, srcOff, dstPts, dstOff, 3, dimension);
+        }
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     * The heights are required.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, true);
+        double s = !_isinverse ? v[0] : 1 - (v[0] - 1);
+        double sign = !_isinverse ? 1 : -1;
+        double rx = sign * v[1], ry = sign * v[2], rz = sign * v[3];
+        double dx = sign * v[4], dy = sign * v[5], dz = sign * v[6];
+        for (int i = off; i < off + count; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            double z = zs[i];
+            xs[i] = s * (x - rz * y + ry * z) + dx;
+            ys[i] = s * (rz * x + y - rx * z) + dy;
+            zs[i] = s * (-ry * x + rx * y + z) + dz;
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform, the scaled rotation matrix of the Helmert transformation.
+     * It is the same at all points.
+     *
+     * @param point point
+     * @return the 3x3 derivative
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        double[] m = new double[9];
+        derivative(new double[3], 0, m, 0, 1, 3);
+        return unpackMatrix(m, 0, 3);
+    }
+
+    /**
+     * Gets the derivatives of this transform at a list of packed points, every matrix
+     * holds the scaled rotation matrix of the Helmert transformation.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        if (numPts == 0)
+            return;
+
+        double s = !_isinverse ? v[0] : 1 - (v[0] - 1);
+        double sign = !_isinverse ? 1 : -1;
+        double rx = sign * v[1], ry = sign * v[2], rz = sign * v[3];
+        int size = dimension * dimension;
+        setIdentity(dstMatrices, dstOff, dimension);
+        dstMatrices[dstOff] = s;
+        dstMatrices[dstOff + 1] = -s * rz;
+        dstMatrices[dstOff + 2] = s * ry;
+        dstMatrices[dstOff + dimension] = s * rz;
+        dstMatrices[dstOff + dimension + 1] = s;
+        dstMatrices[dstOff + dimension + 2] = -s * rx;
+        dstMatrices[dstOff + 2 * dimension] = -s * ry;
+        dstMatrices[dstOff + 2 * dimension + 1] = s * rx;
+        dstMatrices[dstOff + 2 * dimension + 2] = s;
+        for (int i = 1; i < numPts; i++)
+            System.arraycopy(dstMatrices, dstOff, dstMatrices, dstOff + i * size, size);
+    }
+
     /**
      * Transforms a list of coordinate point ordinal values.
      *
@@ -137,10 +241,45 @@ public class DatumTransform extends MathTransform {
     }*/
 
     /**
-     * Reverses the transformation
+     * Tests whether this transform does not move any points.
+     *
+     * @return isidentity
+     */
+    public boolean identity() throws Exception {
+        return _toWgs94.getHasZeroValuesOnly();
+    }
+
+    /**
+     * Tests whether the other transform undoes this datum shift.
+     *
+     * @param other the other transform
+     * @return true if the other transform is the inverse of this one
+     * @throws Exception the exception
+     */
+    boolean isInverseOf(IMathTransform other) throws Exception {
+        if (!(other instanceof DatumTransform))
+            return false;
+
+        DatumTransform dt = (DatumTransform) other;
+        return dt._isinverse != _isinverse && _toWgs94.equals(dt._toWgs94);
+    }
+
+    /**
+     * Gets this datum shift as a 4x4 affine transform matrix.
+     *
+     * @return the matrix
+     * @throws Exception the exception
      */
-    public void invert() throws Exception {
-        _isinverse = !_isinverse;
+    double[][] getMatrix() throws Exception {
+        // the inverse negates all rotations and translations and mirrors the scale
+        double s = !_isinverse ? v[0] : 1 - (v[0] - 1);
+        double sign = !_isinverse ? 1 : -1;
+        double rx = sign * v[1], ry = sign * v[2], rz = sign * v[3];
+        return new double[][]{
+                {s, -s * rz, s * ry, sign * v[4]},
+                {s * rz, s, -s * rx, sign * v[5]},
+                {-s * ry, s * rx, s, sign * v[6]},
+                {0, 0, 0, 1}};
     }
 
 }
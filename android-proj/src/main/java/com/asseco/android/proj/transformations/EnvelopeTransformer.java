@@ -0,0 +1,363 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.ICoordinateSystem;
+import com.asseco.android.proj.IGeographicCoordinateSystem;
+
+import java.util.Arrays;
+
+/**
+ * Transforms envelopes, rectangles given by their smallest and largest ordinals, to the
+ * tightest rectangle around the transformed area.
+ *
+ * Transforming the corners only misses the bulge of edges which are curved after the
+ * transform, as the edges of a geographic rectangle are in Krovak or Lambert projections.
+ * The edges are therefore densified and transformed in bulk, segments whose transformed
+ * midpoint is off the chord between their transformed ends are split in further rounds
+ * until the rectangle is accurate.
+ *
+ * When the target coordinate system is geographic, a source rectangle containing a pole
+ * extends to the pole over all longitudes, and longitudes which are closer together across
+ * the antimeridian give an envelope whose smallest longitude is larger than its largest.
+ * Geographic source envelopes crossing the antimeridian are given the same way.
+ */
+public class EnvelopeTransformer {
+    /**
+     * Number of segments each edge is divided into before it is refined.
+     */
+    public static final int DEFAULT_DENSIFICATION = 20;
+    /**
+     * Largest number of rounds splitting curved segments.
+     */
+    protected static final int MAX_REFINEMENTS = 12;
+    /**
+     * Distance of a transformed midpoint from its chord, relative to the size of the
+     * transformed envelope, below which a segment is straight enough.
+     */
+    protected static final double RELATIVE_TOLERANCE = 1E-7;
+
+    private EnvelopeTransformer() {
+    }
+
+    /**
+     * Transforms an envelope with the math transform of a coordinate transformation, handling
+     * poles and the antimeridian when the coordinate systems are geographic.
+     *
+     * @param transformation the transformation
+     * @param envelope       the smallest and largest source ordinals, minX, minY, maxX, maxY
+     * @return the transformed envelope
+     * @throws Exception when no point of the envelope can be transformed
+     */
+    public static double[] transform(ICoordinateTransformation transformation, double[] envelope) throws Exception {
+        return transform(transformation.getMathTransform(), envelope, halfTurn(transformation.getSourceCS()), halfTurn(transformation.getTargetCS()));
+    }
+
+    /**
+     * Transforms an envelope with a math transform, the ordinals are not taken for angles.
+     *
+     * @param transform the math transform
+     * @param envelope  the smallest and largest source ordinals, minX, minY, maxX, maxY
+     * @return the transformed envelope
+     * @throws Exception when no point of the envelope can be transformed
+     */
+    public static double[] transform(IMathTransform transform, double[] envelope) throws Exception {
+        return transform(transform, envelope, 0, 0);
+    }
+
+    /**
+     * Gets the half turn in the angular unit of a geographic coordinate system.
+     *
+     * @return the half turn, or 0 when the coordinate system is not geographic
+     */
+    private static double halfTurn(ICoordinateSystem cs) throws Exception {
+        if (!(cs instanceof IGeographicCoordinateSystem))
+            return 0;
+
+        return Math.PI / ((IGeographicCoordinateSystem) cs).getangularUnit().getRadiansPerUnit();
+    }
+
+    private static double[] transform(IMathTransform transform, double[] envelope, double sourceHalfTurn, double targetHalfTurn) throws Exception {
+        if (envelope == null || envelope.length < 4)
+            throw new IllegalArgumentException("An envelope needs four ordinals.");
+        if (!(envelope[1] <= envelope[3]))
+            throw new IllegalArgumentException("Invalid envelope.");
+
+        if (envelope[0] > envelope[2]) {
+            if (sourceHalfTurn == 0)
+                throw new IllegalArgumentException("Invalid envelope.");
+
+            //across the antimeridian, transform both sides
+            double[] east = transformRectangle(transform, envelope[0], envelope[1], sourceHalfTurn, envelope[3], targetHalfTurn);
+            double[] west = transformRectangle(transform, -sourceHalfTurn, envelope[1], envelope[2], envelope[3], targetHalfTurn);
+            return union(east, west, targetHalfTurn);
+        }
+
+        return transformRectangle(transform, envelope[0], envelope[1], envelope[2], envelope[3], targetHalfTurn);
+    }
+
+    private static double[] transformRectangle(IMathTransform transform, double minX, double minY, double maxX, double maxY, double targetHalfTurn) throws Exception {
+        Ring ring = new Ring(DEFAULT_DENSIFICATION * 4);
+        double[] corners = {minX, minY, maxX, minY, maxX, maxY, minX, maxY};
+        for (int edge = 0; edge < 4; edge++) {
+            double x0 = corners[edge * 2];
+            double y0 = corners[edge * 2 + 1];
+            double x1 = corners[(edge * 2 + 2) % 8];
+            double y1 = corners[(edge * 2 + 3) % 8];
+            for (int i = 0; i < DEFAULT_DENSIFICATION; i++) {
+                double t = (double) i / DEFAULT_DENSIFICATION;
+                ring.add(x0 + t * (x1 - x0), y0 + t * (y1 - y0));
+            }
+        }
+        ring.transform(transform, 0);
+
+        //the segments still refined, as the indices of their first and last point
+        int count = ring.size();
+        int[] segments = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            segments[i * 2] = i;
+            segments[i * 2 + 1] = (i + 1) % count;
+        }
+        for (int round = 0; round < MAX_REFINEMENTS && count > 0; round++) {
+            double tolerance = RELATIVE_TOLERANCE * ring.extent(targetHalfTurn);
+            int first = ring.size();
+            for (int s = 0; s < count; s++) {
+                int a = segments[s * 2];
+                int b = segments[s * 2 + 1];
+                ring.add((ring.source(a, 0) + ring.source(b, 0)) / 2, (ring.source(a, 1) + ring.source(b, 1)) / 2);
+            }
+            ring.transform(transform, first);
+
+            double[] bounds = ring.envelope(targetHalfTurn);
+            int[] next = new int[count * 4];
+            int n = 0;
+            for (int s = 0; s < count; s++) {
+                int a = segments[s * 2];
+                int b = segments[s * 2 + 1];
+                int m = first + s;
+                if (!ring.isValid(m))
+                    continue;
+
+                //segments at the border of the domain of the transform are refined as well
+                boolean refine = !ring.isValid(a) || !ring.isValid(b);
+                if (!refine) {
+                    //only curved segments which may reach beyond the envelope matter
+                    double error = ring.chordError(a, m, b, targetHalfTurn);
+                    double margin = 2 * error + tolerance;
+                    refine = error > tolerance && (ring.isNear(a, bounds, margin, targetHalfTurn) || ring.isNear(m, bounds, margin, targetHalfTurn) || ring.isNear(b, bounds, margin, targetHalfTurn));
+                }
+                if (refine) {
+                    next[n++] = a;
+                    next[n++] = m;
+                    next[n++] = m;
+                    next[n++] = b;
+                }
+            }
+            segments = next;
+            count = n / 2;
+        }
+
+        double[] res = ring.envelope(targetHalfTurn);
+        if (targetHalfTurn != 0)
+            includePoles(transform, res, minX, minY, maxX, maxY, targetHalfTurn);
+        return res;
+    }
+
+    /**
+     * Extends a geographic envelope to the poles the source rectangle contains.
+     */
+    private static void includePoles(IMathTransform transform, double[] res, double minX, double minY, double maxX, double maxY, double halfTurn) {
+        IMathTransform inverse;
+        try {
+            inverse = transform.inverse();
+        } catch (Exception e) {
+            return;
+        }
+        double[] poles = {0, halfTurn / 2, 0, -halfTurn / 2};
+        inverse.transform(poles, 0, poles, 0, 2, 2, null);
+        for (int p = 0; p < 2; p++) {
+            double x = poles[p * 2];
+            double y = poles[p * 2 + 1];
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                res[0] = -halfTurn;
+                res[2] = halfTurn;
+                if (p == 0)
+                    res[3] = halfTurn / 2;
+                else
+                    res[1] = -halfTurn / 2;
+            }
+        }
+    }
+
+    /**
+     * Gets the envelope of two envelopes, longitudes taken modulo a full turn when the half turn is given.
+     */
+    private static double[] union(double[] a, double[] b, double halfTurn) {
+        double[] res = {Math.min(a[0], b[0]), Math.min(a[1], b[1]), Math.max(a[2], b[2]), Math.max(a[3], b[3])};
+        if (halfTurn == 0 || (a[0] <= a[2] && b[0] <= b[2] && res[2] - res[0] <= halfTurn))
+            return res;
+
+        //pick the shortest arc covering the longitude ranges of both
+        double[] lons = {a[0], a[2], b[0], b[2]};
+        double[] arc = shortestArc(lons, 4, halfTurn);
+        res[0] = arc[0];
+        res[2] = arc[1];
+        return res;
+    }
+
+    /**
+     * Gets the shortest arc of longitudes covering a set of longitudes. The arc starts after the
+     * largest gap between the sorted longitudes, the arc crosses the antimeridian when the
+     * largest gap is not the one across it.
+     *
+     * @return the first and last longitude of the arc, the first is larger when it crosses the antimeridian
+     */
+    private static double[] shortestArc(double[] lons, int count, double halfTurn) {
+        double[] sorted = Arrays.copyOf(lons, count);
+        for (int i = 0; i < count; i++) {
+            //into [-halfTurn, halfTurn]
+            double lon = sorted[i];
+            if (lon < -halfTurn || lon > halfTurn)
+                sorted[i] = lon - 2 * halfTurn * Math.floor((lon + halfTurn) / (2 * halfTurn));
+        }
+        Arrays.sort(sorted);
+        double gap = sorted[0] + 2 * halfTurn - sorted[count - 1];
+        int after = -1;
+        for (int i = 0; i + 1 < count; i++) {
+            if (sorted[i + 1] - sorted[i] > gap) {
+                gap = sorted[i + 1] - sorted[i];
+                after = i;
+            }
+        }
+        if (after < 0)
+            return new double[]{sorted[0], sorted[count - 1]};
+
+        return new double[]{sorted[after + 1], sorted[after]};
+    }
+
+    /**
+     * The densified boundary of a rectangle, source points and their transforms.
+     */
+    private static final class Ring {
+        private double[] _source;
+        private double[] _target;
+        private int _size;
+
+        Ring(int capacity) {
+            _source = new double[capacity * 2];
+            _target = new double[capacity * 2];
+        }
+
+        int size() {
+            return _size;
+        }
+
+        void add(double x, double y) {
+            if (_size * 2 == _source.length) {
+                _source = Arrays.copyOf(_source, _source.length * 2);
+                _target = Arrays.copyOf(_target, _target.length * 2);
+            }
+            _source[_size * 2] = x;
+            _source[_size * 2 + 1] = y;
+            _size++;
+        }
+
+        double source(int i, int ordinal) {
+            return _source[i * 2 + ordinal];
+        }
+
+        /**
+         * Transforms the points from an index on in bulk, failed points become NaN.
+         */
+        void transform(IMathTransform transform, int from) {
+            transform.transform(_source, from * 2, _target, from * 2, _size - from, 2, null);
+        }
+
+        boolean isValid(int i) {
+            return !Double.isNaN(_target[i * 2]) && !Double.isNaN(_target[i * 2 + 1]);
+        }
+
+        /**
+         * Gets the distance of a transformed midpoint from the chord of its segment,
+         * longitudes are unwrapped relative to the first point when the half turn is given.
+         */
+        double chordError(int a, int m, int b, double halfTurn) {
+            double ax = _target[a * 2];
+            double bx = _target[b * 2];
+            double mx = _target[m * 2];
+            if (halfTurn != 0) {
+                bx = ax + wrap(bx - ax, halfTurn);
+                mx = ax + wrap(mx - ax, halfTurn);
+            }
+            double dx = mx - (ax + bx) / 2;
+            double dy = _target[m * 2 + 1] - (_target[a * 2 + 1] + _target[b * 2 + 1]) / 2;
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        /**
+         * Tests whether a transformed point is within a margin of a side of an envelope,
+         * longitudes are compared modulo a full turn when the half turn is given.
+         */
+        boolean isNear(int i, double[] bounds, double margin, double halfTurn) {
+            double x = _target[i * 2];
+            double y = _target[i * 2 + 1];
+            if (y - bounds[1] <= margin || bounds[3] - y <= margin)
+                return true;
+            if (halfTurn != 0)
+                return Math.abs(wrap(x - bounds[0], halfTurn)) <= margin || Math.abs(wrap(bounds[2] - x, halfTurn)) <= margin;
+
+            return x - bounds[0] <= margin || bounds[2] - x <= margin;
+        }
+
+        /**
+         * Gets the larger side of the envelope of the transformed points, the longitudes
+         * spanning the shortest arc when the half turn is given, like the final envelope.
+         */
+        double extent(double halfTurn) throws Exception {
+            double[] e = envelope(halfTurn);
+            double width = e[2] - e[0];
+            //across the antimeridian
+            if (width < 0)
+                width += 2 * halfTurn;
+            return Math.max(width, e[3] - e[1]);
+        }
+
+        /**
+         * Gets the envelope of the transformed points.
+         */
+        double[] envelope(double halfTurn) throws Exception {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            double[] lons = halfTurn != 0 ? new double[_size] : null;
+            int valid = 0;
+            for (int i = 0; i < _size; i++) {
+                if (!isValid(i))
+                    continue;
+
+                double x = _target[i * 2];
+                double y = _target[i * 2 + 1];
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                if (lons != null)
+                    lons[valid] = x;
+                valid++;
+            }
+            if (valid == 0)
+                throw new Exception("The envelope can not be transformed.");
+
+            if (lons != null && maxX - minX > halfTurn) {
+                double[] arc = shortestArc(lons, valid, halfTurn);
+                minX = arc[0];
+                maxX = arc[1];
+            }
+            return new double[]{minX, minY, maxX, maxY};
+        }
+
+        private static double wrap(double d, double halfTurn) {
+            return d - 2 * halfTurn * Math.floor((d + halfTurn) / (2 * halfTurn));
+        }
+    }
+
+}
@@ -1,8 +1,10 @@
 package com.asseco.android.proj.transformations;
 
+import com.asseco.android.proj.EllipsoidConstants;
 import com.asseco.android.proj.ProjectionParameter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -27,27 +29,27 @@ public class GeocentricTransform extends MathTransform {
     /**
      * The Isinverse.
      */
-    protected boolean _isinverse = false;
+    protected final boolean _isinverse;
     /**
-     * The Parameters.
+     * The Parameters, an unmodifiable copy shared with the inverse.
      */
-    protected List<ProjectionParameter> _Parameters = new ArrayList<ProjectionParameter>();
+    protected final List<ProjectionParameter> _Parameters;
     /**
      * The Inverse.
      */
-    protected MathTransform _inverse;
-    private double es;
+    protected volatile MathTransform _inverse;
+    private final double es;
     // Eccentricity squared : (a^2 - b^2)/a^2
-    private double semiMajor;
+    private final double semiMajor;
     // major axis
-    private double semiMinor;
+    private final double semiMinor;
     // minor axis
-    private double ab;
+    private final double ab;
     // Second eccentricity squared : (a^2 - b^2)/b^2
     // Semi_major / semi_minor
-    private double ba;
+    private final double ba;
     // Semi_minor / semi_major
-    private double ses;
+    private final double ses;
 
     /**
      * Initializes a geocentric projection object
@@ -57,8 +59,17 @@ public class GeocentricTransform extends MathTransform {
      * @throws Exception the exception
      */
     public GeocentricTransform(List<ProjectionParameter> parameters, boolean isinverse) throws Exception {
-        this(parameters);
+        _Parameters = Collections.unmodifiableList(new ArrayList<ProjectionParameter>(parameters));
         _isinverse = isinverse;
+        semiMajor = parameterValue(parameters, "semi_major");
+        semiMinor = parameterValue(parameters, "semi_minor");
+
+        EllipsoidConstants constants = EllipsoidConstants.of(semiMajor, semiMinor);
+        es = constants.es;
+        //e^2
+        ses = constants.esp;
+        ba = semiMinor / semiMajor;
+        ab = semiMajor / semiMinor;
     }
 
     /**
@@ -68,26 +79,16 @@ public class GeocentricTransform extends MathTransform {
      * @throws Exception the exception
      */
     public GeocentricTransform(List<ProjectionParameter> parameters) throws Exception {
-        _Parameters = parameters;
-        for (ProjectionParameter p : _Parameters) {
-            if (p.getName().toLowerCase().replace(' ', '_').equals("semi_major")) {
-                semiMajor = p.getValue();
-                break;
-            }
-        }
+        this(parameters, false);
+    }
 
-        for (ProjectionParameter p : _Parameters) {
-            if (p.getName().toLowerCase().replace(' ', '_').equals("semi_minor")) {
-                semiMinor = p.getValue();
-                break;
-            }
+    private static double parameterValue(List<ProjectionParameter> parameters, String name) throws Exception {
+        for (ProjectionParameter p : parameters) {
+            if (p.getName().toLowerCase().replace(' ', '_').equals(name))
+                return p.getValue();
         }
 
-        es = 1.0 - (semiMinor * semiMinor) / (semiMajor * semiMajor);
-        //e^2
-        ses = (Math.pow(semiMajor, 2) - Math.pow(semiMinor, 2)) / Math.pow(semiMinor, 2);
-        ba = semiMinor / semiMajor;
-        ab = semiMajor / semiMinor;
+        return 0;
     }
 
     public int getDimSource() throws Exception {
@@ -104,8 +105,11 @@ public class GeocentricTransform extends MathTransform {
      * @return IMathTransform that is the reverse of the current conversion.
      */
     public IMathTransform inverse() throws Exception {
-        if (_inverse == null)
-            _inverse = new GeocentricTransform(this._Parameters, !_isinverse);
+        if (_inverse == null) {
+            GeocentricTransform inverse = new GeocentricTransform(this._Parameters, !_isinverse);
+            inverse._inverse = this;
+            _inverse = inverse;
+        }
 
         return _inverse;
     }
@@ -117,14 +121,32 @@ public class GeocentricTransform extends MathTransform {
      * @return Point in projected meters
      */
     private double[] degreesToMeters(double[] lonlat) throws Exception {
-        double lon = degrees2Radians(lonlat[0]);
-        double lat = degrees2Radians(lonlat[1]);
-        double h = lonlat.length < 3 ? 0 : (Double.isNaN(lonlat[2]) ? 0 : lonlat[2]);
-        double v = semiMajor / Math.sqrt(1 - es * Math.pow(Math.sin(lat), 2));
-        double x = (v + h) * Math.cos(lat) * Math.cos(lon);
-        double y = (v + h) * Math.cos(lat) * Math.sin(lon);
-        double z = ((1 - es) * v + h) * Math.sin(lat);
-        return new double[]{x, y, z};
+        double h = lonlat.length < 3 ? 0 : lonlat[2];
+        double[] res = new double[3];
+        degreesToMeters(lonlat[0], lonlat[1], h, res, 0);
+        return res;
+    }
+
+    /**
+     * Converts coordinates in decimal degrees to projected meters.
+     *
+     * @param lon    The longitude in decimal degrees.
+     * @param lat    The latitude in decimal degrees.
+     * @param h      The ellipsoidal height, NaN is treated as 0.
+     * @param dst    The array receiving the point in projected meters
+     * @param dstOff The offset of the point in the destination array
+     */
+    private void degreesToMeters(double lon, double lat, double h, double[] dst, int dstOff) {
+        lon = D2R * lon;
+        lat = D2R * lat;
+        if (Double.isNaN(h))
+            h = 0;
+        double sinLat = Math.sin(lat);
+        double cosLat = Math.cos(lat);
+        double v = semiMajor / Math.sqrt(1 - es * sinLat * sinLat);
+        dst[dstOff] = (v + h) * cosLat * Math.cos(lon);
+        dst[dstOff + 1] = (v + h) * cosLat * Math.sin(lon);
+        dst[dstOff + 2] = ((1 - es) * v + h) * sinLat;
     }
 
     /**
@@ -134,18 +156,35 @@ public class GeocentricTransform extends MathTransform {
      * @return Transformed point in decimal degrees
      */
     private double[] metersToDegrees(double[] pnt) throws Exception {
+        double z = pnt.length < 3 ? 0 : pnt[2];
+        double[] res = new double[3];
+        metersToDegrees(pnt[0], pnt[1], z, res, 0);
+        return res;
+    }
+
+    /**
+     * Converts coordinates in projected meters to decimal degrees.
+     *
+     * @param x      The X ordinate in meters
+     * @param y      The Y ordinate in meters
+     * @param Z      The Z ordinate in meters, NaN is treated as 0.
+     * @param dst    The array receiving the point in decimal degrees
+     * @param dstOff The offset of the point in the destination array
+     */
+    private void metersToDegrees(double x, double y, double Z, double[] dst, int dstOff) {
         boolean At_Pole = false;
         // indicates whether location is in polar region */
-        double Z = pnt.length < 3 ? 0 : (Double.isNaN(pnt[2]) ? 0 : pnt[2]);
+        if (Double.isNaN(Z))
+            Z = 0;
         double lon = 0;
         double lat = 0;
         double Height = 0;
-        if (pnt[0] != 0.0)
-            lon = Math.atan2(pnt[1], pnt[0]);
+        if (x != 0.0)
+            lon = Math.atan2(y, x);
         else {
-            if (pnt[1] > 0)
+            if (y > 0)
                 lon = Math.PI / 2;
-            else if (pnt[1] < 0)
+            else if (y < 0)
                 lon = -Math.PI * 0.5;
             else {
                 At_Pole = true;
@@ -157,12 +196,15 @@ public class GeocentricTransform extends MathTransform {
                     /* south pole */
                     lat = -Math.PI * 0.5;
                 } else {
-                    return new double[]{radians2Degrees(lon), radians2Degrees(Math.PI * 0.5), -semiMinor};
+                    dst[dstOff] = R2D * lon;
+                    dst[dstOff + 1] = R2D * (Math.PI * 0.5);
+                    dst[dstOff + 2] = -semiMinor;
+                    return;
                 }
             }
         } 
         /* center of earth */
-        double W2 = pnt[0] * pnt[0] + pnt[1] * pnt[1];
+        double W2 = x * x + y * y;
         // Square of distance from Z axis
         double W = Math.sqrt(W2);
         // distance from Z axis
@@ -174,7 +216,7 @@ public class GeocentricTransform extends MathTransform {
         //sin(B0), B0 is estimate of Bowring aux variable
         double cos_B0 = W / S0;
         //cos(B0)
-        double sin3_B0 = Math.pow(sin_B0, 3);
+        double sin3_B0 = sin_B0 * sin_B0 * sin_B0;
         double T1 = Z + semiMinor * ses * sin3_B0;
         //corrected estimate of vertical component
         double Sum = W - semiMajor * es * cos_B0 * cos_B0 * cos_B0;
@@ -196,7 +238,9 @@ public class GeocentricTransform extends MathTransform {
         if (!At_Pole)
             lat = Math.atan(sin_p1 / cos_p1);
 
-        return new double[]{radians2Degrees(lon), radians2Degrees(lat), Height};
+        dst[dstOff] = R2D * lon;
+        dst[dstOff + 1] = R2D * lat;
+        dst[dstOff + 2] = Height;
     }
 
     /**
@@ -212,6 +256,167 @@ public class GeocentricTransform extends MathTransform {
         return metersToDegrees(point);
     }
 
+    /**
+     * Transforms a list of packed coordinate point ordinal values without allocating per point.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+            double x = srcPts[srcOff];
+            double y = srcPts[srcOff + 1];
+            double z = srcPts[srcOff + 2];
+            copyOrdinates(srcPts, srcOff, dstPts, dstOff, 3, dimension);
+            if (!_isinverse)
+                degreesToMeters(x, y, z, dstPts, dstOff);
+            else
+                metersToDegrees(x, y, z, dstPts, dstOff);
+        }
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     * The heights are required, a single scratch point is shared by all points of the call.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, true);
+        double[] tmp = new double[3];
+        for (int i = off; i < off + count; i++) {
+            if (!_isinverse)
+                degreesToMeters(xs[i], ys[i], zs[i], tmp, 0);
+            else
+                metersToDegrees(xs[i], ys[i], zs[i], tmp, 0);
+            xs[i] = tmp[0];
+            ys[i] = tmp[1];
+            zs[i] = tmp[2];
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform at a point.
+     *
+     * @param point the point, a missing height or Z ordinate is treated as 0
+     * @return the 3x3 derivative
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        double[] p = new double[3];
+        System.arraycopy(point, 0, p, 0, Math.min(point.length, 3));
+        double[] m = new double[9];
+        derivative(p, 0, m, 0, 1, 3);
+        return unpackMatrix(m, 0, 3);
+    }
+
+    /**
+     * Gets the derivatives of this transform at a list of packed points without allocating per point.
+     * The columns of the forward derivative are the tangents of the parallel and the meridian,
+     * scaled by the radii of curvature, and the surface normal. The inverse transform converts
+     * the point to geographic coordinates and inverts the forward derivative there.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        double[] tmp = new double[3];
+        int size = dimension * dimension;
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += size) {
+            double lon = srcPts[srcOff];
+            double lat = srcPts[srcOff + 1];
+            double h = srcPts[srcOff + 2];
+            if (_isinverse) {
+                metersToDegrees(lon, lat, h, tmp, 0);
+                lon = tmp[0];
+                lat = tmp[1];
+                h = tmp[2];
+            }
+            setIdentity(dstMatrices, dstOff, dimension);
+            degreesToMetersDerivative(lon, lat, h, dstMatrices, dstOff, dimension);
+            if (_isinverse)
+                invert3(dstMatrices, dstOff, dimension);
+        }
+    }
+
+    /**
+     * Differentiates the conversion of geographic coordinates in decimal degrees to geocentric meters.
+     *
+     * @param lon       The longitude in decimal degrees.
+     * @param lat       The latitude in decimal degrees.
+     * @param h         The ellipsoidal height, NaN is treated as 0.
+     * @param dst       The array receiving the 3x3 derivative in row major order
+     * @param dstOff    The offset of the derivative in the destination array
+     * @param dimension The length of a row in the destination array
+     */
+    private void degreesToMetersDerivative(double lon, double lat, double h, double[] dst, int dstOff, int dimension) {
+        lon = D2R * lon;
+        lat = D2R * lat;
+        if (Double.isNaN(h))
+            h = 0;
+        double sinLon = Math.sin(lon);
+        double cosLon = Math.cos(lon);
+        double sinLat = Math.sin(lat);
+        double cosLat = Math.cos(lat);
+        double w = 1 - es * sinLat * sinLat;
+        double v = semiMajor / Math.sqrt(w);
+        //radii of curvature of the parallel and the meridian at the height, per degree
+        double rp = D2R * (v + h) * cosLat;
+        double rm = D2R * ((1 - es) * v / w + h);
+        int r1 = dstOff + dimension;
+        int r2 = dstOff + 2 * dimension;
+        dst[dstOff] = -rp * sinLon;
+        dst[dstOff + 1] = -rm * sinLat * cosLon;
+        dst[dstOff + 2] = cosLat * cosLon;
+        dst[r1] = rp * cosLon;
+        dst[r1 + 1] = -rm * sinLat * sinLon;
+        dst[r1 + 2] = cosLat * sinLon;
+        dst[r2] = 0;
+        dst[r2 + 1] = rm * cosLat;
+        dst[r2 + 2] = sinLat;
+    }
+
+    /**
+     * Inverts the upper left 3x3 block of a packed matrix in place.
+     *
+     * @param m         the array containing the matrix
+     * @param off       the offset of the matrix
+     * @param dimension the length of a row
+     */
+    private static void invert3(double[] m, int off, int dimension) {
+        int r1 = off + dimension;
+        int r2 = off + 2 * dimension;
+        double a = m[off], b = m[off + 1], c = m[off + 2];
+        double d = m[r1], e = m[r1 + 1], f = m[r1 + 2];
+        double g = m[r2], h = m[r2 + 1], k = m[r2 + 2];
+        double c0 = e * k - f * h;
+        double c1 = f * g - d * k;
+        double c2 = d * h - e * g;
+        double det = a * c0 + b * c1 + c * c2;
+        m[off] = c0 / det;
+        m[off + 1] = (c * h - b * k) / det;
+        m[off + 2] = (b * f - c * e) / det;
+        m[r1] = c1 / det;
+        m[r1 + 1] = (a * k - c * g) / det;
+        m[r1 + 2] = (c * d - a * f) / det;
+        m[r2] = c2 / det;
+        m[r2 + 1] = (b * g - a * h) / det;
+        m[r2 + 2] = (a * e - b * d) / det;
+    }
+
     /**
      * Transforms a list of coordinate point ordinal values.
      *
@@ -246,10 +451,28 @@ public class GeocentricTransform extends MathTransform {
     }*/
 
     /**
-     * Reverses the transformation
+     * Tests whether this transform does not move any points.
+     *
+     * @return isidentity
+     */
+    public boolean identity() throws Exception {
+        return false;
+    }
+
+    /**
+     * Tests whether the other transform undoes this conversion, i.e. it converts
+     * in the opposite direction on the same ellipsoid.
+     *
+     * @param other the other transform
+     * @return true if the other transform is the inverse of this one
+     * @throws Exception the exception
      */
-    public void invert() throws Exception {
-        _isinverse = !_isinverse;
+    boolean isInverseOf(IMathTransform other) throws Exception {
+        if (!(other instanceof GeocentricTransform))
+            return false;
+
+        GeocentricTransform gt = (GeocentricTransform) other;
+        return gt._isinverse != _isinverse && gt.semiMajor == semiMajor && gt.semiMinor == semiMinor;
     }
 
     /**
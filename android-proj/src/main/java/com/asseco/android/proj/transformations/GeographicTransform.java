@@ -10,8 +10,9 @@ import java.util.List;
  * implements datum transformations between geographic coordinate systems.
  */
 public class GeographicTransform extends MathTransform {
-    private IGeographicCoordinateSystem _SourceGCS;
-    private IGeographicCoordinateSystem _TargetGCS;
+    private final IGeographicCoordinateSystem _SourceGCS;
+    private final IGeographicCoordinateSystem _TargetGCS;
+    private volatile GeographicTransform _inverse;
 
     /**
      * Instantiates a new Geographic transform.
@@ -26,7 +27,7 @@ public class GeographicTransform extends MathTransform {
     }
 
     /**
-     * Gets or sets the source geographic coordinate system for the transformation.
+     * Gets the source geographic coordinate system for the transformation.
      *
      * @return the source gcs
      * @throws Exception the exception
@@ -36,17 +37,7 @@ public class GeographicTransform extends MathTransform {
     }
 
     /**
-     * Sets source gcs.
-     *
-     * @param value the value
-     * @throws Exception the exception
-     */
-    public void setSourceGCS(IGeographicCoordinateSystem value) throws Exception {
-        _SourceGCS = value;
-    }
-
-    /**
-     * Gets or sets the target geographic coordinate system for the transformation.
+     * Gets the target geographic coordinate system for the transformation.
      *
      * @return the target gcs
      * @throws Exception the exception
@@ -55,16 +46,6 @@ public class GeographicTransform extends MathTransform {
         return _TargetGCS;
     }
 
-    /**
-     * Sets target gcs.
-     *
-     * @param value the value
-     * @throws Exception the exception
-     */
-    public void setTargetGCS(IGeographicCoordinateSystem value) throws Exception {
-        _TargetGCS = value;
-    }
-
     /**
      * Returns the Well-known text for this object
      * as defined in the simple features specification. [NOT IMPLEMENTED].
@@ -89,13 +70,18 @@ public class GeographicTransform extends MathTransform {
     }
 
     /**
-     * Creates the inverse transform of this object.
-     * This method may fail if the transform is not one to one. However, all cartographic projections should succeed.
+     * Creates the inverse transform of this object, the transform with swapped coordinate systems.
      *
      * @return
      */
     public IMathTransform inverse() throws Exception {
-        throw new UnsupportedOperationException();
+        if (_inverse == null) {
+            GeographicTransform inverse = new GeographicTransform(_TargetGCS, _SourceGCS);
+            inverse._inverse = this;
+            _inverse = inverse;
+        }
+
+        return _inverse;
     }
 
     /**
@@ -113,6 +99,75 @@ public class GeographicTransform extends MathTransform {
         return pOut;
     }
 
+    /**
+     * Transforms a list of packed coordinate point ordinal values without allocating per point.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        double radiansPerUnit = getSourceGCS().getangularUnit().getRadiansPerUnit();
+        double sourcePM = getSourceGCS().getPrimeMeridian().getLongitude() / getSourceGCS().getPrimeMeridian().getangularUnit().getRadiansPerUnit();
+        double targetPM = getTargetGCS().getPrimeMeridian().getLongitude() / getTargetGCS().getPrimeMeridian().getangularUnit().getRadiansPerUnit();
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+            double lon = srcPts[srcOff];
+            copyOrdinates(srcPts, srcOff, dstPts, dstOff, 1, dimension);
+            dstPts[dstOff] = (lon / radiansPerUnit - sourcePM + targetPM) * radiansPerUnit;
+        }
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     * Only the longitudes are changed.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        double radiansPerUnit = getSourceGCS().getangularUnit().getRadiansPerUnit();
+        double sourcePM = getSourceGCS().getPrimeMeridian().getLongitude() / getSourceGCS().getPrimeMeridian().getangularUnit().getRadiansPerUnit();
+        double targetPM = getTargetGCS().getPrimeMeridian().getLongitude() / getTargetGCS().getPrimeMeridian().getangularUnit().getRadiansPerUnit();
+        for (int i = off; i < off + count; i++)
+            xs[i] = (xs[i] / radiansPerUnit - sourcePM + targetPM) * radiansPerUnit;
+    }
+
+    /**
+     * Gets the derivative of this transform, the longitude is only shifted so it is the identity matrix.
+     *
+     * @param point point
+     * @return the identity matrix
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        double[] m = new double[point.length * point.length];
+        setIdentity(m, 0, point.length);
+        return unpackMatrix(m, 0, point.length);
+    }
+
+    /**
+     * Gets the derivatives of this transform at a list of packed points, all identity matrices.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        for (int i = 0; i < numPts; i++)
+            setIdentity(dstMatrices, dstOff + i * dimension * dimension, dimension);
+    }
+
     /**
      * Transforms a list of coordinate point ordinal values.
      *
@@ -147,10 +202,15 @@ public class GeographicTransform extends MathTransform {
     }*/
 
     /**
-     * Reverses the transformation
+     * Tests whether this transform does not move any points, i.e. both coordinate systems
+     * share the prime meridian.
+     *
+     * @return isidentity
      */
-    public void invert() throws Exception {
-        throw new UnsupportedOperationException();
+    public boolean identity() throws Exception {
+        double sourcePM = getSourceGCS().getPrimeMeridian().getLongitude() / getSourceGCS().getPrimeMeridian().getangularUnit().getRadiansPerUnit();
+        double targetPM = getTargetGCS().getPrimeMeridian().getLongitude() / getTargetGCS().getPrimeMeridian().getangularUnit().getRadiansPerUnit();
+        return sourcePM == targetPM;
     }
 
 }
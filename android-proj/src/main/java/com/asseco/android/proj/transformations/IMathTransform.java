@@ -71,6 +71,22 @@ public interface IMathTransform {
      */
     double[][] derivative(double[] point) throws Exception;
 
+    /**
+     * Gets the derivatives of this transform at a list of packed points.
+     * For each point a dimension x dimension matrix is written in row major order, the element
+     * in row n and column m is the derivative of the n'th transformed ordinal by the m'th ordinal
+     * of the point. Ordinals the transform does not consume are passed through with a derivative of 1.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     * @throws Exception the exception
+     */
+    void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception;
+
     /**
      * Gets transformed convex hull.
      * The supplied ordinates are interpreted as a sequence of points, which generates a convex
@@ -108,6 +124,7 @@ public interface IMathTransform {
     /**
      * Creates the inverse transform of this object.
      * This method may fail if the transform is not one to one. However, all cartographic projections should succeed.
+     * The inverse is created once and shared, this transform is not changed.
      *
      * @return math transform
      * @throws Exception the exception
@@ -159,6 +176,69 @@ public interface IMathTransform {
      */
     List<double[]> transformList(List<double[]> points) throws Exception;
 
+    /**
+     * Transforms a list of packed coordinate point ordinal values.
+     *
+     * This method is provided for efficiently transforming many points without allocating
+     * anything per point. The ordinals are packed in the source and destination arrays with
+     * {@code dimension} values per point, e.g. for dimension 3 the ordinals are packed in this
+     * order (x0,y0,z0,x1,y1,z1 ...). The ordinals following the first DimTarget ones of every
+     * point are copied unchanged from the source point. The source and destination array may
+     * be the same array; the points are then transformed in-place as long as
+     * {@code dstOff <= srcOff}. If there is any problem then the server implementation will
+     * throw an exception. If this happens then the client should not make any assumptions
+     * about the state of the destination ordinal values.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point, at least DimSource and DimTarget
+     * @throws Exception the exception
+     */
+    void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception;
+
+    /**
+     * Transforms a list of packed coordinate point ordinal values without throwing for single points.
+     *
+     * Points which cannot be transformed, e.g. outside the domain of a projection or when an
+     * iteration does not converge, are filled with NaN and reported as
+     * {@link DomainFlags#Outside}, the other points are transformed as by
+     * {@link #transform(double[], int, double[], int, int, int)}. Invalid arguments are still
+     * reported by an IllegalArgumentException.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     * @param status    receives {@link DomainFlags#Inside} or {@link DomainFlags#Outside} for each point, may be null
+     * @return the number of points which failed
+     */
+    int transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension, DomainFlags[] status);
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     *
+     * This method is provided for data already kept in a structure-of-arrays layout, e.g. the
+     * vertices of a decoded vector tile. The points {@code off..off+count-1} of the arrays are
+     * replaced by the transformed points. The height array may be null for two dimensional
+     * points; transforms which need a height to compute the result then throw an
+     * IllegalArgumentException. If there is any problem then the server implementation will
+     * throw an exception. If this happens then the client should not make any assumptions
+     * about the state of the ordinal values.
+     *
+     * @param xs    the first ordinals (x or longitude) of the points
+     * @param ys    the second ordinals (y or latitude) of the points
+     * @param zs    the third ordinals (z or height) of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     * @throws Exception the exception
+     */
+    void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception;
+
     /**
      * Transforms a list of coordinates.
      *
@@ -179,10 +259,13 @@ public interface IMathTransform {
     //IList<Coordinate> transformList(IList<Coordinate> points) throws Exception ;
 
     /**
-     * Reverses the transformation
+     * Reverses the transformation in place. Transforms are immutable and may be shared
+     * between threads, so implementations throw an UnsupportedOperationException.
      *
      * @throws Exception the exception
+     * @deprecated use {@link #inverse()}, which returns a separate transform
      */
+    @Deprecated
     void invert() throws Exception;
 
     /**
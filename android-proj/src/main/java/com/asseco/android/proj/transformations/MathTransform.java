@@ -1,6 +1,7 @@
 package com.asseco.android.proj.transformations;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -22,6 +23,10 @@ public abstract class MathTransform implements IMathTransform {
      * D2R
      */
     protected static final double D2R = Math.PI / 180;
+    /**
+     * Number of points processed at once by block-wise bulk transforms.
+     */
+    protected static final int BLOCK_SIZE = 256;
 
     /**
      * To convert degrees to radians, multiply degrees by pi/180.
@@ -169,6 +174,36 @@ public abstract class MathTransform implements IMathTransform {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Gets the derivatives of this transform at a list of packed points.
+     *
+     * For each point a dimension x dimension matrix is written in row major order, the element
+     * in row n and column m is the derivative of the n'th transformed ordinal by the m'th ordinal
+     * of the point. Ordinals the transform does not consume are passed through, their derivative
+     * is 1. This implementation goes through {@link #derivative(double[])} and therefore allocates
+     * per point. Subclasses are expected to override it with an allocation free loop.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        double[] point = new double[dimension];
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension * dimension) {
+            System.arraycopy(srcPts, srcOff, point, 0, dimension);
+            double[][] d = derivative(point);
+            setIdentity(dstMatrices, dstOff, dimension);
+            for (int row = 0; row < Math.min(d.length, dimension); row++) {
+                for (int col = 0; col < Math.min(d[row].length, dimension); col++)
+                    dstMatrices[dstOff + row * dimension + col] = d[row][col];
+            }
+        }
+    }
+
     /**
      * Creates the inverse transform of this object.
      * This method may fail if the transform is not one to one. However, all cartographic projections should succeed.
@@ -210,9 +245,276 @@ public abstract class MathTransform implements IMathTransform {
     }
 
     /**
-     * Reverses the transformation
+     * Transforms a list of packed coordinate point ordinal values.
+     *
+     * This implementation goes through {@link #transform(double[])} and therefore allocates
+     * per point. Subclasses are expected to override it with an allocation free loop.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        double[] point = new double[dimension];
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+            System.arraycopy(srcPts, srcOff, point, 0, dimension);
+            double[] res = transform(point);
+            int count = Math.min(res.length, dimension);
+            System.arraycopy(res, 0, dstPts, dstOff, count);
+            copyOrdinates(srcPts, srcOff, dstPts, dstOff, count, dimension);
+        }
+    }
+
+    /**
+     * Transforms a list of packed coordinate point ordinal values without throwing for single points.
+     *
+     * The points are transformed block by block through the packed
+     * {@link #transform(double[], int, double[], int, int, int)} method. Only when a block
+     * fails its points are transformed one by one. In-place blocks are copied first, so they
+     * can be transformed again. Points whose transform throws, gives non finite horizontal
+     * ordinals or turns a finite further ordinal non finite are filled with NaN. A missing
+     * height given as NaN passes through without failing the point.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     * @param status    receives {@link DomainFlags#Inside} or {@link DomainFlags#Outside} for each point, may be null
+     * @return the number of points which failed
+     */
+    public int transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension, DomainFlags[] status) {
+        try {
+            checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+        if (status != null && status.length < numPts)
+            throw new IllegalArgumentException("Status array is too short.");
+
+        double[] block = srcPts == dstPts ? new double[Math.min(numPts, BLOCK_SIZE) * dimension] : null;
+        int failed = 0;
+        for (int done = 0; done < numPts; done += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, numPts - done);
+            double[] src = srcPts;
+            int from = srcOff + done * dimension;
+            int dst = dstOff + done * dimension;
+            if (block != null) {
+                System.arraycopy(srcPts, from, block, 0, n * dimension);
+                src = block;
+                from = 0;
+            }
+            boolean transformed;
+            try {
+                transform(src, from, dstPts, dst, n, dimension);
+                transformed = true;
+            } catch (Exception e) {
+                transformed = false;
+            }
+            for (int i = 0; i < n; i++) {
+                int p = dst + i * dimension;
+                int q = from + i * dimension;
+                boolean valid = transformed ? isValid(src, q, dstPts, p, dimension) : transformPoint(src, q, dstPts, p, dimension);
+                if (!valid) {
+                    Arrays.fill(dstPts, p, p + dimension, Double.NaN);
+                    failed++;
+                }
+                if (status != null)
+                    status[done + i] = valid ? DomainFlags.Inside : DomainFlags.Outside;
+            }
+        }
+        return failed;
+    }
+
+    private boolean transformPoint(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int dimension) {
+        try {
+            transform(srcPts, srcOff, dstPts, dstOff, 1, dimension);
+        } catch (Exception e) {
+            return false;
+        }
+        return isValid(srcPts, srcOff, dstPts, dstOff, dimension);
+    }
+
+    /**
+     * Tests the horizontal ordinals of a transformed point, and the further ordinals only
+     * when they were finite in the source point.
+     */
+    private static boolean isValid(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int dimension) {
+        for (int j = 0; j < dimension; j++) {
+            if (isFinite(dstPts[dstOff + j]))
+                continue;
+            if (j < 2 || isFinite(srcPts[srcOff + j]))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     *
+     * This implementation goes through {@link #transform(double[])} with a single scratch point
+     * per call. Subclasses are expected to override it with a loop over the arrays.
+     *
+     * @param xs    the first ordinals (x or longitude) of the points
+     * @param ys    the second ordinals (y or latitude) of the points
+     * @param zs    the third ordinals (z or height) of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        double[] point = new double[zs == null ? 2 : 3];
+        for (int i = off; i < off + count; i++) {
+            point[0] = xs[i];
+            point[1] = ys[i];
+            if (zs != null)
+                point[2] = zs[i];
+            double[] res = transform(point);
+            xs[i] = res[0];
+            ys[i] = res[1];
+            if (zs != null && res.length > 2)
+                zs[i] = res[2];
+        }
+    }
+
+    /**
+     * Validates the arguments of the structure-of-arrays
+     * {@link #transform(double[], double[], double[], int, int)}
+     * method.
+     *
+     * @param xs      the first ordinals of the points
+     * @param ys      the second ordinals of the points
+     * @param zs      the third ordinals of the points, may be null
+     * @param off     the index of the first point to transform
+     * @param count   the number of points to transform
+     * @param heights whether the transform needs the third ordinals
+     * @throws Exception the exception
+     */
+    protected void checkArrayArguments(double[] xs, double[] ys, double[] zs, int off, int count, boolean heights) throws Exception {
+        if (xs == null || ys == null)
+            throw new IllegalArgumentException("Ordinate arrays must not be null.");
+        if (zs == null && heights)
+            throw new IllegalArgumentException("Heights are required by this transform.");
+        if (off < 0 || count < 0)
+            throw new IllegalArgumentException("Negative offset or point count.");
+        if (off + (long) count > xs.length || off + (long) count > ys.length || (zs != null && off + (long) count > zs.length))
+            throw new IllegalArgumentException("Ordinate arrays are too short.");
+    }
+
+    /**
+     * Validates the arguments of the packed
+     * {@link #transform(double[], int, double[], int, int, int)}
+     * method.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     * @throws Exception the exception
+     */
+    protected void checkPackedArguments(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        if (srcPts == null || dstPts == null)
+            throw new IllegalArgumentException("Point arrays must not be null.");
+        if (numPts < 0 || srcOff < 0 || dstOff < 0)
+            throw new IllegalArgumentException("Negative offset or point count.");
+        if (dimension < getDimSource() || dimension < getDimTarget())
+            throw new IllegalArgumentException("Dimension " + dimension + " is not supported by this transform.");
+        if (srcOff + (long) numPts * dimension > srcPts.length || dstOff + (long) numPts * dimension > dstPts.length)
+            throw new IllegalArgumentException("Point arrays are too short.");
+    }
+
+    /**
+     * Validates the arguments of the packed
+     * {@link #derivative(double[], int, double[], int, int, int)}
+     * method.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     * @throws Exception the exception
      */
-    public abstract void invert() throws Exception;
+    protected void checkDerivativeArguments(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        if (srcPts == null || dstMatrices == null)
+            throw new IllegalArgumentException("Point and matrix arrays must not be null.");
+        if (numPts < 0 || srcOff < 0 || dstOff < 0)
+            throw new IllegalArgumentException("Negative offset or point count.");
+        if (dimension < getDimSource() || dimension < getDimTarget())
+            throw new IllegalArgumentException("Dimension " + dimension + " is not supported by this transform.");
+        if (srcOff + (long) numPts * dimension > srcPts.length || dstOff + (long) numPts * dimension * dimension > dstMatrices.length)
+            throw new IllegalArgumentException("Point or matrix arrays are too short.");
+    }
+
+    /**
+     * Writes a packed identity matrix.
+     *
+     * @param matrices  the array receiving the matrix
+     * @param off       the offset of the matrix
+     * @param dimension the number of rows and columns
+     */
+    protected static void setIdentity(double[] matrices, int off, int dimension) {
+        Arrays.fill(matrices, off, off + dimension * dimension, 0);
+        for (int j = 0; j < dimension; j++)
+            matrices[off + j * dimension + j] = 1;
+    }
+
+    /**
+     * Copies a packed row major matrix into a two dimensional array.
+     *
+     * @param matrices  the array containing the matrix
+     * @param off       the offset of the matrix
+     * @param dimension the number of rows and columns
+     * @return the matrix
+     */
+    protected static double[][] unpackMatrix(double[] matrices, int off, int dimension) {
+        double[][] m = new double[dimension][dimension];
+        for (int row = 0; row < dimension; row++)
+            System.arraycopy(matrices, off + row * dimension, m[row], 0, dimension);
+        return m;
+    }
+
+    /**
+     * Copies the ordinals {@code from..dimension-1} of a single packed point, used to pass
+     * through the ordinals a transform does not consume.
+     *
+     * @param srcPts    the source array
+     * @param srcOff    the offset of the source point
+     * @param dstPts    the destination array
+     * @param dstOff    the offset of the destination point
+     * @param from      the first ordinal to copy
+     * @param dimension the number of ordinals of the point
+     */
+    protected static void copyOrdinates(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int from, int dimension) {
+        if (srcPts != dstPts || srcOff != dstOff) {
+            for (int j = from; j < dimension; j++)
+                dstPts[dstOff + j] = srcPts[srcOff + j];
+        }
+    }
+
+    /**
+     * Transforms are immutable, so they cannot be reversed in place.
+     *
+     * @deprecated use {@link #inverse()}, which returns a separate transform
+     */
+    @Deprecated
+    public void invert() throws Exception {
+        throw new UnsupportedOperationException("Transforms are immutable, use inverse() instead.");
+    }
 
 }
 
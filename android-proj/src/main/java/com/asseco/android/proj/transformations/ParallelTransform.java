@@ -0,0 +1,404 @@
+package com.asseco.android.proj.transformations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transforms large coordinate buffers in parallel.
+ *
+ * The bulk methods split the points into chunks which are transformed by the wrapped
+ * transform on a {@link ForkJoinPool} shared by all parallel transforms, or on a caller
+ * provided {@link Executor}. Math
+ * transforms are immutable, so all chunks share the wrapped instance. Calls with fewer
+ * points than the threshold are transformed sequentially in the calling thread.
+ */
+public class ParallelTransform extends MathTransform {
+    /**
+     * Default number of points below which the points are transformed sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 16384;
+    /**
+     * Smallest number of points transformed by a single task.
+     */
+    protected static final int MIN_CHUNK_SIZE = 1024;
+
+    private static volatile ForkJoinPool _sharedPool;
+
+    private final IMathTransform _transform;
+    private final Executor _executor;
+    private final int _threshold;
+    private volatile ParallelTransform _inverse;
+
+    /**
+     * Instantiates a new parallel transform using the shared fork/join pool.
+     *
+     * @param transform the transform applied to the points
+     * @throws Exception the exception
+     */
+    public ParallelTransform(IMathTransform transform) throws Exception {
+        this(transform, null, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Instantiates a new parallel transform.
+     *
+     * @param transform the transform applied to the points
+     * @param executor  the executor running the chunks, null for the shared fork/join pool
+     * @param threshold the number of points below which the points are transformed sequentially
+     * @throws Exception the exception
+     */
+    public ParallelTransform(IMathTransform transform, Executor executor, int threshold) throws Exception {
+        if (transform == null)
+            throw new IllegalArgumentException("transform is null");
+        if (threshold < 0)
+            throw new IllegalArgumentException("Negative threshold.");
+
+        _transform = transform;
+        _executor = executor != null ? executor : getSharedPool();
+        _threshold = threshold;
+    }
+
+    /**
+     * Gets the fork/join pool used when no executor is given, it is created on the first call
+     * with a thread per processor. The common pool of the platform needs API level 24.
+     *
+     * @return the shared pool
+     */
+    public static ForkJoinPool getSharedPool() {
+        ForkJoinPool pool = _sharedPool;
+        if (pool == null) {
+            synchronized (ParallelTransform.class) {
+                pool = _sharedPool;
+                if (pool == null) {
+                    //the worker threads are daemons, they do not keep the process alive
+                    pool = new ForkJoinPool();
+                    _sharedPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Gets the transform applied to the points.
+     *
+     * @return the transform
+     */
+    public IMathTransform getTransform() {
+        return _transform;
+    }
+
+    /**
+     * Gets the executor running the chunks.
+     *
+     * @return the executor
+     */
+    public Executor getExecutor() {
+        return _executor;
+    }
+
+    /**
+     * Gets the number of points below which the points are transformed sequentially.
+     *
+     * @return the threshold
+     */
+    public int getThreshold() {
+        return _threshold;
+    }
+
+    public int getDimSource() throws Exception {
+        return _transform.getDimSource();
+    }
+
+    public int getDimTarget() throws Exception {
+        return _transform.getDimTarget();
+    }
+
+    public boolean identity() throws Exception {
+        return _transform.identity();
+    }
+
+    /**
+     * Returns the inverse of the wrapped transform, transformed in parallel as well.
+     *
+     * @return IMathTransform that is the reverse of the current conversion.
+     */
+    public IMathTransform inverse() throws Exception {
+        if (_inverse == null) {
+            ParallelTransform inverse = new ParallelTransform(_transform.inverse(), _executor, _threshold);
+            inverse._inverse = this;
+            _inverse = inverse;
+        }
+
+        return _inverse;
+    }
+
+    public double[] transform(double[] point) throws Exception {
+        return _transform.transform(point);
+    }
+
+    /**
+     * Transforms a list point, the points are packed into a single array and
+     * transformed in parallel when they share their dimension.
+     *
+     * @param points points
+     * @return transformed points
+     */
+    public List<double[]> transformList(List<double[]> points) throws Exception {
+        int dimension = points.isEmpty() ? 0 : points.get(0).length;
+        boolean packable = points.size() >= _threshold && dimension >= getDimSource() && dimension >= getDimTarget();
+        for (int i = 0; packable && i < points.size(); i++)
+            packable = points.get(i).length == dimension;
+        if (!packable)
+            return _transform.transformList(points);
+
+        double[] packed = new double[points.size() * dimension];
+        for (int i = 0; i < points.size(); i++)
+            System.arraycopy(points.get(i), 0, packed, i * dimension, dimension);
+        transform(packed, 0, packed, 0, points.size(), dimension);
+        List<double[]> result = new ArrayList<double[]>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            double[] p = new double[dimension];
+            System.arraycopy(packed, i * dimension, p, 0, dimension);
+            result.add(p);
+        }
+        return result;
+    }
+
+    /**
+     * Transforms a list of packed coordinate point ordinal values in parallel.
+     *
+     * In-place calls with shifted, overlapping ranges are transformed sequentially, as
+     * a chunk could overwrite points another chunk has not read yet.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, int numPts, final int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        boolean overlapping = srcPts == dstPts && srcOff != dstOff && Math.abs(srcOff - dstOff) < numPts * dimension;
+        if (overlapping) {
+            _transform.transform(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+            return;
+        }
+
+        forEachChunk(numPts, new Chunk() {
+            public void transform(int from, int count) throws Exception {
+                _transform.transform(srcPts, srcOff + from * dimension, dstPts, dstOff + from * dimension, count, dimension);
+            }
+        });
+    }
+
+    /**
+     * Transforms a list of packed coordinate point ordinal values in parallel without throwing
+     * for single points, each chunk reports its failed points itself.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     * @param status    receives {@link DomainFlags#Inside} or {@link DomainFlags#Outside} for each point, may be null
+     * @return the number of points which failed
+     */
+    public int transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, int numPts, final int dimension, final DomainFlags[] status) {
+        boolean overlapping = srcPts == dstPts && srcOff != dstOff && Math.abs(srcOff - dstOff) < numPts * dimension;
+        if (overlapping || numPts < _threshold)
+            return _transform.transform(srcPts, srcOff, dstPts, dstOff, numPts, dimension, status);
+        if (status != null && status.length < numPts)
+            throw new IllegalArgumentException("Status array is too short.");
+
+        final AtomicInteger failed = new AtomicInteger();
+        try {
+            forEachChunk(numPts, new Chunk() {
+                public void transform(int from, int count) {
+                    DomainFlags[] flags = status != null ? new DomainFlags[count] : null;
+                    failed.addAndGet(_transform.transform(srcPts, srcOff + from * dimension, dstPts, dstOff + from * dimension, count, dimension, flags));
+                    if (flags != null)
+                        System.arraycopy(flags, 0, status, from, count);
+                }
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return failed.get();
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place and in parallel.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(final double[] xs, final double[] ys, final double[] zs, final int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        forEachChunk(count, new Chunk() {
+            public void transform(int from, int n) throws Exception {
+                _transform.transform(xs, ys, zs, off + from, n);
+            }
+        });
+    }
+
+    public double[][] derivative(double[] point) throws Exception {
+        return _transform.derivative(point);
+    }
+
+    /**
+     * Gets the derivatives of the wrapped transform at a list of packed points in parallel.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(final double[] srcPts, final int srcOff, final double[] dstMatrices, final int dstOff, int numPts, final int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        forEachChunk(numPts, new Chunk() {
+            public void transform(int from, int count) throws Exception {
+                _transform.derivative(srcPts, srcOff + from * dimension, dstMatrices, dstOff + from * dimension * dimension, count, dimension);
+            }
+        });
+    }
+
+    /**
+     * Gets the number of points transformed by a single task, a few tasks per thread
+     * balance chunks which converge slower.
+     *
+     * @param count the number of points
+     * @return the chunk size
+     */
+    protected int getChunkSize(int count) {
+        int parallelism = _executor instanceof ForkJoinPool ? ((ForkJoinPool) _executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+        int tasks = Math.max(1, parallelism) * 4;
+        return Math.max(MIN_CHUNK_SIZE, (count + tasks - 1) / tasks);
+    }
+
+    private void forEachChunk(int count, Chunk chunk) throws Exception {
+        if (count < _threshold || count <= MIN_CHUNK_SIZE) {
+            chunk.transform(0, count);
+            return;
+        }
+
+        int size = getChunkSize(count);
+        if (_executor instanceof ForkJoinPool) {
+            try {
+                ((ForkJoinPool) _executor).invoke(new ChunkTask(chunk, 0, count, size));
+            } catch (RuntimeException e) {
+                //the pool may rethrow a copy of the failure, look for the original cause
+                for (Throwable t = e; t != null; t = t.getCause()) {
+                    if (t instanceof ChunkFailure)
+                        throw (Exception) t.getCause();
+                }
+                throw e;
+            }
+            return;
+        }
+
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+        for (int from = 0; from < count; from += size) {
+            final Chunk c = chunk;
+            final int f = from;
+            final int n = Math.min(size, count - from);
+            FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+                public Void call() throws Exception {
+                    c.transform(f, n);
+                    return null;
+                }
+            });
+            tasks.add(task);
+            _executor.execute(task);
+        }
+        try {
+            for (FutureTask<Void> task : tasks)
+                task.get();
+        } catch (ExecutionException e) {
+            for (FutureTask<Void> task : tasks)
+                task.cancel(false);
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets a Well-Known text representation of the wrapped transform.
+     */
+    public String getWKT() throws Exception {
+        return _transform.getWKT();
+    }
+
+    /**
+     * Gets an XML representation of the wrapped transform.
+     */
+    public String getXML() throws Exception {
+        return _transform.getXML();
+    }
+
+    private interface Chunk {
+        void transform(int from, int count) throws Exception;
+    }
+
+    /**
+     * Carries the failure of a chunk out of the fork/join pool.
+     */
+    private static class ChunkFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ChunkFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Splits the points in halves until they fit into a chunk.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk _chunk;
+        private final int _from;
+        private final int _count;
+        private final int _size;
+
+        ChunkTask(Chunk chunk, int from, int count, int size) {
+            _chunk = chunk;
+            _from = from;
+            _count = count;
+            _size = size;
+        }
+
+        protected void compute() {
+            if (_count <= _size) {
+                try {
+                    _chunk.transform(_from, _count);
+                } catch (Exception e) {
+                    throw new ChunkFailure(e);
+                }
+                return;
+            }
+
+            int half = _count / 2;
+            invokeAll(new ChunkTask(_chunk, _from, half, _size), new ChunkTask(_chunk, _from + half, _count - half, _size));
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.asseco.android.proj.transformations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A concatenated transformation compiled into a flat pipeline.
+ *
+ * The math transforms of the chain are held in an array, nested concatenations are
+ * flattened. Points are streamed through all steps in blocks using a scratch buffer
+ * kept per thread, so the steps run on data which is still in the cache and nothing
+ * is allocated per call, per point or per step. Instances are created by
+ * {@link ConcatenatedTransform#compile()}, the factory returns uncompiled chains.
+ */
+public class PipelineTransform extends MathTransform {
+    private final IMathTransform[] _steps;
+    private final int _dimSource;
+    private final int _dimTarget;
+    /**
+     * Number of ordinals needed to carry a point through all steps.
+     */
+    private final int _width;
+    private final boolean _heights;
+    /**
+     * Per thread scratch of the packed transform, a block of points as wide as all steps.
+     */
+    private final ThreadLocal<double[]> _scratch = new ThreadLocal<double[]>();
+    private volatile PipelineTransform _inverse;
+
+    /**
+     * Instantiates a new pipeline from the steps of a chain.
+     *
+     * @param steps     the math transforms in the order they are applied
+     * @param dimSource the dimension of input points
+     * @param dimTarget the dimension of output points
+     * @throws Exception the exception
+     */
+    public PipelineTransform(List<IMathTransform> steps, int dimSource, int dimTarget) throws Exception {
+        List<IMathTransform> flat = new ArrayList<IMathTransform>(steps.size());
+        for (IMathTransform step : steps)
+            flatten(step, flat);
+        _steps = flat.toArray(new IMathTransform[flat.size()]);
+        _dimSource = dimSource;
+        _dimTarget = dimTarget;
+        int width = Math.max(dimSource, dimTarget);
+        boolean heights = false;
+        for (IMathTransform step : _steps) {
+            width = Math.max(width, Math.max(step.getDimSource(), step.getDimTarget()));
+            heights |= step.getDimSource() > 2 || step.getDimTarget() > 2;
+        }
+        _width = width;
+        _heights = heights;
+    }
+
+    private static void flatten(IMathTransform step, List<IMathTransform> flat) throws Exception {
+        if (step instanceof PipelineTransform) {
+            for (IMathTransform s : ((PipelineTransform) step)._steps)
+                flat.add(s);
+        } else if (step instanceof ConcatenatedTransform) {
+            for (ICoordinateTransformation ct : ((ConcatenatedTransform) step).getCoordinateTransformationList())
+                flatten(ct.getMathTransform(), flat);
+        } else {
+            flat.add(step);
+        }
+    }
+
+    /**
+     * Gets the steps of the pipeline in the order they are applied.
+     *
+     * @return the steps
+     * @throws Exception the exception
+     */
+    public List<IMathTransform> getSteps() throws Exception {
+        List<IMathTransform> res = new ArrayList<IMathTransform>(_steps.length);
+        for (IMathTransform step : _steps)
+            res.add(step);
+        return res;
+    }
+
+    public int getDimSource() throws Exception {
+        return _dimSource;
+    }
+
+    public int getDimTarget() throws Exception {
+        return _dimTarget;
+    }
+
+    /**
+     * Tests whether this transform does not move any points.
+     *
+     * @return isidentity
+     */
+    public boolean identity() throws Exception {
+        return _steps.length == 0;
+    }
+
+    /**
+     * Transforms a point. A single work array wide enough for all steps is used, the
+     * returned point has the dimension of the passed one, but at least the target dimension.
+     *
+     * @param point point
+     * @return transformed point
+     */
+    public double[] transform(double[] point) throws Exception {
+        int dimension = Math.max(point.length, _dimTarget);
+        int width = Math.max(dimension, _width);
+        double[] work = new double[width];
+        System.arraycopy(point, 0, work, 0, point.length);
+        for (IMathTransform step : _steps)
+            step.transform(work, 0, work, 0, 1, width);
+        if (width == dimension)
+            return work;
+
+        double[] res = new double[dimension];
+        System.arraycopy(work, 0, res, 0, dimension);
+        return res;
+    }
+
+    /**
+     * Transforms a list point, the points are packed into a single array and
+     * pushed through the pipeline at once when they share their dimension.
+     *
+     * @param points points
+     * @return transformed points
+     */
+    public List<double[]> transformList(List<double[]> points) throws Exception {
+        int dimension = points.isEmpty() ? 0 : points.get(0).length;
+        boolean packable = dimension >= _dimSource && dimension >= _dimTarget;
+        for (double[] p : points)
+            packable &= p.length == dimension;
+        if (!packable)
+            return super.transformList(points);
+
+        double[] packed = new double[points.size() * dimension];
+        for (int i = 0; i < points.size(); i++)
+            System.arraycopy(points.get(i), 0, packed, i * dimension, dimension);
+        transform(packed, 0, packed, 0, points.size(), dimension);
+        List<double[]> result = new ArrayList<double[]>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            double[] p = new double[dimension];
+            System.arraycopy(packed, i * dimension, p, 0, dimension);
+            result.add(p);
+        }
+        return result;
+    }
+
+    /**
+     * Transforms a list of packed coordinate point ordinal values.
+     *
+     * The points are copied block by block into the scratch buffer of the thread, which is
+     * wide enough for all steps, every step transforms the block in-place and the block is
+     * copied back.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        int width = Math.max(dimension, _width);
+        double[] block = _scratch.get();
+        if (block == null || block.length < BLOCK_SIZE * width) {
+            block = new double[BLOCK_SIZE * width];
+            _scratch.set(block);
+        }
+        for (int done = 0; done < numPts; done += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, numPts - done);
+            int src = srcOff + done * dimension;
+            int dst = dstOff + done * dimension;
+            if (width == dimension) {
+                System.arraycopy(srcPts, src, block, 0, n * dimension);
+            } else {
+                //widen the points, missing ordinates start as 0
+                for (int i = 0; i < n; i++) {
+                    System.arraycopy(srcPts, src + i * dimension, block, i * width, dimension);
+                    for (int j = dimension; j < width; j++)
+                        block[i * width + j] = 0;
+                }
+            }
+            for (IMathTransform step : _steps)
+                step.transform(block, 0, block, 0, n, width);
+            if (width == dimension) {
+                System.arraycopy(block, 0, dstPts, dst, n * dimension);
+            } else {
+                for (int i = 0; i < n; i++)
+                    System.arraycopy(block, i * width, dstPts, dst + i * dimension, dimension);
+            }
+        }
+    }
+
+    /**
+     * Gets the derivative of the pipeline at a point, the product of the derivatives of all steps.
+     *
+     * @param point point
+     * @return the derivative, a square matrix as wide as the point, but at least as wide as the target dimension
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        int dimension = Math.max(point.length, Math.max(_dimSource, _dimTarget));
+        double[] p = new double[dimension];
+        System.arraycopy(point, 0, p, 0, point.length);
+        double[] m = new double[dimension * dimension];
+        derivative(p, 0, m, 0, 1, dimension);
+        return unpackMatrix(m, 0, dimension);
+    }
+
+    /**
+     * Gets the derivatives of the pipeline at a list of packed points with the chain rule,
+     * the points are streamed through the steps in blocks like they are transformed.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        ConcatenatedTransform.chainDerivative(_steps, Math.max(dimension, _width), srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     *
+     * The points are copied block by block into scratch arrays, which supply zero
+     * heights when none are given but a step needs them.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        int size = Math.min(count, BLOCK_SIZE);
+        double[] bx = new double[size];
+        double[] by = new double[size];
+        double[] bz = zs != null || _heights ? new double[size] : null;
+        for (int done = 0; done < count; done += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, count - done);
+            int from = off + done;
+            System.arraycopy(xs, from, bx, 0, n);
+            System.arraycopy(ys, from, by, 0, n);
+            if (zs != null)
+                System.arraycopy(zs, from, bz, 0, n);
+            else if (bz != null)
+                Arrays.fill(bz, 0, n, 0);
+            for (IMathTransform step : _steps)
+                step.transform(bx, by, bz, 0, n);
+            System.arraycopy(bx, 0, xs, from, n);
+            System.arraycopy(by, 0, ys, from, n);
+            if (zs != null)
+                System.arraycopy(bz, 0, zs, from, n);
+        }
+    }
+
+    /**
+     * Returns the inverse of this pipeline, the inverted steps in reverse order.
+     *
+     * @return IMathTransform that is the reverse of the current conversion.
+     */
+    public IMathTransform inverse() throws Exception {
+        if (_inverse == null) {
+            List<IMathTransform> steps = new ArrayList<IMathTransform>(_steps.length);
+            for (int i = _steps.length - 1; i >= 0; i--)
+                steps.add(_steps[i].inverse());
+            PipelineTransform inverse = new PipelineTransform(steps, _dimTarget, _dimSource);
+            inverse._inverse = this;
+            _inverse = inverse;
+        }
+
+        return _inverse;
+    }
+
+    /**
+     * Gets a Well-Known text representation of this object.
+     */
+    public String getWKT() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Gets an XML representation of this object.
+     */
+    public String getXML() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+}
@@ -7,9 +7,8 @@ import com.asseco.android.proj.IPrimeMeridian;
  * Adjusts target Prime Meridian
  */
 public class PrimeMeridianTransform extends MathTransform {
-    private boolean _isinverted = false;
-    private IPrimeMeridian _source;
-    private IPrimeMeridian _target;
+    private final IPrimeMeridian _source;
+    private final IPrimeMeridian _target;
 
     /**
      * Creates instance prime meridian transform
@@ -73,10 +72,7 @@ public class PrimeMeridianTransform extends MathTransform {
      */
     public double[] transform(double[] point) throws Exception {
         double[] transformed = new double[point.length];
-        if (!_isinverted)
-            transformed[0] = point[0] + _source.getLongitude() - _target.getLongitude();
-        else
-            transformed[0] = point[0] + _target.getLongitude() - _source.getLongitude();
+        transformed[0] = point[0] + _source.getLongitude() - _target.getLongitude();
         transformed[1] = point[1];
         if (point.length > 2)
             transformed[2] = point[2];
@@ -85,10 +81,96 @@ public class PrimeMeridianTransform extends MathTransform {
     }
 
     /**
-     * Reverses the transformation
+     * Transforms a list of packed coordinate point ordinal values without allocating per point.
+     *
+     * @param srcPts    the array containing the packed source ordinals
+     * @param srcOff    the offset of the first source point in the source array
+     * @param dstPts    the array receiving the packed transformed ordinals
+     * @param dstOff    the offset of the first transformed point in the destination array
+     * @param numPts    the number of points to transform
+     * @param dimension the number of ordinals of each point
+     */
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int dimension) throws Exception {
+        checkPackedArguments(srcPts, srcOff, dstPts, dstOff, numPts, dimension);
+        double add = _source.getLongitude();
+        double subtract = _target.getLongitude();
+        for (int i = 0; i < numPts; i++, srcOff += dimension, dstOff += dimension) {
+            double lon = srcPts[srcOff];
+            copyOrdinates(srcPts, srcOff, dstPts, dstOff, 1, dimension);
+            dstPts[dstOff] = lon + add - subtract;
+        }
+    }
+
+    /**
+     * Transforms coordinates stored as parallel arrays of ordinal values, in-place.
+     * Only the longitudes are changed.
+     *
+     * @param xs    the first ordinals of the points
+     * @param ys    the second ordinals of the points
+     * @param zs    the third ordinals of the points, may be null
+     * @param off   the index of the first point to transform
+     * @param count the number of points to transform
+     */
+    public void transform(double[] xs, double[] ys, double[] zs, int off, int count) throws Exception {
+        checkArrayArguments(xs, ys, zs, off, count, false);
+        double add = _source.getLongitude();
+        double subtract = _target.getLongitude();
+        for (int i = off; i < off + count; i++)
+            xs[i] = xs[i] + add - subtract;
+    }
+
+    /**
+     * Gets the derivative of this transform, the longitude is only shifted so it is the identity matrix.
+     *
+     * @param point point
+     * @return the identity matrix
+     */
+    public double[][] derivative(double[] point) throws Exception {
+        double[] m = new double[point.length * point.length];
+        setIdentity(m, 0, point.length);
+        return unpackMatrix(m, 0, point.length);
+    }
+
+    /**
+     * Gets the derivatives of this transform at a list of packed points, all identity matrices.
+     *
+     * @param srcPts      the array containing the packed source ordinals
+     * @param srcOff      the offset of the first source point in the source array
+     * @param dstMatrices the array receiving the packed row major matrices
+     * @param dstOff      the offset of the first matrix in the destination array
+     * @param numPts      the number of points
+     * @param dimension   the number of ordinals of each point
+     */
+    public void derivative(double[] srcPts, int srcOff, double[] dstMatrices, int dstOff, int numPts, int dimension) throws Exception {
+        checkDerivativeArguments(srcPts, srcOff, dstMatrices, dstOff, numPts, dimension);
+        for (int i = 0; i < numPts; i++)
+            setIdentity(dstMatrices, dstOff + i * dimension * dimension, dimension);
+    }
+
+    /**
+     * Tests whether this transform does not move any points.
+     *
+     * @return isidentity
+     */
+    public boolean identity() throws Exception {
+        return _source.getLongitude() == _target.getLongitude();
+    }
+
+    /**
+     * Tests whether the other transform undoes this meridian shift.
+     *
+     * @param other the other transform
+     * @return true if the other transform is the inverse of this one
+     * @throws Exception the exception
      */
-    public void invert() throws Exception {
-        this._isinverted = !this._isinverted;
+    boolean isInverseOf(IMathTransform other) throws Exception {
+        if (!(other instanceof PrimeMeridianTransform))
+            return false;
+
+        PrimeMeridianTransform pt = (PrimeMeridianTransform) other;
+        double shift = _source.getLongitude() - _target.getLongitude();
+        double otherShift = pt._source.getLongitude() - pt._target.getLongitude();
+        return shift == -otherShift;
     }
 
 }
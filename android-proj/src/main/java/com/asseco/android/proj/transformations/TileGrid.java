@@ -0,0 +1,121 @@
+package com.asseco.android.proj.transformations;
+
+/**
+ * A regular grid of exactly transformed nodes covering a tile, which transforms the points
+ * within the tile by bilinear interpolation.
+ *
+ * Nodes which the transform fails for are kept as NaN, points in the cells around them are
+ * not interpolated. Instances are created by {@link TileGridCache} and are immutable.
+ */
+public class TileGrid {
+    private final double _minX, _minY, _maxX, _maxY;
+    private final double _scaleX, _scaleY;
+    private final int _size;
+    /**
+     * The transformed nodes, row by row from the smallest second ordinal.
+     */
+    private final double[] _nodes;
+
+    /**
+     * Instantiates a new grid by transforming its nodes.
+     *
+     * @param transform the transform of the nodes
+     * @param minX      the smallest first source ordinal of the tile
+     * @param minY      the smallest second source ordinal of the tile
+     * @param maxX      the largest first source ordinal of the tile
+     * @param maxY      the largest second source ordinal of the tile
+     * @param size      the number of nodes along each side of the tile
+     * @throws Exception the exception
+     */
+    public TileGrid(IMathTransform transform, double minX, double minY, double maxX, double maxY, int size) throws Exception {
+        if (size < 2)
+            throw new IllegalArgumentException("A grid needs two nodes along each side at least.");
+        if (!(minX < maxX) || !(minY < maxY))
+            throw new IllegalArgumentException("Invalid extent.");
+
+        _minX = minX;
+        _minY = minY;
+        _maxX = maxX;
+        _maxY = maxY;
+        _scaleX = (size - 1) / (maxX - minX);
+        _scaleY = (size - 1) / (maxY - minY);
+        _size = size;
+        _nodes = new double[size * size * 2];
+        for (int j = 0, p = 0; j < size; j++) {
+            double y = j == size - 1 ? maxY : minY + j / _scaleY;
+            for (int i = 0; i < size; i++, p += 2) {
+                _nodes[p] = i == size - 1 ? maxX : minX + i / _scaleX;
+                _nodes[p + 1] = y;
+            }
+        }
+        //failed nodes are filled with NaN
+        transform.transform(_nodes, 0, _nodes, 0, size * size, 2, null);
+    }
+
+    /**
+     * Gets the number of nodes along each side of the tile.
+     *
+     * @return the grid size
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    /**
+     * Gets the extent of the tile.
+     *
+     * @return the smallest and largest source ordinals, minX, minY, maxX, maxY
+     */
+    public double[] getExtent() {
+        return new double[]{_minX, _minY, _maxX, _maxY};
+    }
+
+    /**
+     * Tests whether a point is within the tile.
+     *
+     * @param x the first source ordinal
+     * @param y the second source ordinal
+     * @return whether the point is within the tile
+     */
+    public boolean contains(double x, double y) {
+        return x >= _minX && x <= _maxX && y >= _minY && y <= _maxY;
+    }
+
+    /**
+     * Interpolates the transform of a point within the tile.
+     *
+     * @param x      the first source ordinal
+     * @param y      the second source ordinal
+     * @param dst    the array receiving the two transformed ordinals
+     * @param dstOff the offset in the destination array
+     * @return false when the point is outside the tile or next to a failed node, the destination is unchanged then
+     */
+    public boolean interpolate(double x, double y, double[] dst, int dstOff) {
+        if (!contains(x, y))
+            return false;
+
+        double u = (x - _minX) * _scaleX;
+        double v = (y - _minY) * _scaleY;
+        int i = Math.min((int) u, _size - 2);
+        int j = Math.min((int) v, _size - 2);
+        u -= i;
+        v -= j;
+        int p00 = (j * _size + i) * 2;
+        int p10 = p00 + 2;
+        int p01 = p00 + _size * 2;
+        int p11 = p01 + 2;
+        double w00 = (1 - u) * (1 - v);
+        double w10 = u * (1 - v);
+        double w01 = (1 - u) * v;
+        double w11 = u * v;
+        double rx = w00 * _nodes[p00] + w10 * _nodes[p10] + w01 * _nodes[p01] + w11 * _nodes[p11];
+        double ry = w00 * _nodes[p00 + 1] + w10 * _nodes[p10 + 1] + w01 * _nodes[p01 + 1] + w11 * _nodes[p11 + 1];
+        if (Double.isNaN(rx) || Double.isNaN(ry))
+            return false;
+
+        dst[dstOff] = rx;
+        dst[dstOff + 1] = ry;
+        return true;
+    }
+
+}
@@ -0,0 +1,261 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.LruCache;
+
+/**
+ * Transforms points for map rendering by interpolating in grids cached per XYZ tile.
+ *
+ * The source coordinate system of the transformations is divided into tiles like an XYZ
+ * tile pyramid, by default the Web Mercator pyramid of OSM basemaps. The first time a
+ * tile is needed, a coarse grid of its nodes is transformed exactly, see {@link TileGrid};
+ * points within the tile are interpolated bilinearly from then on. The grids of all
+ * transformations are kept in one cache which evicts the least recently used tile, so
+ * panning over the same area transforms no point exactly again.
+ *
+ * The interpolation error shrinks with the square of the tile size. It is far below a pixel
+ * for the zoom levels of a city or a country and smooth transforms, low zoom levels spanning
+ * large parts of the world are better transformed exactly. Points outside the pyramid and
+ * next to nodes the transform fails for are transformed exactly.
+ */
+public class TileGridCache {
+    /**
+     * Default number of nodes along each side of a tile.
+     */
+    public static final int DEFAULT_GRID_SIZE = 17;
+    /**
+     * Default number of tiles kept by the cache.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+    /**
+     * Half the width of the Web Mercator tile pyramid in meters.
+     */
+    public static final double WEB_MERCATOR_EXTENT = 20037508.342789244;
+
+    private final double _originX;
+    private final double _originY;
+    private final double _extent;
+    private final int _gridSize;
+    private final LruCache<TileKey, TileGrid> _cache;
+
+    /**
+     * Instantiates a new cache for transformations from Web Mercator.
+     */
+    public TileGridCache() {
+        this(-WEB_MERCATOR_EXTENT, WEB_MERCATOR_EXTENT, 2 * WEB_MERCATOR_EXTENT, DEFAULT_GRID_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new cache.
+     *
+     * @param originX  the smallest first source ordinal of the tile at zoom level 0
+     * @param originY  the largest second source ordinal of the tile at zoom level 0, tile rows count down from it
+     * @param extent   the width and height of the tile at zoom level 0
+     * @param gridSize the number of nodes along each side of a tile
+     * @param capacity the maximal number of tiles kept
+     */
+    public TileGridCache(double originX, double originY, double extent, int gridSize, int capacity) {
+        if (!(extent > 0))
+            throw new IllegalArgumentException("Invalid extent.");
+        if (gridSize < 2)
+            throw new IllegalArgumentException("A grid needs two nodes along each side at least.");
+
+        _originX = originX;
+        _originY = originY;
+        _extent = extent;
+        _gridSize = gridSize;
+        _cache = new LruCache<TileKey, TileGrid>(capacity);
+    }
+
+    /**
+     * Gets the number of nodes along each side of a tile.
+     *
+     * @return the grid size
+     */
+    public int getGridSize() {
+        return _gridSize;
+    }
+
+    /**
+     * Gets the maximal number of tiles kept.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return _cache.getCapacity();
+    }
+
+    /**
+     * Sets the maximal number of tiles kept, the least recently used tiles are evicted.
+     *
+     * @param capacity the capacity, 0 disables the cache
+     */
+    public void setCapacity(int capacity) {
+        _cache.setCapacity(capacity);
+    }
+
+    /**
+     * Gets the number of tiles in the cache.
+     *
+     * @return the size
+     */
+    public int size() {
+        return _cache.size();
+    }
+
+    /**
+     * Removes all tiles.
+     */
+    public void clear() {
+        _cache.clear();
+    }
+
+    /**
+     * Gets the extent of a tile.
+     *
+     * @param z the zoom level
+     * @param x the column of the tile
+     * @param y the row of the tile, counted from the top
+     * @return the smallest and largest source ordinals, minX, minY, maxX, maxY
+     */
+    public double[] getTileExtent(int z, int x, int y) {
+        checkTile(z, x, y);
+        double size = _extent / (1L << z);
+        return new double[]{_originX + x * size, _originY - (y + 1) * size, _originX + (x + 1) * size, _originY - y * size};
+    }
+
+    /**
+     * Gets the grid of a tile, transforming its nodes when it is not cached.
+     *
+     * @param transformation the transformation
+     * @param z              the zoom level
+     * @param x              the column of the tile
+     * @param y              the row of the tile, counted from the top
+     * @return the grid
+     * @throws Exception the exception
+     */
+    public TileGrid getGrid(ICoordinateTransformation transformation, int z, int x, int y) throws Exception {
+        return getGrid(transformation.getMathTransform(), z, x, y);
+    }
+
+    /**
+     * Gets the grid of a tile, transforming its nodes when it is not cached.
+     *
+     * @param transform the math transform
+     * @param z         the zoom level
+     * @param x         the column of the tile
+     * @param y         the row of the tile, counted from the top
+     * @return the grid
+     * @throws Exception the exception
+     */
+    public TileGrid getGrid(IMathTransform transform, int z, int x, int y) throws Exception {
+        checkTile(z, x, y);
+        TileKey key = new TileKey(transform, z, x, y);
+        TileGrid grid = _cache.get(key);
+        if (grid == null) {
+            //a grid built twice by racing threads is only wasted work
+            double[] e = getTileExtent(z, x, y);
+            grid = new TileGrid(transform, e[0], e[1], e[2], e[3], _gridSize);
+            _cache.put(key, grid);
+        }
+        return grid;
+    }
+
+    /**
+     * Transforms a point through the grid of its tile.
+     *
+     * @param transformation the transformation
+     * @param z              the zoom level of the tiles
+     * @param point          the point
+     * @return the transformed point
+     * @throws Exception the exception
+     */
+    public double[] transform(ICoordinateTransformation transformation, int z, double[] point) throws Exception {
+        if (point.length != 2)
+            return transformation.getMathTransform().transform(point);
+
+        double[] res = new double[2];
+        transform(transformation, z, point, 0, res, 0, 1);
+        return res;
+    }
+
+    /**
+     * Transforms a list of packed two dimensional points through the grids of their tiles.
+     * The grid of the previous point is tried first, so points which are sorted by tile,
+     * as the vertices of a rendered feature mostly are, look up the cache rarely.
+     *
+     * @param transformation the transformation
+     * @param z              the zoom level of the tiles
+     * @param srcPts         the array containing the packed source ordinals
+     * @param srcOff         the offset of the first source point in the source array
+     * @param dstPts         the array receiving the packed transformed ordinals
+     * @param dstOff         the offset of the first transformed point in the destination array
+     * @param numPts         the number of points to transform
+     * @throws Exception the exception
+     */
+    public void transform(ICoordinateTransformation transformation, int z, double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts) throws Exception {
+        IMathTransform transform = transformation.getMathTransform();
+        checkTile(z, 0, 0);
+        if (srcPts == null || dstPts == null)
+            throw new IllegalArgumentException("Point arrays must not be null.");
+        if (numPts < 0 || srcOff < 0 || dstOff < 0 || srcOff + numPts * 2 > srcPts.length || dstOff + numPts * 2 > dstPts.length)
+            throw new IllegalArgumentException("Point range is out of the array bounds.");
+
+        long tiles = 1L << z;
+        double size = _extent / tiles;
+        TileGrid grid = null;
+        //backwards when an in-place destination is ahead of the source
+        boolean backwards = srcPts == dstPts && dstOff > srcOff;
+        for (int k = 0; k < numPts; k++) {
+            int n = backwards ? numPts - 1 - k : k;
+            int src = srcOff + n * 2;
+            int dst = dstOff + n * 2;
+            double x = srcPts[src];
+            double y = srcPts[src + 1];
+            if (grid == null || !grid.contains(x, y)) {
+                double col = Math.floor((x - _originX) / size);
+                double row = Math.floor((_originY - y) / size);
+                grid = col >= 0 && col < tiles && row >= 0 && row < tiles ? getGrid(transform, z, (int) col, (int) row) : null;
+            }
+            if (grid == null || !grid.interpolate(x, y, dstPts, dst))
+                transform.transform(srcPts, src, dstPts, dst, 1, 2);
+        }
+    }
+
+    private static void checkTile(int z, int x, int y) {
+        if (z < 0 || z > 30)
+            throw new IllegalArgumentException("Invalid zoom level.");
+        if (x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z))
+            throw new IllegalArgumentException("Invalid tile.");
+    }
+
+    /**
+     * Identifies the grid of a tile of a math transform, transforms are compared by identity.
+     */
+    private static final class TileKey {
+        private final IMathTransform _transform;
+        private final int _z, _x, _y;
+
+        TileKey(IMathTransform transform, int z, int x, int y) {
+            _transform = transform;
+            _z = z;
+            _x = x;
+            _y = y;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TileKey))
+                return false;
+
+            TileKey other = (TileKey) obj;
+            return _transform == other._transform && _z == other._z && _x == other._x && _y == other._y;
+        }
+
+        public int hashCode() {
+            int h = System.identityHashCode(_transform);
+            h = h * 31 + _z;
+            h = h * 31 + _x;
+            return h * 31 + _y;
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.asseco.android.proj;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CoordinateSystemAuthorityFactoryTest {
+    private static final long[] ZONES = {25832, 25833, 25834, 25835};
+
+    /**
+     * Gets the text of a UTM zone of ETRS89, the zones share their geographic coordinate system.
+     */
+    private static String zone(long code) {
+        int zone = (int) (code - 25800);
+        return TestData.UTM33.replace("UTM zone 33N", "UTM zone " + zone + "N")
+                .replace("PARAMETER[\"central_meridian\",15]", "PARAMETER[\"central_meridian\"," + (zone * 6 - 183) + "]")
+                .replace("\"25833\"", "\"" + code + "\"");
+    }
+
+    /**
+     * Writes a catalog of the UTM zones and WGS 84.
+     */
+    private static byte[] write() throws Exception {
+        CoordinateSystemIndexWriter writer = new CoordinateSystemIndexWriter("EPSG");
+        for (long code : ZONES)
+            writer.add(code, zone(code));
+        writer.add(4326, TestData.WGS84);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Asserts that a buffer is rejected as catalog.
+     */
+    private static void assertRejected(byte[] catalog) {
+        try {
+            new CoordinateSystemAuthorityFactory(ByteBuffer.wrap(catalog));
+            fail("The catalog has been accepted.");
+        } catch (Exception e) {
+            //expected
+        }
+    }
+
+    private static int count(String text, String part) {
+        int n = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1))
+            n++;
+        return n;
+    }
+
+    @Test
+    public void sharedSegmentsAreStoredOnce() throws Exception {
+        byte[] catalog = write();
+        String geogcs = TestData.UTM33.substring(TestData.UTM33.indexOf("GEOGCS"), TestData.UTM33.indexOf(",PROJECTION"));
+        //the authority, the geographic coordinate system and the text around it for each zone,
+        //the datum of WGS 84 and the text around it
+        assertEquals(1 + 1 + 2 * ZONES.length + 3, ByteBuffer.wrap(catalog).getInt(18));
+        assertEquals(1, count(new String(catalog, "UTF-8"), geogcs));
+    }
+
+    @Test
+    public void textsRoundTrip() throws Exception {
+        CoordinateSystemAuthorityFactory factory = new CoordinateSystemAuthorityFactory(ByteBuffer.wrap(write()));
+        assertEquals("EPSG", factory.getAuthority());
+        assertEquals(ZONES.length + 1, factory.getCodeCount());
+        long[] codes = new long[factory.getCodeCount()];
+        for (int i = 0; i < codes.length; i++)
+            codes[i] = factory.getCode(i);
+        assertEquals("[4326, 25832, 25833, 25834, 25835]", Arrays.toString(codes));
+        //the first and the last code are the bounds of the binary search
+        assertEquals(TestData.WGS84, factory.getWkt(4326));
+        for (long code : ZONES)
+            assertEquals(zone(code), factory.getWkt(code));
+        for (long code : new long[]{0, 4325, 4327, 25831, 25836, Long.MAX_VALUE}) {
+            assertNull(factory.getWkt(code));
+            assertFalse(factory.contains(code));
+            assertNull(factory.createObject(code));
+        }
+        assertTrue(factory.contains(25835));
+    }
+
+    @Test
+    public void wrongTypesGiveNull() throws Exception {
+        CoordinateSystemAuthorityFactory factory = new CoordinateSystemAuthorityFactory(ByteBuffer.wrap(write()));
+        assertNotNull(factory.createProjectedCoordinateSystem(25833));
+        assertNull(factory.createGeographicCoordinateSystem(25833));
+        assertNull(factory.createHorizontalDatum(25833));
+        assertNull(factory.createEllipsoid(25833));
+        assertNull(factory.createLinearUnit(25833));
+        assertNotNull(factory.createGeographicCoordinateSystem(4326));
+        assertNull(factory.createProjectedCoordinateSystem(4326));
+        assertNull(factory.createPrimeMeridian(4326));
+        assertNull(factory.createAngularUnit(4326));
+        assertEquals("ETRS89 / UTM zone 33N", factory.createHorizontalCoordinateSystem(25833).getName());
+    }
+
+    @Test
+    public void invalidCatalogsAreRejected() throws Exception {
+        byte[] catalog = write();
+        byte[] magic = catalog.clone();
+        magic[0] ^= 1;
+        assertRejected(magic);
+        byte[] version = catalog.clone();
+        version[5]++;
+        assertRejected(version);
+        assertRejected(Arrays.copyOf(catalog, 21));
+        //the header is complete, the segments are not
+        assertRejected(Arrays.copyOf(catalog, catalog.length - 1));
+        assertRejected(Arrays.copyOf(catalog, 22 + 8));
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.asseco.android.proj;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CoordinateSystemCatalogTest {
+    private static final String CATALOG = "# test catalog\n"
+            + "EPSG:4326 " + TestData.WGS84 + "\n"
+            + "ESRI:4326 " + TestData.UTM33 + "\n"
+            + "25833;" + TestData.UTM33 + "\n"
+            + "\n"
+            + TestData.KROVAK + "\n"
+            + "EPSG:4326," + TestData.KROVAK + "\n";
+
+    /**
+     * Reads the test catalog.
+     */
+    private static CoordinateSystemCatalog read() throws Exception {
+        return CoordinateSystemCatalog.read(new ByteArrayInputStream(CATALOG.getBytes("UTF-8")));
+    }
+
+    @Test
+    public void codesAreKeptPerAuthority() throws Exception {
+        CoordinateSystemCatalog catalog = read();
+        assertEquals(5, catalog.size());
+        assertEquals("WGS 84", catalog.get("EPSG", 4326).getName());
+        assertEquals("ETRS89 / UTM zone 33N", catalog.get("esri", 4326).getName());
+        assertEquals("WGS 84", catalog.get(4326).getName());
+        assertEquals("ETRS89 / UTM zone 33N", catalog.getCoordinateSystem(25833).getName());
+        assertTrue(catalog.contains("", 25833));
+        assertFalse(catalog.contains("EPSG", 25833));
+        //the authority and the code of a line without a code are read from the text
+        assertTrue(catalog.contains("EPSG", 102067));
+        assertNull(catalog.get("ESRI", 102067));
+        assertArrayEquals(new long[]{4326, 25833, 102067}, catalog.getCodes());
+        assertArrayEquals(new long[]{4326}, catalog.getCodes("ESRI"));
+    }
+
+    @Test
+    public void entriesAreParsedOnce() throws Exception {
+        CoordinateSystemCatalog catalog = read();
+        assertEquals(0, catalog.getParsedCount());
+        assertSame(catalog.get(102067), catalog.getEntry(3));
+        assertEquals(1, catalog.getParsedCount());
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            catalog.warmUp(pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(5, catalog.getParsedCount());
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.asseco.android.proj;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class CoordinateSystemCodeIndexTest {
+
+    /**
+     * Creates an index whose slots are all used, which the writer never does.
+     */
+    private static CoordinateSystemCodeIndex fullIndex(int slots) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 2 + 4 + 4 + 16 * slots);
+        buffer.putInt(CoordinateSystemCodeIndex.MAGIC).putShort(CoordinateSystemCodeIndex.VERSION).putInt(slots).putInt(slots);
+        for (int i = 0; i < slots; i++)
+            buffer.putLong(i + 1);
+        for (int i = 0; i < slots; i++)
+            buffer.putLong(1000 + i);
+        buffer.flip();
+        return new CoordinateSystemCodeIndex(buffer, null);
+    }
+
+    @Test(timeout = 5000)
+    public void fullTableEndsTheProbe() throws Exception {
+        assertEquals(-1, fullIndex(8).findCode(TestData.parse(TestData.WGS84)));
+    }
+
+    @Test
+    public void findsCodeInLastProbedSlot() throws Exception {
+        ICoordinateSystem wgs84 = TestData.parse(TestData.WGS84);
+        long hash = CoordinateSystemCodeIndex.hash(CoordinateSystemFingerprint.quantized(wgs84));
+        //the hash is stored in the last slot probed from its home slot
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 2 + 4 + 4 + 16 * 4);
+        buffer.putInt(CoordinateSystemCodeIndex.MAGIC).putShort(CoordinateSystemCodeIndex.VERSION).putInt(4).putInt(4);
+        int slot = ((int) hash + 3) & 3;
+        for (int i = 0; i < 4; i++)
+            buffer.putLong(i == slot ? hash : i + 1);
+        for (int i = 0; i < 4; i++)
+            buffer.putLong(i == slot ? 4326 : 1000 + i);
+        buffer.flip();
+        assertEquals(4326, new CoordinateSystemCodeIndex(buffer, null).findCode(wgs84));
+    }
+
+}
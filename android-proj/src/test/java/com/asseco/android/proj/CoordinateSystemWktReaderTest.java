@@ -0,0 +1,98 @@
+package com.asseco.android.proj;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CoordinateSystemWktReaderTest {
+
+    /**
+     * Asserts that running the setter throws, as the object it modifies is shared.
+     */
+    private static void assertFrozen(Setter setter) throws Exception {
+        try {
+            setter.run();
+            fail("A shared object has been modified.");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+
+    private interface Setter {
+        void run() throws Exception;
+    }
+
+    @Test
+    public void cachedObjectsAreShared() throws Exception {
+        IInfo first = CoordinateSystemWktReader.parse(TestData.KROVAK);
+        assertSame(first, CoordinateSystemWktReader.parse(TestData.KROVAK));
+        //the geographic coordinate system is interned with its canonical text
+        IGeographicCoordinateSystem gcs = ((IProjectedCoordinateSystem) first).getGeographicCoordinateSystem();
+        IGeographicCoordinateSystem other = (IGeographicCoordinateSystem) CoordinateSystemWktReader.parse(TestData.KROVAK.substring(TestData.KROVAK.indexOf("GEOGCS"), TestData.KROVAK.indexOf(",PROJECTION")).replace(",", ", "));
+        assertSame(gcs, other);
+    }
+
+    @Test
+    public void sharedObjectsCannotBeModified() throws Exception {
+        final IProjectedCoordinateSystem pcs = (IProjectedCoordinateSystem) CoordinateSystemWktReader.parse(TestData.KROVAK);
+        final IGeographicCoordinateSystem gcs = pcs.getGeographicCoordinateSystem();
+        final IHorizontalDatum datum = gcs.getHorizontalDatum();
+        assertTrue(((Info) pcs).isFrozen());
+        assertFrozen(new Setter() {
+            public void run() throws Exception {
+                ((Info) pcs).setName("Modified");
+            }
+        });
+        assertFrozen(new Setter() {
+            public void run() throws Exception {
+                gcs.setPrimeMeridian(PrimeMeridian.getParis());
+            }
+        });
+        assertFrozen(new Setter() {
+            public void run() throws Exception {
+                datum.setWgs84Parameters(new Wgs84ConversionInfo());
+            }
+        });
+        assertFrozen(new Setter() {
+            public void run() throws Exception {
+                datum.getEllipsoid().setSemiMajorAxis(1);
+            }
+        });
+        assertFrozen(new Setter() {
+            public void run() throws Exception {
+                pcs.getProjection().getParameter(0).setValue(0);
+            }
+        });
+        assertFrozen(new Setter() {
+            public void run() throws Exception {
+                ((CoordinateSystem) pcs).getAxisInfo().clear();
+            }
+        });
+        //the public fields of the conversion are copied
+        datum.getWgs84Parameters().Dx = 0;
+        assertEquals(570.8, datum.getWgs84Parameters().Dx, 0);
+        assertEquals("S-JTSK (Greenwich) / Krovak", CoordinateSystemWktReader.parse(TestData.KROVAK).getName());
+    }
+
+    @Test
+    public void objectsCanBeModifiedWithoutCache() throws Exception {
+        int size = CoordinateSystemWktReader.getCacheSize();
+        CoordinateSystemWktReader.setCacheSize(0);
+        try {
+            IProjectedCoordinateSystem pcs = (IProjectedCoordinateSystem) CoordinateSystemWktReader.parse(TestData.KROVAK);
+            assertNotSame(pcs, CoordinateSystemWktReader.parse(TestData.KROVAK));
+            assertFalse(((Info) pcs).isFrozen());
+            ((Info) pcs).setName("Modified");
+            pcs.getGeographicCoordinateSystem().getHorizontalDatum().setWgs84Parameters(null);
+            assertEquals("Modified", pcs.getName());
+        } finally {
+            CoordinateSystemWktReader.setCacheSize(size);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.asseco.android.proj;
+
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+public class EllipsoidConstantsTest {
+
+    /**
+     * Gets all series of the constants.
+     */
+    private static double[][] series(EllipsoidConstants constants) {
+        return new double[][]{constants.getConformalSeries(), constants.getGeodeticToConformalSeries(), constants.getAuthalicSeries(),
+                constants.getRectifyingSeries(), constants.getEllipsoidToSphereSeries(), constants.getSphereToEllipsoidSeries()};
+    }
+
+    @Test
+    public void seriesOfSharedInstanceCannotBeModified() throws Exception {
+        EllipsoidConstants constants = EllipsoidConstants.of(6377397.155, 6356078.962818189);
+        assertSame(constants, EllipsoidConstants.of(6377397.155, 6356078.962818189));
+        IMathTransform projection = TestData.createProjection("Kruger_Transverse_Mercator");
+        double[] point = {16.5, 50.1};
+        double[] expected = projection.transform(point);
+        double[][] original = series(constants);
+        for (double[] s : series(constants))
+            Arrays.fill(s, 0);
+
+        double[][] actual = series(constants);
+        for (int i = 0; i < original.length; i++)
+            assertArrayEquals(original[i], actual[i], 0);
+        assertArrayEquals(expected, projection.transform(point), 0);
+        assertArrayEquals(expected, TestData.createProjection("Kruger_Transverse_Mercator").transform(point), 0);
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.asseco.android.proj;
+
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MathTransformWktReaderTest {
+    private static final String AFFINE = "PARAM_MT[\"Affine\", PARAMETER[\"num_row\",3],PARAMETER[\"num_col\",3],PARAMETER[\"elt_0_0\",2],PARAMETER[\"elt_0_2\",100],PARAMETER[\"elt_1_1\",-0.5],PARAMETER[\"elt_1_2\",1E3]]";
+
+    @Test
+    public void parsesAffineTransform() throws Exception {
+        IMathTransform mt = MathTransformWktReader.parse(AFFINE);
+        assertArrayEquals(new double[]{120, 995}, mt.transform(new double[]{10, 10}), 1e-12);
+    }
+
+    @Test
+    public void streamTokenizerOverloadReadsTheSameTransform() throws Exception {
+        WktStreamTokenizer tokenizer = new WktStreamTokenizer(new StringReader(AFFINE + ",AUTHORITY[\"EPSG\",\"1\"]"));
+        tokenizer.nextToken();
+        IMathTransform mt = MathTransformWktReader.readMathTransform(tokenizer);
+        assertArrayEquals(new double[]{120, 995}, mt.transform(new double[]{10, 10}), 1e-12);
+        //the tokenizer stands on the closing bracket of the transform
+        assertEquals("]", tokenizer.getStringValue());
+        tokenizer.readToken(",");
+        assertEquals("EPSG", tokenizer.readAuthority().authority);
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.asseco.android.proj;
+
+import com.asseco.android.proj.projections.AlbersProjection;
+import com.asseco.android.proj.projections.CassiniSoldnerProjection;
+import com.asseco.android.proj.projections.HotineObliqueMercatorProjection;
+import com.asseco.android.proj.projections.KrovakProjection;
+import com.asseco.android.proj.projections.KrugerTransverseMercator;
+import com.asseco.android.proj.projections.LambertConformalConic2SP;
+import com.asseco.android.proj.projections.MapProjection;
+import com.asseco.android.proj.projections.Mercator;
+import com.asseco.android.proj.projections.ObliqueMercatorProjection;
+import com.asseco.android.proj.projections.ObliqueStereographicProjection;
+import com.asseco.android.proj.projections.PolyconicProjection;
+import com.asseco.android.proj.projections.PseudoMercator;
+import com.asseco.android.proj.projections.TransverseMercator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Coordinate systems, projections and points shared by the tests and the benchmarks.
+ */
+public final class TestData {
+    /**
+     * WGS 84, EPSG:4326.
+     */
+    public static final String WGS84 = "GEOGCS[\"WGS 84\",DATUM[\"WGS_1984\",SPHEROID[\"WGS 84\",6378137,298.257223563,AUTHORITY[\"EPSG\",\"7030\"]],AUTHORITY[\"EPSG\",\"6326\"]],PRIMEM[\"Greenwich\",0,AUTHORITY[\"EPSG\",\"8901\"]],UNIT[\"degree\",0.01745329251994328,AUTHORITY[\"EPSG\",\"9122\"]],AUTHORITY[\"EPSG\",\"4326\"]]";
+
+    /**
+     * S-JTSK (Greenwich) / Krovak.
+     */
+    public static final String KROVAK = "PROJCS[\"S-JTSK (Greenwich) / Krovak\",GEOGCS[\"S-JTSK (Greenwich)\",DATUM[\"S_JTSK_Greenwich\",SPHEROID[\"Bessel 1841\",6377397.155,299.1528128,AUTHORITY[\"EPSG\",\"7004\"]],TOWGS84[570.8,85.7,462.8,4.998,1.587,5.261,3.56],AUTHORITY[\"EPSG\",\"6818\"]],PRIMEM[\"Greenwich\",0,AUTHORITY[\"EPSG\",\"8901\"]],UNIT[\"degree\",0.0174532925199432958,AUTHORITY[\"EPSG\",\"9122\"]],AUTHORITY[\"EPSG\",\"4818\"]],PROJECTION[\"Krovak\"],PARAMETER[\"latitude_of_center\",49.5],PARAMETER[\"longitude_of_center\",24.83333333333333],PARAMETER[\"X_Scale\",-1],PARAMETER[\"Y_Scale\",1],PARAMETER[\"XY_Plane_Rotation\",90],PARAMETER[\"azimuth\",30.28813975277778],PARAMETER[\"pseudo_standard_parallel_1\",78.5],PARAMETER[\"scale_factor\",0.9999],PARAMETER[\"false_easting\",0],PARAMETER[\"false_northing\",0],UNIT[\"metre\",1,AUTHORITY[\"EPSG\",\"9001\"]],AUTHORITY[\"EPSG\",\"102067\"]]";
+
+    /**
+     * ETRS89 / UTM zone 33N, EPSG:25833.
+     */
+    public static final String UTM33 = "PROJCS[\"ETRS89 / UTM zone 33N\",GEOGCS[\"ETRS89\",DATUM[\"European_Terrestrial_Reference_System_1989\",SPHEROID[\"GRS 1980\",6378137,298.257222101,AUTHORITY[\"EPSG\",\"7019\"]],TOWGS84[0,0,0,0,0,0,0],AUTHORITY[\"EPSG\",\"6258\"]],PRIMEM[\"Greenwich\",0,AUTHORITY[\"EPSG\",\"8901\"]],UNIT[\"degree\",0.0174532925199433,AUTHORITY[\"EPSG\",\"9122\"]],AUTHORITY[\"EPSG\",\"4258\"]],PROJECTION[\"Transverse_Mercator\"],PARAMETER[\"latitude_of_origin\",0],PARAMETER[\"central_meridian\",15],PARAMETER[\"scale_factor\",0.9996],PARAMETER[\"false_easting\",500000],PARAMETER[\"false_northing\",0],UNIT[\"metre\",1,AUTHORITY[\"EPSG\",\"9001\"]],AUTHORITY[\"EPSG\",\"25833\"]]";
+
+    /**
+     * Names of the projections {@link #createProjection(String)} creates, as used in WKT.
+     */
+    public static final String[] PROJECTIONS = {"Mercator_1SP", "Google_Mercator", "Transverse_Mercator", "Kruger_Transverse_Mercator", "Albers", "Krovak", "Polyconic", "Lambert_Conformal_Conic_2SP", "Cassini_Soldner", "Hotine_Oblique_Mercator", "Oblique_Mercator", "Oblique_Stereographic"};
+
+    private TestData() {
+    }
+
+    /**
+     * Parses a coordinate system.
+     *
+     * @param wkt the Well-known text
+     * @return the coordinate system
+     * @throws Exception the exception
+     */
+    public static ICoordinateSystem parse(String wkt) throws Exception {
+        return (ICoordinateSystem) CoordinateSystemWktReader.parse(wkt);
+    }
+
+    /**
+     * Creates a projection centered on the Czech Republic, which all sample points fall into.
+     *
+     * @param name the projection name
+     * @return the forward projection
+     * @throws Exception the exception
+     */
+    public static MapProjection createProjection(String name) throws Exception {
+        List<ProjectionParameter> parameters = new ArrayList<ProjectionParameter>();
+        parameters.add(new ProjectionParameter("semi_major", 6377397.155));
+        parameters.add(new ProjectionParameter("semi_minor", 6356078.962818189));
+        parameters.add(new ProjectionParameter("unit", 1));
+        parameters.add(new ProjectionParameter("scale_factor", 0.9999));
+        parameters.add(new ProjectionParameter("false_easting", 500000));
+        parameters.add(new ProjectionParameter("false_northing", 0));
+        switch (name) {
+            case "Mercator_1SP":
+                parameters.add(new ProjectionParameter("central_meridian", 15));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 0));
+                return new Mercator(parameters);
+            case "Google_Mercator":
+                parameters.set(0, new ProjectionParameter("semi_major", 6378137));
+                parameters.set(1, new ProjectionParameter("semi_minor", 6378137));
+                parameters.add(new ProjectionParameter("central_meridian", 0));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 0));
+                return new PseudoMercator(parameters);
+            case "Transverse_Mercator":
+                parameters.add(new ProjectionParameter("central_meridian", 15));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 0));
+                return new TransverseMercator(parameters);
+            case "Kruger_Transverse_Mercator":
+                parameters.add(new ProjectionParameter("central_meridian", 15));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 0));
+                return new KrugerTransverseMercator(parameters);
+            case "Albers":
+                parameters.add(new ProjectionParameter("longitude_of_center", 15));
+                parameters.add(new ProjectionParameter("latitude_of_center", 49.5));
+                parameters.add(new ProjectionParameter("standard_parallel_1", 48.5));
+                parameters.add(new ProjectionParameter("standard_parallel_2", 51));
+                return new AlbersProjection(parameters);
+            case "Krovak":
+                parameters.set(4, new ProjectionParameter("false_easting", 0));
+                parameters.add(new ProjectionParameter("longitude_of_center", 24.83333333333333));
+                parameters.add(new ProjectionParameter("latitude_of_center", 49.5));
+                parameters.add(new ProjectionParameter("azimuth", 30.28813975277778));
+                parameters.add(new ProjectionParameter("pseudo_standard_parallel_1", 78.5));
+                return new KrovakProjection(parameters);
+            case "Polyconic":
+                parameters.add(new ProjectionParameter("central_meridian", 15));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 49.5));
+                return new PolyconicProjection(parameters);
+            case "Lambert_Conformal_Conic_2SP":
+                parameters.add(new ProjectionParameter("central_meridian", 15));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 49.5));
+                parameters.add(new ProjectionParameter("standard_parallel_1", 48.5));
+                parameters.add(new ProjectionParameter("standard_parallel_2", 51));
+                return new LambertConformalConic2SP(parameters);
+            case "Cassini_Soldner":
+                parameters.add(new ProjectionParameter("central_meridian", 15));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 49.5));
+                return new CassiniSoldnerProjection(parameters);
+            case "Hotine_Oblique_Mercator":
+                parameters.add(new ProjectionParameter("longitude_of_center", 15));
+                parameters.add(new ProjectionParameter("latitude_of_center", 49.5));
+                parameters.add(new ProjectionParameter("azimuth", 30));
+                parameters.add(new ProjectionParameter("rectified_grid_angle", 30));
+                return new HotineObliqueMercatorProjection(parameters);
+            case "Oblique_Mercator":
+                parameters.add(new ProjectionParameter("longitude_of_center", 15));
+                parameters.add(new ProjectionParameter("latitude_of_center", 49.5));
+                parameters.add(new ProjectionParameter("azimuth", 30));
+                parameters.add(new ProjectionParameter("rectified_grid_angle", 30));
+                return new ObliqueMercatorProjection(parameters);
+            case "Oblique_Stereographic":
+                parameters.add(new ProjectionParameter("central_meridian", 15));
+                parameters.add(new ProjectionParameter("latitude_of_origin", 49.5));
+                return new ObliqueStereographicProjection(parameters);
+            default:
+                throw new IllegalArgumentException("Unknown projection " + name);
+        }
+    }
+
+    /**
+     * Creates random packed longitude/latitude points covering the Czech Republic.
+     *
+     * @param count     the number of points
+     * @param dimension the number of ordinals of each point, the third is a height
+     * @return the packed points
+     */
+    public static double[] createGeographicPoints(int count, int dimension) {
+        Random random = new Random(42);
+        double[] points = new double[count * dimension];
+        for (int i = 0; i < count; i++) {
+            points[i * dimension] = 12.5 + 6 * random.nextDouble();
+            points[i * dimension + 1] = 48.6 + 2.4 * random.nextDouble();
+            if (dimension > 2)
+                points[i * dimension + 2] = 200 + 1000 * random.nextDouble();
+        }
+        return points;
+    }
+
+}
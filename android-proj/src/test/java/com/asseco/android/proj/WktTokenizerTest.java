@@ -0,0 +1,90 @@
+package com.asseco.android.proj;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class WktTokenizerTest {
+
+    /**
+     * Tokenizes a number and compares its value with {@link Double#parseDouble(String)} bit by bit.
+     */
+    private static void assertParsed(String number) {
+        WktTokenizer tokenizer = new WktTokenizer("[" + number + "]");
+        tokenizer.nextToken();
+        assertEquals(TokenType.Number, tokenizer.nextToken());
+        assertEquals(number, tokenizer.getStringValue());
+        double expected = Double.parseDouble(number);
+        assertEquals(number, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(tokenizer.getNumericValue()));
+    }
+
+    @Test
+    public void numbersMatchParseDouble() {
+        String[] numbers = {"0", "-0", "1", "-1", "0.1", "0.2", "0.3", "6378137", "298.257223563", "0.0174532925199433",
+                "0.01745329251994328", "4.848136811095359E-6", "1E22", "1E23", "1E-22", "1E-23", "9007199254740992",
+                "9007199254740993", "123456789012345678901234567890", "0.000000000000000000000000001", "2.5e3", "7E+5",
+                "1.7976931348623157E308", "4.9E-324", "24.83333333333333", "-17.66666666666667"};
+        for (String number : numbers)
+            assertParsed(number);
+    }
+
+    @Test
+    public void randomNumbersMatchParseDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 6);
+            assertParsed(Double.toString(value));
+            assertParsed(String.format(Locale.ROOT, "%." + random.nextInt(18) + "f", value));
+            assertParsed(Long.toString(random.nextLong() >> random.nextInt(64)));
+        }
+    }
+
+    @Test
+    public void tokensMatchStreamTokenizer() throws Exception {
+        String wkt = TestData.KROVAK.replace(",", ", ").replace("[", "[\n");
+        WktStreamTokenizer expected = new WktStreamTokenizer(new StringReader(wkt));
+        WktTokenizer actual = new WktTokenizer(wkt);
+        while (true) {
+            TokenType type = expected.nextToken();
+            assertEquals(type, actual.nextToken());
+            if (type == TokenType.Eof)
+                break;
+
+            assertEquals(expected.getStringValue(), actual.getStringValue());
+            if (type == TokenType.Number)
+                assertEquals(Double.doubleToRawLongBits(expected.getNumericValue()), Double.doubleToRawLongBits(actual.getNumericValue()));
+        }
+    }
+
+    @Test
+    public void readsQuotedWordsAndAuthorities() {
+        WktTokenizer tokenizer = new WktTokenizer("DATUM[\"S-JTSK  Ferro\",AUTHORITY[\"EPSG\",\"6818\"]] AUTHORITY[\"ESRI\",102067]");
+        tokenizer.readToken("DATUM");
+        tokenizer.readToken("[");
+        assertEquals("S-JTSK  Ferro", tokenizer.readDoubleQuotedWord());
+        assertEquals("\"", tokenizer.getStringValue());
+        tokenizer.readToken(",");
+        tokenizer.nextToken();
+        WktTokenizer.Authority authority = tokenizer.readAuthority();
+        assertEquals("EPSG", authority.authority);
+        assertEquals(6818, authority.authorityCode);
+        tokenizer.readToken("]");
+        tokenizer.nextToken();
+        authority = tokenizer.readAuthority();
+        assertEquals("ESRI", authority.authority);
+        assertEquals(102067, authority.authorityCode);
+        assertEquals(TokenType.Eof, tokenizer.nextToken());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wordIsNoNumber() {
+        WktTokenizer tokenizer = new WktTokenizer("PARAMETER");
+        tokenizer.nextToken();
+        tokenizer.getNumericValue();
+    }
+
+}
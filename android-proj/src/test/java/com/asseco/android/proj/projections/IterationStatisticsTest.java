@@ -0,0 +1,71 @@
+package com.asseco.android.proj.projections;
+
+import com.asseco.android.proj.IProjectedCoordinateSystem;
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.transformations.CoordinateTransformationFactory;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IterationStatisticsTest {
+
+    @Test
+    public void recordsIterationsFailuresAndLargestResidual() {
+        IterationStatistics statistics = new IterationStatistics(4);
+        statistics.record(2, true, 0.25);
+        statistics.record(2, true, -0.5);
+        statistics.record(4, false, 3);
+        statistics.record(1, true, Double.NaN);
+
+        assertArrayEquals(new long[]{0, 1, 2, 0, 0, 1}, statistics.getHistogram());
+        assertEquals(4, statistics.getCount());
+        assertEquals(1, statistics.getFailures());
+        assertEquals(5.0 / 3, statistics.getMeanIterations(), 1e-12);
+        assertEquals(3, statistics.getMaxResidual(), 0);
+
+        statistics.reset();
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getMaxResidual(), 0);
+    }
+
+    @Test
+    public void transverseMercatorInverseRecordsResidualAfterLastStep() throws Exception {
+        IProjectedCoordinateSystem utm = (IProjectedCoordinateSystem) TestData.parse(TestData.UTM33);
+        MapProjection inverse = (MapProjection) new CoordinateTransformationFactory().createFromCoordinateSystems(utm, utm.getGeographicCoordinateSystem()).getMathTransform();
+        if (inverse.getFastMath())
+            return;
+
+        double[] points = TestData.createGeographicPoints(100, 2);
+        ((MapProjection) inverse.inverse()).transform(points, 0, points, 0, 100, 2);
+        boolean previous = MapProjection.getCollectIterationStatistics();
+        MapProjection.setCollectIterationStatistics(true);
+        try {
+            inverse.getIterationStatistics().reset();
+            inverse.transform(points, 0, points, 0, 100, 2);
+        } finally {
+            MapProjection.setCollectIterationStatistics(previous);
+        }
+
+        IterationStatistics statistics = inverse.getIterationStatistics();
+        assertEquals(100, statistics.getCount());
+        assertEquals(0, statistics.getFailures());
+        assertTrue(statistics.getMeanIterations() >= 1);
+        //inv_mlfn stops below 1E-11 radians, the step after it is far smaller
+        assertTrue(statistics.toString(), statistics.getMaxResidual() < 1e-6);
+    }
+
+    @Test
+    public void latitudeSolversThrowNoConvergence() throws Exception {
+        try {
+            MapProjection.phi2z(0.08, Double.NaN);
+            fail();
+        } catch (NoConvergenceException ex) {
+            assertEquals(16, ex.getIterations());
+        }
+    }
+
+}
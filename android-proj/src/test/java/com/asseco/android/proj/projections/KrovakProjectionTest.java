@@ -0,0 +1,58 @@
+package com.asseco.android.proj.projections;
+
+import com.asseco.android.proj.IProjectedCoordinateSystem;
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.transformations.CoordinateTransformationFactory;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class KrovakProjectionTest {
+
+    private static KrovakProjection createProjection() throws Exception {
+        IProjectedCoordinateSystem krovak = (IProjectedCoordinateSystem) TestData.parse(TestData.KROVAK);
+        CoordinateTransformationFactory factory = new CoordinateTransformationFactory();
+        return (KrovakProjection) factory.createFromCoordinateSystems(krovak.getGeographicCoordinateSystem(), krovak).getMathTransform();
+    }
+
+    /**
+     * The fixed-point iteration the inverse projection used before the series, from the
+     * conformal latitude to the geodetic latitude.
+     */
+    private static double iterateLatitude(double e, double chi) {
+        double kau = Math.tan(chi / 2 + Math.PI / 4);
+        double phi = 0;
+        for (int i = 0; i < 15; i++) {
+            double esf = e * Math.sin(phi);
+            double next = 2 * (Math.atan(kau * Math.pow((1 + esf) / (1 - esf), e / 2)) - Math.PI / 4);
+            if (Math.abs(next - phi) <= 1e-11)
+                return next;
+
+            phi = next;
+        }
+        return phi;
+    }
+
+    @Test
+    public void conformalSeriesMatchesIteration() throws Exception {
+        KrovakProjection projection = createProjection();
+        for (double deg = 45; deg <= 55; deg += 0.125) {
+            double chi = Math.toRadians(deg);
+            assertEquals(iterateLatitude(projection._e, chi), projection.conformalToGeodetic(chi), 5e-12);
+        }
+    }
+
+    @Test
+    public void inverseRoundTrips() throws Exception {
+        KrovakProjection projection = createProjection();
+        double[] points = TestData.createGeographicPoints(500, 2);
+        for (int i = 0; i < points.length; i += 2) {
+            double[] p = {points[i], points[i + 1]};
+            double[] back = projection.inverse().transform(projection.transform(p));
+            assertEquals(p[0], back[0], 1e-9);
+            assertEquals(p[1], back[1], 1e-9);
+        }
+    }
+
+}
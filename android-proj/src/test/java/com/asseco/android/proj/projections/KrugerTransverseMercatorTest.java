@@ -0,0 +1,63 @@
+package com.asseco.android.proj.projections;
+
+import com.asseco.android.proj.IProjectedCoordinateSystem;
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.transformations.CoordinateTransformationFactory;
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KrugerTransverseMercatorTest {
+
+    /**
+     * Creates the UTM zone 33N projection with the Krüger n-series or the Snyder series.
+     */
+    private static IMathTransform createProjection(boolean kruger) throws Exception {
+        IProjectedCoordinateSystem utm = (IProjectedCoordinateSystem) TestData.parse(TestData.UTM33);
+        boolean previous = CoordinateTransformationFactory.getUseKrugerTransverseMercator();
+        CoordinateTransformationFactory.setUseKrugerTransverseMercator(kruger);
+        try {
+            return new CoordinateTransformationFactory().createFromCoordinateSystems(utm.getGeographicCoordinateSystem(), utm).getMathTransform();
+        } finally {
+            CoordinateTransformationFactory.setUseKrugerTransverseMercator(previous);
+        }
+    }
+
+    @Test
+    public void matchesTransverseMercatorInsideZone() throws Exception {
+        IMathTransform kruger = createProjection(true);
+        IMathTransform snyder = createProjection(false);
+        assertTrue(kruger instanceof KrugerTransverseMercator);
+        assertTrue(snyder instanceof TransverseMercator);
+
+        double[] points = TestData.createGeographicPoints(500, 2);
+        for (int i = 0; i < points.length; i += 2) {
+            double[] p = {points[i], points[i + 1]};
+            double[] expected = snyder.transform(p);
+            double[] actual = kruger.transform(p);
+            assertEquals(expected[0], actual[0], 1e-4);
+            assertEquals(expected[1], actual[1], 1e-4);
+
+            double[] back = kruger.inverse().transform(actual);
+            double[] snyderBack = snyder.inverse().transform(actual);
+            assertEquals(snyderBack[0], back[0], 1e-9);
+            assertEquals(snyderBack[1], back[1], 1e-9);
+        }
+    }
+
+    @Test
+    public void roundTripsFarFromCentralMeridian() throws Exception {
+        IMathTransform kruger = createProjection(true);
+        for (double lon = -30; lon <= 60; lon += 5) {
+            for (double lat = -70; lat <= 70; lat += 10) {
+                double[] back = kruger.inverse().transform(kruger.transform(new double[]{lon, lat}));
+                assertEquals(lon, back[0], 1e-11);
+                assertEquals(lat, back[1], 1e-11);
+            }
+        }
+    }
+
+}
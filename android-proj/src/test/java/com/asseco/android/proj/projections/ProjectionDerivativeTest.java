@@ -0,0 +1,103 @@
+package com.asseco.android.proj.projections;
+
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.transformations.ConcatenatedTransform;
+import com.asseco.android.proj.transformations.CoordinateTransformationFactory;
+import com.asseco.android.proj.transformations.IMathTransform;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectionDerivativeTest {
+    /**
+     * Largest difference to the central differences, relative to the largest element of the
+     * row of the matrix. The truncation and rounding error of the differences is below 4e-7.
+     */
+    private static final double TOLERANCE = 1e-6;
+    /**
+     * The inverse series of Cassini-Soldner is truncated, it misses the forward projection by
+     * up to 0.14 m at the sample points, so its differences deviate from the inverted forward
+     * derivative by up to 2e-6.
+     */
+    private static final double CASSINI_INVERSE_TOLERANCE = 5e-6;
+    /**
+     * The geocentric to geodetic conversion of the datum shift is approximate, its heights miss
+     * the geodetic to geocentric conversion by up to 5 mm, so the differences of the heights
+     * deviate from the inverted derivative by up to 4e-5.
+     */
+    private static final double CHAIN_HEIGHT_TOLERANCE = 1e-4;
+    private static final int POINTS = 200;
+
+    /**
+     * Compares the packed derivatives with central differences of the transform and with the
+     * single point derivative.
+     *
+     * @param step            the step of the differences, in units of the source ordinals
+     * @param tolerance       the relative tolerance of the horizontal rows
+     * @param heightTolerance the relative tolerance of the height row
+     */
+    private static void assertDerivatives(String message, IMathTransform transform, double[] points, int dimension, double step, double tolerance, double heightTolerance) throws Exception {
+        int n = points.length / dimension;
+        double[] matrices = new double[n * dimension * dimension];
+        transform.derivative(points, 0, matrices, 0, n, dimension);
+        for (int i = 0; i < n; i++) {
+            double[] point = Arrays.copyOfRange(points, i * dimension, (i + 1) * dimension);
+            int offset = i * dimension * dimension;
+            double[] norms = new double[dimension];
+            for (int j = 0; j < dimension * dimension; j++)
+                norms[j / dimension] = Math.max(norms[j / dimension], Math.abs(matrices[offset + j]));
+            for (int col = 0; col < dimension; col++) {
+                double[] ahead = point.clone();
+                double[] behind = point.clone();
+                ahead[col] += step;
+                behind[col] -= step;
+                double[] a = transform.transform(ahead);
+                double[] b = transform.transform(behind);
+                for (int row = 0; row < dimension; row++) {
+                    double expected = (a[row] - b[row]) / (2 * step);
+                    assertEquals(message + " point " + i + " element " + row + "," + col, expected, matrices[offset + row * dimension + col], (row < 2 ? tolerance : heightTolerance) * norms[row]);
+                }
+            }
+        }
+        double[][] single = transform.derivative(Arrays.copyOf(points, dimension));
+        for (int row = 0; row < dimension; row++) {
+            for (int col = 0; col < dimension; col++)
+                assertEquals(message + " single point", matrices[row * dimension + col], single[row][col], 0);
+        }
+    }
+
+    @Test
+    public void projectionsMatchCentralDifferences() throws Exception {
+        for (int dimension = 2; dimension <= 3; dimension++) {
+            double[] geographic = TestData.createGeographicPoints(POINTS, dimension);
+            for (String name : TestData.PROJECTIONS) {
+                IMathTransform forward = TestData.createProjection(name);
+                double[] projected = new double[geographic.length];
+                forward.transform(geographic, 0, projected, 0, POINTS, dimension);
+                assertDerivatives(name + " " + dimension + "D", forward, geographic, dimension, 1e-6, TOLERANCE, TOLERANCE);
+                assertDerivatives(name + " inverse " + dimension + "D", forward.inverse(), projected, dimension, 1e-2, name.equals("Cassini_Soldner") ? CASSINI_INVERSE_TOLERANCE : TOLERANCE, TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void datumShiftChainsMatchCentralDifferences() throws Exception {
+        CoordinateTransformationFactory factory = new CoordinateTransformationFactory();
+        double[] geographic = TestData.createGeographicPoints(POINTS, 3);
+        for (String wkt : new String[]{TestData.KROVAK, TestData.UTM33}) {
+            IMathTransform chain = factory.createFromCoordinateSystems(TestData.parse(TestData.WGS84), TestData.parse(wkt)).getMathTransform();
+            assertTrue(chain instanceof ConcatenatedTransform);
+            double[] projected = new double[geographic.length];
+            chain.transform(geographic, 0, projected, 0, POINTS, 3);
+            //the heights go through geocentric coordinates of 6e6 m, whose rounding needs a larger step
+            assertDerivatives("chain", chain, geographic, 3, 1e-4, TOLERANCE, CHAIN_HEIGHT_TOLERANCE);
+            assertDerivatives("chain inverse", chain.inverse(), projected, 3, 1e-2, TOLERANCE, CHAIN_HEIGHT_TOLERANCE);
+            assertDerivatives("compiled chain", ((ConcatenatedTransform) chain).compile(), geographic, 3, 1e-4, TOLERANCE, CHAIN_HEIGHT_TOLERANCE);
+        }
+    }
+
+}
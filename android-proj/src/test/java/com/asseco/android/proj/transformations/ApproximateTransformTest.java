@@ -0,0 +1,141 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.TestData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApproximateTransformTest {
+    private static final int POINTS = 2001;
+
+    /**
+     * Counts the points transformed exactly by the approximation.
+     */
+    private static class CountingTransform extends MathTransform {
+        private final IMathTransform _transform;
+        private int _count;
+
+        CountingTransform(IMathTransform transform) {
+            _transform = transform;
+        }
+
+        public int getDimSource() throws Exception {
+            return _transform.getDimSource();
+        }
+
+        public int getDimTarget() throws Exception {
+            return _transform.getDimTarget();
+        }
+
+        public IMathTransform inverse() throws Exception {
+            return _transform.inverse();
+        }
+
+        public double[] transform(double[] point) throws Exception {
+            _count++;
+            return _transform.transform(point);
+        }
+
+        public String getWKT() throws Exception {
+            return _transform.getWKT();
+        }
+
+        public String getXML() throws Exception {
+            return _transform.getXML();
+        }
+
+    }
+
+    private static IMathTransform createExact() throws Exception {
+        return new CoordinateTransformationFactory().createFromCoordinateSystems(TestData.parse(TestData.WGS84), TestData.parse(TestData.KROVAK)).getMathTransform();
+    }
+
+    /**
+     * Creates packed points along a straight line of geographic coordinates across Czechia.
+     */
+    private static double[] createLine(int count) {
+        double[] points = new double[count * 2];
+        for (int i = 0; i < count; i++) {
+            double t = i / (double) (count - 1);
+            points[i * 2] = 12.1 + t * 6.7;
+            points[i * 2 + 1] = 48.6 + t * 2.4;
+        }
+        return points;
+    }
+
+    /**
+     * Asserts that the approximated points are within a distance of the exact points.
+     */
+    private static void assertWithin(double[] expected, double[] actual, double maxError) {
+        for (int i = 0; i < expected.length; i += 2) {
+            double d = Math.hypot(actual[i] - expected[i], actual[i + 1] - expected[i + 1]);
+            assertTrue("point " + i / 2 + " error " + d, d <= maxError);
+        }
+    }
+
+    @Test
+    public void denseLineIsWithinMaxError() throws Exception {
+        IMathTransform exact = createExact();
+        double[] points = createLine(POINTS);
+        double[] expected = new double[points.length];
+        exact.transform(points, 0, expected, 0, POINTS, 2);
+        for (double maxError : new double[]{0.01, 1, 100}) {
+            double[] actual = new double[points.length];
+            new ApproximateTransform(exact, maxError).transform(points, 0, actual, 0, POINTS, 2);
+            assertWithin(expected, actual, maxError);
+        }
+    }
+
+    @Test
+    public void curveExceedingMaxErrorIsSubdivided() throws Exception {
+        CountingTransform counting = new CountingTransform(createExact());
+        double[] points = createLine(POINTS);
+        double[] actual = new double[points.length];
+        //the middle of the projected line is 8 km off the chord, so only a larger error interpolates the whole run
+        new ApproximateTransform(counting, 10000).transform(points, 0, actual, 0, POINTS, 2);
+        assertEquals(3, counting._count);
+
+        counting._count = 0;
+        new ApproximateTransform(counting, 1000).transform(points, 0, actual, 0, POINTS, 2);
+        assertTrue("exact points " + counting._count, counting._count > 3 && counting._count < POINTS / 4);
+        double[] expected = new double[points.length];
+        createExact().transform(points, 0, expected, 0, POINTS, 2);
+        assertWithin(expected, actual, 1000);
+    }
+
+    @Test
+    public void inPlaceAndOffsetTransformsAgree() throws Exception {
+        ApproximateTransform approximation = new ApproximateTransform(createExact(), 0.01);
+        double[] points = createLine(POINTS);
+        double[] expected = new double[points.length];
+        approximation.transform(points, 0, expected, 0, POINTS, 2);
+
+        double[] offset = new double[points.length + 10];
+        double[] source = new double[points.length + 6];
+        System.arraycopy(points, 0, source, 6, points.length);
+        approximation.transform(source, 6, offset, 10, POINTS, 2);
+        double[] inPlace = points.clone();
+        approximation.transform(inPlace, 0, inPlace, 0, POINTS, 2);
+        //the destination overlaps the source shifted by a point
+        double[] shifted = new double[points.length + 2];
+        System.arraycopy(points, 0, shifted, 0, points.length);
+        approximation.transform(shifted, 0, shifted, 2, POINTS, 2);
+        double[] xs = new double[POINTS];
+        double[] ys = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = points[i * 2];
+            ys[i] = points[i * 2 + 1];
+        }
+        approximation.transform(xs, ys, null, 0, POINTS);
+        //the arrays are approximated in runs of a block, which are checked against the error
+        for (int i = 0; i < points.length; i++) {
+            assertEquals(expected[i], offset[10 + i], 0);
+            assertEquals(expected[i], inPlace[i], 0);
+            assertEquals(expected[i], shifted[2 + i], 0);
+            assertEquals(expected[i], i % 2 == 0 ? xs[i / 2] : ys[i / 2], 0.02);
+        }
+    }
+
+}
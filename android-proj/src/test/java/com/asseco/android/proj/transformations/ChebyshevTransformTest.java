@@ -0,0 +1,84 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.TestData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChebyshevTransformTest {
+
+    private static IMathTransform createExact() throws Exception {
+        return new CoordinateTransformationFactory().createFromCoordinateSystems(TestData.parse(TestData.WGS84), TestData.parse(TestData.KROVAK)).getMathTransform();
+    }
+
+    @Test
+    public void approximationMatchesExactTransform() throws Exception {
+        IMathTransform exact = createExact();
+        ChebyshevTransform approximation = new ChebyshevTransform(exact, 12, 48.5, 19, 51.1, 0.001);
+        assertTrue(approximation.getError() <= 0.001);
+
+        double[] points = TestData.createGeographicPoints(1000, 2);
+        double[] expected = new double[points.length];
+        double[] actual = new double[points.length];
+        exact.transform(points, 0, expected, 0, 1000, 2);
+        approximation.transform(points, 0, actual, 0, 1000, 2);
+        for (int i = 0; i < points.length; i += 2) {
+            double d = Math.hypot(actual[i] - expected[i], actual[i + 1] - expected[i + 1]);
+            assertTrue("error " + d, d <= 0.001);
+        }
+    }
+
+    @Test
+    public void pointsKeepTheirDimensionInsideAndOutsideTheExtent() throws Exception {
+        IMathTransform exact = createExact();
+        ChebyshevTransform approximation = new ChebyshevTransform(exact, 12, 48.5, 19, 51.1, 0.001);
+        int dimension = Math.max(2, approximation.getDimTarget());
+        assertEquals(dimension, approximation.transform(new double[]{15, 50}).length);
+        assertEquals(dimension, approximation.transform(new double[]{25, 50}).length);
+
+        double[] inside = approximation.transform(new double[]{15, 50, 300});
+        double[] outside = approximation.transform(new double[]{25, 50, 300});
+        assertEquals(3, inside.length);
+        assertEquals(3, outside.length);
+        assertEquals(300, inside[2], 0);
+        //the fit is of points without heights
+        double[] expected = exact.transform(new double[]{15, 50});
+        assertEquals(expected[0], inside[0], 0.001);
+        assertEquals(expected[1], inside[1], 0.001);
+    }
+
+    @Test
+    public void heightsPassThroughPackedAndArrayPoints() throws Exception {
+        IMathTransform exact = createExact();
+        ChebyshevTransform approximation = new ChebyshevTransform(exact, 12, 48.5, 19, 51.1, 0.001);
+        double[] points = TestData.createGeographicPoints(100, 3);
+        double[] packed = points.clone();
+        approximation.transform(packed, 0, packed, 0, 100, 3);
+        double[] xs = new double[100];
+        double[] ys = new double[100];
+        double[] zs = new double[100];
+        for (int i = 0; i < 100; i++) {
+            xs[i] = points[i * 3];
+            ys[i] = points[i * 3 + 1];
+            zs[i] = points[i * 3 + 2];
+        }
+        approximation.transform(xs, ys, zs, 0, 100);
+        for (int i = 0; i < 100; i++) {
+            double[] expected = approximation.transform(new double[]{points[i * 3], points[i * 3 + 1]});
+            assertEquals(expected[0], packed[i * 3], 1e-9);
+            assertEquals(expected[1], packed[i * 3 + 1], 1e-9);
+            assertEquals(points[i * 3 + 2], packed[i * 3 + 2], 0);
+            assertEquals(expected[0], xs[i], 1e-9);
+            assertEquals(expected[1], ys[i], 1e-9);
+            assertEquals(points[i * 3 + 2], zs[i], 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyExtent() throws Exception {
+        new ChebyshevTransform(createExact(), 12, 48.5, 12, 51.1, 0.001);
+    }
+
+}
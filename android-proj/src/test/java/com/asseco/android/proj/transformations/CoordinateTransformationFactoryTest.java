@@ -0,0 +1,117 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.ICoordinateSystem;
+import com.asseco.android.proj.IProjectedCoordinateSystem;
+import com.asseco.android.proj.TestData;
+import com.asseco.android.proj.projections.KrugerTransverseMercator;
+import com.asseco.android.proj.projections.MapProjection;
+import com.asseco.android.proj.projections.TransverseMercator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoordinateTransformationFactoryTest {
+    private final CoordinateTransformationFactory _factory = new CoordinateTransformationFactory();
+
+    @Test
+    public void sameSystemSimplifiesToIdentity() throws Exception {
+        ICoordinateSystem utm = TestData.parse(TestData.UTM33);
+        IMathTransform mt = _factory.createFromCoordinateSystems(utm, utm).getMathTransform();
+        assertTrue(mt.identity());
+
+        double[] res = mt.transform(new double[]{450000, 5500000});
+        assertEquals(450000, res[0], 1e-6);
+        assertEquals(5500000, res[1], 1e-6);
+    }
+
+    @Test
+    public void simplifiedChainMatchesConcatenatedSteps() throws Exception {
+        IProjectedCoordinateSystem krovak = (IProjectedCoordinateSystem) TestData.parse(TestData.KROVAK);
+        IProjectedCoordinateSystem utm = (IProjectedCoordinateSystem) TestData.parse(TestData.UTM33);
+        assertMatchesSteps(krovak, utm, krovak.getGeographicCoordinateSystem(), utm.getGeographicCoordinateSystem());
+        //the inverse projection and the projection cancel
+        assertMatchesSteps(utm, utm, utm.getGeographicCoordinateSystem(), utm.getGeographicCoordinateSystem());
+        assertMatchesSteps(krovak, krovak, krovak.getGeographicCoordinateSystem(), krovak.getGeographicCoordinateSystem());
+    }
+
+    /**
+     * Compares the simplified chain with the plain concatenation of the steps through the
+     * geographic coordinate systems, which is what the chain is without simplification. The
+     * plain chain keeps the round trip error of a projection and its inverse.
+     */
+    private void assertMatchesSteps(IProjectedCoordinateSystem source, IProjectedCoordinateSystem target, ICoordinateSystem sourceGcs, ICoordinateSystem targetGcs) throws Exception {
+        List<ICoordinateTransformation> steps = new ArrayList<ICoordinateTransformation>();
+        steps.add(_factory.createFromCoordinateSystems(source, sourceGcs));
+        steps.add(_factory.createFromCoordinateSystems(sourceGcs, targetGcs));
+        steps.add(_factory.createFromCoordinateSystems(targetGcs, target));
+        IMathTransform plain = new ConcatenatedTransform(steps);
+        IMathTransform simplified = _factory.createFromCoordinateSystems(source, target).getMathTransform();
+        IMathTransform toSource = _factory.createFromCoordinateSystems(TestData.parse(TestData.WGS84), source).getMathTransform();
+
+        double[] geographic = TestData.createGeographicPoints(200, 2);
+        for (int i = 0; i < geographic.length; i += 2) {
+            double[] p = toSource.transform(new double[]{geographic[i], geographic[i + 1]});
+            double[] expected = plain.transform(p);
+            double[] actual = simplified.transform(p);
+            assertEquals(expected[0], actual[0], 1e-4);
+            assertEquals(expected[1], actual[1], 1e-4);
+        }
+    }
+
+    @Test
+    public void datumShiftsMergeIntoOneLinearStep() throws Exception {
+        ICoordinateSystem source = TestData.parse(TestData.KROVAK);
+        ICoordinateSystem target = TestData.parse(TestData.UTM33);
+        IMathTransform mt = _factory.createFromCoordinateSystems(source, target).getMathTransform();
+        assertTrue(mt instanceof ConcatenatedTransform);
+
+        int linear = 0;
+        for (ICoordinateTransformation ct : ((ConcatenatedTransform) mt).getCoordinateTransformationList()) {
+            IMathTransform step = ct.getMathTransform();
+            if (step instanceof AffineTransform || step instanceof DatumTransform)
+                linear++;
+        }
+        assertTrue("linear steps " + linear, linear <= 1);
+    }
+
+    @Test
+    public void cacheKeepsTransverseMercatorEnginesApart() throws Exception {
+        IProjectedCoordinateSystem utm = (IProjectedCoordinateSystem) TestData.parse(TestData.UTM33);
+        ICoordinateSystem gcs = utm.getGeographicCoordinateSystem();
+        boolean previous = CoordinateTransformationFactory.getUseKrugerTransverseMercator();
+        try {
+            CoordinateTransformationFactory.setUseKrugerTransverseMercator(false);
+            assertTrue(_factory.createFromCoordinateSystems(gcs, utm).getMathTransform() instanceof TransverseMercator);
+            CoordinateTransformationFactory.setUseKrugerTransverseMercator(true);
+            assertTrue(_factory.createFromCoordinateSystems(gcs, utm).getMathTransform() instanceof KrugerTransverseMercator);
+            CoordinateTransformationFactory.setUseKrugerTransverseMercator(false);
+            assertTrue(_factory.createFromCoordinateSystems(gcs, utm).getMathTransform() instanceof TransverseMercator);
+        } finally {
+            CoordinateTransformationFactory.setUseKrugerTransverseMercator(previous);
+        }
+    }
+
+    @Test
+    public void cacheKeepsFastMathModesApart() throws Exception {
+        IProjectedCoordinateSystem utm = (IProjectedCoordinateSystem) TestData.parse(TestData.UTM33);
+        ICoordinateSystem gcs = utm.getGeographicCoordinateSystem();
+        boolean previous = MapProjection.getDefaultFastMath();
+        try {
+            MapProjection.setDefaultFastMath(false);
+            assertFalse(((MapProjection) _factory.createFromCoordinateSystems(gcs, utm).getMathTransform()).getFastMath());
+            MapProjection.setDefaultFastMath(true);
+            assertTrue(((MapProjection) _factory.createFromCoordinateSystems(gcs, utm).getMathTransform()).getFastMath());
+            MapProjection.setDefaultFastMath(false);
+            assertFalse(((MapProjection) _factory.createFromCoordinateSystems(gcs, utm).getMathTransform()).getFastMath());
+        } finally {
+            MapProjection.setDefaultFastMath(previous);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.ICoordinateSystem;
+import com.asseco.android.proj.TestData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EnvelopeTransformerTest {
+    private final CoordinateTransformationFactory _factory = new CoordinateTransformationFactory();
+
+    /**
+     * Gets the envelope of densely sampled edges of a rectangle, the smallest and largest
+     * second ordinals are exact to the sampling.
+     */
+    private static double[] sampleEdges(IMathTransform transform, double[] envelope) throws Exception {
+        int n = 20000;
+        double[] corners = {envelope[0], envelope[1], envelope[2], envelope[1], envelope[2], envelope[3], envelope[0], envelope[3]};
+        double[] res = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int edge = 0; edge < 4; edge++) {
+            double x0 = corners[edge * 2];
+            double y0 = corners[edge * 2 + 1];
+            double x1 = corners[(edge * 2 + 2) % 8];
+            double y1 = corners[(edge * 2 + 3) % 8];
+            for (int i = 0; i < n; i++) {
+                double t = (double) i / n;
+                double[] p = transform.transform(new double[]{x0 + t * (x1 - x0), y0 + t * (y1 - y0)});
+                res[0] = Math.min(res[0], p[0]);
+                res[1] = Math.min(res[1], p[1]);
+                res[2] = Math.max(res[2], p[0]);
+                res[3] = Math.max(res[3], p[1]);
+            }
+        }
+        return res;
+    }
+
+    @Test
+    public void curvedEdgesMatchSampledEdges() throws Exception {
+        ICoordinateTransformation transformation = _factory.createFromCoordinateSystems(TestData.parse(TestData.KROVAK), TestData.parse(TestData.WGS84));
+        double[] envelope = {-905000, -1230000, -430000, -935000};
+        double[] expected = sampleEdges(transformation.getMathTransform(), envelope);
+        double[] actual = EnvelopeTransformer.transform(transformation, envelope);
+        for (int i = 0; i < 4; i++)
+            assertEquals(expected[i], actual[i], 1e-7);
+    }
+
+    @Test
+    public void antimeridianDoesNotCoarsenTheTolerance() throws Exception {
+        ICoordinateSystem utm60 = TestData.parse(TestData.UTM33.replace("PARAMETER[\"central_meridian\",15]", "PARAMETER[\"central_meridian\",177]"));
+        ICoordinateTransformation transformation = _factory.createFromCoordinateSystems(utm60, TestData.parse(TestData.WGS84));
+        double[] envelope = {300000, 5000000, 900000, 6000000};
+        double[] expected = sampleEdges(transformation.getMathTransform(), envelope);
+        double[] actual = EnvelopeTransformer.transform(transformation, envelope);
+        //the longitudes cross the antimeridian, the smallest is larger than the largest
+        assertTrue(actual[0] > actual[2]);
+        assertEquals(expected[1], actual[1], 2e-7);
+        assertEquals(expected[3], actual[3], 2e-7);
+    }
+
+}
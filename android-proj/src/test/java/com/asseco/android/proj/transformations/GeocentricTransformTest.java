@@ -0,0 +1,40 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.ProjectionParameter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class GeocentricTransformTest {
+
+    @Test
+    public void parametersAreCopied() throws Exception {
+        List<ProjectionParameter> parameters = new ArrayList<ProjectionParameter>();
+        parameters.add(new ProjectionParameter("semi_major", 6378137));
+        parameters.add(new ProjectionParameter("semi_minor", 6356752.314245179));
+        GeocentricTransform transform = new GeocentricTransform(parameters);
+        double[] point = {16.5, 50.1, 300};
+        double[] geocentric = transform.transform(point);
+        parameters.clear();
+
+        assertEquals(2, transform._Parameters.size());
+        try {
+            transform._Parameters.clear();
+            fail("The parameters have been changed.");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+        //the inverse is created from the parameters after the caller cleared its list,
+        //its conversion is approximate to a few millimeters
+        double[] back = transform.inverse().transform(geocentric);
+        assertEquals(point[0], back[0], 1e-7);
+        assertEquals(point[1], back[1], 1e-7);
+        assertEquals(point[2], back[2], 0.01);
+    }
+
+}
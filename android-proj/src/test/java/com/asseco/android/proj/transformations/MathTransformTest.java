@@ -0,0 +1,54 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.IProjectedCoordinateSystem;
+import com.asseco.android.proj.TestData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MathTransformTest {
+
+    private static MathTransform createProjection() throws Exception {
+        IProjectedCoordinateSystem utm = (IProjectedCoordinateSystem) TestData.parse(TestData.UTM33);
+        CoordinateTransformationFactory factory = new CoordinateTransformationFactory();
+        return (MathTransform) factory.createFromCoordinateSystems(utm.getGeographicCoordinateSystem(), utm).getMathTransform();
+    }
+
+    @Test
+    public void statusTransformKeepsPointsWithMissingHeight() throws Exception {
+        MathTransform mt = createProjection();
+        double[] src = TestData.createGeographicPoints(3, 3);
+        src[2] = Double.NaN;
+        src[5] = Double.NaN;
+        double[] dst = new double[src.length];
+        DomainFlags[] status = new DomainFlags[3];
+
+        assertEquals(0, mt.transform(src, 0, dst, 0, 3, 3, status));
+        assertArrayEquals(new DomainFlags[]{DomainFlags.Inside, DomainFlags.Inside, DomainFlags.Inside}, status);
+        for (int i = 0; i < 3; i++) {
+            double[] expected = mt.transform(new double[]{src[i * 3], src[i * 3 + 1]});
+            assertEquals(expected[0], dst[i * 3], 1e-9);
+            assertEquals(expected[1], dst[i * 3 + 1], 1e-9);
+        }
+        assertTrue(Double.isNaN(dst[2]));
+        assertEquals(src[8], dst[8], 1e-9);
+    }
+
+    @Test
+    public void statusTransformFailsPointsWithMissingHorizontalOrdinals() throws Exception {
+        MathTransform mt = createProjection();
+        double[] src = TestData.createGeographicPoints(3, 3);
+        src[4] = Double.NaN;
+        double[] dst = new double[src.length];
+        DomainFlags[] status = new DomainFlags[3];
+
+        assertEquals(1, mt.transform(src, 0, dst, 0, 3, 3, status));
+        assertArrayEquals(new DomainFlags[]{DomainFlags.Inside, DomainFlags.Outside, DomainFlags.Inside}, status);
+        for (int j = 3; j < 6; j++)
+            assertTrue(Double.isNaN(dst[j]));
+    }
+
+}
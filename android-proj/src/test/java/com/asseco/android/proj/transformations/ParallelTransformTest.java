@@ -0,0 +1,129 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.TestData;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelTransformTest {
+    private static final int THRESHOLD = 4096;
+
+    /**
+     * Runs the chunks on a thread pool and counts them.
+     */
+    private static class CountingExecutor implements Executor {
+        private final ExecutorService _pool = Executors.newFixedThreadPool(4);
+        private final AtomicInteger _count = new AtomicInteger();
+
+        public void execute(Runnable command) {
+            _count.incrementAndGet();
+            _pool.execute(command);
+        }
+
+    }
+
+    /**
+     * Fails for a single point given by its first ordinal.
+     */
+    private static class FailingTransform extends MathTransform {
+        private final IMathTransform _transform;
+        private final double _failingX;
+
+        FailingTransform(IMathTransform transform, double failingX) {
+            _transform = transform;
+            _failingX = failingX;
+        }
+
+        public int getDimSource() throws Exception {
+            return _transform.getDimSource();
+        }
+
+        public int getDimTarget() throws Exception {
+            return _transform.getDimTarget();
+        }
+
+        public IMathTransform inverse() throws Exception {
+            return _transform.inverse();
+        }
+
+        public double[] transform(double[] point) throws Exception {
+            if (point[0] == _failingX)
+                throw new IllegalArgumentException("Failing point.");
+            return _transform.transform(point);
+        }
+
+        public String getWKT() throws Exception {
+            return _transform.getWKT();
+        }
+
+        public String getXML() throws Exception {
+            return _transform.getXML();
+        }
+
+    }
+
+    private static IMathTransform createExact() throws Exception {
+        return new CoordinateTransformationFactory().createFromCoordinateSystems(TestData.parse(TestData.WGS84), TestData.parse(TestData.KROVAK)).getMathTransform();
+    }
+
+    @Test
+    public void parallelResultsMatchSequentialAroundThreshold() throws Exception {
+        IMathTransform exact = createExact();
+        CountingExecutor executor = new CountingExecutor();
+        try {
+            ParallelTransform parallel = new ParallelTransform(exact, executor, THRESHOLD);
+            for (int count : new int[]{THRESHOLD - 1, THRESHOLD, THRESHOLD + 1}) {
+                double[] points = TestData.createGeographicPoints(count, 3);
+                double[] expected = new double[points.length];
+                exact.transform(points, 0, expected, 0, count, 3);
+                double[] actual = new double[points.length];
+                executor._count.set(0);
+                parallel.transform(points, 0, actual, 0, count, 3);
+                if (count < THRESHOLD)
+                    assertEquals(0, executor._count.get());
+                else
+                    assertTrue("chunks of " + count, executor._count.get() > 1);
+                for (int i = 0; i < points.length; i++)
+                    assertEquals(expected[i], actual[i], 0);
+
+                double[] inPlace = points.clone();
+                parallel.transform(inPlace, 0, inPlace, 0, count, 3);
+                for (int i = 0; i < points.length; i++)
+                    assertEquals(expected[i], inPlace[i], 0);
+            }
+        } finally {
+            executor._pool.shutdown();
+        }
+    }
+
+    @Test
+    public void failureOfChunkReachesCaller() throws Exception {
+        int count = THRESHOLD * 2;
+        double[] points = TestData.createGeographicPoints(count, 2);
+        //a point of a later chunk
+        IMathTransform failing = new FailingTransform(createExact(), points[(count - 10) * 2]);
+        CountingExecutor executor = new CountingExecutor();
+        try {
+            for (ParallelTransform parallel : new ParallelTransform[]{new ParallelTransform(failing, executor, THRESHOLD), new ParallelTransform(failing, null, THRESHOLD)}) {
+                try {
+                    parallel.transform(points, 0, new double[points.length], 0, count, 2);
+                    fail("The failure has not been thrown.");
+                } catch (IllegalArgumentException e) {
+                    assertEquals("Failing point.", e.getMessage());
+                }
+            }
+            assertTrue(executor._count.get() > 1);
+        } finally {
+            executor._pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.TestData;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PipelineTransformTest {
+    /**
+     * More points than a block, the last block is partial.
+     */
+    private static final int POINTS = 1000;
+
+    private static ConcatenatedTransform createChain(String wkt) throws Exception {
+        IMathTransform chain = new CoordinateTransformationFactory().createFromCoordinateSystems(TestData.parse(TestData.WGS84), TestData.parse(wkt)).getMathTransform();
+        assertTrue(chain instanceof ConcatenatedTransform);
+        return (ConcatenatedTransform) chain;
+    }
+
+    @Test
+    public void pipelineMatchesConcatenatedTransform() throws Exception {
+        for (String wkt : new String[]{TestData.KROVAK, TestData.UTM33}) {
+            ConcatenatedTransform chain = createChain(wkt);
+            PipelineTransform pipeline = chain.compile();
+            //the scratch of the thread is reused by calls of both dimensions
+            for (int dimension : new int[]{3, 2, 3}) {
+                double[] points = TestData.createGeographicPoints(POINTS, dimension);
+                double[] expected = new double[points.length];
+                chain.transform(points, 0, expected, 0, POINTS, dimension);
+                double[] actual = new double[points.length + dimension];
+                pipeline.transform(points, 0, actual, dimension, POINTS, dimension);
+                assertArrayEquals(expected, Arrays.copyOfRange(actual, dimension, actual.length), 0);
+                double[] inPlace = points.clone();
+                pipeline.transform(inPlace, 0, inPlace, 0, POINTS, dimension);
+                assertArrayEquals(expected, inPlace, 0);
+                for (int i = 0; i < 10; i++) {
+                    double[] point = Arrays.copyOfRange(points, i * dimension, (i + 1) * dimension);
+                    assertArrayEquals(Arrays.copyOf(chain.transform(point), dimension), Arrays.copyOf(pipeline.transform(point), dimension), 0);
+                }
+
+                double[] back = new double[points.length];
+                chain.inverse().transform(expected, 0, back, 0, POINTS, dimension);
+                pipeline.inverse().transform(expected, 0, inPlace, 0, POINTS, dimension);
+                assertArrayEquals(back, inPlace, 0);
+            }
+        }
+    }
+
+    @Test
+    public void threadsTransformWithTheirOwnScratch() throws Exception {
+        final PipelineTransform pipeline = createChain(TestData.KROVAK).compile();
+        final double[] points = TestData.createGeographicPoints(POINTS, 3);
+        double[] expected = new double[points.length];
+        pipeline.transform(points, 0, expected, 0, POINTS, 3);
+        final double[][] results = new double[4][points.length];
+        final Exception[] failures = new Exception[results.length];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 20; i++)
+                            pipeline.transform(points, 0, results[index], 0, POINTS, 3);
+                    } catch (Exception e) {
+                        failures[index] = e;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (int t = 0; t < threads.length; t++) {
+            if (failures[t] != null)
+                throw failures[t];
+            assertArrayEquals(expected, results[t], 0);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.asseco.android.proj.transformations;
+
+import com.asseco.android.proj.TestData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TileGridCacheTest {
+    private static final int POINTS = 2000;
+    /**
+     * Longitude from which on the failing transform fails, a node of the grids of zoom level 4.
+     */
+    private static final double FAILING_LONGITUDE = 17;
+
+    /**
+     * Counts the points transformed exactly and fails for points east of a longitude.
+     */
+    private static class FailingTransform extends MathTransform {
+        private final IMathTransform _transform;
+        private int _count;
+
+        FailingTransform(IMathTransform transform) {
+            _transform = transform;
+        }
+
+        public int getDimSource() throws Exception {
+            return _transform.getDimSource();
+        }
+
+        public int getDimTarget() throws Exception {
+            return _transform.getDimTarget();
+        }
+
+        public IMathTransform inverse() throws Exception {
+            return _transform.inverse();
+        }
+
+        public double[] transform(double[] point) throws Exception {
+            _count++;
+            if (point[0] >= FAILING_LONGITUDE)
+                throw new IllegalArgumentException("The point is outside of the domain.");
+            return _transform.transform(point);
+        }
+
+        public String getWKT() throws Exception {
+            return _transform.getWKT();
+        }
+
+        public String getXML() throws Exception {
+            return _transform.getXML();
+        }
+
+    }
+
+    private static ICoordinateTransformation createExact() throws Exception {
+        return new CoordinateTransformationFactory().createFromCoordinateSystems(TestData.parse(TestData.WGS84), TestData.parse(TestData.KROVAK));
+    }
+
+    /**
+     * Creates a cache of geographic tiles covering the Czech Republic, the tile of zoom level 0 spans 8 degrees.
+     */
+    private static TileGridCache createCache(int capacity) {
+        return new TileGridCache(12, 51.5, 8, TileGridCache.DEFAULT_GRID_SIZE, capacity);
+    }
+
+    @Test
+    public void interpolationErrorShrinksWithTileSize() throws Exception {
+        ICoordinateTransformation exact = createExact();
+        double[] points = TestData.createGeographicPoints(POINTS, 2);
+        double[] expected = new double[points.length];
+        exact.getMathTransform().transform(points, 0, expected, 0, POINTS, 2);
+        //the error shrinks by 16 from one bound to the next
+        int[] zooms = {4, 6, 8, 10};
+        double[] bounds = {0.2, 0.01, 1e-3, 1e-4};
+        double previous = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < zooms.length; k++) {
+            double[] actual = new double[points.length];
+            createCache(1024).transform(exact, zooms[k], points, 0, actual, 0, POINTS);
+            double error = 0;
+            for (int i = 0; i < points.length; i += 2)
+                error = Math.max(error, Math.hypot(actual[i] - expected[i], actual[i + 1] - expected[i + 1]));
+            assertTrue("zoom " + zooms[k] + " error " + error, error <= bounds[k] && error < previous / 10);
+            previous = error;
+        }
+    }
+
+    @Test
+    public void gridsAreReusedAndLeastRecentlyUsedAreEvicted() throws Exception {
+        FailingTransform transform = new FailingTransform(createExact().getMathTransform());
+        TileGridCache cache = createCache(2);
+        int nodes = cache.getGridSize() * cache.getGridSize();
+        TileGrid a = cache.getGrid(transform, 6, 10, 20);
+        TileGrid b = cache.getGrid(transform, 6, 11, 20);
+        assertEquals(2 * nodes, transform._count);
+        assertSame(a, cache.getGrid(transform, 6, 10, 20));
+        assertEquals(2 * nodes, transform._count);
+        assertEquals(2, cache.size());
+
+        //the second grid is the least recently used one
+        TileGrid c = cache.getGrid(transform, 6, 12, 20);
+        assertEquals(2, cache.size());
+        assertSame(a, cache.getGrid(transform, 6, 10, 20));
+        assertSame(c, cache.getGrid(transform, 6, 12, 20));
+        assertNotSame(b, cache.getGrid(transform, 6, 11, 20));
+        assertEquals(4 * nodes, transform._count);
+
+        //the grids of another transform are kept apart
+        FailingTransform other = new FailingTransform(createExact().getMathTransform());
+        assertNotSame(cache.getGrid(transform, 6, 11, 20), cache.getGrid(other, 6, 11, 20));
+    }
+
+    @Test
+    public void pointsOutsideTheTilesAndNextToFailedNodesAreTransformedExactly() throws Exception {
+        ICoordinateTransformation exact = createExact();
+        FailingTransform transform = new FailingTransform(exact.getMathTransform());
+        ICoordinateTransformation failing = new CoordinateTransformation(exact.getSourceCS(), exact.getTargetCS(), exact.getTransformType(), transform, "", "", -1, "", "");
+        TileGridCache cache = createCache(16);
+        double size = 8 / 16.0 / (cache.getGridSize() - 1);
+        double[] points = {11.5, 50, 15, 52, 15, 43, FAILING_LONGITUDE - size / 2, 49.2, FAILING_LONGITUDE - size * 1.5, 49.2};
+        double[] actual = new double[points.length];
+        cache.transform(failing, 4, points, 0, actual, 0, points.length / 2);
+        for (int i = 0; i < 8; i += 2) {
+            double[] expected = exact.getMathTransform().transform(new double[]{points[i], points[i + 1]});
+            assertEquals(expected[0], actual[i], 0);
+            assertEquals(expected[1], actual[i + 1], 0);
+        }
+        //the cell one further west has only nodes which are transformed
+        double[] expected = exact.getMathTransform().transform(new double[]{points[8], points[9]});
+        assertFalse(expected[0] == actual[8]);
+        assertEquals(expected[0], actual[8], 0.2);
+        assertEquals(expected[1], actual[9], 0.2);
+    }
+
+    @Test
+    public void overlappingInPlaceRangesMatchSeparateArrays() throws Exception {
+        ICoordinateTransformation exact = createExact();
+        TileGridCache cache = createCache(64);
+        double[] points = TestData.createGeographicPoints(POINTS, 2);
+        double[] expected = new double[points.length];
+        cache.transform(exact, 6, points, 0, expected, 0, POINTS);
+
+        //the destination is ahead of the source, so the points are transformed backwards
+        double[] ahead = new double[points.length + 2];
+        System.arraycopy(points, 0, ahead, 0, points.length);
+        cache.transform(exact, 6, ahead, 0, ahead, 2, POINTS);
+        double[] behind = new double[points.length + 2];
+        System.arraycopy(points, 0, behind, 2, points.length);
+        cache.transform(exact, 6, behind, 2, behind, 0, POINTS);
+        for (int i = 0; i < points.length; i++) {
+            assertEquals(expected[i], ahead[2 + i], 0);
+            assertEquals(expected[i], behind[i], 0);
+        }
+    }
+
+}